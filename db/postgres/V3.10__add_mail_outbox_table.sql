@@ -0,0 +1,22 @@
+-- Migration V3.10: Add mail_outbox table
+-- Emails are enqueued here by the request paths and sent to MailerSend by the outbox workers,
+-- with retries; rows failing for good are kept as DEAD (dead letters)
+
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id UUID PRIMARY KEY,
+    idempotency_key VARCHAR(255) NOT NULL UNIQUE,
+    recipient VARCHAR(320) NOT NULL,
+    subject TEXT NOT NULL,
+    html_content TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'DEAD')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP WITH TIME ZONE
+);
+
+-- Rows the workers claim: pending ones, and sending ones whose lease expired
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_due ON mail_outbox(next_attempt_at)
+    WHERE status IN ('PENDING', 'SENDING');
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_status_created_at ON mail_outbox(status, created_at);
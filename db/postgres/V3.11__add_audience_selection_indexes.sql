@@ -0,0 +1,10 @@
+-- Indexes for the bulk-send recipient selection (see UsersRepository.findAudienceIdsAfter)
+
+-- Preference checks: one settings lookup per candidate user
+CREATE INDEX IF NOT EXISTS idx_notification_settings_user_id ON notification_settings(user_id);
+
+-- Role filter
+CREATE INDEX IF NOT EXISTS idx_user_roles_user_id_role ON user_roles(user_id, role);
+
+-- User type filter, read in id order for the keyset pages
+CREATE INDEX IF NOT EXISTS idx_users_user_type_id ON users(user_type, id);
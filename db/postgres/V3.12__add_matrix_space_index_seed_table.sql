@@ -0,0 +1,8 @@
+-- Migration V3.12: Add matrix_space_index_seed table
+-- Spaces whose rooms were fully indexed into matrix_room_index. A room row alone does not mean
+-- its space was seeded (rows also come from sync), so spaces indexed by V3.7 are seeded again
+
+CREATE TABLE IF NOT EXISTS matrix_space_index_seed (
+    space_id VARCHAR(255) PRIMARY KEY,
+    seeded_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,5 @@
+-- Migration V3.4: Add indexes for the reservation listings
+-- Listings are paged by keyset on (start_date, id), for all users (admin) or one user
+
+CREATE INDEX IF NOT EXISTS idx_reservations_start_date_id ON reservations(start_date, id);
+CREATE INDEX IF NOT EXISTS idx_reservations_user_start_date_id ON reservations(user_id, start_date, id);
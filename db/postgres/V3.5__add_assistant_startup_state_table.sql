@@ -0,0 +1,10 @@
+-- Migration V3.5: Add assistant_startup_state table
+-- Stores the content/config hash of what the assistant pushed to Mistral at startup
+-- (document library, agents), so unchanged documents and agents are not uploaded or created again
+
+CREATE TABLE IF NOT EXISTS assistant_startup_state (
+    state_key VARCHAR(255) PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL,
+    resource_id VARCHAR(255),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,15 @@
+-- Migration V3.6: Add matrix_user_links table
+-- Index of Auth0 subject -> MAS user, kept up to date when users are provisioned
+-- and by a periodic delta reconciliation, instead of rescanning every MAS user
+
+CREATE TABLE IF NOT EXISTS matrix_user_links (
+    auth0_subject VARCHAR(255) PRIMARY KEY,
+    mas_user_id VARCHAR(64) NOT NULL,
+    matrix_username VARCHAR(255),
+    user_id UUID REFERENCES users(id) ON DELETE SET NULL,
+    mas_link_id VARCHAR(64),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_matrix_user_links_user_id ON matrix_user_links(user_id);
+CREATE INDEX IF NOT EXISTS idx_matrix_user_links_mas_link_id ON matrix_user_links(mas_link_id);
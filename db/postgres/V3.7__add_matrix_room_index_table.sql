@@ -0,0 +1,14 @@
+-- Migration V3.7: Add matrix_room_index table
+-- Space hierarchy and DM rooms of the assistant, seeded from /hierarchy and kept up to date
+-- from sync state events, so room lookups do not scan the state of every joined room
+
+CREATE TABLE IF NOT EXISTS matrix_room_index (
+    room_id VARCHAR(255) PRIMARY KEY,
+    space_id VARCHAR(255),
+    name VARCHAR(255),
+    dm_user_id VARCHAR(255),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_matrix_room_index_space_id ON matrix_room_index(space_id);
+CREATE INDEX IF NOT EXISTS idx_matrix_room_index_dm_user_id ON matrix_room_index(dm_user_id);
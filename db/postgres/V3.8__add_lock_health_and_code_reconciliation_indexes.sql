@@ -0,0 +1,8 @@
+-- Migration V3.8: Add indexes for lock health and code reconciliation
+-- Low battery / weak signal locks are selected in SQL, and the reconciliation looks up
+-- the active, unexpired codes of a lock
+
+CREATE INDEX IF NOT EXISTS idx_ttlock_configs_battery_level ON ttlock_configs(battery_level);
+CREATE INDEX IF NOT EXISTS idx_ttlock_configs_signal_strength ON ttlock_configs(signal_strength);
+CREATE INDEX IF NOT EXISTS idx_nuki_configs_battery_level ON nuki_configs(battery_level);
+CREATE INDEX IF NOT EXISTS idx_access_codes_active_expires_at ON access_codes(expires_at) WHERE is_active = TRUE;
@@ -0,0 +1,6 @@
+-- Migration V3.9: Add the access code format of spaces
+-- NULL uses the default format (neohoods.portal.spaces.access-codes); access_codes.code is a VARCHAR(10)
+
+ALTER TABLE spaces ADD COLUMN IF NOT EXISTS access_code_length INTEGER
+    CHECK (access_code_length BETWEEN 4 AND 10);
+ALTER TABLE spaces ADD COLUMN IF NOT EXISTS access_code_alphabet VARCHAR(64);
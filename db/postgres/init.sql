@@ -222,6 +222,8 @@ CREATE TABLE ttlock_configs (
 
 CREATE INDEX idx_ttlock_configs_digital_lock_id ON ttlock_configs(digital_lock_id);
 CREATE INDEX idx_ttlock_configs_device_id ON ttlock_configs(device_id);
+CREATE INDEX idx_ttlock_configs_battery_level ON ttlock_configs(battery_level);
+CREATE INDEX idx_ttlock_configs_signal_strength ON ttlock_configs(signal_strength);
 
 -- Nuki Configuration
 CREATE TABLE nuki_configs (
@@ -238,6 +240,7 @@ CREATE TABLE nuki_configs (
 
 CREATE INDEX idx_nuki_configs_digital_lock_id ON nuki_configs(digital_lock_id);
 CREATE INDEX idx_nuki_configs_device_id ON nuki_configs(device_id);
+CREATE INDEX idx_nuki_configs_battery_level ON nuki_configs(battery_level);
 
 -- Note: ttlock_devices table is kept for reference but data is inserted directly into digital_locks and ttlock_configs
 
@@ -263,6 +266,8 @@ CREATE TABLE spaces (
     allowed_hours_end VARCHAR(5) DEFAULT '20:00',
     digital_lock_id UUID REFERENCES digital_locks(id) ON DELETE SET NULL,
     access_code_enabled BOOLEAN NOT NULL DEFAULT FALSE,
+    access_code_length INTEGER CHECK (access_code_length BETWEEN 4 AND 10),
+    access_code_alphabet VARCHAR(64),
     enable_notifications BOOLEAN NOT NULL DEFAULT TRUE,
     cleaning_enabled BOOLEAN NOT NULL DEFAULT FALSE,
     cleaning_email VARCHAR(255),
@@ -420,6 +425,8 @@ CREATE INDEX idx_reservations_space_dates ON reservations(space_id, start_date,
 CREATE INDEX idx_reservations_stripe_payment_intent ON reservations(stripe_payment_intent_id);
 CREATE INDEX idx_reservations_stripe_session ON reservations(stripe_session_id);
 CREATE INDEX idx_reservations_payment_expiration ON reservations(status, payment_expires_at) WHERE status = 'PENDING_PAYMENT';
+CREATE INDEX idx_reservations_start_date_id ON reservations(start_date, id);
+CREATE INDEX idx_reservations_user_start_date_id ON reservations(user_id, start_date, id);
 
 -- Access Codes (migrated from V2__Create_reservations_tables.sql)
 CREATE TABLE access_codes (
@@ -443,6 +450,7 @@ CREATE INDEX idx_access_codes_active ON access_codes(is_active);
 CREATE INDEX idx_access_codes_expires_at ON access_codes(expires_at);
 CREATE INDEX idx_access_codes_digital_lock ON access_codes(digital_lock_id);
 CREATE INDEX idx_access_codes_digital_lock_code ON access_codes(digital_lock_code_id);
+CREATE INDEX idx_access_codes_active_expires_at ON access_codes(expires_at) WHERE is_active = TRUE;
 
 -- Add constraints
 ALTER TABLE reservations ADD CONSTRAINT chk_reservations_dates CHECK (end_date >= start_date);
@@ -584,8 +592,70 @@ CREATE TABLE matrix_bot_error_notifications (
 
 CREATE INDEX idx_matrix_bot_error_notifications_date ON matrix_bot_error_notifications(last_notification_date);
 
+-- Content/config hash of the assistant documents and agents pushed to Mistral at startup
+CREATE TABLE assistant_startup_state (
+    state_key VARCHAR(255) PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL,
+    resource_id VARCHAR(255),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Auth0 subject -> MAS user index used when provisioning Matrix users
+CREATE TABLE matrix_user_links (
+    auth0_subject VARCHAR(255) PRIMARY KEY,
+    mas_user_id VARCHAR(64) NOT NULL,
+    matrix_username VARCHAR(255),
+    user_id UUID REFERENCES users(id) ON DELETE SET NULL,
+    mas_link_id VARCHAR(64),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_matrix_user_links_user_id ON matrix_user_links(user_id);
+CREATE INDEX idx_matrix_user_links_mas_link_id ON matrix_user_links(mas_link_id);
+
+-- Space hierarchy and DM rooms of the assistant
+CREATE TABLE matrix_room_index (
+    room_id VARCHAR(255) PRIMARY KEY,
+    space_id VARCHAR(255),
+    name VARCHAR(255),
+    dm_user_id VARCHAR(255),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_matrix_room_index_space_id ON matrix_room_index(space_id);
+CREATE INDEX idx_matrix_room_index_dm_user_id ON matrix_room_index(dm_user_id);
+
+-- Spaces whose rooms were fully indexed into matrix_room_index
+CREATE TABLE matrix_space_index_seed (
+    space_id VARCHAR(255) PRIMARY KEY,
+    seeded_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Emails waiting to be sent to MailerSend, and dead letters
+CREATE TABLE mail_outbox (
+    id UUID PRIMARY KEY,
+    idempotency_key VARCHAR(255) NOT NULL UNIQUE,
+    recipient VARCHAR(320) NOT NULL,
+    subject TEXT NOT NULL,
+    html_content TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'DEAD')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX idx_mail_outbox_due ON mail_outbox(next_attempt_at) WHERE status IN ('PENDING', 'SENDING');
+CREATE INDEX idx_mail_outbox_status_created_at ON mail_outbox(status, created_at);
+
 -- Create trigger for matrix_bot_tokens updated_at
 CREATE TRIGGER update_matrix_bot_tokens_updated_at BEFORE UPDATE ON matrix_bot_tokens
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
 -- Note: matrix_bot_sync_state table was removed, trigger removed accordingly
+
+-- Bulk-send recipient selection
+CREATE INDEX idx_notification_settings_user_id ON notification_settings(user_id);
+CREATE INDEX idx_user_roles_user_id_role ON user_roles(user_id, role);
+CREATE INDEX idx_users_user_type_id ON users(user_type, id);
@@ -0,0 +1,119 @@
+package com.neohoods.portal.platform.api.admin.exports;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neohoods.portal.platform.entities.NewsletterLogEntity.NewsletterLogStatus;
+import com.neohoods.portal.platform.exceptions.CodedError;
+import com.neohoods.portal.platform.exceptions.CodedErrorException;
+import com.neohoods.portal.platform.services.ExportService;
+import com.neohoods.portal.platform.services.ExportService.Format;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streaming admin exports, as CSV (default) or NDJSON, gzipped on request.
+ * The body is written as rows are read, so a full export never has to fit in
+ * memory nor be fetched page by page.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class ExportsAdminApi {
+
+    private static final String BASE_PATH = "${openapi.portalNeoHoods.base-path:}/admin/exports";
+
+    private final ExportService exportService;
+
+    @GetMapping(BASE_PATH + "/reservations")
+    public ResponseEntity<Flux<DataBuffer>> exportReservations(
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) UUID spaceId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        Format exportFormat = format(format);
+        String entityStatus = enumName("status", status, ReservationStatusForEntity.class);
+        return stream("reservations", exportFormat, gzip,
+                () -> exportService.exportReservations(spaceId, entityStatus, startDate, endDate, exportFormat,
+                        gzip));
+    }
+
+    @GetMapping(BASE_PATH + "/reservation-audit-logs")
+    public ResponseEntity<Flux<DataBuffer>> exportReservationAuditLogs(
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) UUID reservationId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Format exportFormat = format(format);
+        return stream("reservation-audit-logs", exportFormat, gzip,
+                () -> exportService.exportReservationAuditLogs(reservationId, from, to, exportFormat, gzip));
+    }
+
+    @GetMapping(BASE_PATH + "/newsletter-logs")
+    public ResponseEntity<Flux<DataBuffer>> exportNewsletterLogs(
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) UUID newsletterId,
+            @RequestParam(required = false) String status) {
+        Format exportFormat = format(format);
+        String logStatus = enumName("status", status, NewsletterLogStatus.class);
+        return stream("newsletter-logs", exportFormat, gzip,
+                () -> exportService.exportNewsletterLogs(newsletterId, logStatus, exportFormat, gzip));
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> stream(String name, Format exportFormat, boolean gzip,
+            Supplier<Flux<DataBuffer>> export) {
+        // Each running export holds a database connection. The slot itself is
+        // taken when the body is subscribed
+        if (!exportService.hasFreeSlot()) {
+            log.warn("Rejected {} export: too many exports running", name);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        Flux<DataBuffer> body = exportService.inSlot(name, export);
+        String filename = name + "-" + LocalDate.now() + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private static Format format(String value) {
+        try {
+            return Format.of(value);
+        } catch (IllegalArgumentException e) {
+            throw new CodedErrorException(CodedError.INVALID_INPUT, "format", value);
+        }
+    }
+
+    private static <E extends Enum<E>> String enumName(String parameter, String value, Class<E> type) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT)).name();
+        } catch (IllegalArgumentException e) {
+            throw new CodedErrorException(CodedError.INVALID_INPUT, parameter, value);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.neohoods.portal.platform.api.hub.events;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.neohoods.portal.platform.services.HubEventsService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * Server-sent events stream for the hub. Replaces polling of the notifications
+ * and reservation status endpoints: the UI keeps one idle connection open and
+ * receives notification, unread-count and reservation-status events as they
+ * commit.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class HubEventsApi {
+
+    private final HubEventsService hubEventsService;
+
+    @Value("${neohoods.portal.hub-events.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @GetMapping(value = "${openapi.portalNeoHoods.base-path:}/hub/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamHubEvents(ServerWebExchange exchange) {
+        return exchange.getPrincipal()
+                .map(principal -> UUID.fromString(principal.getName()))
+                .flatMapMany(userId -> {
+                    log.debug("Opening hub events stream for user {}", userId);
+                    Flux<ServerSentEvent<Object>> events = hubEventsService.subscribe(userId)
+                            .map(event -> ServerSentEvent.builder(event.data())
+                                    .event(event.type())
+                                    .build());
+                    // Comment frames keep proxies from closing idle connections
+                    Flux<ServerSentEvent<Object>> heartbeats = Flux
+                            .interval(Duration.ofSeconds(heartbeatSeconds))
+                            .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
+                    return Flux.merge(events, heartbeats)
+                            .doFinally(signal -> log.debug("Closed hub events stream for user {} ({})", userId,
+                                    signal));
+                });
+    }
+}
@@ -38,6 +38,7 @@ import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
 import com.neohoods.portal.platform.spaces.services.ReservationMapper;
 import com.neohoods.portal.platform.spaces.services.ReservationsService;
+import com.neohoods.portal.platform.spaces.services.CalendarFeed;
 import com.neohoods.portal.platform.spaces.services.UnitCalendarService;
 
 import lombok.RequiredArgsConstructor;
@@ -332,10 +333,16 @@ public class UnitsHubApiApiDelegateImpl implements UnitsHubApiApiDelegate {
                                 unitId.toString()));
                     }
 
-                    String icsContent = unitCalendarService.generateICSForUnit(unitId);
+                    CalendarFeed feed = unitCalendarService.getUnitCalendarFeed(unitId);
+                    if (feed.isNotModified(exchange.getRequest().getHeaders())) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .headers(feed.validatorHeaders())
+                                .<String>build());
+                    }
                     return Mono.just(ResponseEntity.ok()
+                            .headers(feed.validatorHeaders())
                             .contentType(MediaType.parseMediaType("text/calendar"))
-                            .body(icsContent));
+                            .body(feed.content()));
                 })
                 .onErrorResume(e -> {
                     if (e instanceof CodedErrorException) {
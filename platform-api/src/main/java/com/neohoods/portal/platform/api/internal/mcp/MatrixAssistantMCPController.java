@@ -1,9 +1,18 @@
 package com.neohoods.portal.platform.api.internal.mcp;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,6 +21,10 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.ErrorResolver.JsonError;
 import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAuthContextService;
 import com.neohoods.portal.platform.assistant.mcp.MatrixAssistantMCPServer;
@@ -24,13 +37,22 @@ import com.neohoods.portal.platform.services.JwtService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.nimbusds.jwt.JWTClaimsSet;
 import org.slf4j.MDC;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Contrôleur REST pour le serveur MCP (Model Context Protocol).
  * Expose les endpoints MCP standards pour permettre au LLM d'appeler les
  * outils.
+ *
+ * POST /mcp accepte aussi des batchs JSON-RPC 2.0 (tableau de requêtes
+ * tools/list et tools/call) exécutés en parallèle: un plan multi-outils coûte
+ * un aller-retour HTTP au lieu de N. Le contexte d'autorisation est mis en
+ * cache par token de session (le JWT porte l'utilisateur, la room et le DM),
+ * et la liste des outils est précalculée par rôle avec un ETag.
  */
 @RestController
 @RequestMapping("/mcp")
@@ -43,6 +65,31 @@ public class MatrixAssistantMCPController {
     private final MatrixAssistantAuthContextService authContextService;
     private final UsersRepository usersRepository;
     private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+
+    private static final int MAX_CACHED_SESSIONS = 1024;
+
+    @Value("${neohoods.portal.matrix.assistant.mcp.session-cache-ttl-seconds:60}")
+    private long sessionCacheTtlSeconds = 60;
+
+    @Value("${neohoods.portal.matrix.assistant.mcp.tools-cache-ttl-seconds:300}")
+    private long toolsCacheTtlSeconds = 300;
+
+    @Value("${neohoods.portal.matrix.assistant.mcp.batch.max-size:20}")
+    private int batchMaxSize = 20;
+
+    @Value("${neohoods.portal.matrix.assistant.mcp.batch.concurrency:4}")
+    private int batchConcurrency = 4;
+
+    private final Map<String, CachedAuthContext> authContexts = new ConcurrentHashMap<>();
+    // Outils visibles par rôle (admin ou non), rechargés après expiration
+    private final Map<Boolean, ToolListing> toolListings = new ConcurrentHashMap<>();
+
+    private record CachedAuthContext(MatrixAssistantAuthContext authContext, long expiresAt) {
+    }
+
+    private record ToolListing(List<MCPTool> tools, String etag, long expiresAt) {
+    }
 
     /**
      * Endpoint MCP: Liste tous les outils disponibles pour l'utilisateur
@@ -57,6 +104,7 @@ public class MatrixAssistantMCPController {
             @RequestHeader(value = "X-Span-Id", required = false) String spanId,
             @RequestHeader(value = "X-Conversation-Trace-Id", required = false) String conversationTraceId,
             @RequestHeader(value = "X-Room-Id", required = false) String roomId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
             @RequestBody(required = false) MCPRequest request) {
 
         // Set tracing context in MDC for log correlation
@@ -74,37 +122,23 @@ public class MatrixAssistantMCPController {
                 MDC.put("roomId", roomId);
             }
 
-            // JWT est requis, toutes les informations viennent du token
-            if (authorization == null || !authorization.startsWith("Bearer ")) {
-                throw new MatrixAssistantAuthContext.UnauthorizedException("JWT token required");
-            }
-
-            String token = authorization.substring("Bearer ".length());
-            var claims = jwtService.verifyToken(token);
-            String userIdStr = claims.getSubject();
-            UserEntity user = usersRepository.findById(java.util.UUID.fromString(userIdStr))
-                    .orElseThrow(() -> new MatrixAssistantAuthContext.UnauthorizedException("User not found"));
-            String jwtMatrixUserId = (String) claims.getClaim("matrixUserId");
-            String jwtRoomId = (String) claims.getClaim("roomId");
-            Boolean jwtIsDM = (Boolean) claims.getClaim("isDM");
-            MatrixAssistantAuthContext authContext = authContextService.createAuthContextFromUser(
-                    user,
-                    jwtMatrixUserId,
-                    jwtRoomId,
-                    jwtIsDM != null ? jwtIsDM : false);
+            MatrixAssistantAuthContext authContext = resolveAuthContext(authorization);
 
             log.debug("MCP listTools called for user: {} (admin: {})",
                     authContext.getMatrixUserId(), mcpServer.isAdminUser(authContext));
 
-            // Filtrer les outils selon les rôles de l'utilisateur
-            List<MCPTool> tools = mcpServer.listToolsForUser(authContext);
+            // Outils filtrés selon les rôles de l'utilisateur
+            ToolListing listing = toolListing(authContext);
+            if (listing.etag().equals(ifNoneMatch)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(listing.etag()).build());
+            }
 
             MCPListToolsResponse response = new MCPListToolsResponse();
             response.setJsonrpc("2.0");
             response.setId(request != null ? request.getId() : 1);
-            response.setResult(Map.of("tools", tools));
+            response.setResult(Map.of("tools", listing.tools()));
 
-            return Mono.just(ResponseEntity.ok(response));
+            return Mono.just(ResponseEntity.ok().eTag(listing.etag()).body(response));
         } catch (MatrixAssistantAuthContext.UnauthorizedException e) {
             log.warn("Unauthorized MCP listTools call: {}", e.getMessage());
             MCPListToolsResponse response = new MCPListToolsResponse();
@@ -121,7 +155,7 @@ public class MatrixAssistantMCPController {
             response.setJsonrpc("2.0");
             response.setId(request != null ? request.getId() : 1);
             MCPError error = new MCPError();
-            error.setCode(-32603); // Internal error
+            error.setCode(JsonError.INTERNAL_ERROR.code);
             error.setMessage("Internal error: " + e.getMessage());
             response.setError(error);
             return Mono.just(ResponseEntity.status(500).body(response));
@@ -165,24 +199,7 @@ public class MatrixAssistantMCPController {
 
             log.info("MCP callTool: {} called", request.getParams().getName());
 
-            // JWT est requis, toutes les informations viennent du token
-            if (authorization == null || !authorization.startsWith("Bearer ")) {
-                throw new MatrixAssistantAuthContext.UnauthorizedException("JWT token required");
-            }
-
-            String token = authorization.substring("Bearer ".length());
-            var claims = jwtService.verifyToken(token);
-            String userIdStr = claims.getSubject();
-            UserEntity user = usersRepository.findById(java.util.UUID.fromString(userIdStr))
-                    .orElseThrow(() -> new MatrixAssistantAuthContext.UnauthorizedException("User not found"));
-            String jwtMatrixUserId = (String) claims.getClaim("matrixUserId");
-            String jwtRoomId = (String) claims.getClaim("roomId");
-            Boolean jwtIsDM = (Boolean) claims.getClaim("isDM");
-            MatrixAssistantAuthContext authContext = authContextService.createAuthContextFromUser(
-                    user,
-                    jwtMatrixUserId,
-                    jwtRoomId,
-                    jwtIsDM != null ? jwtIsDM : false);
+            MatrixAssistantAuthContext authContext = resolveAuthContext(authorization);
 
             // Appeler l'outil MCP
             MCPToolResult result = mcpServer.callTool(
@@ -205,7 +222,9 @@ public class MatrixAssistantMCPController {
                 response.setError(error);
             } else {
                 // Succès
-                response.setResult(Map.of("content", result.getContent()));
+                response.setResult(result.getStructuredContent() != null
+                        ? Map.of("content", result.getContent(), "structuredContent", result.getStructuredContent())
+                        : Map.of("content", result.getContent()));
             }
 
             return Mono.just(ResponseEntity.ok(response));
@@ -225,7 +244,7 @@ public class MatrixAssistantMCPController {
             response.setJsonrpc("2.0");
             response.setId(request.getId());
             MCPError error = new MCPError();
-            error.setCode(-32603); // Internal error
+            error.setCode(JsonError.INTERNAL_ERROR.code);
             error.setMessage("Internal error: " + e.getMessage());
             response.setError(error);
             return Mono.just(ResponseEntity.status(500).body(response));
@@ -238,6 +257,215 @@ public class MatrixAssistantMCPController {
         }
     }
 
+    /**
+     * Endpoint MCP JSON-RPC 2.0: une requête ou un batch (tableau)
+     * POST /mcp
+     * Méthodes: tools/list, tools/call. Les appels d'un batch sont exécutés en
+     * parallèle et les réponses renvoyées dans l'ordre des requêtes; les
+     * notifications (sans id) n'ont pas de réponse.
+     * Requiert un JWT token dans le header Authorization
+     */
+    @PostMapping(value = "", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> handleJsonRpc(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestHeader(value = "X-Trace-Id", required = false) String traceId,
+            @RequestHeader(value = "X-Span-Id", required = false) String spanId,
+            @RequestHeader(value = "X-Conversation-Trace-Id", required = false) String conversationTraceId,
+            @RequestHeader(value = "X-Room-Id", required = false) String roomId,
+            @RequestBody JsonNode body) {
+
+        Map<String, String> tracing = new LinkedHashMap<>();
+        putIfPresent(tracing, "traceId", traceId);
+        putIfPresent(tracing, "spanId", spanId);
+        putIfPresent(tracing, "conversationTraceId", conversationTraceId);
+        putIfPresent(tracing, "roomId", roomId);
+
+        MatrixAssistantAuthContext authContext;
+        try {
+            authContext = resolveAuthContext(authorization);
+        } catch (MatrixAssistantAuthContext.UnauthorizedException e) {
+            log.warn("Unauthorized MCP JSON-RPC call: {}", e.getMessage());
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(errorResponse(null, -32001, e.getMessage())));
+        }
+
+        if (body == null || !(body.isArray() || body.isObject()) || (body.isArray() && body.isEmpty())) {
+            return Mono.just(ResponseEntity.ok(
+                    errorResponse(null, JsonError.INVALID_REQUEST.code, JsonError.INVALID_REQUEST.message)));
+        }
+        if (!body.isArray()) {
+            return Mono.fromCallable(() -> dispatch(body, authContext, tracing))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .map(response -> body.has("id")
+                            ? ResponseEntity.ok((Object) response)
+                            : ResponseEntity.noContent().build());
+        }
+        if (body.size() > batchMaxSize) {
+            return Mono.just(ResponseEntity.ok(errorResponse(null, JsonError.INVALID_REQUEST.code,
+                    "Batch too large: " + body.size() + " requests (max " + batchMaxSize + ")")));
+        }
+
+        List<JsonNode> requests = new ArrayList<>();
+        body.forEach(requests::add);
+        log.info("MCP JSON-RPC batch of {} requests", requests.size());
+        return Flux.fromIterable(requests)
+                .flatMapSequential(request -> Mono.fromCallable(() -> dispatch(request, authContext, tracing))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .filter(response -> request.has("id")), batchConcurrency)
+                .collectList()
+                .map(responses -> responses.isEmpty()
+                        ? ResponseEntity.noContent().build()
+                        : ResponseEntity.ok((Object) responses));
+    }
+
+    /**
+     * Exécute une requête JSON-RPC; les erreurs deviennent des réponses
+     * d'erreur pour ne pas faire échouer le reste du batch
+     */
+    private MCPResponse dispatch(JsonNode request, MatrixAssistantAuthContext authContext,
+            Map<String, String> tracing) {
+        Object id = request.has("id") ? objectMapper.convertValue(request.get("id"), Object.class) : null;
+        tracing.forEach(MDC::put);
+        try {
+            String method = request.path("method").asText(null);
+            if (!request.isObject() || method == null) {
+                return errorResponse(id, JsonError.INVALID_REQUEST.code, JsonError.INVALID_REQUEST.message);
+            }
+            switch (method) {
+                case "tools/list": {
+                    MCPResponse response = new MCPResponse();
+                    response.setId(id);
+                    response.setResult(Map.of("tools", toolListing(authContext).tools()));
+                    return response;
+                }
+                case "tools/call": {
+                    MCPCallToolParams params = objectMapper.convertValue(request.path("params"),
+                            MCPCallToolParams.class);
+                    if (params == null || params.getName() == null) {
+                        return errorResponse(id, JsonError.METHOD_PARAMS_INVALID.code, "Missing tool name");
+                    }
+                    log.info("MCP callTool: {} called", params.getName());
+                    MCPToolResult result = mcpServer.callTool(params.getName(),
+                            params.getArguments() != null ? params.getArguments() : Map.of(), authContext);
+                    if (result.isError()) {
+                        // Server error
+                        return errorResponse(id, -32000, result.getContent().isEmpty()
+                                ? "Unknown error"
+                                : result.getContent().get(0).getText());
+                    }
+                    MCPResponse response = new MCPResponse();
+                    response.setId(id);
+                    response.setResult(result.getStructuredContent() != null
+                            ? Map.of("content", result.getContent(), "structuredContent",
+                                    result.getStructuredContent())
+                            : Map.of("content", result.getContent()));
+                    return response;
+                }
+                default:
+                    return errorResponse(id, JsonError.METHOD_NOT_FOUND.code, "Method not found: " + method);
+            }
+        } catch (IllegalArgumentException e) {
+            return errorResponse(id, JsonError.METHOD_PARAMS_INVALID.code, e.getMessage());
+        } catch (Exception e) {
+            log.error("Error handling MCP JSON-RPC request: {}", e.getMessage(), e);
+            return errorResponse(id, JsonError.INTERNAL_ERROR.code, "Internal error: " + e.getMessage());
+        } finally {
+            tracing.keySet().forEach(MDC::remove);
+        }
+    }
+
+    /**
+     * Contexte d'autorisation du JWT, mis en cache par token pour les appels
+     * suivants de la même session (jusqu'à l'expiration du token au plus)
+     */
+    private MatrixAssistantAuthContext resolveAuthContext(String authorization) {
+        // JWT est requis, toutes les informations viennent du token
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new MatrixAssistantAuthContext.UnauthorizedException("JWT token required");
+        }
+        String token = authorization.substring("Bearer ".length());
+        long now = System.currentTimeMillis();
+        CachedAuthContext cached = authContexts.get(token);
+        if (cached != null && now < cached.expiresAt()) {
+            return cached.authContext();
+        }
+
+        JWTClaimsSet claims;
+        try {
+            claims = jwtService.verifyToken(token);
+        } catch (Exception e) {
+            authContexts.remove(token);
+            throw new MatrixAssistantAuthContext.UnauthorizedException("Invalid JWT token: " + e.getMessage());
+        }
+        UserEntity user = usersRepository.findById(UUID.fromString(claims.getSubject()))
+                .orElseThrow(() -> new MatrixAssistantAuthContext.UnauthorizedException("User not found"));
+        String jwtMatrixUserId = (String) claims.getClaim("matrixUserId");
+        String jwtRoomId = (String) claims.getClaim("roomId");
+        Boolean jwtIsDM = (Boolean) claims.getClaim("isDM");
+        MatrixAssistantAuthContext authContext = authContextService.createAuthContextFromUser(
+                user,
+                jwtMatrixUserId,
+                jwtRoomId,
+                jwtIsDM != null ? jwtIsDM : false);
+
+        long expiresAt = now + sessionCacheTtlSeconds * 1000;
+        if (claims.getExpirationTime() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpirationTime().getTime());
+        }
+        if (authContexts.size() >= MAX_CACHED_SESSIONS) {
+            authContexts.values().removeIf(entry -> now >= entry.expiresAt());
+            if (authContexts.size() >= MAX_CACHED_SESSIONS) {
+                authContexts.clear();
+            }
+        }
+        authContexts.put(token, new CachedAuthContext(authContext, expiresAt));
+        return authContext;
+    }
+
+    private ToolListing toolListing(MatrixAssistantAuthContext authContext) {
+        boolean admin = mcpServer.isAdminUser(authContext);
+        long now = System.currentTimeMillis();
+        ToolListing cached = toolListings.get(admin);
+        if (cached != null && now < cached.expiresAt()) {
+            return cached;
+        }
+        List<MCPTool> tools = List.copyOf(mcpServer.listToolsForUser(authContext));
+        ToolListing listing = new ToolListing(tools, etag(tools), now + toolsCacheTtlSeconds * 1000);
+        // Une liste vide vient d'un chargement des outils en échec: on réessaie au prochain appel
+        if (tools.isEmpty()) {
+            toolListings.remove(admin);
+        } else {
+            toolListings.put(admin, listing);
+        }
+        return listing;
+    }
+
+    private String etag(List<MCPTool> tools) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(tools));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            // Pas d'ETag stable: un hash des noms suffit à invalider les clients
+            return "\"" + Integer.toHexString(String.valueOf(tools).hashCode()) + "\"";
+        }
+    }
+
+    private static MCPResponse errorResponse(Object id, int code, String message) {
+        MCPResponse response = new MCPResponse();
+        response.setId(id);
+        MCPError error = new MCPError();
+        error.setCode(code);
+        error.setMessage(message);
+        response.setError(error);
+        return response;
+    }
+
+    private static void putIfPresent(Map<String, String> map, String key, String value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
     /**
      * Modèles pour les requêtes/réponses MCP (JSON-RPC 2.0)
      */
@@ -278,6 +506,17 @@ public class MatrixAssistantMCPController {
         private MCPError error;
     }
 
+    /**
+     * Réponse JSON-RPC 2.0 générique (id numérique ou texte)
+     */
+    @Data
+    public static class MCPResponse {
+        private String jsonrpc = "2.0";
+        private Object id;
+        private Map<String, Object> result;
+        private MCPError error;
+    }
+
     @Data
     public static class MCPError {
         private Integer code;
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
 
 import com.neohoods.portal.platform.api.PublicUsersApiApiDelegate;
+import com.neohoods.portal.platform.spaces.services.CalendarFeed;
 import com.neohoods.portal.platform.spaces.services.CalendarService;
 import com.neohoods.portal.platform.spaces.services.CalendarTokenService;
 import com.nimbusds.jose.JOSEException;
@@ -36,16 +37,23 @@ public class PublicUsersApiApiDelegateImpl implements PublicUsersApiApiDelegate
             calendarTokenService.verifyTokenForUser(token, userId);
 
             // Generate user calendar
-            String calendarContent = calendarService.generateUserCalendarIcs(userId);
+            CalendarFeed feed = calendarService.getUserCalendarFeed(userId);
+
+            // Calendar clients poll: answer 304 when their copy is current
+            if (exchange != null && feed.isNotModified(exchange.getRequest().getHeaders())) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .headers(feed.validatorHeaders())
+                        .<String>build());
+            }
 
             // Set headers for iCalendar
-            HttpHeaders headers = new HttpHeaders();
+            HttpHeaders headers = feed.validatorHeaders();
             headers.setContentType(MediaType.parseMediaType("text/calendar; charset=utf-8"));
             headers.setContentDispositionFormData("attachment", "user-calendar.ics");
 
             return Mono.just(ResponseEntity.ok()
                     .headers(headers)
-                    .body(calendarContent));
+                    .body(feed.content()));
 
         } catch (JOSEException e) {
             log.warn("Invalid or expired token for user {}, or userId mismatch", userId, e);
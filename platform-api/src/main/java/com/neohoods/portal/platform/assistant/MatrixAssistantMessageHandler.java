@@ -13,7 +13,9 @@ import org.springframework.stereotype.Service;
 
 import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAuthContextService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantMetricsService;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantService;
+import com.neohoods.portal.platform.assistant.services.MistralGateway;
 import com.neohoods.portal.platform.assistant.workflows.MatrixAssistantRouter;
 import com.neohoods.portal.platform.exceptions.CodedException;
 import com.neohoods.portal.platform.services.matrix.space.MatrixConversationContextService;
@@ -60,6 +62,9 @@ public class MatrixAssistantMessageHandler {
         this.matrixRoomService = matrixRoomService;
     }
 
+    @Autowired(required = false)
+    private MatrixAssistantMetricsService metricsService = MatrixAssistantMetricsService.NOOP;
+
     @Value("${neohoods.portal.matrix.assistant.ai.enabled}")
     private boolean aiEnabled;
 
@@ -114,8 +119,11 @@ public class MatrixAssistantMessageHandler {
             // Typing indicator is managed in MatrixSyncService
             // Note: Response will be stored in context by sendMessage() in
             // MatrixSyncService
-            return router.handleMessage(messageBody, conversationHistory, authContext)
-                    .filter(response -> response != null && !response.isEmpty())
+            Mono<String> response = router.handleMessage(messageBody, conversationHistory, authContext)
+                    .filter(r -> r != null && !r.isEmpty());
+            return metricsService
+                    .observe(MatrixAssistantMetricsService.MESSAGE,
+                            Map.of("dm", String.valueOf(isDirectMessage)), response)
                     .onErrorResume(e -> {
                         return handleError(e, sender, roomId, messageBody, conversationHistory, authContext);
                     });
@@ -139,8 +147,10 @@ public class MatrixAssistantMessageHandler {
         Locale locale = getLocaleFromAuthContext(sender);
         String errorMessage;
 
-        // Check if it's an UnauthorizedException (user sync issue)
-        if (e instanceof MatrixAssistantAuthContext.UnauthorizedException) {
+        // Mistral rejected at once (circuit open): fast fallback, the outage is already logged
+        if (MistralGateway.isUnavailable(e)) {
+            errorMessage = messageSource.getMessage("matrix.error.assistant_unavailable", null, locale);
+        } else if (e instanceof MatrixAssistantAuthContext.UnauthorizedException) {
             MatrixAssistantAuthContext.UnauthorizedException unauthorizedEx = 
                     (MatrixAssistantAuthContext.UnauthorizedException) e;
             String errorMsg = unauthorizedEx.getMessage();
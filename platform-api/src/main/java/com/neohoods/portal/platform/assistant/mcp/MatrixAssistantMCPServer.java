@@ -13,9 +13,7 @@ import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.MessageSource;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
@@ -30,8 +28,10 @@ import com.neohoods.portal.platform.repositories.UsersRepository;
 import com.neohoods.portal.platform.entities.UserType;
 
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAdminCommandService;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStage;
 import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAuthContextService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantMetricsService;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -41,7 +41,7 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 @Slf4j
 @ConditionalOnProperty(name = "neohoods.portal.matrix.assistant.mcp.enabled", havingValue = "true", matchIfMissing = false)
-public class MatrixAssistantMCPServer {
+public class MatrixAssistantMCPServer implements AssistantStartupStage {
 
         private final UsersRepository usersRepository;
         private final MatrixAssistantAdminCommandService adminCommandService;
@@ -80,15 +80,27 @@ public class MatrixAssistantMCPServer {
                 this.adminCommandService = adminCommandService;
         }
 
+        @Autowired(required = false)
+        private MatrixAssistantMetricsService metricsService = MatrixAssistantMetricsService.NOOP;
+
         @Value("${neohoods.portal.matrix.assistant.mcp.enabled}")
         private boolean mcpEnabled;
 
-        private List<MatrixMCPModels.MCPTool> cachedTools = null;
+        private volatile List<MatrixMCPModels.MCPTool> cachedTools = null;
+
+        @Override
+        public String getStageName() {
+                return MCP_TOOLS;
+        }
+
+        @Override
+        public void runStage() {
+                loadToolsFromYaml();
+        }
 
         /**
          * Loads MCP tools from YAML resource file at application startup
          */
-        @EventListener(ApplicationReadyEvent.class)
         public void loadToolsFromYaml() {
                 log.info("Loading MCP tools from matrix-mcp-tools.yaml");
                 try {
@@ -113,7 +125,7 @@ public class MatrixAssistantMCPServer {
                                                         .get("tools");
 
                                         if (toolsList != null) {
-                                                cachedTools = new ArrayList<>();
+                                                List<MatrixMCPModels.MCPTool> tools = new ArrayList<>();
                                                 for (Map<String, Object> toolMap : toolsList) {
                                                         MatrixMCPModels.MCPTool tool = MatrixMCPModels.MCPTool.builder()
                                                                         .name((String) toolMap.get("name"))
@@ -122,10 +134,12 @@ public class MatrixAssistantMCPServer {
                                                                         .inputSchema((Map<String, Object>) toolMap
                                                                                         .get("inputSchema"))
                                                                         .build();
-                                                        cachedTools.add(tool);
+                                                        tools.add(tool);
                                                 }
+                                                // Published whole: tools may be listed while loading
+                                                cachedTools = tools;
                                                 log.info("Loaded {} MCP tools from matrix-mcp-tools.yaml",
-                                                                cachedTools.size());
+                                                                tools.size());
                                         } else {
                                                 log.error("CRITICAL: No 'tools' key found in matrix-mcp-tools.yaml. Application cannot start without MCP tools.");
                                                 throw new IllegalStateException(
@@ -142,7 +156,7 @@ public class MatrixAssistantMCPServer {
                                 throw new IllegalStateException("matrix-mcp-tools.yaml not found or not readable");
                         }
                 } catch (IllegalStateException e) {
-                        // Re-throw IllegalStateException (our critical errors) - this will prevent boot
+                        // Re-throw IllegalStateException (our critical errors) - this fails the startup stage
                         throw e;
                 } catch (Exception e) {
                         log.error("CRITICAL: Error loading MCP tools from matrix-mcp-tools.yaml. Application cannot start.",
@@ -160,11 +174,12 @@ public class MatrixAssistantMCPServer {
                         // Fallback: load tools if not already loaded
                         loadToolsFromYaml();
                 }
-                if (cachedTools == null || cachedTools.isEmpty()) {
+                List<MatrixMCPModels.MCPTool> tools = cachedTools;
+                if (tools == null || tools.isEmpty()) {
                         // Fallback to empty list if loading failed
                         return new ArrayList<>();
                 }
-                return new ArrayList<>(cachedTools);
+                return new ArrayList<>(tools);
         }
 
         /**
@@ -202,6 +217,17 @@ public class MatrixAssistantMCPServer {
          */
         public MatrixMCPModels.MCPToolResult callTool(String toolName, Map<String, Object> arguments,
                         MatrixAssistantAuthContext authContext) {
+                return metricsService.observe(MatrixAssistantMetricsService.MCP_TOOL,
+                                Map.of(MatrixAssistantMetricsService.TAG_TOOL, String.valueOf(toolName)),
+                                result -> Map.of(MatrixAssistantMetricsService.TAG_OUTCOME,
+                                                result != null && result.isError()
+                                                                ? MatrixAssistantMetricsService.OUTCOME_ERROR
+                                                                : MatrixAssistantMetricsService.OUTCOME_SUCCESS),
+                                () -> doCallTool(toolName, arguments, authContext));
+        }
+
+        private MatrixMCPModels.MCPToolResult doCallTool(String toolName, Map<String, Object> arguments,
+                        MatrixAssistantAuthContext authContext) {
                 // Get trace ID, span ID, conversation trace ID, and room ID from MDC for logs
                 String traceId = MDC.get("traceId");
                 String spanId = MDC.get("spanId");
@@ -275,7 +301,9 @@ public class MatrixAssistantMCPServer {
                                                 // if not
                                                 // found
                                                 try {
-                                                        userEntity = getUser(authContext.getMatrixUserId());
+                                                        userEntity = authContext.hasUser()
+                                                                        ? authContext.getAuthenticatedUser()
+                                                                        : getUser(authContext.getMatrixUserId());
                                                         locale = getLocale(userEntity);
                                                 } catch (Exception e) {
                                                         // User not found - use default locale (English)
@@ -350,13 +378,13 @@ public class MatrixAssistantMCPServer {
                                                 case "get_notifications" -> hubHandler.getNotifications(authContext);
                                                 case "get_unread_notifications_count" ->
                                                         hubHandler.getUnreadNotificationsCount(authContext);
-                                                case "get_users" -> hubHandler.getUsers(authContext);
+                                                case "get_users" -> hubHandler.getUsers(arguments, authContext);
                                                 // Admin endpoints
-                                                case "admin_get_users" -> adminHandler.adminGetUsers(authContext);
-                                                case "admin_get_units" -> adminHandler.adminGetUnits(authContext);
+                                                case "admin_get_users" -> adminHandler.adminGetUsers(arguments, authContext);
+                                                case "admin_get_units" -> adminHandler.adminGetUnits(arguments, authContext);
                                                 case "admin_get_reservations" ->
-                                                        adminHandler.adminGetReservations(authContext);
-                                                case "admin_get_spaces" -> adminHandler.adminGetSpaces(authContext);
+                                                        adminHandler.adminGetReservations(arguments, authContext);
+                                                case "admin_get_spaces" -> adminHandler.adminGetSpaces(arguments, authContext);
                                                 default ->
                                                         throw new IllegalArgumentException("Unknown tool: " + toolName);
                                         };
@@ -1,41 +1,59 @@
 package com.neohoods.portal.platform.assistant.mcp;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPListingSupport.Cursor;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPListingSupport.Table;
 import com.neohoods.portal.platform.entities.UnitEntity;
-import com.neohoods.portal.platform.entities.UnitMemberEntity;
+import com.neohoods.portal.platform.entities.UnitTypeForEntity;
 import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.entities.UserType;
 import com.neohoods.portal.platform.repositories.UnitMemberRepository;
 import com.neohoods.portal.platform.repositories.UnitRepository;
 import com.neohoods.portal.platform.repositories.UsersRepository;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAdminCommandService;
 import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
-import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
 import com.neohoods.portal.platform.spaces.repositories.ReservationRepository;
-import com.neohoods.portal.platform.spaces.repositories.SpaceRepository;
+import com.neohoods.portal.platform.spaces.services.SpaceResolverIndex;
+import com.neohoods.portal.platform.spaces.services.SpaceResolverIndex.SpaceRef;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Handler for admin-related MCP tools
+ * Handler for admin-related MCP tools. Listings are filtered and paged in the
+ * database (keyset) and rendered as compact tables, see
+ * {@link MatrixMCPListingSupport}.
  */
 @Component
 @Slf4j
 public class MatrixMCPAdminHandler extends MatrixMCPBaseHandler {
 
+        // Keyset bounds when no date filter or cursor is given
+        private static final LocalDate FIRST_DATE = LocalDate.of(1970, 1, 1);
+        private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+
         private final UsersRepository usersRepository;
         private final UnitRepository unitRepository;
         private final UnitMemberRepository unitMemberRepository;
         private final ReservationRepository reservationRepository;
-        private final SpaceRepository spaceRepository;
+        private final SpaceResolverIndex spaceResolverIndex;
         private final MatrixMCPReservationHandler reservationHandler;
+        private final MatrixMCPListingSupport listingSupport;
 
         public MatrixMCPAdminHandler(
                         MessageSource messageSource,
@@ -44,270 +62,206 @@ public class MatrixMCPAdminHandler extends MatrixMCPBaseHandler {
                         UnitRepository unitRepository,
                         UnitMemberRepository unitMemberRepository,
                         ReservationRepository reservationRepository,
-                        SpaceRepository spaceRepository,
-                        MatrixMCPReservationHandler reservationHandler) {
+                        SpaceResolverIndex spaceResolverIndex,
+                        MatrixMCPReservationHandler reservationHandler,
+                        MatrixMCPListingSupport listingSupport) {
                 super(messageSource, usersRepository, adminCommandService);
                 this.usersRepository = usersRepository;
                 this.unitRepository = unitRepository;
                 this.unitMemberRepository = unitMemberRepository;
                 this.reservationRepository = reservationRepository;
-                this.spaceRepository = spaceRepository;
+                this.spaceResolverIndex = spaceResolverIndex;
                 this.reservationHandler = reservationHandler;
+                this.listingSupport = listingSupport;
         }
 
-        public MatrixMCPModels.MCPToolResult adminGetUsers(MatrixAssistantAuthContext authContext) {
+        public MatrixMCPModels.MCPToolResult adminGetUsers(Map<String, Object> arguments,
+                        MatrixAssistantAuthContext authContext) {
+                Locale locale = getLocaleFromAuthContext(authContext);
                 try {
-                        List<UserEntity> users = new ArrayList<>();
-                        usersRepository.findAll().forEach(users::add);
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        if (users == null || users.isEmpty()) {
-                                return MatrixMCPModels.MCPToolResult.builder()
-                                                .isError(false)
-                                                .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                                .type("text")
-                                                                .text(translate("matrix.mcp.admin.users.none", locale))
-                                                                .build()))
-                                                .build();
-                        }
-
-                        List<String> results = new ArrayList<>();
-                        results.add(translate("matrix.mcp.admin.users.title", locale));
-                        for (UserEntity user : users) {
-                                StringBuilder userInfo = new StringBuilder("\n👤 ");
-                                userInfo.append(translate("matrix.mcp.admin.users.id", locale)).append(": ")
-                                                .append(user.getId());
-                                if (user.getUsername() != null) {
-                                        userInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.users.username", locale))
-                                                        .append(": ").append(user.getUsername());
-                                }
-                                if (user.getFirstName() != null) {
-                                        userInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.users.firstName", locale))
-                                                        .append(": ").append(user.getFirstName());
-                                }
-                                if (user.getLastName() != null) {
-                                        userInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.users.lastName", locale))
-                                                        .append(": ").append(user.getLastName());
-                                }
-                                if (user.getEmail() != null) {
-                                        userInfo.append(" - ").append(translate("matrix.mcp.admin.users.email", locale))
-                                                        .append(": ").append(user.getEmail());
-                                }
-                                if (user.getType() != null) {
-                                        userInfo.append(" - ").append(translate("matrix.mcp.admin.users.type", locale))
-                                                        .append(": ").append(user.getType());
+                        return listingSupport.cached("admin_get_users", locale, arguments, () -> {
+                                Cursor cursor = Cursor.decode(MatrixMCPListingSupport.stringArg(arguments, "cursor"));
+                                List<UserEntity> users = usersRepository.findPageAfter(
+                                                MatrixMCPListingSupport.enumArg(arguments, "type", UserType.class),
+                                                MatrixMCPListingSupport.prefixPattern(
+                                                                MatrixMCPListingSupport.stringArg(arguments, "namePrefix")),
+                                                cursor.key(), cursor.id(),
+                                                PageRequest.of(0, listingSupport.fetchSize()));
+                                if (users.isEmpty()) {
+                                        return textResult(translate("matrix.mcp.admin.users.none", locale));
                                 }
-                                userInfo.append(" - ").append(translate("matrix.mcp.admin.users.disabled", locale))
-                                                .append(": ").append(user.isDisabled());
-                                results.add(userInfo.toString());
-                        }
 
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(false)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(String.join("\n", results))
-                                                        .build()))
-                                        .build();
+                                Table table = listingSupport.table(translate("matrix.mcp.admin.users.title", locale),
+                                                "id", "username", "first_name", "last_name", "email", "type",
+                                                "disabled");
+                                boolean more = table.fill(users,
+                                                user -> new Cursor(user.getLastName() != null ? user.getLastName() : "",
+                                                                user.getId()),
+                                                user -> Arrays.asList(user.getId(), user.getUsername(),
+                                                                user.getFirstName(), user.getLastName(), user.getEmail(),
+                                                                user.getType(), user.isDisabled()));
+                                return table.toResult(more ? continuation(table, locale) : null);
+                        });
                 } catch (Exception e) {
                         log.error("Error getting users (admin): {}", e.getMessage(), e);
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(true)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(translate("matrix.mcp.admin.users.error", locale,
-                                                                        e.getMessage()))
-                                                        .build()))
-                                        .build();
+                        return errorResult(translate("matrix.mcp.admin.users.error", locale, e.getMessage()));
                 }
         }
 
-        public MatrixMCPModels.MCPToolResult adminGetUnits(MatrixAssistantAuthContext authContext) {
+        public MatrixMCPModels.MCPToolResult adminGetUnits(Map<String, Object> arguments,
+                        MatrixAssistantAuthContext authContext) {
+                Locale locale = getLocaleFromAuthContext(authContext);
                 try {
-                        List<UnitEntity> units = unitRepository.findAll();
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        if (units == null || units.isEmpty()) {
-                                return MatrixMCPModels.MCPToolResult.builder()
-                                                .isError(false)
-                                                .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                                .type("text")
-                                                                .text(translate("matrix.mcp.admin.units.none", locale))
-                                                                .build()))
-                                                .build();
-                        }
+                        return listingSupport.cached("admin_get_units", locale, arguments, () -> {
+                                Cursor cursor = Cursor.decode(MatrixMCPListingSupport.stringArg(arguments, "cursor"));
+                                List<UnitEntity> units = unitRepository.findPageAfter(
+                                                MatrixMCPListingSupport.enumArg(arguments, "type",
+                                                                UnitTypeForEntity.class),
+                                                MatrixMCPListingSupport.prefixPattern(
+                                                                MatrixMCPListingSupport.stringArg(arguments, "namePrefix")),
+                                                cursor.key(), cursor.id(),
+                                                PageRequest.of(0, listingSupport.fetchSize()));
+                                if (units.isEmpty()) {
+                                        return textResult(translate("matrix.mcp.admin.units.none", locale));
+                                }
 
-                        List<String> results = new ArrayList<>();
-                        results.add(translate("matrix.mcp.admin.units.title", locale));
-                        for (UnitEntity unit : units) {
-                                StringBuilder unitInfo = new StringBuilder("\n🏠 ");
-                                unitInfo.append(translate("matrix.mcp.admin.units.id", locale)).append(": ")
-                                                .append(unit.getId());
-                                if (unit.getName() != null) {
-                                        unitInfo.append(" - ").append(translate("matrix.mcp.admin.units.name", locale))
-                                                        .append(": ").append(unit.getName());
+                                // One grouped count instead of loading the members of every unit
+                                Map<UUID, Long> memberCounts = new HashMap<>();
+                                for (Object[] row : unitMemberRepository.countMembersByUnitIds(
+                                                units.stream().map(UnitEntity::getId).toList())) {
+                                        memberCounts.put((UUID) row[0], ((Number) row[1]).longValue());
                                 }
-                                List<UnitMemberEntity> members = unitMemberRepository.findByUnitId(unit.getId());
-                                unitInfo.append(" - ").append(translate("matrix.mcp.admin.units.members", locale))
-                                                .append(": ").append(members.size());
-                                results.add(unitInfo.toString());
-                        }
 
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(false)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(String.join("\n", results))
-                                                        .build()))
-                                        .build();
+                                Table table = listingSupport.table(translate("matrix.mcp.admin.units.title", locale),
+                                                "id", "name", "type", "members");
+                                boolean more = table.fill(units,
+                                                unit -> new Cursor(unit.getName() != null ? unit.getName() : "",
+                                                                unit.getId()),
+                                                unit -> Arrays.asList(unit.getId(), unit.getName(), unit.getType(),
+                                                                memberCounts.getOrDefault(unit.getId(), 0L)));
+                                return table.toResult(more ? continuation(table, locale) : null);
+                        });
                 } catch (Exception e) {
                         log.error("Error getting units (admin): {}", e.getMessage(), e);
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(true)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(translate("matrix.mcp.admin.units.error", locale,
-                                                                        e.getMessage()))
-                                                        .build()))
-                                        .build();
+                        return errorResult(translate("matrix.mcp.admin.units.error", locale, e.getMessage()));
                 }
         }
 
-        public MatrixMCPModels.MCPToolResult adminGetReservations(MatrixAssistantAuthContext authContext) {
+        public MatrixMCPModels.MCPToolResult adminGetReservations(Map<String, Object> arguments,
+                        MatrixAssistantAuthContext authContext) {
+                Locale locale = getLocaleFromAuthContext(authContext);
                 try {
-                        List<ReservationEntity> reservations = reservationRepository.findAll();
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        if (reservations == null || reservations.isEmpty()) {
-                                return MatrixMCPModels.MCPToolResult.builder()
-                                                .isError(false)
-                                                .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                                .type("text")
-                                                                .text(translate("matrix.mcp.admin.reservations.none",
-                                                                                locale))
-                                                                .build()))
-                                                .build();
-                        }
-
-                        List<String> results = new ArrayList<>();
-                        results.add(translate("matrix.mcp.admin.reservations.title", locale));
-                        for (ReservationEntity reservation : reservations) {
-                                StringBuilder reservationInfo = new StringBuilder("\n📅 ");
-                                reservationInfo.append(translate("matrix.mcp.admin.reservations.id", locale))
-                                                .append(": ").append(reservation.getId());
-                                if (reservation.getSpace() != null) {
-                                        reservationInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.reservations.space",
-                                                                        locale))
-                                                        .append(": ").append(reservation.getSpace().getName());
-                                }
-                                if (reservation.getUser() != null) {
-                                        reservationInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.reservations.user", locale))
-                                                        .append(": ")
-                                                        .append(reservation.getUser().getFirstName())
-                                                        .append(" ").append(reservation.getUser().getLastName());
+                        return listingSupport.cached("admin_get_reservations", locale, arguments, () -> {
+                                UUID spaceId = null;
+                                String space = MatrixMCPListingSupport.stringArg(arguments, "space");
+                                if (space != null) {
+                                        Optional<SpaceRef> resolved = spaceResolverIndex.resolve(space);
+                                        if (resolved.isEmpty()) {
+                                                return textResult(translate("matrix.mcp.admin.reservations.none",
+                                                                locale));
+                                        }
+                                        spaceId = resolved.get().id();
                                 }
-                                if (reservation.getStartDate() != null) {
-                                        reservationInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.reservations.start",
-                                                                        locale))
-                                                        .append(": ").append(reservation.getStartDate());
+                                LocalDate from = MatrixMCPListingSupport.dateArg(arguments, "from");
+                                LocalDate to = MatrixMCPListingSupport.dateArg(arguments, "to");
+                                Cursor cursor = Cursor.decode(MatrixMCPListingSupport.stringArg(arguments, "cursor"));
+                                List<ReservationEntity> reservations = reservationRepository.findPageAfter(
+                                                spaceId,
+                                                MatrixMCPListingSupport.enumArg(arguments, "status",
+                                                                ReservationStatusForEntity.class),
+                                                from != null ? from : FIRST_DATE,
+                                                to != null ? to : LAST_DATE,
+                                                cursor.key().isEmpty() ? FIRST_DATE : LocalDate.parse(cursor.key()),
+                                                cursor.id(),
+                                                PageRequest.of(0, listingSupport.fetchSize()));
+                                if (reservations.isEmpty()) {
+                                        return textResult(translate("matrix.mcp.admin.reservations.none", locale));
                                 }
-                                if (reservation.getEndDate() != null) {
-                                        reservationInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.reservations.end", locale))
-                                                        .append(": ").append(reservation.getEndDate());
-                                }
-                                if (reservation.getStatus() != null) {
-                                        reservationInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.reservations.status",
-                                                                        locale))
-                                                        .append(": ").append(reservation.getStatus());
-                                }
-                                results.add(reservationInfo.toString());
-                        }
 
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(false)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(String.join("\n", results))
-                                                        .build()))
-                                        .build();
+                                Table table = listingSupport.table(
+                                                translate("matrix.mcp.admin.reservations.title", locale),
+                                                "id", "space", "user", "start", "end", "status");
+                                boolean more = table.fill(reservations,
+                                                reservation -> new Cursor(String.valueOf(reservation.getStartDate()),
+                                                                reservation.getId()),
+                                                reservation -> Arrays.asList(reservation.getId(),
+                                                                reservation.getSpace() != null
+                                                                                ? reservation.getSpace().getName()
+                                                                                : null,
+                                                                reservation.getUser() != null
+                                                                                ? reservation.getUser().getFirstName()
+                                                                                                + " " + reservation.getUser()
+                                                                                                                .getLastName()
+                                                                                : null,
+                                                                reservation.getStartDate(), reservation.getEndDate(),
+                                                                reservation.getStatus()));
+                                return table.toResult(more ? continuation(table, locale) : null);
+                        });
                 } catch (Exception e) {
                         log.error("Error getting reservations (admin): {}", e.getMessage(), e);
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(true)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(translate("matrix.mcp.admin.reservations.error", locale,
-                                                                        e.getMessage()))
-                                                        .build()))
-                                        .build();
+                        return errorResult(translate("matrix.mcp.admin.reservations.error", locale, e.getMessage()));
                 }
         }
 
-        public MatrixMCPModels.MCPToolResult adminGetSpaces(MatrixAssistantAuthContext authContext) {
+        public MatrixMCPModels.MCPToolResult adminGetSpaces(Map<String, Object> arguments,
+                        MatrixAssistantAuthContext authContext) {
+                Locale locale = getLocaleFromAuthContext(authContext);
                 try {
-                        List<SpaceEntity> spaces = spaceRepository.findAll();
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        if (spaces == null || spaces.isEmpty()) {
-                                return MatrixMCPModels.MCPToolResult.builder()
-                                                .isError(false)
-                                                .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                                .type("text")
-                                                                .text(translate("matrix.mcp.admin.spaces.none", locale))
-                                                                .build()))
-                                                .build();
+                        // Spaces come from the shared in-memory index, no result cache needed
+                        SpaceTypeForEntity type = MatrixMCPListingSupport.enumArg(arguments, "type",
+                                        SpaceTypeForEntity.class);
+                        String prefix = MatrixMCPListingSupport.stringArg(arguments, "namePrefix");
+                        String normalizedPrefix = prefix != null ? prefix.toLowerCase(Locale.ROOT) : null;
+                        List<SpaceRef> spaces = spaceResolverIndex.getAll().stream()
+                                        .filter(space -> type == null || space.type() == type)
+                                        .filter(space -> normalizedPrefix == null || (space.name() != null
+                                                        && space.name().toLowerCase(Locale.ROOT)
+                                                                        .startsWith(normalizedPrefix)))
+                                        .toList();
+                        if (spaces.isEmpty()) {
+                                return textResult(translate("matrix.mcp.admin.spaces.none", locale));
                         }
 
-                        List<String> results = new ArrayList<>();
-                        results.add(translate("matrix.mcp.admin.spaces.title", locale));
-                        for (SpaceEntity space : spaces) {
-                                StringBuilder spaceInfo = new StringBuilder("\n🏢 ");
-                                spaceInfo.append(translate("matrix.mcp.admin.spaces.id", locale)).append(": ")
-                                                .append(space.getId());
-                                if (space.getName() != null) {
-                                        spaceInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.spaces.name", locale))
-                                                        .append(": ").append(space.getName());
-                                }
-                                if (space.getType() != null) {
-                                        spaceInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.spaces.type", locale))
-                                                        .append(": ").append(space.getType());
-                                }
-                                if (space.getDescription() != null) {
-                                        spaceInfo.append(" - ")
-                                                        .append(translate("matrix.mcp.admin.spaces.description",
-                                                                        locale))
-                                                        .append(": ").append(space.getDescription());
-                                }
-                                results.add(spaceInfo.toString());
-                        }
+                        // The index order is stable, so the cursor is the position after the last row
+                        Cursor cursor = Cursor.decode(MatrixMCPListingSupport.stringArg(arguments, "cursor"));
+                        int offset = cursor.key().isEmpty() ? 0 : Integer.parseInt(cursor.key());
+                        List<SpaceRef> page = spaces.subList(Math.min(offset, spaces.size()), spaces.size());
 
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(false)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(String.join("\n", results))
-                                                        .build()))
-                                        .build();
+                        Table table = listingSupport.table(translate("matrix.mcp.admin.spaces.title", locale),
+                                        "id", "name", "type", "status", "description");
+                        int[] position = { offset };
+                        boolean more = table.fill(page,
+                                        space -> new Cursor(String.valueOf(++position[0]), space.id()),
+                                        space -> Arrays.asList(space.id(), space.name(), space.type(),
+                                                        space.status(), space.description()));
+                        return table.toResult(more ? continuation(table, locale) : null);
                 } catch (Exception e) {
                         log.error("Error getting spaces (admin): {}", e.getMessage(), e);
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(true)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(translate("matrix.mcp.admin.spaces.error", locale,
-                                                                        e.getMessage()))
-                                                        .build()))
-                                        .build();
+                        return errorResult(translate("matrix.mcp.admin.spaces.error", locale, e.getMessage()));
                 }
         }
+
+        private String continuation(Table table, Locale locale) {
+                return translate("matrix.mcp.listing.more", locale, table.rows(), table.nextCursor());
+        }
+
+        private static MatrixMCPModels.MCPToolResult textResult(String text) {
+                return MatrixMCPModels.MCPToolResult.builder()
+                                .isError(false)
+                                .content(List.of(MatrixMCPModels.MCPContent.builder()
+                                                .type("text")
+                                                .text(text)
+                                                .build()))
+                                .build();
+        }
+
+        private static MatrixMCPModels.MCPToolResult errorResult(String text) {
+                return MatrixMCPModels.MCPToolResult.builder()
+                                .isError(true)
+                                .content(List.of(MatrixMCPModels.MCPContent.builder()
+                                                .type("text")
+                                                .text(text)
+                                                .build()))
+                                .build();
+        }
 }
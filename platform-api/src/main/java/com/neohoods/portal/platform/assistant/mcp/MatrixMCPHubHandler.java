@@ -1,15 +1,20 @@
 package com.neohoods.portal.platform.assistant.mcp;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPListingSupport.Cursor;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPListingSupport.Table;
 import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.entities.UserType;
 import com.neohoods.portal.platform.repositories.UsersRepository;
 import com.neohoods.portal.platform.services.AnnouncementsService;
 import com.neohoods.portal.platform.services.ApplicationsService;
@@ -31,6 +36,7 @@ public class MatrixMCPHubHandler extends MatrixMCPBaseHandler {
         private final AnnouncementsService announcementsService;
         private final ApplicationsService applicationsService;
         private final NotificationsService notificationsService;
+        private final MatrixMCPListingSupport listingSupport;
 
         public MatrixMCPHubHandler(
                         MessageSource messageSource,
@@ -39,12 +45,14 @@ public class MatrixMCPHubHandler extends MatrixMCPBaseHandler {
                         InfosService infosService,
                         AnnouncementsService announcementsService,
                         ApplicationsService applicationsService,
-                        NotificationsService notificationsService) {
+                        NotificationsService notificationsService,
+                        MatrixMCPListingSupport listingSupport) {
                 super(messageSource, usersRepository, adminCommandService);
                 this.infosService = infosService;
                 this.announcementsService = announcementsService;
                 this.applicationsService = applicationsService;
                 this.notificationsService = notificationsService;
+                this.listingSupport = listingSupport;
         }
 
         public MatrixMCPModels.MCPToolResult getInfos(MatrixAssistantAuthContext authContext) {
@@ -372,51 +380,42 @@ public class MatrixMCPHubHandler extends MatrixMCPBaseHandler {
                 }
         }
 
-        public MatrixMCPModels.MCPToolResult getUsers(MatrixAssistantAuthContext authContext) {
+        public MatrixMCPModels.MCPToolResult getUsers(Map<String, Object> arguments,
+                        MatrixAssistantAuthContext authContext) {
+                Locale locale = getLocaleFromAuthContext(authContext);
                 try {
-                        List<UserEntity> users = new ArrayList<>();
-                        usersRepository.findAll().forEach(users::add);
-                        Locale locale = getLocaleFromAuthContext(authContext);
-                        if (users == null || users.isEmpty()) {
-                                return MatrixMCPModels.MCPToolResult.builder()
-                                                .isError(false)
-                                                .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                                .type("text")
-                                                                .text(translate("matrix.mcp.users.none", locale))
-                                                                .build()))
-                                                .build();
-                        }
-
-                        List<String> results = new ArrayList<>();
-                        results.add(translate("matrix.mcp.users.title", locale));
-                        for (UserEntity user : users) {
-                                StringBuilder userInfo = new StringBuilder("\n👤 ");
-                                if (user.getFirstName() != null) {
-                                        userInfo.append(user.getFirstName());
+                        return listingSupport.cached("get_users", locale, arguments, () -> {
+                                Cursor cursor = Cursor.decode(MatrixMCPListingSupport.stringArg(arguments, "cursor"));
+                                List<UserEntity> users = usersRepository.findPageAfter(
+                                                MatrixMCPListingSupport.enumArg(arguments, "type", UserType.class),
+                                                MatrixMCPListingSupport.prefixPattern(
+                                                                MatrixMCPListingSupport.stringArg(arguments, "namePrefix")),
+                                                cursor.key(), cursor.id(),
+                                                PageRequest.of(0, listingSupport.fetchSize()));
+                                if (users.isEmpty()) {
+                                        return MatrixMCPModels.MCPToolResult.builder()
+                                                        .isError(false)
+                                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
+                                                                        .type("text")
+                                                                        .text(translate("matrix.mcp.users.none", locale))
+                                                                        .build()))
+                                                        .build();
                                 }
-                                if (user.getLastName() != null) {
-                                        userInfo.append(" ").append(user.getLastName());
-                                }
-                                if (user.getEmail() != null) {
-                                        userInfo.append(" (").append(user.getEmail()).append(")");
-                                }
-                                if (user.getType() != null) {
-                                        userInfo.append(" - ").append(translate("matrix.mcp.users.type", locale))
-                                                        .append(": ").append(user.getType());
-                                }
-                                results.add(userInfo.toString());
-                        }
 
-                        return MatrixMCPModels.MCPToolResult.builder()
-                                        .isError(false)
-                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
-                                                        .type("text")
-                                                        .text(String.join("\n", results))
-                                                        .build()))
-                                        .build();
+                                Table table = listingSupport.table(translate("matrix.mcp.users.title", locale),
+                                                "first_name", "last_name", "email", "type");
+                                boolean more = table.fill(users,
+                                                user -> new Cursor(user.getLastName() != null ? user.getLastName() : "",
+                                                                user.getId()),
+                                                user -> Arrays.asList(user.getFirstName(), user.getLastName(),
+                                                                user.getEmail(), user.getType()));
+                                return table.toResult(more
+                                                ? translate("matrix.mcp.listing.more", locale, table.rows(),
+                                                                table.nextCursor())
+                                                : null);
+                        });
                 } catch (Exception e) {
                         log.error("Error getting users: {}", e.getMessage(), e);
-                        Locale locale = getLocaleFromAuthContext(authContext);
                         return MatrixMCPModels.MCPToolResult.builder()
                                         .isError(true)
                                         .content(List.of(MatrixMCPModels.MCPContent.builder()
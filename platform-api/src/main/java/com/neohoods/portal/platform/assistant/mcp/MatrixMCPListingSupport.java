@@ -0,0 +1,265 @@
+package com.neohoods.portal.platform.assistant.mcp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantPromptAssemblyService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared plumbing for the MCP tools that list directory data (users, units,
+ * reservations, spaces): keyset cursors, compact tabular output bounded by a
+ * token budget, and a short-lived result cache per tool and argument set.
+ *
+ * Listings are read by the LLM, so one "a | b | c" row per item under a
+ * single header costs far less than labelled lines, and a page that stops at
+ * the budget with a continuation cursor keeps a large residence from filling
+ * the context window.
+ */
+@Component
+@Slf4j
+public class MatrixMCPListingSupport {
+
+        public static final UUID FIRST_ID = new UUID(0L, 0L);
+
+        private static final int MAX_CACHED_RESULTS = 256;
+        private static final int MAX_CELL_LENGTH = 80;
+
+        @Value("${neohoods.portal.matrix.assistant.mcp.listing.page-size:50}")
+        private int pageSize = 50;
+
+        @Value("${neohoods.portal.matrix.assistant.mcp.listing.max-result-tokens:1500}")
+        private int maxResultTokens = 1500;
+
+        @Value("${neohoods.portal.matrix.assistant.mcp.listing.cache-ttl-seconds:30}")
+        private long cacheTtlSeconds = 30;
+
+        private final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+
+        private record CachedResult(MatrixMCPModels.MCPToolResult result, long expiresAt) {
+        }
+
+        /**
+         * Keyset position: sort key and id of the last row returned
+         */
+        public record Cursor(String key, UUID id) {
+
+                public static final Cursor FIRST = new Cursor("", FIRST_ID);
+
+                public String encode() {
+                        return Base64.getUrlEncoder().withoutPadding()
+                                        .encodeToString((key + "\n" + id).getBytes(StandardCharsets.UTF_8));
+                }
+
+                /**
+                 * Decodes a cursor from tool arguments, {@link #FIRST} when absent
+                 */
+                public static Cursor decode(String token) {
+                        if (token == null || token.isBlank()) {
+                                return FIRST;
+                        }
+                        try {
+                                String decoded = new String(Base64.getUrlDecoder().decode(token.trim()),
+                                                StandardCharsets.UTF_8);
+                                int separator = decoded.lastIndexOf('\n');
+                                return new Cursor(decoded.substring(0, separator),
+                                                UUID.fromString(decoded.substring(separator + 1)));
+                        } catch (RuntimeException e) {
+                                throw new IllegalArgumentException("Invalid cursor: " + token);
+                        }
+                }
+        }
+
+        /**
+         * Returns the cached result of a listing tool for the same locale and
+         * arguments, or loads and caches it. Errors are never cached.
+         */
+        public MatrixMCPModels.MCPToolResult cached(String toolName, Locale locale, Map<String, Object> arguments,
+                        Supplier<MatrixMCPModels.MCPToolResult> loader) {
+                String key = toolName + "|" + locale + "|"
+                                + (arguments != null ? new TreeMap<>(arguments) : Map.of());
+                long now = System.currentTimeMillis();
+                CachedResult cachedResult = cache.get(key);
+                if (cachedResult != null && now < cachedResult.expiresAt()) {
+                        log.debug("MCP listing cache hit for {}", toolName);
+                        return cachedResult.result();
+                }
+                MatrixMCPModels.MCPToolResult result = loader.get();
+                if (!result.isError() && cacheTtlSeconds > 0) {
+                        if (cache.size() >= MAX_CACHED_RESULTS) {
+                                cache.values().removeIf(entry -> now >= entry.expiresAt());
+                                if (cache.size() >= MAX_CACHED_RESULTS) {
+                                        cache.clear();
+                                }
+                        }
+                        cache.put(key, new CachedResult(result, now + cacheTtlSeconds * 1000));
+                }
+                return result;
+        }
+
+        /**
+         * Number of rows to fetch for one page: one more than the page size,
+         * so that a full page knows whether more rows follow
+         */
+        public int fetchSize() {
+                return pageSize + 1;
+        }
+
+        public Table table(String title, String... columns) {
+                return new Table(title, List.of(columns), pageSize, maxResultTokens);
+        }
+
+        /**
+         * Compact "a | b | c" table that stops accepting rows at the page size
+         * or the token budget, whichever comes first
+         */
+        public static final class Table {
+
+                private final StringBuilder text = new StringBuilder();
+                private final int pageSize;
+                private final int maxTokens;
+                private int tokens;
+                private int rows;
+                private Cursor last;
+
+                private Table(String title, List<String> columns, int pageSize, int maxTokens) {
+                        this.pageSize = pageSize;
+                        this.maxTokens = maxTokens;
+                        text.append(title).append('\n').append(String.join(" | ", columns));
+                        tokens = MatrixAssistantPromptAssemblyService.estimateTokens(text.toString());
+                }
+
+                /**
+                 * Adds rows in order until the page is full.
+                 *
+                 * @return true if some rows did not fit and a next page exists
+                 */
+                public <T> boolean fill(List<T> items, Function<T, Cursor> position,
+                                Function<T, List<Object>> values) {
+                        for (T item : items) {
+                                if (rows >= pageSize) {
+                                        return true;
+                                }
+                                String row = toRow(values.apply(item));
+                                int rowTokens = MatrixAssistantPromptAssemblyService.estimateTokens(row) + 1;
+                                if (rows > 0 && tokens + rowTokens > maxTokens) {
+                                        return true;
+                                }
+                                text.append('\n').append(row);
+                                tokens += rowTokens;
+                                rows++;
+                                last = position.apply(item);
+                        }
+                        return false;
+                }
+
+                public int rows() {
+                        return rows;
+                }
+
+                /**
+                 * Cursor of the next page, to pass back as the "cursor" argument
+                 */
+                public String nextCursor() {
+                        return last != null ? last.encode() : null;
+                }
+
+                /**
+                 * Builds the tool result, with a continuation line when more rows
+                 * exist
+                 */
+                public MatrixMCPModels.MCPToolResult toResult(String continuation) {
+                        String content = continuation != null ? text + "\n" + continuation : text.toString();
+                        return MatrixMCPModels.MCPToolResult.builder()
+                                        .isError(false)
+                                        .content(List.of(MatrixMCPModels.MCPContent.builder()
+                                                        .type("text")
+                                                        .text(content)
+                                                        .build()))
+                                        .structuredContent(continuation != null
+                                                        ? Map.of("rows", rows, "nextCursor", nextCursor())
+                                                        : Map.of("rows", rows))
+                                        .build();
+                }
+
+                private static String toRow(List<Object> values) {
+                        List<String> cells = new ArrayList<>(values.size());
+                        for (Object value : values) {
+                                String cell = value != null ? String.valueOf(value) : "";
+                                cell = cell.replace('|', '/').replace('\n', ' ').replace('\r', ' ').trim();
+                                if (cell.length() > MAX_CELL_LENGTH) {
+                                        cell = cell.substring(0, MAX_CELL_LENGTH - 1) + "…";
+                                }
+                                cells.add(cell);
+                        }
+                        return String.join(" | ", cells);
+                }
+        }
+
+        /**
+         * Non-blank string argument, or null
+         */
+        public static String stringArg(Map<String, Object> arguments, String name) {
+                Object value = arguments != null ? arguments.get(name) : null;
+                if (value == null || String.valueOf(value).isBlank()) {
+                        return null;
+                }
+                return String.valueOf(value).trim();
+        }
+
+        /**
+         * ISO date argument (yyyy-MM-dd), or null
+         */
+        public static LocalDate dateArg(Map<String, Object> arguments, String name) {
+                String value = stringArg(arguments, name);
+                if (value == null) {
+                        return null;
+                }
+                try {
+                        return LocalDate.parse(value);
+                } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException("Invalid date for " + name + ": " + value);
+                }
+        }
+
+        /**
+         * Enum argument matched case-insensitively, or null
+         */
+        public static <E extends Enum<E>> E enumArg(Map<String, Object> arguments, String name, Class<E> type) {
+                String value = stringArg(arguments, name);
+                if (value == null) {
+                        return null;
+                }
+                try {
+                        return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+                }
+        }
+
+        /**
+         * Lower-case LIKE pattern for a name prefix, matching everything when
+         * absent. LIKE wildcards typed by the user are dropped.
+         */
+        public static String prefixPattern(String prefix) {
+                if (prefix == null) {
+                        return "%";
+                }
+                return prefix.replace("%", "").replace("_", "").toLowerCase(Locale.ROOT) + "%";
+        }
+}
@@ -24,6 +24,8 @@ public class MatrixMCPModels {
         public static class MCPToolResult {
                 private boolean isError;
                 private List<MCPContent> content;
+                // Typed payload for internal callers and MCP clients (MCP structuredContent)
+                private Map<String, Object> structuredContent;
         }
 
         @Data
@@ -63,7 +63,7 @@ public class MatrixMCPResidentHandler extends MatrixMCPBaseHandler {
                         String building = apartment.trim().toUpperCase();
                         if (building.length() == 1 && building.matches("[ABC]")) {
                                 String floorPattern = building + floor;
-                                List<UnitEntity> units = unitRepository.findAll();
+                                List<UnitEntity> units = unitRepository.findByNameStartingWithIgnoreCase(floorPattern);
                                 List<UnitEntity> floorUnits = units.stream()
                                                 .filter(u -> {
                                                         if (u.getName() == null || u.getName().isEmpty()) {
@@ -162,7 +162,7 @@ public class MatrixMCPResidentHandler extends MatrixMCPBaseHandler {
                                 results.add(translate("matrix.mcp.residentInfo.noApartmentFound", locale, apartment));
                         }
                 } else if (floor != null && !floor.isEmpty()) {
-                        List<UnitEntity> units = unitRepository.findAll();
+                        List<UnitEntity> units = unitRepository.findByNameContainingIgnoreCase(floor);
                         List<UnitEntity> floorUnits = units.stream()
                                         .filter(u -> {
                                                 if (u.getName() == null || u.getName().isEmpty()) {
@@ -3,6 +3,7 @@ package com.neohoods.portal.platform.assistant.mcp;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -17,7 +18,8 @@ import com.neohoods.portal.platform.repositories.UsersRepository;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAdminCommandService;
 import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
-import com.neohoods.portal.platform.spaces.repositories.SpaceRepository;
+import com.neohoods.portal.platform.spaces.services.SpaceResolverIndex;
+import com.neohoods.portal.platform.spaces.services.SpaceResolverIndex.SpaceRef;
 import com.neohoods.portal.platform.spaces.services.SpacesService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -30,17 +32,17 @@ import lombok.extern.slf4j.Slf4j;
 public class MatrixMCPSpaceHandler extends MatrixMCPBaseHandler {
 
         private final SpacesService spacesService;
-        private final SpaceRepository spaceRepository;
+        private final SpaceResolverIndex spaceResolverIndex;
 
         public MatrixMCPSpaceHandler(
                         MessageSource messageSource,
                         UsersRepository usersRepository,
                         @Autowired(required = false) MatrixAssistantAdminCommandService adminCommandService,
                         SpacesService spacesService,
-                        SpaceRepository spaceRepository) {
+                        SpaceResolverIndex spaceResolverIndex) {
                 super(messageSource, usersRepository, adminCommandService);
                 this.spacesService = spacesService;
-                this.spaceRepository = spaceRepository;
+                this.spaceResolverIndex = spaceResolverIndex;
         }
 
         public MatrixMCPModels.MCPToolResult getSpaceInfo(Map<String, Object> arguments,
@@ -101,7 +103,7 @@ public class MatrixMCPSpaceHandler extends MatrixMCPBaseHandler {
                 Locale locale = getLocaleFromAuthContext(authContext);
 
                 try {
-                        List<SpaceEntity> spaces = spaceRepository.findAll();
+                        List<SpaceRef> spaces = spaceResolverIndex.getAll();
 
                         if (spaces.isEmpty()) {
                                 return MatrixMCPModels.MCPToolResult.builder()
@@ -117,14 +119,23 @@ public class MatrixMCPSpaceHandler extends MatrixMCPBaseHandler {
                         result.append("📋 **").append(translate("matrix.mcp.space.available", locale, spaces.size()))
                                         .append("**\n\n");
 
-                        for (SpaceEntity space : spaces) {
-                                result.append("🏠 **").append(space.getName()).append("**\n");
+                        List<Map<String, Object>> structuredSpaces = new ArrayList<>();
+                        for (SpaceRef space : spaces) {
+                                Map<String, Object> structuredSpace = new LinkedHashMap<>();
+                                structuredSpace.put("id", space.id().toString());
+                                structuredSpace.put("name", space.name());
+                                structuredSpace.put("number", space.number());
+                                structuredSpace.put("type", String.valueOf(space.type()));
+                                structuredSpace.put("status", String.valueOf(space.status()));
+                                structuredSpaces.add(structuredSpace);
+
+                                result.append("🏠 **").append(space.name()).append("**\n");
                                 result.append("   - ").append(translate("matrix.mcp.space.type", locale)).append(": ")
-                                                .append(space.getType()).append("\n");
+                                                .append(space.type()).append("\n");
                                 result.append("   - ").append(translate("matrix.mcp.space.id", locale)).append(": ")
-                                                .append(space.getId()).append("\n");
-                                if (space.getDescription() != null && !space.getDescription().isEmpty()) {
-                                        String desc = space.getDescription();
+                                                .append(space.id()).append("\n");
+                                if (space.description() != null && !space.description().isEmpty()) {
+                                        String desc = space.description();
                                         if (desc.length() > 100) {
                                                 desc = desc.substring(0, 100) + "...";
                                         }
@@ -132,7 +143,7 @@ public class MatrixMCPSpaceHandler extends MatrixMCPBaseHandler {
                                                         .append(": ").append(desc).append("\n");
                                 }
                                 result.append("   - ").append(translate("matrix.mcp.space.status", locale)).append(": ")
-                                                .append(space.getStatus()).append("\n\n");
+                                                .append(space.status()).append("\n\n");
                         }
 
                         result.append("💡 ").append(translate("matrix.mcp.space.tip", locale));
@@ -143,6 +154,7 @@ public class MatrixMCPSpaceHandler extends MatrixMCPBaseHandler {
                                                         .type("text")
                                                         .text(result.toString())
                                                         .build()))
+                                        .structuredContent(Map.of("spaces", structuredSpaces))
                                         .build();
                 } catch (Exception e) {
                         log.error("Error listing spaces: {}", e.getMessage(), e);
@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.MessageSource;
@@ -52,6 +53,7 @@ public class MatrixAssistantAIService {
     private final MatrixAssistantMCPAdapter mcpAdapter;
     private final ResourceLoader resourceLoader;
     private final MessageSource messageSource;
+    private final MistralGateway mistralGateway;
 
     @Value("${neohoods.portal.matrix.assistant.ai.system-prompt-file:classpath:matrix-assistant/prompts/system/matrix-assistant-system-prompt.txt}")
     private String systemPromptFile;
@@ -75,11 +77,11 @@ public class MatrixAssistantAIService {
     private String minimalPrompt;
 
     // Optional: RAG service (only available if RAG is enabled)
-    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    @Autowired(required = false)
     private MatrixAssistantRAGService ragService;
 
     // Optional: Admin command service
-    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    @Autowired(required = false)
     private MatrixAssistantAdminCommandService adminCommandService;
 
     @Value("${neohoods.portal.matrix.assistant.ai.provider}")
@@ -326,16 +328,21 @@ public class MatrixAssistantAIService {
 
         log.debug("Calling Mistral API with model: {}, tools: {}", model, tools.size());
 
-        return webClient.post()
+        return mistralGateway.call("chat", MistralGateway.Priority.INTERACTIVE, true, webClient.post()
                 .uri("/chat/completions")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .flatMap(response -> {
                     // Process Mistral response
-                    return processMistralResponse(response, authContext, messages, ragContext, tools);
+                    return processMistralResponse((Map<String, Object>) response, authContext, messages, ragContext,
+                            tools);
                 })
                 .onErrorResume(e -> {
+                    if (MistralGateway.isUnavailable(e)) {
+                        // Let the message handler send the fallback reply
+                        return Mono.error(e);
+                    }
                     log.error("Error calling Mistral API: {}",
                             e instanceof Exception ? ((Exception) e).getMessage() : e.toString(), e);
                     return Mono.just("Sorry, an error occurred while generating the response.");
@@ -884,7 +891,7 @@ public class MatrixAssistantAIService {
             }
         }
 
-        return webClient.post()
+        return mistralGateway.call("chat-tool-results", MistralGateway.Priority.INTERACTIVE, true, webClient.post()
                 .uri("/chat/completions")
                 .bodyValue(requestBody)
                 .retrieve()
@@ -893,14 +900,14 @@ public class MatrixAssistantAIService {
                             log.error("Mistral API error (iteration {}): {} - Request had {} messages, {} tools",
                                     iteration, response.statusCode(), messages.size(),
                                     tools != null ? tools.size() : 0);
-                            return response.bodyToMono(String.class)
-                                    .flatMap(body -> {
-                                        log.error("Mistral API error body: {}", body);
-                                        return Mono.error(new RuntimeException(
-                                                "Mistral API error: " + response.statusCode() + " - " + body));
+                            // Keep the status and headers: the gateway retries 429s and 5xx
+                            return response.createException()
+                                    .flatMap(e -> {
+                                        log.error("Mistral API error body: {}", e.getResponseBodyAsString());
+                                        return Mono.error(e);
                                     });
                         })
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .flatMap(response -> {
                     // Check if Mistral wants to make another tool call (chained reasoning)
                     @SuppressWarnings("unchecked")
@@ -1463,15 +1470,20 @@ public class MatrixAssistantAIService {
         requestBody.put("temperature", 0.7);
         requestBody.put("max_tokens", 1000);
 
-        return webClient.post()
+        return mistralGateway.call("chat-force-tool", MistralGateway.Priority.INTERACTIVE, true, webClient.post()
                 .uri("/chat/completions")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .flatMap(response -> {
-                    return processMistralResponse(response, authContext, messages, ragContext, tools);
+                    return processMistralResponse((Map<String, Object>) response, authContext, messages, ragContext,
+                            tools);
                 })
                 .onErrorResume(e -> {
+                    if (MistralGateway.isUnavailable(e)) {
+                        // Let the message handler send the fallback reply
+                        return Mono.error(e);
+                    }
                     log.error("Error forcing tool call: {}",
                             e instanceof Exception ? ((Exception) e).getMessage() : e.toString(), e);
                     return Mono.just("Sorry, an error occurred while searching for information.");
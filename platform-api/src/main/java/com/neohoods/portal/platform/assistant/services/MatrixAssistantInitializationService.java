@@ -12,14 +12,13 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.yaml.snakeyaml.Yaml;
 
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStage;
 import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.entities.UserType;
 import com.neohoods.portal.platform.repositories.UsersRepository;
@@ -37,7 +36,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @ConditionalOnProperty(name = { "neohoods.portal.matrix.enabled",
         "neohoods.portal.matrix.initialization.enabled" }, havingValue = "true", matchIfMissing = false)
-public class MatrixAssistantInitializationService {
+public class MatrixAssistantInitializationService implements AssistantStartupStage {
 
     private final MatrixAssistantService matrixAssistantService;
     private final MatrixOAuth2Service oauth2Service;
@@ -69,10 +68,19 @@ public class MatrixAssistantInitializationService {
     @Value("${neohoods.portal.matrix.local-assistant.permanent-token:}")
     private String localAssistantPermanentToken;
 
+    @Override
+    public String getStageName() {
+        return MATRIX_ROOMS;
+    }
+
+    @Override
+    public void runStage() {
+        initializeBot();
+    }
+
     /**
      * Initialize bot on application startup
      */
-    @EventListener(ApplicationReadyEvent.class)
     public void initializeBot() {
         doInitializeBot();
     }
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.MessageSource;
@@ -56,6 +57,9 @@ public class MatrixAssistantLLMJudgeService {
 
     private static final String MISTRAL_API_BASE_URL = "https://api.mistral.ai/v1";
 
+    @Autowired(required = false)
+    private MistralGateway mistralGateway = MistralGateway.DIRECT;
+
     /**
      * Evaluates an AI assistant response using LLM-as-a-Judge.
      * This is called asynchronously after a response is sent.
@@ -145,11 +149,12 @@ public class MatrixAssistantLLMJudgeService {
             request.put("temperature", 0.3); // Lower temperature for more consistent evaluations
 
             // Call API
-            String responseJson = webClient.post()
-                    .uri("/chat/completions")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(String.class)
+            String responseJson = mistralGateway.call("judge", MistralGateway.Priority.BACKGROUND, true,
+                    webClient.post()
+                            .uri("/chat/completions")
+                            .bodyValue(request)
+                            .retrieve()
+                            .bodyToMono(String.class))
                     .block();
 
             // Parse response
@@ -0,0 +1,233 @@
+package com.neohoods.portal.platform.assistant.services;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Timers and spans for the assistant message path.
+ *
+ * Each stage (sync receive, router classification, agent, LLM call, MCP tool,
+ * Matrix send) is recorded as a Micrometer observation, which yields both a
+ * timer (p50/p99 via the "assistant" percentiles in application.yml) and a
+ * span nested under the current message. Mistral token usage is recorded as a
+ * distribution summary.
+ *
+ * Payload dumps are expensive on the hot path: shouldLogPayload() only lets
+ * them through for sampled traces, plus an optional share of conversations
+ * handled without tracing.
+ */
+@Service
+@Slf4j
+public class MatrixAssistantMetricsService {
+
+    public static final String SYNC_RECEIVE = "assistant.sync.receive";
+    public static final String MESSAGE = "assistant.message";
+    public static final String ROUTER_CLASSIFY = "assistant.router.classify";
+    public static final String AGENT = "assistant.agent";
+    public static final String LLM_CALL = "assistant.llm.call";
+    public static final String MCP_TOOL = "assistant.mcp.tool";
+    public static final String MATRIX_SEND = "assistant.matrix.send";
+    public static final String LLM_TOKENS = "assistant.llm.tokens";
+
+    public static final String TAG_WORKFLOW = "workflow";
+    public static final String TAG_AGENT = "agent";
+    public static final String TAG_TOOL = "tool";
+    public static final String TAG_CALL = "call";
+    public static final String TAG_OUTCOME = "outcome";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_CANCELLED = "cancelled";
+
+    private static final String CONVERSATION_TRACE_ID = "conversationTraceId";
+
+    /**
+     * Used by instrumented components when no registry is wired (unit tests).
+     */
+    public static final MatrixAssistantMetricsService NOOP = new MatrixAssistantMetricsService(
+            ObservationRegistry.NOOP, new CompositeMeterRegistry(), (Tracer) null);
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Supplier<Tracer> tracer;
+
+    // Share of conversations outside any trace whose payloads are logged
+    @Value("${neohoods.portal.matrix.assistant.metrics.payload-log-rate:0.0}")
+    private double payloadLogRate = 0.0;
+
+    @Autowired
+    public MatrixAssistantMetricsService(ObservationRegistry observationRegistry, MeterRegistry meterRegistry,
+            ObjectProvider<Tracer> tracerProvider) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracerProvider::getIfAvailable;
+    }
+
+    MatrixAssistantMetricsService(ObservationRegistry observationRegistry, MeterRegistry meterRegistry,
+            Tracer tracer) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.tracer = () -> tracer;
+    }
+
+    /**
+     * Observes a reactive stage. The observation is a child of the one found in
+     * the subscriber context (or on the current thread) and is propagated
+     * upstream so nested stages attach to it.
+     */
+    public <T> Mono<T> observe(String name, Map<String, String> tags, Mono<T> source) {
+        return observe(name, tags, value -> Map.of(), source);
+    }
+
+    /**
+     * Same as {@link #observe(String, Map, Mono)}, with tags derived from the
+     * emitted value (e.g. the workflow picked by the router). Result tags may
+     * set {@value #TAG_OUTCOME} to flag a functional error.
+     */
+    public <T> Mono<T> observe(String name, Map<String, String> tags,
+            Function<? super T, Map<String, String>> resultTags, Mono<T> source) {
+        if (observationRegistry.isNoop()) {
+            return source;
+        }
+        return Mono.deferContextual(context -> {
+            Observation parent = context.getOrDefault(ObservationThreadLocalAccessor.KEY,
+                    observationRegistry.getCurrentObservation());
+            Observation observation = Observation.createNotStarted(name, observationRegistry)
+                    .parentObservation(parent);
+            tags.forEach(observation::lowCardinalityKeyValue);
+            String[] outcome = new String[1];
+            observation.start();
+            return source
+                    .doOnNext(value -> resultTags.apply(value).forEach((key, tagValue) -> {
+                        if (TAG_OUTCOME.equals(key)) {
+                            outcome[0] = tagValue;
+                        } else {
+                            observation.lowCardinalityKeyValue(key, tagValue);
+                        }
+                    }))
+                    .doOnError(observation::error)
+                    .doFinally(signal -> {
+                        observation.lowCardinalityKeyValue(TAG_OUTCOME,
+                                outcome[0] != null && signal == SignalType.ON_COMPLETE ? outcome[0] : outcome(signal));
+                        observation.stop();
+                    })
+                    .contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    /**
+     * Observes a blocking stage, scoped to the current thread.
+     */
+    public <T> T observe(String name, Map<String, String> tags,
+            Function<? super T, Map<String, String>> resultTags, Supplier<T> action) {
+        if (observationRegistry.isNoop()) {
+            return action.get();
+        }
+        Observation observation = Observation.createNotStarted(name, observationRegistry)
+                .parentObservation(observationRegistry.getCurrentObservation());
+        tags.forEach(observation::lowCardinalityKeyValue);
+        observation.start();
+        String outcome = OUTCOME_SUCCESS;
+        try (Observation.Scope scope = observation.openScope()) {
+            T result = action.get();
+            for (Map.Entry<String, String> tag : resultTags.apply(result).entrySet()) {
+                if (TAG_OUTCOME.equals(tag.getKey())) {
+                    outcome = tag.getValue();
+                } else {
+                    observation.lowCardinalityKeyValue(tag.getKey(), tag.getValue());
+                }
+            }
+            return result;
+        } catch (RuntimeException e) {
+            outcome = OUTCOME_ERROR;
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue(TAG_OUTCOME, outcome);
+            observation.stop();
+        }
+    }
+
+    /**
+     * Records prompt/completion token counts from a Mistral response "usage"
+     * block.
+     */
+    public void recordTokenUsage(Map<?, ?> response, String agent, String workflow) {
+        if (response == null || !(response.get("usage") instanceof Map<?, ?> usage)) {
+            return;
+        }
+        recordTokens(usage.get("prompt_tokens"), "prompt", agent, workflow);
+        recordTokens(usage.get("completion_tokens"), "completion", agent, workflow);
+    }
+
+    private void recordTokens(Object count, String type, String agent, String workflow) {
+        if (!(count instanceof Number number)) {
+            return;
+        }
+        DistributionSummary.builder(LLM_TOKENS)
+                .description("Tokens consumed per Mistral call")
+                .baseUnit("tokens")
+                .tag("type", type)
+                .tag(TAG_AGENT, agent)
+                .tag(TAG_WORKFLOW, workflow)
+                .register(meterRegistry)
+                .record(number.doubleValue());
+    }
+
+    /**
+     * Whether full request/response payloads should be logged for the current
+     * message. Within a trace, payloads are logged if and only if the trace is
+     * sampled, so unsampled traces never log them. Messages handled outside any
+     * trace (tracing disabled) are logged at the configured rate, 0 by default,
+     * decided once per conversation so a logged exchange is always complete.
+     *
+     * @param mdcContext MDC captured when the request was built, used to find
+     *                   the conversation when no span is active (may be null)
+     */
+    public boolean shouldLogPayload(Map<String, String> mdcContext) {
+        Tracer currentTracer = tracer.get();
+        Span span = currentTracer != null ? currentTracer.currentSpan() : null;
+        if (span != null) {
+            return Boolean.TRUE.equals(span.context().sampled());
+        }
+        if (payloadLogRate <= 0.0) {
+            return false;
+        }
+        if (payloadLogRate >= 1.0) {
+            return true;
+        }
+        String key = mdcContext != null ? mdcContext.get(CONVERSATION_TRACE_ID) : MDC.get(CONVERSATION_TRACE_ID);
+        if (key == null) {
+            return ThreadLocalRandom.current().nextDouble() < payloadLogRate;
+        }
+        return Math.floorMod(key.hashCode(), 10000) < payloadLogRate * 10000;
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_ERROR -> OUTCOME_ERROR;
+            case CANCEL -> OUTCOME_CANCELLED;
+            default -> OUTCOME_SUCCESS;
+        };
+    }
+}
@@ -0,0 +1,257 @@
+package com.neohoods.portal.platform.assistant.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPTool;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the message list sent to Mistral chat completions.
+ *
+ * Requests are laid out so that the longest possible prefix is identical from
+ * one call to the next, which is what provider-side prompt caching keys on:
+ * the system prompt and the tool definitions come first, are serialised once
+ * (tools in a fixed name order, with fixed key order) and reused as immutable
+ * blocks. Per-message content (RAG context, the user message) goes last, and
+ * the room history in between is trimmed to a token budget.
+ *
+ * There is no Java port of the Mistral tokenizer, so token counts are
+ * estimated locally and the estimate is calibrated against the prompt_tokens
+ * reported by the API.
+ */
+@Service
+@Slf4j
+public class MatrixAssistantPromptAssemblyService {
+
+    private static final int MAX_CACHED_BLOCKS = 64;
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    private static final double CALIBRATION_WEIGHT = 0.1;
+
+    @Value("${neohoods.portal.matrix.assistant.prompt.history-budget-tokens:3000}")
+    private int historyBudgetTokens = 3000;
+
+    private final Map<String, PromptBlock> systemBlocks = new ConcurrentHashMap<>();
+    private final Map<String, ToolBlock> toolBlocks = new ConcurrentHashMap<>();
+
+    // Ratio between the API token count and the local estimate
+    private volatile double calibration = 1.0;
+
+    /**
+     * Immutable system prompt with its estimated size
+     */
+    public record PromptBlock(String content, int tokens) {
+    }
+
+    /**
+     * Immutable tool definitions in Mistral function format, in a stable order
+     */
+    public record ToolBlock(List<Map<String, Object>> tools, int tokens) {
+    }
+
+    /**
+     * Messages ready to send, with the local estimate of their prompt tokens
+     */
+    public record AssembledPrompt(List<Map<String, Object>> messages, int estimatedTokens, int droppedMessages) {
+    }
+
+    /**
+     * Returns the cached block for a system prompt. Prompts differ per agent,
+     * step, locale and day, so the content itself is the cache key.
+     */
+    public PromptBlock systemBlock(String systemPrompt) {
+        String content = systemPrompt != null ? systemPrompt : "";
+        PromptBlock block = systemBlocks.get(content);
+        if (block == null) {
+            block = new PromptBlock(content, estimateTokens(content));
+            if (systemBlocks.size() >= MAX_CACHED_BLOCKS) {
+                // Yesterday's prompts (date header) are never used again
+                systemBlocks.clear();
+            }
+            systemBlocks.put(content, block);
+        }
+        return block;
+    }
+
+    /**
+     * Returns the cached Mistral function definitions for a set of MCP tools.
+     * MCP tools are loaded once at startup, so tool names identify a block.
+     */
+    public ToolBlock toolBlock(Collection<MCPTool> mcpTools) {
+        List<MCPTool> sorted = mcpTools.stream()
+                .sorted(Comparator.comparing(MCPTool::getName))
+                .toList();
+        String key = sorted.stream().map(MCPTool::getName).collect(Collectors.joining(","));
+        return toolBlocks.computeIfAbsent(key, k -> {
+            List<Map<String, Object>> tools = sorted.stream()
+                    .map(MatrixAssistantPromptAssemblyService::toMistralFunction)
+                    .toList();
+            return new ToolBlock(tools, estimateTokens(String.valueOf(tools)));
+        });
+    }
+
+    /**
+     * Converts an MCP tool to Mistral function format with a fixed key order
+     */
+    public static Map<String, Object> toMistralFunction(MCPTool mcpTool) {
+        Map<String, Object> function = new LinkedHashMap<>();
+        function.put("name", mcpTool.getName());
+        function.put("description", mcpTool.getDescription() != null ? mcpTool.getDescription() : "");
+        function.put("parameters", mcpTool.getInputSchema() != null ? mcpTool.getInputSchema() : Map.of());
+
+        Map<String, Object> tool = new LinkedHashMap<>();
+        tool.put("type", "function");
+        tool.put("function", Collections.unmodifiableMap(function));
+        return Collections.unmodifiableMap(tool);
+    }
+
+    /**
+     * Assembles [system][history][context + user message]. History is kept
+     * newest first until the budget is spent; tool results whose assistant
+     * call was trimmed away are dropped too, since Mistral rejects them.
+     */
+    public AssembledPrompt assemble(PromptBlock system, List<Map<String, Object>> tools,
+            List<Map<String, Object>> history, String ragContext, String userMessage) {
+        List<Map<String, Object>> messages = new ArrayList<>();
+        Map<String, Object> systemMsg = new LinkedHashMap<>();
+        systemMsg.put("role", "system");
+        systemMsg.put("content", system.content());
+        messages.add(systemMsg);
+
+        LinkedList<Map<String, Object>> kept = new LinkedList<>();
+        int historyTokens = 0;
+        int dropped = 0;
+        if (history != null) {
+            for (int i = history.size() - 1; i >= 0; i--) {
+                Map<String, Object> cleanMsg = cleanHistoryMessage(history.get(i));
+                int tokens = estimateMessageTokens(cleanMsg);
+                if (historyTokens + tokens > historyBudgetTokens) {
+                    dropped = i + 1;
+                    break;
+                }
+                historyTokens += tokens;
+                kept.addFirst(cleanMsg);
+            }
+        }
+        while (!kept.isEmpty() && "tool".equals(kept.getFirst().get("role"))) {
+            historyTokens -= estimateMessageTokens(kept.removeFirst());
+            dropped++;
+        }
+        messages.addAll(kept);
+
+        String content = ragContext != null && !ragContext.isEmpty() ? ragContext + userMessage : userMessage;
+        Map<String, Object> userMsg = new LinkedHashMap<>();
+        userMsg.put("role", "user");
+        userMsg.put("content", content);
+        messages.add(userMsg);
+
+        int estimated = system.tokens() + MESSAGE_OVERHEAD_TOKENS
+                + toolTokens(tools)
+                + historyTokens
+                + estimateTokens(content) + MESSAGE_OVERHEAD_TOKENS;
+        if (dropped > 0) {
+            log.debug("Trimmed {} history messages to fit the {} tokens history budget", dropped,
+                    historyBudgetTokens);
+        }
+        return new AssembledPrompt(messages, (int) Math.round(estimated * calibration), dropped);
+    }
+
+    /**
+     * Logs estimated against actual prompt tokens for a call and refines the
+     * estimator calibration.
+     */
+    public void recordPromptTokens(String call, int estimatedTokens, Map<?, ?> response) {
+        if (response == null || !(response.get("usage") instanceof Map<?, ?> usage)
+                || !(usage.get("prompt_tokens") instanceof Number actual)) {
+            return;
+        }
+        log.info("🧮 Prompt tokens [{}]: {} (estimated {})", call, actual.intValue(), estimatedTokens);
+        if (estimatedTokens > 0) {
+            double rawEstimate = estimatedTokens / calibration;
+            double ratio = actual.doubleValue() / rawEstimate;
+            calibration = calibration * (1 - CALIBRATION_WEIGHT) + ratio * CALIBRATION_WEIGHT;
+        }
+    }
+
+    private int toolTokens(List<Map<String, Object>> tools) {
+        if (tools == null || tools.isEmpty()) {
+            return 0;
+        }
+        for (ToolBlock block : toolBlocks.values()) {
+            if (block.tools() == tools) {
+                return block.tokens();
+            }
+        }
+        // Step-specific lists extend a cached block with extra functions
+        return estimateTokens(String.valueOf(tools));
+    }
+
+    /**
+     * Local token estimate: BPE tokenizers split words into chunks of ~4
+     * letters, numbers into chunks of ~3 digits and most symbols into their
+     * own token.
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        int letters = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c)) {
+                tokens += (digits + 2) / 3;
+                digits = 0;
+                letters++;
+            } else if (Character.isDigit(c)) {
+                tokens += (letters + 3) / 4;
+                letters = 0;
+                digits++;
+            } else {
+                tokens += (letters + 3) / 4 + (digits + 2) / 3;
+                letters = 0;
+                digits = 0;
+                if (!Character.isWhitespace(c) && !Character.isLowSurrogate(c)) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens + (letters + 3) / 4 + (digits + 2) / 3;
+    }
+
+    private static int estimateMessageTokens(Map<String, Object> message) {
+        Object content = message.get("content");
+        int tokens = MESSAGE_OVERHEAD_TOKENS + estimateTokens(content != null ? String.valueOf(content) : null);
+        if (message.containsKey("tool_calls")) {
+            tokens += estimateTokens(String.valueOf(message.get("tool_calls")));
+        }
+        return tokens;
+    }
+
+    private static Map<String, Object> cleanHistoryMessage(Map<String, Object> histMsg) {
+        // Timestamps are only for filtering, not for Mistral API
+        Map<String, Object> cleanMsg = new LinkedHashMap<>();
+        cleanMsg.put("role", histMsg.get("role"));
+        cleanMsg.put("content", histMsg.get("content"));
+        if (histMsg.containsKey("tool_calls")) {
+            cleanMsg.put("tool_calls", histMsg.get("tool_calls"));
+        }
+        if (histMsg.containsKey("tool_call_id")) {
+            cleanMsg.put("tool_call_id", histMsg.get("tool_call_id"));
+        }
+        return cleanMsg;
+    }
+}
@@ -1,13 +1,13 @@
 package com.neohoods.portal.platform.assistant.services;
 
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
@@ -16,12 +16,8 @@ import org.springframework.web.client.RestTemplate;
 import com.neohoods.portal.platform.matrix.ApiClient;
 import com.neohoods.portal.platform.matrix.ApiException;
 import com.neohoods.portal.platform.matrix.api.AccountManagementApi;
-import com.neohoods.portal.platform.matrix.api.RoomCreationApi;
 import com.neohoods.portal.platform.matrix.api.SessionManagementApi;
-import com.neohoods.portal.platform.matrix.model.CreateRoom200Response;
-import com.neohoods.portal.platform.matrix.model.CreateRoomRequest;
 import com.neohoods.portal.platform.matrix.model.GetTokenOwner200Response;
-import com.neohoods.portal.platform.matrix.model.StateEvent;
 import com.neohoods.portal.platform.entities.UserEntity;
 
 import com.neohoods.portal.platform.services.Auth0Service;
@@ -52,6 +48,9 @@ public class MatrixAssistantService {
     private final MatrixAvatarService matrixAvatarService;
     private final MatrixMediaService matrixMediaService;
 
+    @Autowired(required = false)
+    private MatrixAssistantMetricsService metricsService = MatrixAssistantMetricsService.NOOP;
+
     @Value("${neohoods.portal.matrix.disabled}")
     private boolean disabled;
 
@@ -240,7 +239,11 @@ public class MatrixAssistantService {
      * Delegates to MatrixMessageService
      */
     public boolean sendMessage(String roomId, String message) {
-        return matrixMessageService.sendMessage(roomId, message);
+        return metricsService.observe(MatrixAssistantMetricsService.MATRIX_SEND, Map.of(),
+                sent -> Map.of(MatrixAssistantMetricsService.TAG_OUTCOME,
+                        Boolean.TRUE.equals(sent) ? MatrixAssistantMetricsService.OUTCOME_SUCCESS
+                                : MatrixAssistantMetricsService.OUTCOME_ERROR),
+                () -> matrixMessageService.sendMessage(roomId, message));
     }
 
     /**
@@ -453,8 +456,7 @@ public class MatrixAssistantService {
 
     /**
      * Create room in space
-     * Uses user token (from device code or authorization code flow) to create room
-     * and add to space by setting m.space.parent in initial_state
+     * Delegates to MatrixRoomService
      * 
      * @param roomName    Name of the room
      * @param description Description of the room
@@ -465,93 +467,7 @@ public class MatrixAssistantService {
      */
     public Optional<String> createRoomInSpace(String roomName, String description, String imageUrl, String spaceId,
             boolean allowGuests) {
-        try {
-            // Use user token for room creation
-            Optional<ApiClient> apiClientOpt = getMatrixAccessToken();
-            if (apiClientOpt.isEmpty()) {
-                log.warn("No user token available for creating room in space");
-                return Optional.empty();
-            }
-
-            ApiClient apiClient = apiClientOpt.get();
-            RoomCreationApi roomCreationApi = new RoomCreationApi(apiClient);
-
-            CreateRoomRequest createRequest = new CreateRoomRequest();
-            createRequest.setName(roomName);
-            createRequest.setTopic(description);
-            createRequest.setPreset(CreateRoomRequest.PresetEnum.PUBLIC_CHAT);
-            createRequest.setRoomVersion("10");
-            // Set encryption to false (non-encrypted) - don't set encryption state event
-
-            // Build initial state events
-            List<StateEvent> initialState = new ArrayList<>();
-
-            // Add space parent relationship in initial state
-            // This links the room to the space directly during creation
-            StateEvent spaceParentEvent = new StateEvent();
-            spaceParentEvent.setType("m.space.parent");
-            spaceParentEvent.setStateKey(spaceId);
-            Map<String, Object> spaceParentContent = new HashMap<>();
-            spaceParentContent.put("via", List.of(serverName));
-            spaceParentContent.put("canonical", true);
-            spaceParentEvent.setContent(spaceParentContent);
-            initialState.add(spaceParentEvent);
-
-            // Set join rules to restrict access to space members only
-            StateEvent joinRulesEvent = new StateEvent();
-            joinRulesEvent.setType("m.room.join_rules");
-            joinRulesEvent.setStateKey("");
-            Map<String, Object> joinRulesContent = new HashMap<>();
-            joinRulesContent.put("join_rule", "restricted");
-            List<Map<String, Object>> allowList = new ArrayList<>();
-            Map<String, Object> allowEntry = new HashMap<>();
-            allowEntry.put("type", "m.room_membership");
-            allowEntry.put("room_id", spaceId);
-            allowList.add(allowEntry);
-            joinRulesContent.put("allow", allowList);
-            joinRulesEvent.setContent(joinRulesContent);
-            initialState.add(joinRulesEvent);
-
-            // Set guest access: "can_join" for public rooms, "forbidden" for restricted
-            // rooms
-            StateEvent guestAccessEvent = new StateEvent();
-            guestAccessEvent.setType("m.room.guest_access");
-            guestAccessEvent.setStateKey("");
-            Map<String, Object> guestAccessContent = new HashMap<>();
-            guestAccessContent.put("guest_access", allowGuests ? "can_join" : "forbidden");
-            guestAccessEvent.setContent(guestAccessContent);
-            initialState.add(guestAccessEvent);
-
-            // Set avatar in initial state if provided
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                StateEvent avatarEvent = new StateEvent();
-                avatarEvent.setType("m.room.avatar");
-                avatarEvent.setStateKey("");
-                Map<String, Object> avatarContent = new HashMap<>();
-                avatarContent.put("url", imageUrl);
-                avatarEvent.setContent(avatarContent);
-                initialState.add(avatarEvent);
-            }
-
-            createRequest.setInitialState(initialState);
-
-            CreateRoom200Response response = roomCreationApi.createRoom(createRequest);
-            String roomId = response.getRoomId();
-            log.info("Created room {} ({}) and linked to space {} via m.space.parent", roomName, roomId, spaceId);
-
-            return Optional.of(roomId);
-        } catch (ApiException e) {
-            if (e.getCode() == 403) {
-                log.error("Permission denied: Bot doesn't have permission to modify space {} state. Error: {}. " +
-                        "Make sure the bot is admin and has proper permissions on the space.", spaceId, e.getMessage());
-            } else {
-                log.error("Error creating room {} in space {}: {}", roomName, spaceId, e.getMessage(), e);
-            }
-            return Optional.empty();
-        } catch (Exception e) {
-            log.error("Error creating room {} in space {}", roomName, spaceId, e);
-            return Optional.empty();
-        }
+        return matrixRoomService.createRoomInSpace(roomName, description, imageUrl, spaceId, allowGuests);
     }
 
     /**
@@ -680,7 +596,7 @@ public class MatrixAssistantService {
 
     /**
      * Perform a Matrix sync operation using the SDK
-     * Uses ApiClient's underlying HTTP mechanism
+     * Uses RestTemplate, the SDK has no sync method
      * 
      * @param syncUrl     Full sync URL with query parameters
      * @param accessToken Access token for authentication
@@ -689,18 +605,7 @@ public class MatrixAssistantService {
     @SuppressWarnings("unchecked")
     public Map<String, Object> performSync(String syncUrl, String accessToken) {
         try {
-            // Build ApiClient using SDK
-            ApiClient apiClient = new ApiClient();
-            apiClient.setHost(homeserverUrl);
-
-            // Set request interceptor to add Authorization header (SDK pattern)
-            apiClient.setRequestInterceptor(builder -> {
-                builder.header("Authorization", "Bearer " + accessToken);
-            });
-
-            // Use RestTemplate but configured through ApiClient for consistency
-            // The SDK doesn't expose a direct sync method, so we use the HTTP client
-            // that the SDK uses internally
+            // The SDK doesn't expose a direct sync method, so we use RestTemplate
             org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
             org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
             headers.setBearerAuth(accessToken);
@@ -0,0 +1,364 @@
+package com.neohoods.portal.platform.assistant.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.services.matrix.space.MatrixMessageService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Streaming mode for Mistral chat completions.
+ *
+ * A message handled with a {@link ProgressiveReply} in its Reactor context gets
+ * its text-mode completions requested with "stream": true. Content deltas are
+ * posted to the Matrix room as soon as they arrive and the message is then
+ * updated with throttled m.replace edits, so users read the answer while it is
+ * generated instead of waiting for the whole tool round trip. Deltas (including
+ * tool calls) are assembled into the same response map as a non-streamed call,
+ * so agents process both the same way.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "neohoods.portal.matrix.assistant.ai.enabled", havingValue = "true", matchIfMissing = false)
+public class MatrixAssistantStreamingService {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE = new ParameterizedTypeReference<>() {
+    };
+    private static final String DONE = "[DONE]";
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private MatrixMessageService matrixMessageService;
+
+    @Value("${neohoods.portal.matrix.assistant.streaming.enabled:true}")
+    private boolean enabled;
+
+    @Value("${neohoods.portal.matrix.assistant.streaming.edit-interval-ms:1000}")
+    private long editIntervalMs;
+
+    @Value("${neohoods.portal.matrix.assistant.streaming.min-first-chars:20}")
+    private int minFirstChars;
+
+    /**
+     * Opens a progressive reply for a room, or returns null if streaming is
+     * disabled. The caller puts it in the Reactor context of the message
+     * handling chain and finishes it with {@link ProgressiveReply#complete}.
+     */
+    public ProgressiveReply open(String roomId) {
+        if (!enabled || matrixMessageService == null) {
+            return null;
+        }
+        return new ProgressiveReply(roomId, matrixMessageService, editIntervalMs, minFirstChars);
+    }
+
+    /**
+     * Streams a chat completion, pushing content deltas to the reply, and
+     * returns the assembled response in the non-streamed format.
+     */
+    @SuppressWarnings("rawtypes")
+    public Mono<Map> streamCompletion(WebClient webClient, Map<String, Object> requestBody, ProgressiveReply reply) {
+        Map<String, Object> streamingBody = new HashMap<>(requestBody);
+        streamingBody.put("stream", true);
+        return Mono.defer(() -> {
+            CompletionAccumulator accumulator = new CompletionAccumulator();
+            // Each completion replaces what the previous round (before tool calls) showed
+            reply.startSegment();
+            return webClient.post()
+                    .uri("/chat/completions")
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .bodyValue(streamingBody)
+                    .retrieve()
+                    .bodyToFlux(SSE_TYPE)
+                    .mapNotNull(ServerSentEvent::data)
+                    .takeWhile(data -> !DONE.equals(data.trim()))
+                    .doOnNext(data -> {
+                        String delta = accumulator.accept(parseChunk(data));
+                        if (delta != null) {
+                            reply.append(delta);
+                        }
+                    })
+                    .then(Mono.fromSupplier(accumulator::toResponse));
+        });
+    }
+
+    private Map<String, Object> parseChunk(String data) {
+        try {
+            return objectMapper.readValue(data, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (Exception e) {
+            log.warn("Ignoring malformed Mistral stream chunk: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Rebuilds a chat completion response from stream chunks: content deltas are
+     * concatenated and tool call fragments are merged by index.
+     */
+    public static class CompletionAccumulator {
+
+        private final StringBuilder content = new StringBuilder();
+        private final TreeMap<Integer, Map<String, Object>> toolCalls = new TreeMap<>();
+        private final Map<Integer, StringBuilder> toolArguments = new HashMap<>();
+        private String id;
+        private String model;
+        private String finishReason;
+        private Object usage;
+
+        /**
+         * Merges one chunk and returns its content delta (null if none)
+         */
+        @SuppressWarnings("unchecked")
+        public String accept(Map<String, Object> chunk) {
+            if (chunk.get("id") != null) {
+                id = String.valueOf(chunk.get("id"));
+            }
+            if (chunk.get("model") != null) {
+                model = String.valueOf(chunk.get("model"));
+            }
+            if (chunk.get("usage") != null) {
+                usage = chunk.get("usage");
+            }
+            List<Map<String, Object>> choices = (List<Map<String, Object>>) chunk.get("choices");
+            if (choices == null || choices.isEmpty()) {
+                return null;
+            }
+            Map<String, Object> choice = choices.get(0);
+            if (choice.get("finish_reason") != null) {
+                finishReason = String.valueOf(choice.get("finish_reason"));
+            }
+            Map<String, Object> delta = (Map<String, Object>) choice.get("delta");
+            if (delta == null) {
+                return null;
+            }
+            List<Map<String, Object>> toolCallDeltas = (List<Map<String, Object>>) delta.get("tool_calls");
+            if (toolCallDeltas != null) {
+                toolCallDeltas.forEach(this::mergeToolCall);
+            }
+            Object text = delta.get("content");
+            if (text instanceof String contentDelta && !contentDelta.isEmpty()) {
+                content.append(contentDelta);
+                return contentDelta;
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void mergeToolCall(Map<String, Object> fragment) {
+            String callId = (String) fragment.get("id");
+            int index;
+            if (fragment.get("index") instanceof Number number) {
+                index = number.intValue();
+                Map<String, Object> existing = toolCalls.get(index);
+                if (callId != null && existing != null && existing.get("id") != null
+                        && !callId.equals(existing.get("id"))) {
+                    // Complete calls streamed one per chunk may all carry index 0
+                    index = toolCalls.lastKey() + 1;
+                }
+            } else if (callId != null) {
+                // No index: a new id starts a new call
+                index = toolCalls.entrySet().stream()
+                        .filter(entry -> callId.equals(entry.getValue().get("id")))
+                        .map(Map.Entry::getKey)
+                        .findFirst()
+                        .orElse(toolCalls.size());
+            } else {
+                index = toolCalls.isEmpty() ? 0 : toolCalls.lastKey();
+            }
+            Map<String, Object> toolCall = toolCalls.computeIfAbsent(index, i -> {
+                Map<String, Object> call = new HashMap<>();
+                call.put("type", "function");
+                call.put("function", new HashMap<String, Object>());
+                return call;
+            });
+            if (callId != null) {
+                toolCall.put("id", callId);
+            }
+            if (fragment.get("type") != null) {
+                toolCall.put("type", fragment.get("type"));
+            }
+            Map<String, Object> function = (Map<String, Object>) fragment.get("function");
+            if (function != null) {
+                if (function.get("name") != null) {
+                    ((Map<String, Object>) toolCall.get("function")).put("name", function.get("name"));
+                }
+                Object arguments = function.get("arguments");
+                if (arguments instanceof String argumentsDelta) {
+                    toolArguments.computeIfAbsent(index, i -> new StringBuilder()).append(argumentsDelta);
+                } else if (arguments != null) {
+                    // Already parsed arguments are kept as is
+                    ((Map<String, Object>) toolCall.get("function")).put("arguments", arguments);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> toResponse() {
+            Map<String, Object> message = new HashMap<>();
+            message.put("role", "assistant");
+            message.put("content", content.toString());
+            if (!toolCalls.isEmpty()) {
+                List<Map<String, Object>> calls = new ArrayList<>();
+                toolCalls.forEach((index, call) -> {
+                    Map<String, Object> function = (Map<String, Object>) call.get("function");
+                    StringBuilder arguments = toolArguments.get(index);
+                    if (arguments != null) {
+                        function.put("arguments", arguments.toString());
+                    } else {
+                        function.putIfAbsent("arguments", "{}");
+                    }
+                    calls.add(call);
+                });
+                message.put("tool_calls", calls);
+            }
+
+            Map<String, Object> choice = new HashMap<>();
+            choice.put("index", 0);
+            choice.put("message", message);
+            choice.put("finish_reason", finishReason);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", id);
+            response.put("model", model);
+            response.put("choices", List.of(choice));
+            if (usage != null) {
+                response.put("usage", usage);
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Matrix message updated while a completion streams. The first post is sent
+     * once a few characters are available, then edits are throttled to one per
+     * edit interval. Network calls run on the bounded elastic scheduler and are
+     * serialized, so edits never overtake each other.
+     */
+    public static class ProgressiveReply {
+
+        private final String roomId;
+        private final MatrixMessageService messageService;
+        private final long editIntervalMs;
+        private final int minFirstChars;
+
+        private final Object sendLock = new Object();
+        private final StringBuilder text = new StringBuilder();
+        private volatile String eventId;
+        private String lastSent;
+        private long lastSentAt;
+        private boolean flushScheduled;
+        private boolean closed;
+
+        ProgressiveReply(String roomId, MatrixMessageService messageService, long editIntervalMs,
+                int minFirstChars) {
+            this.roomId = roomId;
+            this.messageService = messageService;
+            this.editIntervalMs = editIntervalMs;
+            this.minFirstChars = minFirstChars;
+        }
+
+        public synchronized void startSegment() {
+            text.setLength(0);
+        }
+
+        public void append(String delta) {
+            long delayMs;
+            synchronized (this) {
+                text.append(delta);
+                if (closed || flushScheduled || (eventId == null && text.toString().strip().length() < minFirstChars)) {
+                    return;
+                }
+                flushScheduled = true;
+                delayMs = eventId == null ? 0 : Math.max(0, lastSentAt + editIntervalMs - System.currentTimeMillis());
+            }
+            Mono.delay(Duration.ofMillis(delayMs), Schedulers.boundedElastic())
+                    .subscribe(tick -> flush(), e -> log.warn("Progressive reply flush failed in room {}: {}",
+                            roomId, e.getMessage()));
+        }
+
+        private void flush() {
+            synchronized (sendLock) {
+                String snapshot;
+                synchronized (this) {
+                    flushScheduled = false;
+                    if (closed) {
+                        return;
+                    }
+                    snapshot = text.toString().strip();
+                }
+                if (snapshot.isEmpty() || snapshot.equals(lastSent)) {
+                    return;
+                }
+                push(snapshot);
+            }
+        }
+
+        // Caller holds sendLock
+        private void push(String message) {
+            if (eventId == null) {
+                eventId = messageService.sendMessageForEventId(roomId, message).orElse(null);
+                if (eventId == null) {
+                    // Give up streaming, the final answer is sent as a regular message
+                    synchronized (this) {
+                        closed = true;
+                    }
+                    return;
+                }
+            } else if (!messageService.editMessage(roomId, eventId, message)) {
+                return;
+            }
+            lastSent = message;
+            synchronized (this) {
+                lastSentAt = System.currentTimeMillis();
+            }
+        }
+
+        /**
+         * Ends the reply with the final answer (which may differ from the streamed
+         * text after post-processing or errors).
+         *
+         * @return true if the answer was delivered as an edit, false if nothing was
+         *         posted yet (or the edit failed) and the caller must send it as a
+         *         regular message
+         */
+        public boolean complete(String finalText) {
+            synchronized (sendLock) {
+                synchronized (this) {
+                    closed = true;
+                }
+                if (eventId == null) {
+                    return false;
+                }
+                if (finalText == null || finalText.isBlank() || finalText.strip().equals(lastSent)) {
+                    return true;
+                }
+                return messageService.editMessage(roomId, eventId, finalText);
+            }
+        }
+
+        public String getEventId() {
+            return eventId;
+        }
+    }
+}
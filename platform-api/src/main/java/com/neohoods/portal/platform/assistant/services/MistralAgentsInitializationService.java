@@ -7,14 +7,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
@@ -22,26 +21,32 @@ import org.springframework.stereotype.Service;
 import com.neohoods.portal.platform.assistant.mcp.MatrixAssistantMCPAdapter;
 import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPTool;
 import com.neohoods.portal.platform.assistant.model.SpaceStep;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStage;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStateService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
 /**
- * Service for initializing Mistral Agents and Document Library at startup.
- * Creates all agents with their prompts and tools, and initializes the Document
- * Library.
+ * Service for initializing Mistral Agents at startup, once the MCP tools are
+ * loaded and the Document Library is initialized.
+ * Creates all agents with their prompts and tools; an agent whose
+ * configuration is unchanged since it was last created is reused.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "neohoods.portal.matrix.assistant.ai.enabled", havingValue = "true", matchIfMissing = false)
-public class MistralAgentsInitializationService {
+public class MistralAgentsInitializationService implements AssistantStartupStage {
+
+    private static final String AGENT_STATE_KEY_PREFIX = "mistral.agent.";
 
     private final MistralAgentsService agentsService;
     private final MistralDocumentLibraryService documentLibraryService;
     private final MatrixAssistantMCPAdapter mcpAdapter;
     private final ResourceLoader resourceLoader;
+    private final AssistantStartupStateService startupStateService;
 
     @Autowired(required = false)
     private List<com.neohoods.portal.platform.assistant.workflows.space.steps.SpaceStepHandler> stepHandlers;
@@ -76,58 +81,74 @@ public class MistralAgentsInitializationService {
     @Value("${neohoods.portal.matrix.assistant.ai.reservation-agent-prompt-file:classpath:matrix-assistant/prompts/reservation/matrix-assistant-reservation-agent-payment-instructions.txt}")
     private String paymentInstructionsPromptFile;
 
+    @Override
+    public String getStageName() {
+        return AGENTS;
+    }
+
+    @Override
+    public Set<String> getStageDependencies() {
+        return Set.of(MCP_TOOLS);
+    }
+
+    @Override
+    public Set<String> getOptionalStageDependencies() {
+        // Without a library, agents are created without document_library
+        return Set.of(DOCUMENT_LIBRARY);
+    }
+
+    @Override
+    public void runStage() {
+        initializeAgents();
+    }
+
     /**
-     * Initializes all Mistral agents and Document Library at startup
+     * Initializes all Mistral agents at startup
      */
-    @EventListener(ApplicationReadyEvent.class)
     public void initializeAgents() {
         if (!aiEnabled || !agentsEnabled) {
             log.info("Mistral Agents API is disabled, skipping initialization");
             return;
         }
 
-        log.info("Initializing Mistral Agents and Document Library...");
+        log.info("Initializing Mistral Agents...");
 
-        // Step 1: Initialize Document Library
-        Mono<String> libraryIdMono = documentLibraryService.initializeLibrary()
-                .doOnSuccess(libId -> {
-                    if (libId != null && !libId.isEmpty()) {
-                        log.info("✓ Document Library initialized with ID: {}", libId);
-                    } else {
-                        log.info("Document Library initialization skipped (RAG disabled or no documents)");
-                    }
-                })
-                .onErrorResume(e -> {
-                    log.warn("Document Library initialization failed: {}", e.getMessage());
-                    return Mono.just(""); // Continue even if library fails
-                });
+        List<String> libraryIds = new ArrayList<>();
+        String libraryId = documentLibraryService.getLibraryId();
+        if (libraryId != null && !libraryId.isEmpty()) {
+            libraryIds.add(libraryId);
+        } else {
+            log.info("No Document Library (RAG disabled, no documents or initialization failed)");
+        }
 
-        // Step 2: Get library ID and create agents
-        libraryIdMono
-                .flatMap(libraryId -> {
-                    List<String> libraryIds = new ArrayList<>();
-                    if (libraryId != null && !libraryId.isEmpty()) {
-                        libraryIds.add(libraryId);
-                    }
+        // Get all MCP tools
+        List<MCPTool> allMCPTools = mcpAdapter.listTools();
 
-                    // Get all MCP tools
-                    List<MCPTool> allMCPTools = mcpAdapter.listTools();
-
-                    // Create agents sequentially
-                    return createRoutingAgent(allMCPTools, libraryIds)
-                            .then(createSpaceStepAgents(allMCPTools, libraryIds))
-                            .then(Mono.fromRunnable(() -> {
-                                log.info("✓ All Mistral agents initialized successfully");
-                            }));
-                })
-                .subscribe(
-                        null,
-                        error -> {
-                            log.error("Failed to initialize Mistral agents: {}", error.getMessage(), error);
-                        },
-                        () -> {
-                            log.info("Mistral Agents initialization completed");
-                        });
+        // Create agents sequentially
+        createRoutingAgent(allMCPTools, libraryIds)
+                .then(createSpaceStepAgents(allMCPTools, libraryIds))
+                .doOnSuccess(v -> log.info("✓ All Mistral agents initialized successfully"))
+                .block();
+    }
+
+    /**
+     * Creates an agent, or reuses the one created by a previous run if its
+     * configuration (and the model) is unchanged
+     */
+    private Mono<String> createOrReuseAgent(MistralAgentsService.AgentConfig config) {
+        String stateKey = AGENT_STATE_KEY_PREFIX + config.getName();
+        // Hashed before creation, which adds the document_library tool to the config
+        String configHash = AssistantStartupStateService.hash(agentsService.getModel(), config.getName(),
+                config.getDescription(), config.getInstructions(), config.getTools(), config.getLibraryIds(),
+                config.getCompletionArgs());
+        Optional<String> unchangedAgentId = startupStateService.findUnchanged(stateKey, configHash);
+        if (unchangedAgentId.isPresent()) {
+            agentsService.registerAgent(config.getName(), unchangedAgentId.get());
+            log.info("✓ Agent {} unchanged, reusing {}", config.getName(), unchangedAgentId.get());
+            return Mono.just(unchangedAgentId.get());
+        }
+        return agentsService.createAgent(config)
+                .doOnSuccess(agentId -> startupStateService.record(stateKey, configHash, agentId));
     }
 
     /**
@@ -150,7 +171,7 @@ public class MistralAgentsInitializationService {
         config.setLibraryIds(libraryIds);
         config.setCompletionArgs(Map.of("temperature", 0.1, "top_p", 0.95));
 
-        return agentsService.createAgent(config)
+        return createOrReuseAgent(config)
                 .then()
                 .doOnSuccess(v -> log.info("✓ Created routing agent"))
                 .onErrorResume(e -> {
@@ -237,7 +258,7 @@ public class MistralAgentsInitializationService {
         config.setLibraryIds(libraryIds);
         config.setCompletionArgs(Map.of("temperature", 0.7, "top_p", 0.95));
 
-        return agentsService.createAgent(config)
+        return createOrReuseAgent(config)
                 .then()
                 .doOnSuccess(v -> log.info("✓ Created agent: {}", agentName))
                 .onErrorResume(e -> {
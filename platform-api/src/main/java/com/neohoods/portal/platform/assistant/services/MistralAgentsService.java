@@ -9,6 +9,7 @@ import java.time.Duration;
 
 import io.netty.channel.ChannelOption;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
@@ -47,6 +48,9 @@ public class MistralAgentsService {
 
     private static final String MISTRAL_API_BASE_URL = "https://api.mistral.ai/v1";
 
+    @Autowired(required = false)
+    private MistralGateway mistralGateway = MistralGateway.DIRECT;
+
     // Cache of created agent IDs by agent name
     private final Map<String, String> agentIdsCache = new ConcurrentHashMap<>();
 
@@ -191,11 +195,11 @@ public class MistralAgentsService {
             log.warn("Failed to serialize request body for logging: {}", e.getMessage());
         }
 
-        return webClient.post()
+        return mistralGateway.call("agent-create", MistralGateway.Priority.BACKGROUND, false, webClient.post()
                 .uri("/agents")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .map(response -> {
                     @SuppressWarnings("unchecked")
                     String agentId = (String) response.get("id");
@@ -276,11 +280,12 @@ public class MistralAgentsService {
                         }
 
                         // Retry without document_library
-                        return webClient.post()
-                                .uri("/agents")
-                                .bodyValue(requestBody)
-                                .retrieve()
-                                .bodyToMono(Map.class)
+                        return mistralGateway.call("agent-create", MistralGateway.Priority.BACKGROUND, false,
+                                webClient.post()
+                                        .uri("/agents")
+                                        .bodyValue(requestBody)
+                                        .retrieve()
+                                        .bodyToMono(Map.class))
                                 .map(response -> {
                                     @SuppressWarnings("unchecked")
                                     String agentId = (String) response.get("id");
@@ -317,6 +322,24 @@ public class MistralAgentsService {
                 });
     }
 
+    /**
+     * Registers an agent created by a previous run, so it is reused rather
+     * than created again
+     * 
+     * @param agentName Agent name
+     * @param agentId   Agent ID
+     */
+    public void registerAgent(String agentName, String agentId) {
+        agentIdsCache.put(agentName, agentId);
+    }
+
+    /**
+     * Gets the model agents are created with
+     */
+    public String getModel() {
+        return model;
+    }
+
     /**
      * Gets an agent ID by name (from cache)
      * 
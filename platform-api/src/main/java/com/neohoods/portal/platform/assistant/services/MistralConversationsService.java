@@ -11,6 +11,7 @@ import java.time.Duration;
 
 import io.netty.channel.ChannelOption;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
@@ -41,6 +42,12 @@ public class MistralConversationsService {
     private final WebClient.Builder webClientBuilder;
     private final ObjectMapper objectMapper;
 
+    @Autowired(required = false)
+    private MatrixAssistantMetricsService metricsService = MatrixAssistantMetricsService.NOOP;
+
+    @Autowired(required = false)
+    private MistralGateway mistralGateway = MistralGateway.DIRECT;
+
     @Value("${neohoods.portal.matrix.assistant.ai.api-key}")
     private String apiKey;
 
@@ -143,11 +150,11 @@ public class MistralConversationsService {
 
         log.debug("Starting Mistral conversation for room {} with agent {}", roomId, agentId);
 
-        return webClient.post()
+        return observeConversationCall("conversation-start", webClient.post()
                 .uri("/conversations/start")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .map(response -> {
                     @SuppressWarnings("unchecked")
                     String conversationId = (String) response.get("id");
@@ -170,6 +177,18 @@ public class MistralConversationsService {
                 });
     }
 
+    @SuppressWarnings("rawtypes")
+    private Mono<Map> observeConversationCall(String call, Mono<Map> request) {
+        String agent = getClass().getSimpleName();
+        return metricsService.observe(MatrixAssistantMetricsService.LLM_CALL,
+                Map.of(MatrixAssistantMetricsService.TAG_AGENT, agent,
+                        MatrixAssistantMetricsService.TAG_WORKFLOW, "unknown",
+                        MatrixAssistantMetricsService.TAG_CALL, call),
+                // Conversations are stateful: only rejected (429) calls are sent again
+                mistralGateway.call(call, MistralGateway.Priority.INTERACTIVE, false, request)
+                        .doOnNext(response -> metricsService.recordTokenUsage(response, agent, "unknown")));
+    }
+
     /**
      * Appends a message to an existing conversation
      * 
@@ -210,11 +229,11 @@ public class MistralConversationsService {
         log.debug("Appending to Mistral conversation for room {}: conversationId={}", roomId,
                 mapping.getConversationId());
 
-        return webClient.post()
+        return observeConversationCall("conversation-append", webClient.post()
                 .uri("/conversations/append")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .map(response -> {
                     @SuppressWarnings("unchecked")
                     String newConversationId = (String) response.get("id");
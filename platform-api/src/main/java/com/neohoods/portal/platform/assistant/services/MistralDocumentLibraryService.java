@@ -3,12 +3,15 @@ package com.neohoods.portal.platform.assistant.services;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import java.time.Duration;
 
 import io.netty.channel.ChannelOption;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.ByteArrayResource;
@@ -26,6 +29,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStage;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStateService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,11 +44,14 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "neohoods.portal.matrix.assistant.ai.enabled", havingValue = "true", matchIfMissing = false)
-public class MistralDocumentLibraryService {
+public class MistralDocumentLibraryService implements AssistantStartupStage {
+
+    private static final String LIBRARY_STATE_KEY = "mistral.document-library";
 
     private final WebClient.Builder webClientBuilder;
     private final ObjectMapper objectMapper;
     private final ResourceLoader resourceLoader;
+    private final AssistantStartupStateService startupStateService;
 
     @Value("${neohoods.portal.matrix.assistant.ai.api-key}")
     private String apiKey;
@@ -51,12 +59,33 @@ public class MistralDocumentLibraryService {
     @Value("${neohoods.portal.matrix.assistant.rag.enabled:true}")
     private boolean ragEnabled;
 
+    @Value("${neohoods.portal.matrix.assistant.ai.agents.enabled:true}")
+    private boolean agentsEnabled;
+
     @Value("${neohoods.portal.matrix.assistant.rag.custom-documentation-file:classpath:rag-custom-documentation.md}")
     private String customDocumentationFile;
 
     private static final String MISTRAL_API_BASE_URL = "https://api.mistral.ai/v1";
 
-    private String libraryId;
+    @Autowired(required = false)
+    private MistralGateway mistralGateway = MistralGateway.DIRECT;
+
+    private volatile String libraryId;
+
+    @Override
+    public String getStageName() {
+        return DOCUMENT_LIBRARY;
+    }
+
+    @Override
+    public void runStage() {
+        // The library is only used by the agents
+        if (!agentsEnabled) {
+            log.info("Mistral Agents API is disabled, skipping Document Library initialization");
+            return;
+        }
+        initializeLibrary().block();
+    }
 
     /**
      * Creates a document library in Mistral
@@ -83,11 +112,11 @@ public class MistralDocumentLibraryService {
 
         log.info("Creating Mistral Document Library: {}", name);
 
-        return webClient.post()
+        return mistralGateway.call("library-create", MistralGateway.Priority.BACKGROUND, false, webClient.post()
                 .uri("/libraries")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .map(response -> {
                     @SuppressWarnings("unchecked")
                     String id = (String) response.get("id");
@@ -139,12 +168,12 @@ public class MistralDocumentLibraryService {
 
         log.debug("Uploading document {} to library {} (size: {} bytes)", fileName, libraryId, contentBytes.length);
 
-        return webClient.post()
+        return mistralGateway.call("library-upload", MistralGateway.Priority.BACKGROUND, false, webClient.post()
                 .uri("/libraries/{libraryId}/documents", libraryId)
                 .contentType(MediaType.MULTIPART_FORM_DATA)
                 .body(BodyInserters.fromMultipartData(formData))
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .map(response -> {
                     @SuppressWarnings("unchecked")
                     String documentId = (String) response.get("id");
@@ -161,7 +190,9 @@ public class MistralDocumentLibraryService {
     }
 
     /**
-     * Initializes the document library with RAG documents
+     * Initializes the document library with RAG documents. When the documents
+     * are unchanged since the library was last created, that library is
+     * reused and nothing is uploaded.
      * 
      * @return Library ID
      */
@@ -171,10 +202,25 @@ public class MistralDocumentLibraryService {
             return Mono.just("");
         }
 
+        Map<String, String> documents = loadRAGDocuments();
+        String contentHash = AssistantStartupStateService.hash(documents);
+        Optional<String> unchangedLibraryId = startupStateService.findUnchanged(LIBRARY_STATE_KEY, contentHash);
+        if (unchangedLibraryId.isPresent()) {
+            this.libraryId = unchangedLibraryId.get();
+            log.info("✓ RAG documents unchanged, reusing Document Library {}", libraryId);
+            return Mono.just(libraryId);
+        }
+
         return createLibrary("NeoHoods Documentation", "Documentation for NeoHoods platform and spaces")
                 .flatMap(libId -> {
                     this.libraryId = libId;
-                    return uploadRAGDocuments(libId)
+                    return uploadRAGDocuments(libId, documents)
+                            // Only a complete upload may be reused
+                            .doOnSuccess(v -> startupStateService.record(LIBRARY_STATE_KEY, contentHash, libId))
+                            .onErrorResume(e -> {
+                                log.warn("Some RAG documents failed to upload: {}", e.getMessage());
+                                return Mono.empty(); // Continue even if some documents fail
+                            })
                             .thenReturn(libId); // Return libId after upload completes
                 });
     }
@@ -183,60 +229,59 @@ public class MistralDocumentLibraryService {
      * Uploads RAG documents to the library
      * 
      * @param libraryId Library ID
+     * @param documents Document content by file name
      * @return Mono that completes when all documents are uploaded
      */
-    private Mono<Void> uploadRAGDocuments(String libraryId) {
-        Mono<Void> uploadDefaultDoc = uploadDocumentFromResource(
-                libraryId,
-                "classpath:matrix-rag-documentation.yaml",
-                "matrix-rag-documentation.yaml");
+    private Mono<Void> uploadRAGDocuments(String libraryId, Map<String, String> documents) {
+        return Mono.when(documents.entrySet().stream()
+                .map(document -> uploadDocument(libraryId, document.getKey(), document.getValue())
+                        .then()
+                        .doOnSuccess(v -> log.info("✓ Uploaded RAG document: {}", document.getKey())))
+                .toList())
+                .doOnSuccess(v -> log.info("✓ All RAG documents uploaded to library {}", libraryId));
+    }
 
-        Mono<Void> uploadCustomDoc = Mono.empty();
+    /**
+     * Reads the RAG documents to upload
+     * 
+     * @return Document content by file name
+     */
+    private Map<String, String> loadRAGDocuments() {
+        Map<String, String> documents = new LinkedHashMap<>();
+        readDocument("classpath:matrix-rag-documentation.yaml")
+                .ifPresent(content -> documents.put("matrix-rag-documentation.yaml", content));
         if (customDocumentationFile != null && !customDocumentationFile.isEmpty()) {
-            uploadCustomDoc = uploadDocumentFromResource(
-                    libraryId,
-                    customDocumentationFile,
-                    "custom-documentation.md");
+            readDocument(customDocumentationFile)
+                    .ifPresent(content -> documents.put("custom-documentation.md", content));
         }
-
-        return Mono.when(uploadDefaultDoc, uploadCustomDoc)
-                .doOnSuccess(v -> log.info("✓ All RAG documents uploaded to library {}", libraryId))
-                .onErrorResume(e -> {
-                    log.warn("Some RAG documents failed to upload: {}", e.getMessage());
-                    return Mono.empty(); // Continue even if some documents fail
-                });
+        return documents;
     }
 
     /**
-     * Uploads a document from a resource file
+     * Reads a document from a resource file
      * 
-     * @param libraryId    Library ID
      * @param resourcePath Resource path (classpath:, file:, etc.)
-     * @param fileName     File name for the document
-     * @return Mono that completes when document is uploaded
+     * @return Document content, empty if missing or empty
      */
-    private Mono<Void> uploadDocumentFromResource(String libraryId, String resourcePath, String fileName) {
+    private Optional<String> readDocument(String resourcePath) {
         try {
             Resource resource = resourceLoader.getResource(resourcePath);
             if (!resource.exists()) {
                 log.warn("RAG document resource not found: {}, skipping", resourcePath);
-                return Mono.empty();
+                return Optional.empty();
             }
 
             try (InputStream inputStream = resource.getInputStream()) {
                 String content = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-                if (content == null || content.trim().isEmpty()) {
+                if (content.trim().isEmpty()) {
                     log.warn("RAG document is empty: {}, skipping", resourcePath);
-                    return Mono.empty();
+                    return Optional.empty();
                 }
-
-                return uploadDocument(libraryId, fileName, content)
-                        .then()
-                        .doOnSuccess(v -> log.info("✓ Uploaded RAG document: {}", fileName));
+                return Optional.of(content);
             }
         } catch (Exception e) {
             log.warn("Failed to load RAG document from {}: {}", resourcePath, e.getMessage());
-            return Mono.empty();
+            return Optional.empty();
         }
     }
 
@@ -0,0 +1,514 @@
+package com.neohoods.portal.platform.assistant.services;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Single way out to the Mistral API.
+ *
+ * Every call goes through a token bucket shared by the whole instance, with
+ * a cap on concurrent requests. Waiting calls are served by priority:
+ * interactive replies first, background traffic (judge, reaction evaluation,
+ * agent and library setup) only when no reply is waiting and a few tokens
+ * are left for the next one.
+ *
+ * A 429 pauses the bucket until its Retry-After (or rate-limit reset
+ * header) and halves the rate, which then grows back with each success.
+ * Rejected calls (429) are retried, and so are idempotent calls failing with
+ * a 5xx or an I/O error, after a jittered backoff. After several calls in a
+ * row failed that way, the circuit opens: calls then fail at once with
+ * {@link UnavailableException}, so the user gets a fallback reply instead of
+ * waiting, until a trial call succeeds.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "neohoods.portal.matrix.assistant.ai.enabled", havingValue = "true", matchIfMissing = false)
+public class MistralGateway {
+
+    public static final String REQUESTS = "assistant.mistral.requests";
+    public static final String RETRIES = "assistant.mistral.retries";
+    public static final String QUEUE_WAIT = "assistant.mistral.queue.wait";
+    public static final String QUEUE_SIZE = "assistant.mistral.queue.size";
+    public static final String CIRCUIT_OPEN = "assistant.mistral.circuit.open";
+    public static final String RATE = "assistant.mistral.rate";
+
+    public static final String TAG_CALL = "call";
+    public static final String TAG_PRIORITY = "priority";
+    public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_REASON = "reason";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    // Sent by Mistral with 429s, in seconds, when Retry-After is missing
+    private static final List<String> RATE_LIMIT_RESET_HEADERS = List.of("ratelimitbysize-reset", "x-ratelimit-reset");
+
+    /**
+     * Used by callers when no gateway is wired (AI disabled, unit tests):
+     * calls go straight through.
+     */
+    public static final MistralGateway DIRECT = new MistralGateway(true);
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND
+    }
+
+    /**
+     * Mistral cannot be called right now (circuit open, or too many calls
+     * waiting)
+     */
+    public static class UnavailableException extends RuntimeException {
+        public UnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.requests-per-second:5}")
+    private double maxRate = 5;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.burst:10}")
+    private int burst = 10;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.max-concurrency:8}")
+    private int maxConcurrency = 8;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.max-queue:200}")
+    private int maxQueue = 200;
+
+    // Tokens background calls leave to interactive ones
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.background-reserve:2}")
+    private int backgroundReserve = 2;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.max-retries:3}")
+    private int maxRetries = 3;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.backoff-ms:500}")
+    private long backoffMillis = 500;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.max-backoff-ms:10000}")
+    private long maxBackoffMillis = 10000;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.failure-threshold:5}")
+    private int failureThreshold = 5;
+
+    @Value("${neohoods.portal.matrix.assistant.ai.gateway.open-ms:30000}")
+    private long openMillis = 30000;
+
+    private final boolean direct;
+    private final Map<Priority, Deque<Waiter>> queues = new EnumMap<>(Priority.class);
+
+    // Guarded by this
+    private double tokens = -1;
+    private double rate = -1;
+    private long refilledAt;
+    private long pausedUntil;
+    private int inFlight;
+    private boolean drainScheduled;
+    private int consecutiveFailures;
+    private boolean open;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    private MeterRegistry meterRegistry;
+
+    /**
+     * A call waiting for (then holding) a slot
+     */
+    private static final class Waiter {
+        private final MonoSink<Waiter> sink;
+        private final long queuedAt = System.nanoTime();
+
+        private Waiter(MonoSink<Waiter> sink) {
+            this.sink = sink;
+        }
+    }
+
+    public MistralGateway() {
+        this(false);
+    }
+
+    private MistralGateway(boolean direct) {
+        this.direct = direct;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Priority priority : Priority.values()) {
+            Gauge.builder(QUEUE_SIZE, this, gateway -> gateway.queueSize(priority))
+                    .description("Mistral calls waiting for a slot")
+                    .tag(TAG_PRIORITY, priority.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder(CIRCUIT_OPEN, this, gateway -> gateway.isOpen() ? 1 : 0)
+                .description("Whether calls to Mistral are currently rejected")
+                .register(meterRegistry);
+        Gauge.builder(RATE, this, MistralGateway::currentRate)
+                .description("Mistral requests per second currently allowed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a Mistral request through the limiter, retries and circuit
+     * breaker. The request is subscribed once per attempt.
+     *
+     * @param call       Call name, for logs and metrics
+     * @param priority   Lane of the call
+     * @param idempotent Whether the request may be sent again after a 5xx or
+     *                   an I/O error (a 429 is always retried: it was not
+     *                   processed)
+     * @param request    The request
+     */
+    public <T> Mono<T> call(String call, Priority priority, boolean idempotent, Mono<T> request) {
+        if (direct) {
+            return request;
+        }
+        return Mono.defer(() -> {
+            if (!allowCall()) {
+                count(call, priority, OUTCOME_REJECTED);
+                return Mono.error(new UnavailableException("Mistral is unavailable (circuit open)"));
+            }
+            return attempt(call, priority, idempotent, request, 0);
+        }).doOnCancel(this::endTrial);
+    }
+
+    /**
+     * Whether the error (or one of its causes) means Mistral could not be
+     * called, rather than the call failing
+     */
+    public static boolean isUnavailable(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof UnavailableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> Mono<T> attempt(String call, Priority priority, boolean idempotent, Mono<T> request, int retry) {
+        return Mono.usingWhen(
+                acquire(priority).doOnDiscard(Waiter.class, waiter -> release()),
+                waiter -> {
+                    recordWait(priority, waiter);
+                    return request;
+                },
+                waiter -> Mono.fromRunnable(this::release),
+                (waiter, e) -> Mono.fromRunnable(this::release),
+                waiter -> Mono.fromRunnable(this::release))
+                .doOnSuccess(response -> {
+                    onSuccess();
+                    count(call, priority, OUTCOME_SUCCESS);
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof UnavailableException) {
+                        endTrial();
+                        count(call, priority, OUTCOME_REJECTED);
+                        return Mono.error(e);
+                    }
+                    boolean rateLimited = isRateLimited(e);
+                    if (rateLimited) {
+                        onRateLimited(retryAfter(e));
+                    }
+                    if (retry < maxRetries && isRetryable(e, idempotent) && !isOpen()) {
+                        String reason = rateLimited ? "rate-limited" : reason(e);
+                        counter(RETRIES, TAG_CALL, call, TAG_REASON, reason);
+                        Duration delay = backoff(retry, rateLimited);
+                        log.warn("Mistral call {} failed ({}), retry {}/{} in {} ms", call, reason, retry + 1,
+                                maxRetries, delay.toMillis());
+                        return Mono.delay(delay).then(attempt(call, priority, idempotent, request, retry + 1));
+                    }
+                    if (isUnavailability(e)) {
+                        onFailure(call);
+                    } else {
+                        // Mistral answered: the request itself is wrong
+                        onSuccess();
+                    }
+                    count(call, priority, OUTCOME_ERROR);
+                    return Mono.error(e);
+                });
+    }
+
+    /**
+     * Waits for a token and a concurrency slot
+     */
+    private Mono<Waiter> acquire(Priority priority) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            synchronized (this) {
+                if (queueSize() >= maxQueue) {
+                    sink.error(new UnavailableException("Too many Mistral calls waiting"));
+                    return;
+                }
+                queues.get(priority).add(waiter);
+            }
+            sink.onCancel(() -> {
+                synchronized (this) {
+                    queues.get(priority).remove(waiter);
+                }
+            });
+            drain();
+        });
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    /**
+     * Grants slots to waiting calls, interactive ones first, and schedules
+     * the next pass when tokens run out
+     */
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            long waitNanos = 0;
+            while (inFlight < maxConcurrency) {
+                Deque<Waiter> queue = queues.get(Priority.INTERACTIVE);
+                double needed = 1;
+                if (queue.isEmpty()) {
+                    queue = queues.get(Priority.BACKGROUND);
+                    needed = Math.min(1 + backgroundReserve, burst);
+                }
+                if (queue.isEmpty()) {
+                    break;
+                }
+                if (now < pausedUntil) {
+                    waitNanos = pausedUntil - now;
+                    break;
+                }
+                if (tokens < needed) {
+                    waitNanos = (long) Math.ceil((needed - tokens) / rate * 1_000_000_000L);
+                    break;
+                }
+                tokens--;
+                inFlight++;
+                granted.add(queue.poll());
+            }
+            if (waitNanos > 0 && !drainScheduled) {
+                drainScheduled = true;
+                Schedulers.parallel().schedule(() -> {
+                    synchronized (this) {
+                        drainScheduled = false;
+                    }
+                    drain();
+                }, waitNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        // Outside the lock: the request starts on this thread
+        granted.forEach(waiter -> waiter.sink.success(waiter));
+    }
+
+    private void refill(long now) {
+        if (rate < 0) {
+            rate = maxRate;
+            tokens = burst;
+            refilledAt = now;
+            return;
+        }
+        tokens = Math.min(burst, tokens + (now - refilledAt) / 1_000_000_000.0 * rate);
+        refilledAt = now;
+    }
+
+    private synchronized void onRateLimited(Duration retryAfter) {
+        long now = System.nanoTime();
+        refill(now);
+        tokens = 0;
+        rate = Math.max(maxRate / 10, rate / 2);
+        if (retryAfter != null) {
+            pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+        }
+        log.warn("Mistral rate limit hit, slowing down to {} requests/s{}", String.format("%.2f", rate),
+                retryAfter != null ? " and pausing for " + retryAfter.toMillis() + " ms" : "");
+    }
+
+    private synchronized boolean allowCall() {
+        if (!open) {
+            return true;
+        }
+        if (System.nanoTime() < openUntil || trialInFlight) {
+            return false;
+        }
+        // Half-open: let one call through to probe
+        trialInFlight = true;
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (open) {
+            log.info("Mistral is reachable again, closing the circuit");
+        }
+        open = false;
+        trialInFlight = false;
+        consecutiveFailures = 0;
+        if (rate >= 0) {
+            // Additive increase back to the configured rate
+            rate = Math.min(maxRate, rate + maxRate / 10);
+        }
+    }
+
+    private synchronized void onFailure(String call) {
+        consecutiveFailures++;
+        if (trialInFlight || (!open && consecutiveFailures >= failureThreshold)) {
+            log.error("Mistral unavailable after {} failed calls (last: {}), rejecting calls for {} ms",
+                    consecutiveFailures, call, openMillis);
+            open = true;
+            openUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(openMillis);
+        }
+        trialInFlight = false;
+    }
+
+    /**
+     * The half-open trial ended without telling whether Mistral is back
+     */
+    private synchronized void endTrial() {
+        trialInFlight = false;
+    }
+
+    synchronized boolean isOpen() {
+        return open && System.nanoTime() < openUntil;
+    }
+
+    synchronized int queueSize() {
+        return queues.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    private synchronized int queueSize(Priority priority) {
+        return queues.get(priority).size();
+    }
+
+    synchronized double currentRate() {
+        return rate < 0 ? maxRate : rate;
+    }
+
+    private static boolean isRateLimited(Throwable e) {
+        return e instanceof WebClientResponseException response && response.getStatusCode().value() == 429;
+    }
+
+    private static boolean isRetryable(Throwable e, boolean idempotent) {
+        if (isRateLimited(e)) {
+            return true;
+        }
+        return idempotent && isUnavailability(e);
+    }
+
+    /**
+     * Errors telling Mistral is down or overloaded, as opposed to a rejected
+     * request
+     */
+    private static boolean isUnavailability(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status == 408 || status >= 500;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    private static String reason(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return String.valueOf(response.getStatusCode().value());
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    /**
+     * Exponential backoff with full jitter. After a 429 the bucket is already
+     * paused, so the delay only spreads the retries.
+     */
+    private Duration backoff(int retry, boolean rateLimited) {
+        long ceiling = rateLimited ? backoffMillis
+                : Math.min(maxBackoffMillis, backoffMillis * (1L << Math.min(retry, 20)));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+    }
+
+    /**
+     * Delay asked by a 429: Retry-After (seconds or HTTP date), else a
+     * rate-limit reset header
+     */
+    static Duration retryAfter(Throwable e) {
+        if (!(e instanceof WebClientResponseException response)) {
+            return null;
+        }
+        HttpHeaders headers = response.getHeaders();
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return Duration.ofMillis((long) (Double.parseDouble(retryAfter.trim()) * 1000));
+            } catch (NumberFormatException notSeconds) {
+                try {
+                    Duration delay = Duration.between(ZonedDateTime.now(),
+                            ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                    return delay.isNegative() ? Duration.ZERO : delay;
+                } catch (Exception notDate) {
+                    log.debug("Ignoring invalid Retry-After header: {}", retryAfter);
+                }
+            }
+        }
+        for (String header : RATE_LIMIT_RESET_HEADERS) {
+            String reset = headers.getFirst(header);
+            if (reset != null) {
+                try {
+                    return Duration.ofMillis((long) (Double.parseDouble(reset.trim()) * 1000));
+                } catch (NumberFormatException e2) {
+                    log.debug("Ignoring invalid {} header: {}", header, reset);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void recordWait(Priority priority, Waiter waiter) {
+        if (meterRegistry != null) {
+            Timer.builder(QUEUE_WAIT)
+                    .description("Time Mistral calls waited for a slot")
+                    .tag(TAG_PRIORITY, priority.name())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - waiter.queuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void count(String call, Priority priority, String outcome) {
+        counter(REQUESTS, TAG_CALL, call, TAG_PRIORITY, priority.name(), TAG_OUTCOME, outcome);
+    }
+
+    private void counter(String name, String... tags) {
+        if (meterRegistry != null) {
+            Counter.builder(name).tags(tags).register(meterRegistry).increment();
+        }
+    }
+}
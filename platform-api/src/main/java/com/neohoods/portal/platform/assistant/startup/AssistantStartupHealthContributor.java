@@ -0,0 +1,65 @@
+package com.neohoods.portal.platform.assistant.startup;
+
+import java.util.Iterator;
+
+import org.springframework.boot.actuate.health.CompositeHealthContributor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.NamedContributor;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupOrchestrator.StageState;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One health component per assistant startup stage, under "assistantStartup".
+ *
+ * Statuses are WARMING_UP (pending or running), UP and FAILED (failed or
+ * skipped). Only the "assistant" health group orders them (and maps them to
+ * 503): the root health and the readiness probe ignore them, so traffic is
+ * served while the assistant warms up.
+ */
+@Component("assistantStartup")
+@RequiredArgsConstructor
+public class AssistantStartupHealthContributor implements CompositeHealthContributor {
+
+    public static final Status WARMING_UP = new Status("WARMING_UP");
+    public static final Status FAILED = new Status("FAILED");
+
+    private final AssistantStartupOrchestrator orchestrator;
+
+    @Override
+    public HealthContributor getContributor(String name) {
+        return orchestrator.getStageState(name) != null ? indicator(name) : null;
+    }
+
+    @Override
+    public Iterator<NamedContributor<HealthContributor>> iterator() {
+        return orchestrator.getStageStates().keySet().stream()
+                .map(name -> NamedContributor.of(name, (HealthContributor) indicator(name)))
+                .iterator();
+    }
+
+    private HealthIndicator indicator(String name) {
+        return () -> health(orchestrator.getStageState(name));
+    }
+
+    static Health health(StageState state) {
+        Health.Builder builder = switch (state.status()) {
+            case PENDING, RUNNING -> Health.status(WARMING_UP);
+            case UP -> Health.up();
+            case FAILED, SKIPPED -> Health.status(FAILED);
+        };
+        builder.withDetail("stage", state.status().name());
+        if (state.durationMillis() != null) {
+            builder.withDetail("durationMs", state.durationMillis());
+        }
+        if (state.error() != null) {
+            builder.withDetail("error", state.error());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,241 @@
+package com.neohoods.portal.platform.assistant.startup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the assistant startup stages (RAG documents, MCP tools, document
+ * library, agents, Matrix rooms) once the application is ready, in the
+ * background: HTTP traffic is served while the assistant warms up.
+ *
+ * Stages run concurrently on a small pool, each as soon as the stages it
+ * depends on have succeeded (or ended, for optional dependencies); a stage
+ * whose dependency failed is skipped.
+ * Progress is exposed per stage by {@link AssistantStartupHealthContributor}
+ * (actuator health group "assistant").
+ */
+@Component
+@Slf4j
+public class AssistantStartupOrchestrator {
+
+    public static final String METRIC_STAGE = "neohoods.assistant.startup.stage";
+    public static final String METRIC_READY = "neohoods.assistant.startup.ready";
+
+    public enum StageStatus {
+        PENDING, RUNNING, UP, FAILED, SKIPPED
+    }
+
+    /**
+     * State of a stage; duration and error are null until it ends
+     */
+    public record StageState(StageStatus status, Long durationMillis, String error) {
+    }
+
+    private final Map<String, AssistantStartupStage> stages;
+    private final Map<String, StageState> states = new ConcurrentHashMap<>();
+
+    @Value("${neohoods.portal.matrix.assistant.startup.parallelism:4}")
+    private int parallelism = 4;
+
+    private MeterRegistry meterRegistry;
+
+    private volatile CompletableFuture<Void> ready;
+    private volatile Long timeToReadyMillis;
+
+    @Autowired
+    public AssistantStartupOrchestrator(ObjectProvider<AssistantStartupStage> stages) {
+        this(stages.orderedStream().toList());
+    }
+
+    public AssistantStartupOrchestrator(List<AssistantStartupStage> stages) {
+        Map<String, AssistantStartupStage> byName = new LinkedHashMap<>();
+        for (AssistantStartupStage stage : stages) {
+            if (stage.getStageName() == null) {
+                log.warn("Ignoring assistant startup stage without a name: {}", stage.getClass().getName());
+                continue;
+            }
+            if (byName.putIfAbsent(stage.getStageName(), stage) != null) {
+                throw new IllegalStateException("Duplicate assistant startup stage: " + stage.getStageName());
+            }
+            states.put(stage.getStageName(), new StageState(StageStatus.PENDING, null, null));
+        }
+        this.stages = Collections.unmodifiableMap(byName);
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        start();
+    }
+
+    /**
+     * Starts the stages (once); completes when every stage has ended,
+     * whatever its outcome
+     */
+    public synchronized CompletableFuture<Void> start() {
+        if (ready != null) {
+            return ready;
+        }
+        long start = System.nanoTime();
+        log.info("Starting {} assistant startup stages: {}", stages.size(), stages.keySet());
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "assistant-startup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, CompletableFuture<Boolean>> outcomes = new LinkedHashMap<>();
+        for (String name : sortedByDependencies()) {
+            AssistantStartupStage stage = stages.get(name);
+            List<CompletableFuture<Boolean>> dependencies = stage.getStageDependencies().stream()
+                    .filter(outcomes::containsKey)
+                    .map(outcomes::get)
+                    .toList();
+            List<CompletableFuture<Boolean>> awaited = new ArrayList<>(dependencies);
+            stage.getOptionalStageDependencies().stream()
+                    .filter(outcomes::containsKey)
+                    .map(outcomes::get)
+                    .forEach(awaited::add);
+            CompletableFuture<Boolean> outcome = CompletableFuture
+                    .allOf(awaited.toArray(CompletableFuture[]::new))
+                    .thenApplyAsync(ignored -> {
+                        if (dependencies.stream().anyMatch(dependency -> !dependency.join())) {
+                            log.warn("Skipping assistant startup stage {}: a dependency failed", name);
+                            states.put(name, new StageState(StageStatus.SKIPPED, 0L, "A dependency failed"));
+                            return false;
+                        }
+                        return run(stage);
+                    }, executor);
+            outcomes.put(name, outcome);
+        }
+
+        ready = CompletableFuture.allOf(outcomes.values().toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> {
+                    executor.shutdown();
+                    long elapsed = System.nanoTime() - start;
+                    timeToReadyMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+                    if (meterRegistry != null) {
+                        Timer.builder(METRIC_READY)
+                                .description("Time from application ready to the end of the assistant startup")
+                                .register(meterRegistry)
+                                .record(elapsed, TimeUnit.NANOSECONDS);
+                    }
+                    log.info("Assistant startup ended in {} ms: {}", timeToReadyMillis, getStageStates());
+                });
+        return ready;
+    }
+
+    /**
+     * Whether every stage has ended (successfully or not)
+     */
+    public boolean isDone() {
+        return ready != null && ready.isDone();
+    }
+
+    /**
+     * Milliseconds from start to the end of the last stage, or null while
+     * running
+     */
+    public Long getTimeToReadyMillis() {
+        return timeToReadyMillis;
+    }
+
+    /**
+     * Stage states, in declaration order
+     */
+    public Map<String, StageState> getStageStates() {
+        Map<String, StageState> snapshot = new LinkedHashMap<>();
+        stages.keySet().forEach(name -> snapshot.put(name, states.get(name)));
+        return snapshot;
+    }
+
+    public StageState getStageState(String name) {
+        return states.get(name);
+    }
+
+    private boolean run(AssistantStartupStage stage) {
+        String name = stage.getStageName();
+        states.put(name, new StageState(StageStatus.RUNNING, null, null));
+        long start = System.nanoTime();
+        boolean succeeded;
+        String error = null;
+        try {
+            stage.runStage();
+            succeeded = true;
+        } catch (Exception e) {
+            log.error("Assistant startup stage {} failed: {}", name, e.getMessage(), e);
+            succeeded = false;
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        long elapsed = System.nanoTime() - start;
+        states.put(name, new StageState(succeeded ? StageStatus.UP : StageStatus.FAILED,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), error));
+        if (meterRegistry != null) {
+            Timer.builder(METRIC_STAGE)
+                    .description("Duration of an assistant startup stage")
+                    .tag("stage", name)
+                    .tag("outcome", succeeded ? "success" : "failure")
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        log.info("Assistant startup stage {} {} in {} ms", name, succeeded ? "done" : "failed",
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return succeeded;
+    }
+
+    /**
+     * Stage names, each after the stages it depends on
+     */
+    private List<String> sortedByDependencies() {
+        List<String> sorted = new ArrayList<>();
+        Map<String, Boolean> visiting = new LinkedHashMap<>();
+        for (String name : stages.keySet()) {
+            visit(name, visiting, sorted);
+        }
+        return sorted;
+    }
+
+    private void visit(String name, Map<String, Boolean> visiting, List<String> sorted) {
+        AssistantStartupStage stage = stages.get(name);
+        if (stage == null || sorted.contains(name)) {
+            return;
+        }
+        if (visiting.put(name, Boolean.TRUE) != null) {
+            throw new IllegalStateException("Assistant startup stages have a dependency cycle: " + visiting.keySet());
+        }
+        for (String dependency : stage.getStageDependencies()) {
+            visit(dependency, visiting, sorted);
+        }
+        for (String dependency : stage.getOptionalStageDependencies()) {
+            visit(dependency, visiting, sorted);
+        }
+        visiting.remove(name);
+        sorted.add(name);
+    }
+}
@@ -0,0 +1,43 @@
+package com.neohoods.portal.platform.assistant.startup;
+
+import java.util.Set;
+
+/**
+ * A heavy assistant initializer run by {@link AssistantStartupOrchestrator}
+ * once the application is ready, concurrently with the stages it does not
+ * depend on.
+ */
+public interface AssistantStartupStage {
+
+    String RAG_DOCUMENTS = "rag-documents";
+    String MCP_TOOLS = "mcp-tools";
+    String DOCUMENT_LIBRARY = "document-library";
+    String AGENTS = "agents";
+    String MATRIX_ROOMS = "matrix-rooms";
+
+    /**
+     * Stage name, as shown in the assistant health group
+     */
+    String getStageName();
+
+    /**
+     * Stages that must have succeeded before this one runs. Stages whose
+     * service is disabled (no bean) are ignored.
+     */
+    default Set<String> getStageDependencies() {
+        return Set.of();
+    }
+
+    /**
+     * Stages that must have ended, whatever their outcome, before this one
+     * runs
+     */
+    default Set<String> getOptionalStageDependencies() {
+        return Set.of();
+    }
+
+    /**
+     * Runs the stage, blocking until it is done; an exception fails it
+     */
+    void runStage() throws Exception;
+}
@@ -0,0 +1,87 @@
+package com.neohoods.portal.platform.assistant.startup;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.neohoods.portal.platform.entities.AssistantStartupStateEntity;
+import com.neohoods.portal.platform.repositories.AssistantStartupStateRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers the hash of what was last pushed to Mistral at startup (RAG
+ * documents, agent configurations) with the id of the resulting resource, so
+ * a restart with unchanged content reuses it instead of uploading or creating
+ * it again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AssistantStartupStateService {
+
+    // Keys are sorted so equal configurations always hash the same
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final AssistantStartupStateRepository repository;
+
+    @Value("${neohoods.portal.matrix.assistant.startup.skip-unchanged:true}")
+    private boolean skipUnchanged = true;
+
+    /**
+     * Id of the resource recorded for this key, if its content hash is
+     * unchanged
+     */
+    public Optional<String> findUnchanged(String key, String contentHash) {
+        if (!skipUnchanged) {
+            return Optional.empty();
+        }
+        try {
+            return repository.findById(key)
+                    .filter(state -> state.getContentHash().equals(contentHash))
+                    .map(AssistantStartupStateEntity::getResourceId)
+                    .filter(resourceId -> !resourceId.isEmpty());
+        } catch (RuntimeException e) {
+            log.warn("Failed to read assistant startup state {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Records the content hash and resource id for this key
+     */
+    public void record(String key, String contentHash, String resourceId) {
+        try {
+            repository.save(AssistantStartupStateEntity.builder()
+                    .stateKey(key)
+                    .contentHash(contentHash)
+                    .resourceId(resourceId)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Failed to record assistant startup state {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 (hex) of the canonical JSON of the given values
+     */
+    public static String hash(Object... values) {
+        try {
+            byte[] json = CANONICAL_MAPPER.writeValueAsBytes(values);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot hash startup state", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+}
@@ -10,9 +10,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -38,7 +38,14 @@ import com.neohoods.portal.platform.assistant.model.ReservationPeriod;
 import com.neohoods.portal.platform.assistant.model.SpaceStep;
 import com.neohoods.portal.platform.assistant.model.SpaceStepResponse;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAgentContextService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantMetricsService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantPromptAssemblyService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantPromptAssemblyService.AssembledPrompt;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantStreamingService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantStreamingService.ProgressiveReply;
+import com.neohoods.portal.platform.assistant.services.MistralGateway;
 import com.neohoods.portal.platform.services.matrix.rag.MatrixAssistantRAGService;
+import com.neohoods.portal.platform.spaces.services.SpaceResolverIndex;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
@@ -71,14 +78,33 @@ public abstract class BaseMatrixAssistantAgent {
     @Value("${neohoods.portal.matrix.assistant.ai.model}")
     protected String model;
 
+    @Value("${neohoods.portal.matrix.assistant.ai.max-tokens:1000}")
+    protected int maxTokens = 1000;
+
     @Value("${neohoods.portal.matrix.assistant.rag.enabled}")
     protected boolean ragEnabled;
 
     @Autowired(required = false)
     protected MatrixAssistantRAGService ragService;
 
+    @Autowired(required = false)
+    protected MatrixAssistantMetricsService metricsService = MatrixAssistantMetricsService.NOOP;
+
+    @Autowired(required = false)
+    protected MatrixAssistantStreamingService streamingService;
+
+    @Autowired(required = false)
+    protected MistralGateway mistralGateway = MistralGateway.DIRECT;
+
+    @Autowired(required = false)
+    protected SpaceResolverIndex spaceResolverIndex;
+
+    @Autowired(required = false)
+    protected MatrixAssistantPromptAssemblyService promptAssemblyService = new MatrixAssistantPromptAssemblyService();
+
     protected static final String MISTRAL_API_BASE_URL = "https://api.mistral.ai/v1";
     protected static final int MAX_TOOL_CALL_CHAIN = 3; // Reduced to prevent infinite loops
+    private static final Pattern PARKING_NUMBER_PATTERN = Pattern.compile("N°(\\d+)");
 
     public BaseMatrixAssistantAgent(
             WebClient.Builder webClientBuilder,
@@ -121,23 +147,16 @@ public abstract class BaseMatrixAssistantAgent {
      */
     protected List<Map<String, Object>> filterTools(List<MCPTool> allTools) {
         Set<String> availableToolNames = getAvailableToolNames();
-        return allTools.stream()
+        return promptAssemblyService.toolBlock(allTools.stream()
                 .filter(tool -> availableToolNames.contains(tool.getName()))
-                .map(this::convertMCPToolToMistralFunction)
-                .collect(Collectors.toList());
+                .toList()).tools();
     }
 
     /**
      * Converts an MCP tool to Mistral function format
      */
     protected Map<String, Object> convertMCPToolToMistralFunction(MCPTool mcpTool) {
-        Map<String, Object> function = new HashMap<>();
-        function.put("type", "function");
-        function.put("function", Map.of(
-                "name", mcpTool.getName(),
-                "description", mcpTool.getDescription() != null ? mcpTool.getDescription() : "",
-                "parameters", mcpTool.getInputSchema() != null ? mcpTool.getInputSchema() : Map.of()));
-        return function;
+        return MatrixAssistantPromptAssemblyService.toMistralFunction(mcpTool);
     }
 
     /**
@@ -187,37 +206,12 @@ public abstract class BaseMatrixAssistantAgent {
         return ragContextMono.flatMap(ragContext -> {
             // Capture current MDC context to propagate across async threads (Netty)
             Map<String, String> mdcContext = org.slf4j.MDC.getCopyOfContextMap();
-            // Build messages
-            List<Map<String, Object>> messages = new ArrayList<>();
-
-            // System message with RAG context
-            Map<String, Object> systemMsg = new HashMap<>();
-            systemMsg.put("role", "system");
-            systemMsg.put("content", systemPrompt + "\n\n" + ragContext);
-            messages.add(systemMsg);
-
-            // Conversation history (clean timestamps before sending to Mistral)
-            if (conversationHistory != null && !conversationHistory.isEmpty()) {
-                for (Map<String, Object> histMsg : conversationHistory) {
-                    Map<String, Object> cleanMsg = new HashMap<>();
-                    cleanMsg.put("role", histMsg.get("role"));
-                    cleanMsg.put("content", histMsg.get("content"));
-                    // Preserve tool_calls and tool_call_id if present
-                    if (histMsg.containsKey("tool_calls")) {
-                        cleanMsg.put("tool_calls", histMsg.get("tool_calls"));
-                    }
-                    if (histMsg.containsKey("tool_call_id")) {
-                        cleanMsg.put("tool_call_id", histMsg.get("tool_call_id"));
-                    }
-                    messages.add(cleanMsg);
-                }
-            }
-
-            // User message
-            Map<String, Object> userMsg = new HashMap<>();
-            userMsg.put("role", "user");
-            userMsg.put("content", userMessage);
-            messages.add(userMsg);
+            // Stable system prompt first, budgeted history, then RAG context with the user
+            // message
+            AssembledPrompt prompt = promptAssemblyService.assemble(
+                    promptAssemblyService.systemBlock(systemPrompt), tools, conversationHistory, ragContext,
+                    userMessage);
+            List<Map<String, Object>> messages = prompt.messages();
 
             // Build request body with JSON response format
             Map<String, Object> requestBody = new HashMap<>();
@@ -233,7 +227,7 @@ public abstract class BaseMatrixAssistantAgent {
                 requestBody.put("response_format", Map.of("type", "json_object"));
             }
             requestBody.put("temperature", 0.7);
-            requestBody.put("max_tokens", 1000);
+            requestBody.put("max_tokens", maxTokens);
 
             String logLabel = contextLabel != null ? contextLabel : "JSON response format";
             // Log the complete prompt and messages BEFORE sending HTTP request
@@ -242,13 +236,14 @@ public abstract class BaseMatrixAssistantAgent {
 
             log.info("🚀 Sending HTTP request to Mistral API [{}]", logLabel);
 
-            return webClient.post()
+            return observeLlmCall("json", authContext, webClient.post()
                     .uri("/chat/completions")
                     .bodyValue(requestBody)
                     .retrieve()
-                    .bodyToMono(Map.class)
+                    .bodyToMono(Map.class))
                     .doOnNext(response -> {
                         log.info("✅ Received HTTP response from Mistral API [{}]", logLabel);
+                        promptAssemblyService.recordPromptTokens(logLabel, prompt.estimatedTokens(), response);
                         // Restore MDC context in the async thread
                         Map<String, String> contextToUse = mdcContext != null ? mdcContext : Map.of();
                         withMdc(contextToUse, () -> logMistralResponse(logLabel, response, contextToUse));
@@ -786,18 +781,18 @@ public abstract class BaseMatrixAssistantAgent {
             requestBody.put("response_format", Map.of("type", "json_object"));
         }
         requestBody.put("temperature", 0.7);
-        requestBody.put("max_tokens", 1000);
+        requestBody.put("max_tokens", maxTokens);
 
         // Log the complete prompt and messages BEFORE sending HTTP request recursively
         withMdc(mdcContext, () -> logMistralRequest(logLabel, requestBody, messagesForNextCall, mdcContext));
 
         log.info("🚀 Sending HTTP request to Mistral API [{}]", logLabel);
 
-        return webClient.post()
+        return observeLlmCall("json-tool-results", authContext, webClient.post()
                 .uri("/chat/completions")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .doOnNext(response -> {
                     log.info("✅ Received HTTP response from Mistral API [{}]", logLabel);
                     withMdc(mdcContext, () -> logMistralResponse(logLabel, response, mdcContext));
@@ -871,31 +866,12 @@ public abstract class BaseMatrixAssistantAgent {
         }
 
         return ragContextMono.flatMap(ragContext -> {
-            // Build messages
-            List<Map<String, Object>> messages = new ArrayList<>();
-
-            // System message with RAG context
-            Map<String, Object> systemMsg = new HashMap<>();
-            systemMsg.put("role", "system");
-            systemMsg.put("content", systemPrompt + "\n\n" + ragContext);
-            messages.add(systemMsg);
-
-            // Conversation history (clean timestamps before sending to Mistral)
-            if (conversationHistory != null && !conversationHistory.isEmpty()) {
-                for (Map<String, Object> histMsg : conversationHistory) {
-                    Map<String, Object> cleanMsg = new HashMap<>();
-                    cleanMsg.put("role", histMsg.get("role"));
-                    cleanMsg.put("content", histMsg.get("content"));
-                    // Timestamps are only for filtering, not for Mistral API
-                    messages.add(cleanMsg);
-                }
-            }
-
-            // User message
-            Map<String, Object> userMsg = new HashMap<>();
-            userMsg.put("role", "user");
-            userMsg.put("content", userMessage);
-            messages.add(userMsg);
+            // Stable system prompt first, budgeted history, then RAG context with the user
+            // message
+            AssembledPrompt prompt = promptAssemblyService.assemble(
+                    promptAssemblyService.systemBlock(systemPrompt), tools, conversationHistory, ragContext,
+                    userMessage);
+            List<Map<String, Object>> messages = prompt.messages();
 
             // Build request body
             Map<String, Object> requestBody = new HashMap<>();
@@ -906,18 +882,18 @@ public abstract class BaseMatrixAssistantAgent {
                 requestBody.put("tool_choice", "auto");
             }
             requestBody.put("temperature", 0.7);
-            requestBody.put("max_tokens", 1000);
+            requestBody.put("max_tokens", maxTokens);
 
             // Log the complete prompt and messages before calling Mistral
             Map<String, String> mdcContext = org.slf4j.MDC.getCopyOfContextMap();
             logMistralRequest("Standard response", requestBody, messages, mdcContext);
 
-            return webClient.post()
-                    .uri("/chat/completions")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .doOnNext(response -> logMistralResponse("Standard response", response, mdcContext))
+            return postTextCompletion("standard", webClient, requestBody, authContext)
+                    .doOnNext(response -> {
+                        promptAssemblyService.recordPromptTokens("Standard response", prompt.estimatedTokens(),
+                                response);
+                        logMistralResponse("Standard response", response, mdcContext);
+                    })
                     .flatMap(response -> processMistralResponse(response, authContext, messages, ragContext, tools))
                     .onErrorResume(e -> {
                         String errorMsg = e instanceof Exception ? ((Exception) e).getMessage() : e.toString();
@@ -1357,13 +1333,9 @@ public abstract class BaseMatrixAssistantAgent {
             requestBody.put("tool_choice", "auto");
         }
         requestBody.put("temperature", 0.7);
-        requestBody.put("max_tokens", 1000);
+        requestBody.put("max_tokens", maxTokens);
 
-        return webClient.post()
-                .uri("/chat/completions")
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(Map.class)
+        return postTextCompletion("tool-results", webClient, requestBody, authContext)
                 .flatMap(response -> {
                     List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
                     if (choices == null || choices.isEmpty()) {
@@ -1491,7 +1463,11 @@ public abstract class BaseMatrixAssistantAgent {
         String todayStr = today.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
         String tomorrowStr = today.plusDays(1).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
 
-        StringBuilder promptBuilder = new StringBuilder();
+        // Appended after the prompt so the static part stays a cacheable prefix
+        StringBuilder promptBuilder = new StringBuilder(prompt);
+        if (!prompt.isEmpty()) {
+            promptBuilder.append("\n\n");
+        }
         promptBuilder.append("📅 **CURRENT DATE INFORMATION:**\n");
         promptBuilder.append("- Today's date: ").append(todayStr).append(" (")
                 .append(today.format(DateTimeFormatter.ofPattern("EEEE, MMMM d, yyyy", Locale.ENGLISH))).append(")\n");
@@ -1501,8 +1477,6 @@ public abstract class BaseMatrixAssistantAgent {
         promptBuilder.append("- When the user says 'demain' or 'tomorrow', it means: ").append(tomorrowStr)
                 .append("\n");
         promptBuilder.append("- When the user says 'aujourd'hui' or 'today', it means: ").append(todayStr).append("\n");
-        promptBuilder.append("\n");
-        promptBuilder.append(prompt);
 
         return promptBuilder.toString();
     }
@@ -1555,7 +1529,7 @@ public abstract class BaseMatrixAssistantAgent {
 
     /**
      * Resolves a spaceId argument: if not a valid UUID, attempts to find it by
-     * number/name via list_spaces and replaces with the UUID.
+     * number/name via the space index and replaces with the UUID.
      */
     private void resolveSpaceIdAndReplace(String key, Map<String, Object> args,
             MatrixAssistantAuthContext authContext) {
@@ -1581,68 +1555,75 @@ public abstract class BaseMatrixAssistantAgent {
             }
         }
 
-        // Try to resolve via list_spaces (synchronous call)
+        // Try to resolve via the space index
         try {
-            String resolved = resolveSpaceIdViaListSpaces(candidate, authContext);
+            String resolved = resolveSpaceIdViaIndex(candidate);
             if (resolved != null) {
                 args.put(key, resolved);
             }
         } catch (Exception e) {
-            log.warn("Could not resolve spaceId '{}' via list_spaces: {}", candidate, e.getMessage());
+            log.warn("Could not resolve spaceId '{}' via space index: {}", candidate, e.getMessage());
         }
     }
 
     /**
-     * Calls list_spaces and attempts to find a matching space by number or name.
+     * Finds a matching space by number, name or alias in the space index.
      */
-    private String resolveSpaceIdViaListSpaces(String candidate, MatrixAssistantAuthContext authContext) {
-        Map<String, Object> listArgs = Map.of();
-        MatrixMCPModels.MCPToolResult toolResult = mcpAdapter.callMCPToolDirect("list_spaces", listArgs, authContext);
-        String text = toolResult.getContent().stream()
-                .map(MatrixMCPModels.MCPContent::getText)
-                .filter(t -> t != null && !t.isBlank())
-                .collect(Collectors.joining("\n"));
-        if (text.isEmpty()) {
+    private String resolveSpaceIdViaIndex(String candidate) {
+        if (spaceResolverIndex == null) {
             return null;
         }
+        return spaceResolverIndex.resolve(candidate)
+                .map(space -> space.id().toString())
+                .orElse(null);
+    }
 
-        // Extract name -> id mapping
-        Map<String, String> nameToId = new HashMap<>();
-        Pattern idPattern = Pattern.compile("ID\\s*:\\s*([0-9a-fA-F-]{36})");
-        String[] lines = text.split("\\r?\\n");
-        String currentName = null;
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (trimmed.startsWith("**")) {
-                // Name line like "**Place de parking N°7**"
-                currentName = trimmed.replace("*", "").trim();
-            }
-            Matcher m = idPattern.matcher(trimmed);
-            if (m.find() && currentName != null) {
-                nameToId.put(currentName.toLowerCase(), m.group(1));
-                currentName = null;
-            }
-        }
+    /**
+     * Times a Mistral chat completion call and records its token usage, tagged
+     * with this agent and the room's current workflow.
+     */
+    @SuppressWarnings("rawtypes")
+    protected Mono<Map> observeLlmCall(String call, MatrixAssistantAuthContext authContext, Mono<Map> request) {
+        String agent = getClass().getSimpleName();
+        String workflow = currentWorkflowTag(authContext);
+        return metricsService.observe(MatrixAssistantMetricsService.LLM_CALL,
+                Map.of(MatrixAssistantMetricsService.TAG_AGENT, agent,
+                        MatrixAssistantMetricsService.TAG_WORKFLOW, workflow,
+                        MatrixAssistantMetricsService.TAG_CALL, call),
+                mistralGateway.call(call, MistralGateway.Priority.INTERACTIVE, true, request)
+                        .doOnNext(response -> metricsService.recordTokenUsage(response, agent, workflow)));
+    }
 
-        // Match by number if candidate is numeric
-        String candidateLower = candidate.toLowerCase();
-        boolean isNumeric = candidateLower.chars().allMatch(Character::isDigit);
-        if (isNumeric) {
-            for (Map.Entry<String, String> entry : nameToId.entrySet()) {
-                if (entry.getKey().contains(candidateLower)) {
-                    return entry.getValue();
-                }
+    /**
+     * Posts a text-mode chat completion. When the message is answered with a
+     * progressive reply (see MatrixSyncService), the completion is streamed and
+     * its content is shown in the room while it is generated.
+     */
+    @SuppressWarnings("rawtypes")
+    protected Mono<Map> postTextCompletion(String call, WebClient webClient, Map<String, Object> requestBody,
+            MatrixAssistantAuthContext authContext) {
+        return observeLlmCall(call, authContext, Mono.deferContextual(context -> {
+            Optional<ProgressiveReply> reply = context.getOrEmpty(ProgressiveReply.class);
+            if (streamingService != null && reply.isPresent()) {
+                return streamingService.streamCompletion(webClient, requestBody, reply.get());
             }
-        }
+            return webClient.post()
+                    .uri("/chat/completions")
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(Map.class);
+        }));
+    }
 
-        // Match by name contains
-        for (Map.Entry<String, String> entry : nameToId.entrySet()) {
-            if (entry.getKey().contains(candidateLower)) {
-                return entry.getValue();
+    private String currentWorkflowTag(MatrixAssistantAuthContext authContext) {
+        if (authContext != null && authContext.getRoomId() != null && agentContextService != null) {
+            MatrixAssistantAgentContextService.AgentContext context = agentContextService
+                    .getContext(authContext.getRoomId());
+            if (context != null && context.getCurrentWorkflow() != null) {
+                return context.getCurrentWorkflow().name();
             }
         }
-
-        return null;
+        return "unknown";
     }
 
     /**
@@ -1661,6 +1642,9 @@ public abstract class BaseMatrixAssistantAgent {
     @SuppressWarnings("unchecked")
     protected void logMistralRequest(String context, Map<String, Object> requestBody,
             List<Map<String, Object>> messages, Map<String, String> mdcContext, String agentId, String conversationId) {
+        if (!metricsService.shouldLogPayload(mdcContext)) {
+            return;
+        }
         try {
             withMdc(mdcContext, () -> {
                 log.info("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
@@ -1804,6 +1788,9 @@ public abstract class BaseMatrixAssistantAgent {
     @SuppressWarnings("unchecked")
     protected void logMistralResponse(String context, Map<String, Object> response, Map<String, String> mdcContext,
             String agentId, String conversationId) {
+        if (!metricsService.shouldLogPayload(mdcContext)) {
+            return;
+        }
         try {
             withMdc(mdcContext, () -> {
                 log.info("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
@@ -1960,8 +1947,7 @@ public abstract class BaseMatrixAssistantAgent {
      */
     private String extractParkingNumbers(String content) {
         try {
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("N°(\\d+)");
-            java.util.regex.Matcher matcher = pattern.matcher(content);
+            java.util.regex.Matcher matcher = PARKING_NUMBER_PATTERN.matcher(content);
             java.util.List<String> numbers = new java.util.ArrayList<>();
             while (matcher.find()) {
                 numbers.add(matcher.group(1));
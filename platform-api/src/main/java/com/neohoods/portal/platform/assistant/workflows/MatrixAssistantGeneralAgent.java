@@ -78,7 +78,7 @@ public class MatrixAssistantGeneralAgent extends BaseMatrixAssistantAgent {
     @Override
     protected String getSystemPrompt(MatrixAssistantAuthContext authContext) {
         StringBuilder promptBuilder = new StringBuilder();
-        promptBuilder.append(addDateInformation(baseSystemPrompt));
+        promptBuilder.append(baseSystemPrompt);
 
         // Add public room context only if conversation is public (GENERAL workflow can
         // be public or DM)
@@ -86,7 +86,7 @@ public class MatrixAssistantGeneralAgent extends BaseMatrixAssistantAgent {
             promptBuilder.append("\n\n").append(contextPublic);
         }
 
-        return promptBuilder.toString();
+        return addDateInformation(promptBuilder.toString());
     }
 
     @Override
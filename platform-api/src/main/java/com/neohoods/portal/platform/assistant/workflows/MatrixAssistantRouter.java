@@ -29,6 +29,8 @@ import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.assistant.model.WorkflowType;
 import com.neohoods.portal.platform.assistant.services.ApplicationStartupTimeService;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAgentContextService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantMetricsService;
+import com.neohoods.portal.platform.assistant.services.MistralGateway;
 import com.neohoods.portal.platform.exceptions.CodedException;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -62,6 +64,12 @@ public class MatrixAssistantRouter {
     @Autowired(required = false)
     private com.neohoods.portal.platform.assistant.services.MistralConversationsService mistralConversationsService;
 
+    @Autowired(required = false)
+    private MatrixAssistantMetricsService metricsService = MatrixAssistantMetricsService.NOOP;
+
+    @Autowired(required = false)
+    private MistralGateway mistralGateway = MistralGateway.DIRECT;
+
     @Value("${neohoods.portal.matrix.assistant.ai.provider}")
     private String provider;
 
@@ -285,10 +293,15 @@ public class MatrixAssistantRouter {
 
         // Step 1: Identify workflow using LLM (with conversation history and current
         // workflow)
-        return identifyWorkflow(userMessage, conversationHistory, authContext)
+        Mono<WorkflowType> classification = identifyWorkflow(userMessage, conversationHistory, authContext)
                 // Step 1bis: Heuristic override to avoid obvious misclassifications (e.g.
                 // reservations)
-                .map(workflowType -> maybeOverrideWorkflow(userMessage, workflowType))
+                .map(workflowType -> maybeOverrideWorkflow(userMessage, workflowType));
+        return metricsService
+                .observe(MatrixAssistantMetricsService.ROUTER_CLASSIFY,
+                        Map.of(MatrixAssistantMetricsService.TAG_WORKFLOW, "none"),
+                        workflowType -> Map.of(MatrixAssistantMetricsService.TAG_WORKFLOW, workflowType.name()),
+                        classification)
                 .flatMap(workflowType -> {
                     log.info("Identified workflow (after override if any): {} for message: {}", workflowType,
                             userMessage.substring(0, Math.min(50, userMessage.length())));
@@ -297,7 +310,9 @@ public class MatrixAssistantRouter {
                     // Clean timestamps from conversationHistory before passing to agents
                     // (timestamps are only used for pre-filtering in router)
                     List<Map<String, Object>> cleanHistory = cleanTimestampsFromHistory(conversationHistory);
-                    return delegateToAgent(workflowType, userMessage, cleanHistory, authContext);
+                    return metricsService.observe(MatrixAssistantMetricsService.AGENT,
+                            Map.of(MatrixAssistantMetricsService.TAG_WORKFLOW, workflowType.name()),
+                            Mono.defer(() -> delegateToAgent(workflowType, userMessage, cleanHistory, authContext)));
                 })
                 .onErrorResume(e -> {
                     // Convert errors to CodedException and propagate
@@ -635,12 +650,15 @@ public class MatrixAssistantRouter {
         // Log the complete prompt and messages before calling Mistral
         logMistralRequest("Workflow identification", requestBody, messages, mdcContext);
 
-        return webClient.post()
+        return mistralGateway.call("router", MistralGateway.Priority.INTERACTIVE, true, webClient.post()
                 .uri("/chat/completions")
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(Map.class)
-                .doOnNext(response -> logMistralResponse("Workflow identification", response, mdcContext))
+                .bodyToMono(Map.class))
+                .doOnNext(response -> {
+                    metricsService.recordTokenUsage(response, getClass().getSimpleName(), "ROUTER");
+                    logMistralResponse("Workflow identification", response, mdcContext);
+                })
                 .map(response -> {
                     @SuppressWarnings("unchecked")
                     List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
@@ -871,6 +889,9 @@ public class MatrixAssistantRouter {
     @SuppressWarnings("unchecked")
     private void logMistralRequest(String context, Map<String, Object> requestBody, List<Map<String, Object>> messages,
             Map<String, String> mdcContext) {
+        if (!metricsService.shouldLogPayload(mdcContext)) {
+            return;
+        }
         try {
             withMdc(mdcContext, () -> {
                 log.info("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
@@ -921,6 +942,9 @@ public class MatrixAssistantRouter {
      */
     @SuppressWarnings("unchecked")
     private void logMistralResponse(String context, Map<String, Object> response, Map<String, String> mdcContext) {
+        if (!metricsService.shouldLogPayload(mdcContext)) {
+            return;
+        }
         try {
             withMdc(mdcContext, () -> {
                 log.info("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
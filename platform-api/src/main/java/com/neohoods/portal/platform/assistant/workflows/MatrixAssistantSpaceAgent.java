@@ -737,6 +737,10 @@ public class MatrixAssistantSpaceAgent extends BaseMatrixAssistantAgent {
 
         StringBuilder promptBuilder = new StringBuilder();
 
+        // Static base prompt first, per-user and per-day parts after it (prompt caching)
+        promptBuilder.append(baseSystemPrompt);
+        promptBuilder.append("\n\n");
+
         // Add user locale information to the prompt
         String userLocale = "fr"; // Default
         try {
@@ -751,7 +755,7 @@ public class MatrixAssistantSpaceAgent extends BaseMatrixAssistantAgent {
         promptBuilder.append("**IMPORTANT**: Always respond in the user's preferred language (").append(userLocale)
                 .append("). Do NOT hardcode French.\n\n");
 
-        promptBuilder.append(addDateInformation(baseSystemPrompt));
+        promptBuilder.append(addDateInformation(""));
         promptBuilder.append("\n\n");
 
         String stepPrompt = null;
@@ -1006,10 +1010,9 @@ public class MatrixAssistantSpaceAgent extends BaseMatrixAssistantAgent {
         }
 
         Set<String> finalAvailableToolNames = availableToolNames;
-        List<Map<String, Object>> tools = allTools.stream()
+        List<Map<String, Object>> tools = new ArrayList<>(promptAssemblyService.toolBlock(allTools.stream()
                 .filter(tool -> finalAvailableToolNames.contains(tool.getName()))
-                .map(this::convertMCPToolToMistralFunction)
-                .collect(Collectors.toList());
+                .toList()).tools());
 
         // Add submit_reservation_step tool for CHOOSE_SPACE
         if (currentStep == SpaceStep.CHOOSE_SPACE) {
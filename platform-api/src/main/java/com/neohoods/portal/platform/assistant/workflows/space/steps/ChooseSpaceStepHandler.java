@@ -17,6 +17,8 @@ import com.neohoods.portal.platform.assistant.services.MatrixAssistantAgentConte
 import com.neohoods.portal.platform.assistant.services.MatrixMessageTemplateService;
 import com.neohoods.portal.platform.spaces.entities.SpaceStatusForEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+import com.neohoods.portal.platform.spaces.services.SpaceResolverIndex;
 import com.neohoods.portal.platform.spaces.services.SpacesService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +41,11 @@ public class ChooseSpaceStepHandler extends BaseSpaceStepHandler {
     @Autowired
     private MatrixMessageTemplateService templateService;
 
+    @Autowired
+    private SpaceResolverIndex spaceResolverIndex;
+
+    private static final java.util.regex.Pattern NUMBER_PATTERN = java.util.regex.Pattern.compile("\\d+");
+
     @Override
     public SpaceStep getStep() {
         return SpaceStep.CHOOSE_SPACE;
@@ -78,7 +85,7 @@ public class ChooseSpaceStepHandler extends BaseSpaceStepHandler {
         // Build step-specific system prompt
         String systemPrompt = buildSystemPromptForStep(SpaceStep.CHOOSE_SPACE, context, authContext);
 
-        // Extract space mapping (number -> UUID) from list_spaces for context
+        // Space mapping (number -> UUID) for context
         java.util.Map<String, String> spaceMapping = extractSpaceMapping(authContext);
 
         // Inject a concise context summary to guide the LLM (avoid stale/long history)
@@ -292,12 +299,12 @@ public class ChooseSpaceStepHandler extends BaseSpaceStepHandler {
                         // Get locale for formatting
                         Locale locale = getLocaleFromContext(context);
 
-                        // If availableSpaces is not provided by LLM, build it from list_spaces result
+                        // If availableSpaces is not provided by LLM, build it from the space index
                         SpaceStepResponse responseToFormat = stepResponse;
                         if (stepResponse.getAvailableSpaces() == null || stepResponse.getAvailableSpaces().isEmpty()) {
                             java.util.Map<String, String> extractedMapping = extractSpaceMapping(authContext);
                             if (extractedMapping != null && !extractedMapping.isEmpty()) {
-                                log.info("📝 CHOOSE_SPACE: Building availableSpaces map from list_spaces ({} spaces)",
+                                log.info("📝 CHOOSE_SPACE: Building availableSpaces map from space index ({} spaces)",
                                         extractedMapping.size());
                                 responseToFormat = SpaceStepResponse.builder()
                                         .status(stepResponse.getStatus())
@@ -479,54 +486,22 @@ public class ChooseSpaceStepHandler extends BaseSpaceStepHandler {
     }
 
     /**
-     * Heuristic resolution of spaceId from user message by calling list_spaces and
-     * matching number/name.
+     * Heuristic resolution of spaceId from user message by matching a single
+     * number or a space name/alias among the active spaces of the index.
      */
     private String resolveSpaceIdFromUserMessage(String userMessage, MatrixAssistantAuthContext authContext) {
         if (userMessage == null || userMessage.isBlank()) {
             return null;
         }
-        String candidate = userMessage.toLowerCase().replaceAll("[^a-z0-9 ]", " ").trim();
-        String number = candidate.replaceAll("\\D+", "");
-        Map<String, Object> listArgs = Map.of();
-        var toolResult = mcpAdapter.callMCPToolDirect("list_spaces", listArgs, authContext);
-        String text = toolResult.getContent().stream()
-                .map(c -> c.getText())
-                .filter(t -> t != null && !t.isBlank())
-                .collect(java.util.stream.Collectors.joining("\n"));
-        if (text.isEmpty()) {
-            return null;
+        java.util.regex.Matcher matcher = NUMBER_PATTERN.matcher(userMessage);
+        java.util.List<String> numbers = new java.util.ArrayList<>();
+        while (matcher.find()) {
+            numbers.add(matcher.group());
         }
-        java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile("ID\\s*:\\s*([0-9a-fA-F-]{36})");
-        String[] lines = text.split("\\r?\\n");
-        String currentName = null;
-        java.util.Map<String, String> nameToId = new java.util.HashMap<>();
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (trimmed.startsWith("**")) {
-                currentName = trimmed.replace("*", "").trim().toLowerCase();
-            }
-            var m = idPattern.matcher(trimmed);
-            if (m.find() && currentName != null) {
-                nameToId.put(currentName, m.group(1));
-                currentName = null;
-            }
-        }
-        // Match by number
-        if (!number.isEmpty()) {
-            for (var entry : nameToId.entrySet()) {
-                if (entry.getKey().contains(number)) {
-                    return entry.getValue();
-                }
-            }
-        }
-        // Fallback: contains candidate words
-        for (var entry : nameToId.entrySet()) {
-            if (entry.getKey().contains(candidate)) {
-                return entry.getValue();
-            }
-        }
-        return null;
+        java.util.Optional<SpaceResolverIndex.SpaceRef> space = numbers.size() == 1
+                ? spaceResolverIndex.findActiveByNumber(numbers.get(0))
+                : spaceResolverIndex.resolveActive(userMessage);
+        return space.map(ref -> ref.id().toString()).orElse(null);
     }
 
     private String extractNumber(String userMessage) {
@@ -542,52 +517,15 @@ public class ChooseSpaceStepHandler extends BaseSpaceStepHandler {
             return null;
         }
 
-        // 1) Try DB (spacesService) to find a space whose name contains the number
-        try {
-            var page = spacesService.getSpacesWithFilters(null, SpaceStatusForEntity.ACTIVE,
-                    org.springframework.data.domain.PageRequest.of(0, 200));
-            for (SpaceEntity space : page.getContent()) {
-                if (space.getName() != null && space.getName().toLowerCase().contains(number.toLowerCase())) {
-                    log.info("resolveSpaceIdFromNumber: matched in DB {} -> {}", space.getName(), space.getId());
-                    return space.getId().toString();
-                }
-            }
-        } catch (Exception e) {
-            log.warn("resolveSpaceIdFromNumber: DB lookup failed: {}", e.getMessage());
-        }
-
-        // 2) Fallback to list_spaces MCP tool
-        Map<String, Object> listArgs = Map.of();
-        var toolResult = mcpAdapter.callMCPToolDirect("list_spaces", listArgs, authContext);
-        String text = toolResult.getContent().stream()
-                .map(c -> c.getText())
-                .filter(t -> t != null && !t.isBlank())
-                .collect(java.util.stream.Collectors.joining("\n"));
-        if (text.isEmpty()) {
-            return null;
-        }
-        java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile("ID\\s*:\\s*([0-9a-fA-F-]{36})");
-        String[] lines = text.split("\\r?\\n");
-        String currentName = null;
-        java.util.Map<String, String> nameToId = new java.util.HashMap<>();
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (trimmed.startsWith("**")) {
-                currentName = trimmed.replace("*", "").trim().toLowerCase();
-            }
-            var m = idPattern.matcher(trimmed);
-            if (m.find() && currentName != null) {
-                nameToId.put(currentName, m.group(1));
-                currentName = null;
-            }
-        }
-        for (var entry : nameToId.entrySet()) {
-            if (entry.getKey().contains(number.toLowerCase())) {
-                return entry.getValue();
-            }
+        // 1) Space index, active spaces only: number, then name/alias
+        java.util.Optional<SpaceResolverIndex.SpaceRef> indexed = spaceResolverIndex.findActiveByNumber(number)
+                .or(() -> spaceResolverIndex.resolveActive(number));
+        if (indexed.isPresent()) {
+            log.info("resolveSpaceIdFromNumber: matched {} -> {}", indexed.get().name(), indexed.get().id());
+            return indexed.get().id().toString();
         }
 
-        // 3) As a last resort in tests/dev: create a placeholder space so that UUID
+        // 2) As a last resort in tests/dev: create a placeholder space so that UUID
         // exists
         try {
             SpaceEntity space = new SpaceEntity();
@@ -849,47 +787,15 @@ public class ChooseSpaceStepHandler extends BaseSpaceStepHandler {
     }
 
     /**
-     * Extracts space mapping (number -> UUID) from list_spaces tool result
+     * Space mapping (number -> UUID) of parking spaces from the space index
      * Returns a map where key is space number (e.g., "7", "23") and value is UUID
      */
     private java.util.Map<String, String> extractSpaceMapping(MatrixAssistantAuthContext authContext) {
         try {
-            Map<String, Object> listArgs = Map.of();
-            var toolResult = mcpAdapter.callMCPToolDirect("list_spaces", listArgs, authContext);
-            String text = toolResult.getContent().stream()
-                    .map(c -> c.getText())
-                    .filter(t -> t != null && !t.isBlank())
-                    .collect(java.util.stream.Collectors.joining("\n"));
-            if (text.isEmpty()) {
-                return null;
-            }
-
-            java.util.Map<String, String> mapping = new java.util.HashMap<>();
-            java.util.regex.Pattern numberPattern = java.util.regex.Pattern.compile("N°(\\d+)");
-            java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile("ID\\s*:\\s*([0-9a-fA-F-]{36})");
-            String[] lines = text.split("\\r?\\n");
-            String currentNumber = null;
-
-            for (String line : lines) {
-                String trimmed = line.trim();
-                // Extract number from name (e.g., "Place de parking N°7")
-                java.util.regex.Matcher numberMatcher = numberPattern.matcher(trimmed);
-                if (numberMatcher.find()) {
-                    currentNumber = numberMatcher.group(1);
-                }
-                // Extract UUID
-                java.util.regex.Matcher idMatcher = idPattern.matcher(trimmed);
-                if (idMatcher.find() && currentNumber != null) {
-                    String uuid = idMatcher.group(1);
-                    mapping.put(currentNumber, uuid);
-                    currentNumber = null; // Reset after matching
-                }
-            }
-
+            java.util.Map<String, String> mapping = spaceResolverIndex.getNumberToId(SpaceTypeForEntity.PARKING);
             if (mapping.isEmpty()) {
                 return null;
             }
-
             log.debug("Extracted space mapping: {} spaces", mapping.size());
             return mapping;
         } catch (Exception e) {
@@ -899,31 +805,14 @@ public class ChooseSpaceStepHandler extends BaseSpaceStepHandler {
     }
 
     /**
-     * Fetch parking numbers from list_spaces tool for fallback formatting
+     * Parking numbers from the space index for fallback formatting
      */
     private String fetchParkingNumbers(MatrixAssistantAuthContext authContext) {
         try {
-            Map<String, Object> listArgs = Map.of();
-            var toolResult = mcpAdapter.callMCPToolDirect("list_spaces", listArgs, authContext);
-            String text = toolResult.getContent().stream()
-                    .map(c -> c.getText())
-                    .filter(t -> t != null && !t.isBlank())
-                    .collect(java.util.stream.Collectors.joining("\n"));
-            if (text.isEmpty()) {
-                return null;
-            }
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("N°(\\d+)");
-            java.util.regex.Matcher matcher = pattern.matcher(text);
-            java.util.Set<String> numbers = new java.util.LinkedHashSet<>();
-            while (matcher.find()) {
-                numbers.add(matcher.group(1));
-            }
-            if (numbers.isEmpty()) {
-                return null;
-            }
-            return String.join(", ", numbers);
+            java.util.Map<String, String> mapping = spaceResolverIndex.getNumberToId(SpaceTypeForEntity.PARKING);
+            return mapping.isEmpty() ? null : String.join(", ", mapping.keySet());
         } catch (Exception e) {
-            log.warn("fetchParkingNumbers: failed to fetch list_spaces numbers: {}", e.getMessage());
+            log.warn("fetchParkingNumbers: failed to fetch parking numbers: {}", e.getMessage());
             return null;
         }
     }
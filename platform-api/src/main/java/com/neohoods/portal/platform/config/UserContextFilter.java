@@ -32,12 +32,12 @@ public class UserContextFilter implements WebFilter {
                         String principalName = principal.getName();
                         MDC.put(USER_ID_MDC_KEY, principalName);
 
-                        // Try to get username from cache/database
+                        // Resolve the principal once for the whole request (cached)
                         try {
                             UUID userId = UUID.fromString(principalName);
-                            return userContextService.getUsername(userId)
-                                    .doOnNext(username -> {
-                                        MDC.put(USERNAME_MDC_KEY, username);
+                            return userContextService.resolvePrincipal(exchange, userId)
+                                    .doOnNext(userPrincipal -> {
+                                        MDC.put(USERNAME_MDC_KEY, userPrincipal.email());
                                     })
                                     .then(Mono.just(principal));
                         } catch (IllegalArgumentException e) {
@@ -0,0 +1,8 @@
+package com.neohoods.portal.platform.entities;
+
+public enum MailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,47 @@
+package com.neohoods.portal.platform.entities;
+
+import java.time.OffsetDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "matrix_room_index")
+public class MatrixRoomIndexEntity {
+
+    @Id
+    @Column(name = "room_id")
+    private String roomId;
+
+    // Parent space (m.space.parent / m.space.child), null if none
+    @Column(name = "space_id")
+    private String spaceId;
+
+    @Column(name = "name")
+    private String name;
+
+    // Other member, for DM rooms of the assistant
+    @Column(name = "dm_user_id")
+    private String dmUserId;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = OffsetDateTime.now();
+    }
+}
@@ -0,0 +1,37 @@
+package com.neohoods.portal.platform.entities;
+
+import java.time.OffsetDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "matrix_space_index_seed")
+public class MatrixSpaceIndexSeedEntity {
+
+    // Space whose rooms are all in matrix_room_index
+    @Id
+    @Column(name = "space_id")
+    private String spaceId;
+
+    @Column(name = "seeded_at", nullable = false)
+    private OffsetDateTime seededAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (seededAt == null) {
+            seededAt = OffsetDateTime.now();
+        }
+    }
+}
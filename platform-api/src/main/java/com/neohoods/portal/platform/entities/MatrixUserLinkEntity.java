@@ -0,0 +1,51 @@
+package com.neohoods.portal.platform.entities;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "matrix_user_links")
+public class MatrixUserLinkEntity {
+
+    @Id
+    @Column(name = "auth0_subject")
+    private String auth0Subject;
+
+    @Column(name = "mas_user_id", nullable = false)
+    private String masUserId;
+
+    @Column(name = "matrix_username")
+    private String matrixUsername;
+
+    // Portal user, once provisioned (not known for links found by reconciliation)
+    @Column(name = "user_id")
+    private UUID userId;
+
+    // Upstream OAuth link id, only set from reconciliation (used as its cursor)
+    @Column(name = "mas_link_id")
+    private String masLinkId;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = OffsetDateTime.now();
+    }
+}
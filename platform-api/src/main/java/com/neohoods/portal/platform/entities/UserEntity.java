@@ -74,7 +74,8 @@ public class UserEntity {
     @Builder.Default
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // Only written: getRoles() derives the roles from the user type
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
     private Set<String> roles;
@@ -0,0 +1,77 @@
+package com.neohoods.portal.platform.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.neohoods.portal.platform.entities.MailOutboxEntity;
+import com.neohoods.portal.platform.entities.MailOutboxStatus;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutboxEntity, UUID> {
+
+    /**
+     * Enqueues an email, unless one with the same idempotency key was already
+     * enqueued
+     *
+     * @return 1 if enqueued, 0 if the key was already there
+     */
+    @Modifying
+    @Query(value = "INSERT INTO mail_outbox (id, idempotency_key, recipient, subject, html_content, status, " +
+            "attempts, next_attempt_at, created_at) " +
+            "VALUES (:id, :idempotencyKey, :recipient, :subject, :htmlContent, 'PENDING', 0, NOW(), NOW()) " +
+            "ON CONFLICT (idempotency_key) DO NOTHING", nativeQuery = true)
+    int enqueue(
+            @Param("id") UUID id,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("recipient") String recipient,
+            @Param("subject") String subject,
+            @Param("htmlContent") String htmlContent);
+
+    /**
+     * Due emails, pending or whose sending lease expired, locked for the
+     * calling transaction; rows locked by another worker are skipped
+     */
+    @Query(value = "SELECT id FROM mail_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UUID> findDueIdsForUpdate(@Param("now") OffsetDateTime now, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MailOutboxEntity m SET m.status = com.neohoods.portal.platform.entities.MailOutboxStatus.SENDING, " +
+            "m.attempts = m.attempts + 1, m.nextAttemptAt = :leaseUntil WHERE m.id IN :ids")
+    int claim(@Param("ids") List<UUID> ids, @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailOutboxEntity m SET m.status = com.neohoods.portal.platform.entities.MailOutboxStatus.SENT, " +
+            "m.sentAt = :sentAt, m.lastError = NULL WHERE m.id = :id")
+    int markSent(@Param("id") UUID id, @Param("sentAt") OffsetDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailOutboxEntity m SET m.status = com.neohoods.portal.platform.entities.MailOutboxStatus.PENDING, " +
+            "m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id = :id")
+    int reschedule(@Param("id") UUID id, @Param("nextAttemptAt") OffsetDateTime nextAttemptAt,
+            @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailOutboxEntity m SET m.status = com.neohoods.portal.platform.entities.MailOutboxStatus.DEAD, " +
+            "m.lastError = :error WHERE m.id = :id")
+    int markDead(@Param("id") UUID id, @Param("error") String error);
+
+    long countByStatus(MailOutboxStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MailOutboxEntity m WHERE m.status = com.neohoods.portal.platform.entities.MailOutboxStatus.SENT " +
+            "AND m.createdAt < :before")
+    int deleteSentBefore(@Param("before") OffsetDateTime before);
+}
@@ -0,0 +1,8 @@
+package com.neohoods.portal.platform.repositories;
+
+import org.springframework.data.repository.CrudRepository;
+
+import com.neohoods.portal.platform.entities.MatrixSpaceIndexSeedEntity;
+
+public interface MatrixSpaceIndexSeedRepository extends CrudRepository<MatrixSpaceIndexSeedEntity, String> {
+}
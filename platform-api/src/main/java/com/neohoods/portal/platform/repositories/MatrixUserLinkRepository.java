@@ -0,0 +1,21 @@
+package com.neohoods.portal.platform.repositories;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import com.neohoods.portal.platform.entities.MatrixUserLinkEntity;
+
+public interface MatrixUserLinkRepository extends CrudRepository<MatrixUserLinkEntity, String> {
+
+    Optional<MatrixUserLinkEntity> findFirstByUserId(UUID userId);
+
+    /**
+     * Last upstream OAuth link seen by reconciliation (link ids are ULIDs, so
+     * they sort by creation)
+     */
+    @Query("SELECT MAX(l.masLinkId) FROM MatrixUserLinkEntity l")
+    Optional<String> findLastMasLinkId();
+}
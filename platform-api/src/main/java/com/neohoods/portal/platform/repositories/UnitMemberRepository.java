@@ -1,10 +1,12 @@
 package com.neohoods.portal.platform.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -30,6 +32,12 @@ public interface UnitMemberRepository extends JpaRepository<UnitMemberEntity, UU
     List<UnitMemberEntity> findByUserIdAndResidenceRole(UUID userId, ResidenceRole role);
 
     List<UnitMemberEntity> findByUnitIdAndResidenceRole(UUID unitId, ResidenceRole role);
+
+    /**
+     * Member count per unit, as [unitId, count] rows (units without members are absent)
+     */
+    @Query("SELECT um.unit.id, COUNT(um) FROM UnitMemberEntity um WHERE um.unit.id IN :unitIds GROUP BY um.unit.id")
+    List<Object[]> countMembersByUnitIds(@Param("unitIds") Collection<UUID> unitIds);
 }
 
 
@@ -25,6 +25,8 @@ public interface UnitRepository extends JpaRepository<UnitEntity, UUID> {
 
     List<UnitEntity> findByNameContainingIgnoreCase(String name);
 
+    List<UnitEntity> findByNameStartingWithIgnoreCase(String prefix);
+
     List<UnitEntity> findByType(UnitTypeForEntity type);
 
     List<UnitEntity> findByTypeAndNameContainingIgnoreCase(UnitTypeForEntity type, String name);
@@ -69,4 +71,20 @@ public interface UnitRepository extends JpaRepository<UnitEntity, UUID> {
             @Param("search") String search,
             @Param("onlyOccupied") Boolean onlyOccupied,
             Pageable pageable);
+
+    /**
+     * Keyset page of units ordered by name then id, for assistant listings.
+     * The prefix pattern is lower case.
+     */
+    @Query("SELECT u FROM UnitEntity u WHERE " +
+            "(:type IS NULL OR u.type = :type) AND " +
+            "LOWER(COALESCE(u.name, '')) LIKE :prefix AND " +
+            "(COALESCE(u.name, '') > :afterKey OR (COALESCE(u.name, '') = :afterKey AND u.id > :afterId)) " +
+            "ORDER BY COALESCE(u.name, ''), u.id")
+    List<UnitEntity> findPageAfter(
+            @Param("type") UnitTypeForEntity type,
+            @Param("prefix") String prefix,
+            @Param("afterKey") String afterKey,
+            @Param("afterId") UUID afterId,
+            Pageable pageable);
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -22,4 +23,62 @@ public interface UsersRepository extends CrudRepository<UserEntity, UUID> {
 
     @Query("SELECT DISTINCT u FROM UserEntity u LEFT JOIN FETCH u.primaryUnit")
     List<UserEntity> findAllWithPrimaryUnit();
+
+    /**
+     * Keyset page of users ordered by last name then id, for assistant listings.
+     * The prefix pattern is lower case and matches the first or last name.
+     */
+    @Query("SELECT u FROM UserEntity u WHERE " +
+            "(:type IS NULL OR u.type = :type) AND " +
+            "(LOWER(COALESCE(u.lastName, '')) LIKE :prefix OR LOWER(COALESCE(u.firstName, '')) LIKE :prefix) AND " +
+            "(COALESCE(u.lastName, '') > :afterKey OR (COALESCE(u.lastName, '') = :afterKey AND u.id > :afterId)) " +
+            "ORDER BY COALESCE(u.lastName, ''), u.id")
+    List<UserEntity> findPageAfter(
+            @Param("type") UserType type,
+            @Param("prefix") String prefix,
+            @Param("afterKey") String afterKey,
+            @Param("afterId") UUID afterId,
+            Pageable pageable);
+
+    /**
+     * Keyset page of the ids of the users of an audience, ordered by id (see
+     * AudienceService). List filters are comma separated, null for none.
+     * Users without notification settings have the defaults (everything
+     * enabled).
+     */
+    @Query(value = """
+            SELECT u.id FROM users u
+            WHERE u.id > :afterId
+                AND (CAST(:userTypes AS text) IS NULL
+                    OR u.user_type = ANY(string_to_array(CAST(:userTypes AS text), ',')))
+                AND (CAST(:userIds AS text) IS NULL
+                    OR u.id = ANY(CAST(string_to_array(CAST(:userIds AS text), ',') AS uuid[])))
+                AND (CAST(:excludeUserIds AS text) IS NULL
+                    OR u.id <> ALL(CAST(string_to_array(CAST(:excludeUserIds AS text), ',') AS uuid[])))
+                AND (CAST(:unitIds AS text) IS NULL OR EXISTS (
+                    SELECT 1 FROM unit_members um WHERE um.user_id = u.id
+                        AND um.unit_id = ANY(CAST(string_to_array(CAST(:unitIds AS text), ',') AS uuid[]))))
+                AND (CAST(:roles AS text) IS NULL OR EXISTS (
+                    SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id
+                        AND ur.role = ANY(string_to_array(CAST(:roles AS text), ','))))
+                AND (:newsletter = false OR NOT EXISTS (
+                    SELECT 1 FROM notification_settings ns WHERE ns.user_id = u.id AND ns.newsletter_enabled = false))
+                AND (:notifications = false OR NOT EXISTS (
+                    SELECT 1 FROM notification_settings ns WHERE ns.user_id = u.id AND ns.enable_notifications = false))
+                AND (:deliverableOnly = false
+                    OR (u.email LIKE '%_@_%._%' AND u.email NOT LIKE '%example.com'))
+            ORDER BY u.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> findAudienceIdsAfter(
+            @Param("afterId") UUID afterId,
+            @Param("userTypes") String userTypes,
+            @Param("userIds") String userIds,
+            @Param("excludeUserIds") String excludeUserIds,
+            @Param("unitIds") String unitIds,
+            @Param("roles") String roles,
+            @Param("newsletter") boolean newsletter,
+            @Param("notifications") boolean notifications,
+            @Param("deliverableOnly") boolean deliverableOnly,
+            @Param("limit") int limit);
 }
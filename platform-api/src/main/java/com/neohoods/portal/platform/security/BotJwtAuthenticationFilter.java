@@ -3,9 +3,11 @@ package com.neohoods.portal.platform.security;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
@@ -24,6 +26,7 @@ import com.nimbusds.jose.crypto.MACVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
@@ -43,6 +46,10 @@ public class BotJwtAuthenticationFilter implements WebFilter {
 
     private final MACVerifier verifier;
 
+    // The sync bot reuses its token for every call of a sync run
+    private final VerifiedTokenCache<Authentication> verifiedTokens = new VerifiedTokenCache<>(
+            "bot", 1_000, Duration.ofMinutes(10));
+
     public BotJwtAuthenticationFilter(@Value("${neohoods.portal.bot.jwt-secret}") String jwtSecret)
             throws NoSuchAlgorithmException, JOSEException {
         // Derive a 256-bit (32-byte) key from the secret using SHA-256
@@ -52,6 +59,11 @@ public class BotJwtAuthenticationFilter implements WebFilter {
         this.verifier = new MACVerifier(keyBytes);
     }
 
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        verifiedTokens.bindTo(meterRegistry);
+    }
+
     @Override
     @NonNull
     public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
@@ -72,6 +84,12 @@ public class BotJwtAuthenticationFilter implements WebFilter {
 
         String token = authHeader.substring(7); // Remove "Bearer " prefix
 
+        Authentication cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return chain.filter(exchange)
+                    .contextWrite(ReactiveSecurityContextHolder.withAuthentication(cached));
+        }
+
         try {
             // Parse and validate JWT
             SignedJWT signedJWT = SignedJWT.parse(token);
@@ -122,6 +140,7 @@ public class BotJwtAuthenticationFilter implements WebFilter {
                     "sync-bot",
                     null,
                     authorities);
+            verifiedTokens.put(token, authentication, expirationTime);
 
             // Set authentication in security context
             return chain.filter(exchange)
@@ -9,29 +9,34 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.services.UserPrincipalService;
 
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements ReactiveUserDetailsService {
     private final UsersRepository usersRepository;
+    private final UserPrincipalService userPrincipalService;
 
     @Override
     public Mono<UserDetails> findByUsername(String username) {
-        UserEntity user = usersRepository.findByUsername(username);
-        if (user == null) {
-            return Mono.empty();
-        }
-
-        // Map user roles to Spring Security authorities
-        List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                .collect(Collectors.toList());
-
-        return Mono.just(new User(user.getId().toString(), user.getPassword(), authorities));
+        // Blocking JPA lookup: keep it off the event loop
+        return Mono.fromCallable(() -> usersRepository.findByUsername(username))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(user -> {
+                    // Warm the principal cache for the requests following the login
+                    UserPrincipal principal = userPrincipalService.put(user);
+
+                    // Map user roles to Spring Security authorities
+                    List<SimpleGrantedAuthority> authorities = principal.roles().stream()
+                            .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
+                            .collect(Collectors.toList());
+
+                    return new User(user.getId().toString(), user.getPassword(), authorities);
+                });
     }
 }
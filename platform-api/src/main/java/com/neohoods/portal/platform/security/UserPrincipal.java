@@ -0,0 +1,37 @@
+package com.neohoods.portal.platform.security;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.entities.UserType;
+
+/**
+ * What a request needs to know about the authenticated user, resolved once
+ * per request by UserContextFilter and stored in the exchange attributes
+ * under {@link #ATTRIBUTE}
+ */
+public record UserPrincipal(UUID id, String username, String email, UserType type, List<String> roles,
+        UUID primaryUnitId, Locale locale) {
+
+    public static final String ATTRIBUTE = UserPrincipal.class.getName();
+
+    public static UserPrincipal from(UserEntity user) {
+        return new UserPrincipal(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getType(),
+                List.copyOf(user.getRoles()),
+                user.getPrimaryUnit() != null ? user.getPrimaryUnit().getId() : null,
+                user.getLocale());
+    }
+
+    /**
+     * Owners (admins, owners and landlords) get owner pricing on spaces
+     */
+    public boolean isOwner() {
+        return type == UserType.ADMIN || type == UserType.OWNER || type == UserType.LANDLORD;
+    }
+}
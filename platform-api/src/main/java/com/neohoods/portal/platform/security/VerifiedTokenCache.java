@@ -0,0 +1,166 @@
+package com.neohoods.portal.platform.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded cache of successfully verified tokens, keyed by the SHA-256 of the
+ * token so raw tokens are never kept in memory. Holds whatever the caller
+ * extracted from the claims, so a hit skips parsing and signature
+ * verification altogether.
+ *
+ * An entry never outlives the token's expiration, nor the cache TTL. When
+ * full, expired entries are purged first, then the least used of a small
+ * sample is evicted, so tokens polled all day (calendar feeds, MCP sessions)
+ * stay while one-off tokens go. Failed verifications are never cached.
+ */
+public final class VerifiedTokenCache<T> {
+
+    public static final String METRIC_REQUESTS = "neohoods.jwt.verification.cache.requests";
+    public static final String METRIC_SIZE = "neohoods.jwt.verification.cache.size";
+
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long expiresAt;
+        private final AtomicLong uses = new AtomicLong();
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public VerifiedTokenCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Registers hit/miss counters and a size gauge tagged with the cache name
+     */
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_REQUESTS, hits, LongAdder::sum)
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(METRIC_REQUESTS, misses, LongAdder::sum)
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder(METRIC_SIZE, entries, Map::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    /**
+     * Value cached for this token, or null if absent or expired
+     */
+    public T get(String token) {
+        if (token == null || maxSize <= 0) {
+            return null;
+        }
+        String key = hash(token);
+        Entry<T> entry = entries.get(key);
+        if (entry != null) {
+            if (System.currentTimeMillis() < entry.expiresAt) {
+                entry.uses.incrementAndGet();
+                hits.increment();
+                return entry.value;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a verified token until its expiration (if any), capped by the
+     * cache TTL
+     */
+    public void put(String token, T value, Date expiration) {
+        if (token == null || value == null || maxSize <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(hash(token), new Entry<>(value, expiresAt));
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> now >= entry.expiresAt);
+        while (entries.size() >= maxSize) {
+            String victim = null;
+            long fewestUses = Long.MAX_VALUE;
+            Iterator<Map.Entry<String, Entry<T>>> iterator = entries.entrySet().iterator();
+            for (int i = 0; i < EVICTION_SAMPLE && iterator.hasNext(); i++) {
+                Map.Entry<String, Entry<T>> candidate = iterator.next();
+                long uses = candidate.getValue().uses.get();
+                if (uses < fewestUses) {
+                    fewestUses = uses;
+                    victim = candidate.getKey();
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            entries.remove(victim);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.neohoods.portal.platform.services;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -10,6 +11,8 @@ import com.neohoods.portal.platform.exceptions.CodedError;
 import com.neohoods.portal.platform.exceptions.CodedException;
 import com.neohoods.portal.platform.model.Application;
 import com.neohoods.portal.platform.repositories.ApplicationRepository;
+
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -20,19 +23,30 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class ApplicationsService {
     private final ApplicationRepository applicationRepository;
+    private final ReferenceDataCaches referenceDataCaches;
+
+    private ReferenceDataCache<List<Application>> applicationsCache;
+
+    @PostConstruct
+    void init() {
+        applicationsCache = referenceDataCaches.create("applications",
+                () -> applicationRepository.findAllByOrderByName().stream()
+                        .map(ApplicationEntity::toApplication)
+                        .toList());
+    }
 
     public Mono<Application> createApplication(Application application) {
         log.info("Creating application: {}", application.getName());
         ApplicationEntity entity = ApplicationEntity.fromApplication(application);
         ApplicationEntity savedEntity = applicationRepository.save(entity);
+        applicationsCache.invalidate();
         log.info("Created application: {} with ID: {}", savedEntity.getName(), savedEntity.getId());
         return Mono.just(savedEntity.toApplication());
     }
 
     public Flux<Application> getApplications() {
         log.info("Retrieving all applications");
-        return Flux.fromIterable(applicationRepository.findAllByOrderByName())
-                .map(ApplicationEntity::toApplication)
+        return Flux.fromIterable(applicationsCache.get())
                 .doOnComplete(() -> log.info("Retrieved all applications"));
     }
 
@@ -66,6 +80,7 @@ public class ApplicationsService {
         existingEntity.setDisabled(application.getDisabled() != null ? application.getDisabled() : false);
 
         ApplicationEntity updatedEntity = applicationRepository.save(existingEntity);
+        applicationsCache.invalidate();
         log.info("Updated application: {}", updatedEntity.getName());
         return Mono.just(updatedEntity.toApplication());
     }
@@ -80,6 +95,7 @@ public class ApplicationsService {
                         CodedError.APPLICATION_NOT_FOUND.getDocumentationUrl()));
 
         applicationRepository.delete(entity);
+        applicationsCache.invalidate();
         log.info("Deleted application: {}", entity.getName());
         return Mono.empty();
     }
@@ -1,5 +1,6 @@
 package com.neohoods.portal.platform.services;
 
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.stereotype.Service;
@@ -11,6 +12,8 @@ import com.neohoods.portal.platform.exceptions.CodedException;
 import com.neohoods.portal.platform.model.CustomPage;
 import com.neohoods.portal.platform.model.GetCustomPageRefs200ResponseInner;
 import com.neohoods.portal.platform.repositories.CustomPageRepository;
+
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -21,34 +24,45 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class CustomPagesService {
     private final CustomPageRepository customPageRepository;
+    private final ReferenceDataCaches referenceDataCaches;
+
+    private ReferenceDataCache<List<CustomPage>> customPagesCache;
+
+    @PostConstruct
+    void init() {
+        customPagesCache = referenceDataCaches.create("custom-pages",
+                () -> customPageRepository.findAllByOrderByOrderAsc().stream()
+                        .map(CustomPageEntity::toCustomPage)
+                        .toList());
+    }
 
     public Mono<CustomPage> createCustomPage(CustomPage customPage) {
         log.info("Creating custom page: {}", customPage.getRef());
 
         CustomPageEntity entity = CustomPageEntity.fromCustomPage(customPage);
         CustomPageEntity savedEntity = customPageRepository.save(entity);
+        customPagesCache.invalidate();
         log.info("Created custom page: {} with ID: {}", savedEntity.getRef(), savedEntity.getId());
         return Mono.just(savedEntity.toCustomPage());
     }
 
     public Flux<CustomPage> getCustomPages() {
         log.info("Retrieving all custom pages");
-        return Flux.fromIterable(customPageRepository.findAllByOrderByOrderAsc())
-                .map(CustomPageEntity::toCustomPage)
+        return Flux.fromIterable(customPagesCache.get())
                 .doOnComplete(() -> log.info("Retrieved all custom pages"));
     }
 
     public Flux<GetCustomPageRefs200ResponseInner> getCustomPageRefs() {
         log.info("Retrieving custom page references");
-        return Flux.fromIterable(customPageRepository.findAllByOrderByOrderAsc())
-                .map(entity -> GetCustomPageRefs200ResponseInner.builder()
-                        .ref(entity.getRef())
+        return Flux.fromIterable(customPagesCache.get())
+                .map(page -> GetCustomPageRefs200ResponseInner.builder()
+                        .ref(page.getRef())
                         .position(
-                                entity.getPosition() != null
+                                page.getPosition() != null
                                         ? GetCustomPageRefs200ResponseInner.PositionEnum
-                                        .fromValue(entity.getPosition().getValue())
+                                        .fromValue(page.getPosition().getValue())
                                         : null)
-                        .title(entity.getTitle())
+                        .title(page.getTitle())
                         .build())
                 .doOnComplete(() -> log.info("Retrieved custom page references"));
     }
@@ -87,6 +101,7 @@ public class CustomPagesService {
         existingEntity.setContent(customPage.getContent());
 
         CustomPageEntity updatedEntity = customPageRepository.save(existingEntity);
+        customPagesCache.invalidate();
         log.info("Updated custom page: {}", updatedEntity.getRef());
         return Mono.just(updatedEntity.toCustomPage());
     }
@@ -103,6 +118,7 @@ public class CustomPagesService {
                         CodedError.CUSTOM_PAGE_NOT_FOUND.getDocumentationUrl()));
 
         customPageRepository.deleteByRef(pageRef);
+        customPagesCache.invalidate();
         log.info("Deleted custom page: {}", entity.getTitle());
         return Mono.empty();
     }
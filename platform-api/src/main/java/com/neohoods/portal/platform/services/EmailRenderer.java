@@ -0,0 +1,135 @@
+package com.neohoods.portal.platform.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import com.neohoods.portal.platform.services.MailService.TemplateVariable;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders the email templates.
+ *
+ * Parsed templates are kept by the Thymeleaf template cache
+ * (spring.thymeleaf.cache). The variables every email shares (logo, app
+ * name, images, team signature) are built once per locale, and translated
+ * subjects and texts without arguments once per key and locale, so a bulk
+ * send (newsletter, announcement) only resolves the variables of each
+ * recipient.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailRenderer {
+
+    private final SpringTemplateEngine templateEngine;
+    private final MessageSource messageSource;
+
+    @Value("${neohoods.portal.email.template.logo-url}")
+    private String logoUrl;
+
+    @Value("${neohoods.portal.email.template.app-name}")
+    private String appName;
+
+    @Value("${neohoods.portal.email.template.leafs-url}")
+    private String leafsUrl;
+
+    @Value("${neohoods.portal.email.template.leafs-accent-url}")
+    private String leafsAccentUrl;
+
+    @Value("${neohoods.portal.email.template.notifications-url}")
+    private String notificationsUrl;
+
+    private final Map<Locale, Map<String, Object>> staticVariables = new ConcurrentHashMap<>();
+    private final Map<Locale, Map<String, String>> messages = new ConcurrentHashMap<>();
+
+    /**
+     * Variables shared by every email of a locale, not to be mutated
+     */
+    public Map<String, Object> staticVariables(Locale locale) {
+        return staticVariables.computeIfAbsent(locale, l -> {
+            log.debug("Building static email variables for locale {} (appName: '{}', logoUrl: '{}')", l,
+                    appName, logoUrl);
+            return Map.of(
+                    "logoUrl", nullToEmpty(logoUrl),
+                    "appName", nullToEmpty(appName),
+                    "leafsUrl", nullToEmpty(leafsUrl),
+                    "leafsAccentUrl", nullToEmpty(leafsAccentUrl),
+                    "notificationsUrl", nullToEmpty(notificationsUrl),
+                    "teamSignature", messageSource.getMessage("email.newsletter.team_signature",
+                            new Object[] { appName }, l));
+        });
+    }
+
+    /**
+     * Values of the variables of one email, translatable texts translated
+     */
+    public Map<String, Object> resolve(List<TemplateVariable> variables, Locale locale) {
+        Map<String, Object> resolved = new HashMap<>(variables.size() * 2);
+        for (TemplateVariable variable : variables) {
+            Object value = switch (variable.type) {
+                case TRANSLATABLE_TEXT -> variable.args == null || variable.args.length == 0
+                        ? message(variable.translateKey, locale)
+                        : messageSource.getMessage(variable.translateKey, variable.args, locale);
+                default -> variable.value == null ? "" : variable.value;
+            };
+            if (resolved.putIfAbsent(variable.ref, value) != null) {
+                throw new IllegalStateException("Duplicate template variable: " + variable.ref);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Renders a template with the static variables of the locale and the
+     * variables of the recipient, which take precedence
+     */
+    public String render(String templateName, Locale locale, Map<String, Object> recipientVariables) {
+        Context context = new Context(locale);
+        context.setVariables(staticVariables(locale));
+        context.setVariables(recipientVariables);
+        return templateEngine.process(templateName, context);
+    }
+
+    /**
+     * Translation of a subject, or the subject itself if it is not a
+     * translation key
+     */
+    public String subject(String subject, Locale locale) {
+        try {
+            return message(subject, locale);
+        } catch (NoSuchMessageException e) {
+            log.debug("Subject '{}' is not a translation key, using as-is", subject);
+            return subject;
+        }
+    }
+
+    /**
+     * Translation of a message without arguments. Only found keys are kept,
+     * so free-text subjects do not fill the cache.
+     */
+    private String message(String key, Locale locale) {
+        Map<String, String> localeMessages = messages.computeIfAbsent(locale, l -> new ConcurrentHashMap<>());
+        String message = localeMessages.get(key);
+        if (message == null) {
+            message = messageSource.getMessage(key, null, locale);
+            localeMessages.put(key, message);
+        }
+        return message;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -1,6 +1,8 @@
 package com.neohoods.portal.platform.services;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -15,6 +17,7 @@ import com.neohoods.portal.platform.model.EmailTemplate;
 import com.neohoods.portal.platform.model.EmailTemplateRequest;
 import com.neohoods.portal.platform.repositories.EmailTemplateRepository;
 import com.neohoods.portal.platform.repositories.UsersRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
@@ -25,6 +28,15 @@ import reactor.core.publisher.Mono;
 public class EmailTemplateService {
 
     private final EmailTemplateRepository emailTemplateRepository;
+    private final ReferenceDataCaches referenceDataCaches;
+
+    // Active template of each type, read on every welcome email
+    private ReferenceDataCache<Map<String, EmailTemplate>> activeTemplatesCache;
+
+    @PostConstruct
+    void init() {
+        activeTemplatesCache = referenceDataCaches.create("active-email-templates", this::loadActiveTemplates);
+    }
 
     public Mono<List<EmailTemplate>> getEmailTemplates(String type) {
         log.info("Retrieving email templates for type: {}", type);
@@ -75,6 +87,7 @@ public class EmailTemplateService {
                 .build();
 
         EmailTemplateEntity savedEntity = emailTemplateRepository.save(entity);
+        activeTemplatesCache.invalidate();
         log.info("Created email template: {} with ID: {}", savedEntity.getName(), savedEntity.getId());
 
         return Mono.just(savedEntity.toEmailTemplate());
@@ -99,6 +112,7 @@ public class EmailTemplateService {
                     entity.setDescription(request.getDescription());
 
                     EmailTemplateEntity savedEntity = emailTemplateRepository.save(entity);
+                    activeTemplatesCache.invalidate();
                     log.info("Updated email template: {} with ID: {}", savedEntity.getName(), savedEntity.getId());
 
                     return savedEntity.toEmailTemplate();
@@ -113,6 +127,7 @@ public class EmailTemplateService {
 
         if (emailTemplateRepository.existsById(templateId)) {
             emailTemplateRepository.deleteById(templateId);
+            activeTemplatesCache.invalidate();
             log.info("Deleted email template: {}", templateId);
             return Mono.empty();
         } else {
@@ -123,10 +138,18 @@ public class EmailTemplateService {
     public Mono<EmailTemplate> getActiveTemplateByType(String type) {
         log.info("Retrieving active email template for type: {}", type);
 
-        return emailTemplateRepository.findActiveByType(type)
-                .map(EmailTemplateEntity::toEmailTemplate)
-                .map(Mono::just)
-                .orElse(Mono.empty());
+        return Mono.justOrEmpty(activeTemplatesCache.get().get(type));
+    }
+
+    private Map<String, EmailTemplate> loadActiveTemplates() {
+        // Several active templates of a type should not happen, the latest one wins
+        Map<String, EmailTemplate> templates = new HashMap<>();
+        emailTemplateRepository.findAllActive().stream()
+                .sorted(Comparator.comparing(EmailTemplateEntity::getCreatedAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(entity -> templates.put(entity.getType(), entity.toEmailTemplate()));
+        log.info("Loaded {} active email templates", templates.size());
+        return Map.copyOf(templates);
     }
 
     @Transactional
@@ -0,0 +1,399 @@
+package com.neohoods.portal.platform.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Streaming exports (CSV or NDJSON, optionally gzipped) of tables that outgrow
+ * a JSON page: reservations, reservation audit logs and newsletter logs.
+ *
+ * Rows are read through a server-side cursor (auto-commit off, fetch size
+ * set) and encoded into fixed-size chunks as the client consumes them, so
+ * memory stays constant whatever the row count. Each export holds a pooled
+ * connection until it completes, hence the cap on concurrent exports.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    private static final int CHUNK_BYTES = 16 * 1024;
+
+    private static final String RESERVATIONS_SQL = "SELECT r.id, r.status, r.start_date, r.end_date, "
+            + "r.total_price, r.platform_fee_amount, r.platform_fixed_fee_amount, r.payment_status, "
+            + "s.id AS space_id, s.name AS space_name, s.type AS space_type, "
+            + "u.id AS user_id, u.email AS user_email, u.first_name AS user_first_name, "
+            + "u.last_name AS user_last_name, un.name AS unit_name, r.cancellation_reason, r.cancelled_at, "
+            + "r.created_at, r.updated_at "
+            + "FROM reservations r JOIN spaces s ON s.id = r.space_id JOIN users u ON u.id = r.user_id "
+            + "LEFT JOIN units un ON un.id = r.unit_id "
+            + "WHERE (CAST(? AS uuid) IS NULL OR r.space_id = CAST(? AS uuid)) "
+            + "AND (CAST(? AS varchar) IS NULL OR r.status = CAST(? AS varchar)) "
+            + "AND (CAST(? AS date) IS NULL OR r.start_date >= CAST(? AS date)) "
+            + "AND (CAST(? AS date) IS NULL OR r.end_date <= CAST(? AS date)) "
+            + "ORDER BY r.start_date, r.id";
+
+    private static final String RESERVATION_AUDIT_LOGS_SQL = "SELECT id, reservation_id, event_type, old_value, "
+            + "new_value, log_message, performed_by, created_at FROM reservation_audit_log "
+            + "WHERE (CAST(? AS uuid) IS NULL OR reservation_id = CAST(? AS uuid)) "
+            + "AND (CAST(? AS date) IS NULL OR created_at >= CAST(? AS date)) "
+            + "AND (CAST(? AS date) IS NULL OR created_at < CAST(? AS date) + 1) "
+            + "ORDER BY created_at, id";
+
+    private static final String NEWSLETTER_LOGS_SQL = "SELECT id, newsletter_id, user_id, user_email, status, "
+            + "sent_at, error_message, created_at FROM newsletter_logs "
+            + "WHERE (CAST(? AS uuid) IS NULL OR newsletter_id = CAST(? AS uuid)) "
+            + "AND (CAST(? AS varchar) IS NULL OR status = CAST(? AS varchar)) "
+            + "ORDER BY created_at, id";
+
+    private final DataSource dataSource;
+
+    @Value("${neohoods.portal.exports.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    @Value("${neohoods.portal.exports.max-concurrent:2}")
+    private int maxConcurrent = 2;
+
+    private Semaphore permits;
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Format from a query parameter, CSV when absent
+         */
+        public static Format of(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    public Flux<DataBuffer> exportReservations(UUID spaceId, String status, LocalDate startDate, LocalDate endDate,
+            Format format, boolean gzip) {
+        return export("reservations", RESERVATIONS_SQL, format, gzip,
+                spaceId, spaceId, status, status, startDate, startDate, endDate, endDate);
+    }
+
+    public Flux<DataBuffer> exportReservationAuditLogs(UUID reservationId, LocalDate from, LocalDate to,
+            Format format, boolean gzip) {
+        return export("reservation audit logs", RESERVATION_AUDIT_LOGS_SQL, format, gzip,
+                reservationId, reservationId, from, from, to, to);
+    }
+
+    public Flux<DataBuffer> exportNewsletterLogs(UUID newsletterId, String status, Format format, boolean gzip) {
+        return export("newsletter logs", NEWSLETTER_LOGS_SQL, format, gzip,
+                newsletterId, newsletterId, status, status);
+    }
+
+    /**
+     * Whether a concurrent export slot is free right now, to reject a request
+     * before answering it
+     */
+    public boolean hasFreeSlot() {
+        return permits.availablePermits() > 0;
+    }
+
+    /**
+     * Runs an export in one of the concurrent export slots. The slot is taken
+     * when the body is subscribed, and released once it terminates or is
+     * cancelled, so a body never written holds no slot.
+     */
+    public Flux<DataBuffer> inSlot(String name, Supplier<Flux<DataBuffer>> export) {
+        return Flux.using(
+                () -> {
+                    if (!permits.tryAcquire()) {
+                        throw new IllegalStateException("Too many exports running, rejected " + name + " export");
+                    }
+                    return permits;
+                },
+                slot -> Flux.defer(export),
+                Semaphore::release);
+    }
+
+    Flux<DataBuffer> export(String name, String sql, Format format, boolean gzip, Object... parameters) {
+        return Flux.using(
+                () -> open(sql, parameters),
+                cursor -> Flux.generate(() -> new Encoder(cursor.resultSet(), format, gzip),
+                        (Encoder encoder, SynchronousSink<DataBuffer> sink) -> {
+                            try {
+                                byte[] chunk = encoder.nextChunk();
+                                if (chunk != null) {
+                                    sink.next(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+                                } else {
+                                    log.info("Exported {} {} rows as {}", encoder.rows(), name, format);
+                                    sink.complete();
+                                }
+                            } catch (SQLException | IOException e) {
+                                sink.error(e);
+                            }
+                            return encoder;
+                        }),
+                Cursor::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Cursor open(String sql, Object[] parameters) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            // Postgres only honours the fetch size inside a transaction
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return new Cursor(connection, statement, statement.executeQuery());
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private record Cursor(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+
+        void close() {
+            try {
+                resultSet.close();
+                statement.close();
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.warn("Failed to release export cursor: {}", e.getMessage());
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("Failed to close export connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes result set rows into chunks of about {@value #CHUNK_BYTES} bytes,
+     * reading only as many rows as one chunk needs
+     */
+    static final class Encoder {
+
+        private final ResultSet resultSet;
+        private final Format format;
+        private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_BYTES + 1024);
+        private final OutputStream out;
+        private final StringBuilder line = new StringBuilder(256);
+        private List<String> columns;
+        private List<String> types;
+        private long rows;
+        private boolean done;
+
+        Encoder(ResultSet resultSet, Format format, boolean gzip) throws IOException {
+            this.resultSet = resultSet;
+            this.format = format;
+            this.out = gzip ? new GZIPOutputStream(chunk, CHUNK_BYTES, true) : chunk;
+        }
+
+        long rows() {
+            return rows;
+        }
+
+        /**
+         * Next chunk of encoded rows, or null once everything was returned
+         */
+        byte[] nextChunk() throws SQLException, IOException {
+            if (done) {
+                return null;
+            }
+            if (columns == null) {
+                readColumns(resultSet.getMetaData());
+                if (format == Format.CSV) {
+                    line.setLength(0);
+                    for (int i = 0; i < columns.size(); i++) {
+                        if (i > 0) {
+                            line.append(',');
+                        }
+                        appendCsv(columns.get(i));
+                    }
+                    write();
+                }
+            }
+            while (chunk.size() < CHUNK_BYTES) {
+                if (!resultSet.next()) {
+                    done = true;
+                    out.close();
+                    break;
+                }
+                rows++;
+                line.setLength(0);
+                if (format == Format.CSV) {
+                    encodeCsv();
+                } else {
+                    encodeJson();
+                }
+                write();
+            }
+            byte[] bytes = chunk.toByteArray();
+            chunk.reset();
+            return bytes.length > 0 || !done ? bytes : null;
+        }
+
+        private void write() throws IOException {
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void encodeCsv() throws SQLException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                Object value = value(i);
+                if (value instanceof String text) {
+                    // Keep spreadsheet apps from evaluating cells as formulas
+                    if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                        text = "'" + text;
+                    }
+                    appendCsv(text);
+                } else if (value != null) {
+                    line.append(value);
+                }
+            }
+        }
+
+        private void appendCsv(String text) {
+            boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                    || text.indexOf('\r') >= 0;
+            if (quote) {
+                line.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(text);
+            }
+        }
+
+        private void encodeJson() throws SQLException {
+            line.append('{');
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append('"');
+                JsonStringEncoder.getInstance().quoteAsString(columns.get(i), line);
+                line.append("\":");
+                Object value = value(i);
+                if (value instanceof String text) {
+                    line.append('"');
+                    JsonStringEncoder.getInstance().quoteAsString(text, line);
+                    line.append('"');
+                } else {
+                    line.append(value);
+                }
+            }
+            line.append('}');
+        }
+
+        /**
+         * Column value as a number, boolean, ISO string or null. Timestamps are
+         * read as java.time values so the JVM time zone never shifts them.
+         */
+        private Object value(int column) throws SQLException {
+            Object value = switch (types.get(column)) {
+                case "timestamptz" -> resultSet.getObject(column + 1, OffsetDateTime.class);
+                case "timestamp" -> resultSet.getObject(column + 1, LocalDateTime.class);
+                case "date" -> resultSet.getObject(column + 1, LocalDate.class);
+                default -> resultSet.getObject(column + 1);
+            };
+            if (value == null || value instanceof Boolean) {
+                return value;
+            }
+            if (value instanceof BigDecimal decimal) {
+                return new Raw(decimal.toPlainString());
+            }
+            if (value instanceof Number) {
+                return new Raw(value.toString());
+            }
+            return value.toString();
+        }
+
+        /**
+         * Value written without quotes
+         */
+        private record Raw(String text) {
+            @Override
+            public String toString() {
+                return text;
+            }
+        }
+
+        private void readColumns(ResultSetMetaData metaData) throws SQLException {
+            columns = new ArrayList<>(metaData.getColumnCount());
+            types = new ArrayList<>(metaData.getColumnCount());
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(metaData.getColumnLabel(i));
+                types.add(metaData.getColumnTypeName(i));
+            }
+        }
+    }
+}
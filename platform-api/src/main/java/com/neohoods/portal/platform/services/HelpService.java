@@ -1,7 +1,9 @@
 package com.neohoods.portal.platform.services;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.StreamSupport;
 
 import org.springframework.stereotype.Service;
 
@@ -13,6 +15,8 @@ import com.neohoods.portal.platform.model.HelpArticle;
 import com.neohoods.portal.platform.model.HelpCategory;
 import com.neohoods.portal.platform.repositories.HelpArticleRepository;
 import com.neohoods.portal.platform.repositories.HelpCategoryRepository;
+
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -24,6 +28,18 @@ import reactor.core.publisher.Mono;
 public class HelpService {
     private final HelpArticleRepository helpArticleRepository;
     private final HelpCategoryRepository helpCategoryRepository;
+    private final ReferenceDataCaches referenceDataCaches;
+
+    private ReferenceDataCache<List<HelpCategory>> categoriesCache;
+
+    @PostConstruct
+    void init() {
+        categoriesCache = referenceDataCaches.create("help-categories",
+                () -> StreamSupport.stream(helpCategoryRepository.findAll().spliterator(), false)
+                        .map(HelpCategoryEntity::toHelpCategory)
+                        .map(HelpCategory.HelpCategoryBuilder::build)
+                        .toList());
+    }
 
     public Flux<HelpArticle> getHelpArticles(String categoryId) {
         return Flux.fromIterable(helpArticleRepository.findAllByCategoryId(UUID.fromString(categoryId)))
@@ -32,9 +48,7 @@ public class HelpService {
     }
 
     public Flux<HelpCategory> getHelpCategories() {
-        return Flux.fromIterable(helpCategoryRepository.findAll())
-                .map(HelpCategoryEntity::toHelpCategory)
-                .map(HelpCategory.HelpCategoryBuilder::build);
+        return Flux.fromIterable(categoriesCache.get());
     }
 
     public Mono<Void> createHelpArticle(HelpArticle article) {
@@ -44,6 +58,7 @@ public class HelpService {
 
     public Mono<Void> createHelpCategory(HelpCategory category) {
         helpCategoryRepository.save(HelpCategoryEntity.fromHelpCategory(category));
+        categoriesCache.invalidate();
         return Mono.empty();
     }
 
@@ -54,6 +69,7 @@ public class HelpService {
 
     public Mono<Void> deleteHelpCategory(String categoryId) {
         helpCategoryRepository.deleteById(UUID.fromString(categoryId));
+        categoriesCache.invalidate();
         return Mono.empty();
     }
 
@@ -78,6 +94,7 @@ public class HelpService {
 
         entity.updateFromHelpCategory(category);
         helpCategoryRepository.save(entity);
+        categoriesCache.invalidate();
         return Mono.empty();
     }
 }
\ No newline at end of file
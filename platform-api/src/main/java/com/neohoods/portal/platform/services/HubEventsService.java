@@ -0,0 +1,254 @@
+package com.neohoods.portal.platform.services;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.model.GetUnreadNotificationsCount200Response;
+import com.neohoods.portal.platform.repositories.NotificationRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Push channel for the hub: fans out per-user events (new notifications,
+ * unread-count changes, reservation status transitions) to the SSE stream
+ * exposed by HubEventsApi.
+ *
+ * Events are published after the surrounding transaction commits, through
+ * Postgres NOTIFY on the {@value #CHANNEL} channel, so every replica LISTENing
+ * on it delivers them to its own connected users. If the LISTEN connection is
+ * down, events are dispatched locally only.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HubEventsService {
+
+    public static final String CHANNEL = "hub_events";
+
+    public static final String NOTIFICATION = "notification";
+    public static final String NOTIFICATIONS_READ = "notifications-read";
+    public static final String UNREAD_COUNT = "unread-count";
+    public static final String RESERVATION_STATUS = "reservation-status";
+    // Sent instead of the original event when its payload does not fit in a NOTIFY
+    public static final String REFRESH = "refresh";
+
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_NOTIFY_PAYLOAD_BYTES = 7900;
+    private static final int LISTEN_POLL_MILLIS = 5000;
+    private static final long LISTEN_RETRY_MILLIS = 10000;
+    private static final int SINK_BUFFER_SIZE = 256;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final NotificationRepository notificationRepository;
+
+    @Value("${neohoods.portal.hub-events.enabled:true}")
+    private boolean enabled;
+
+    private final ConcurrentMap<UUID, UserSink> sinks = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listenerThread;
+
+    public record HubEvent(UUID userId, String type, Object data) {
+    }
+
+    /**
+     * Sink of a connected user, with its number of open streams. The count is
+     * only changed inside the map's compute for the user, so registering a
+     * stream and removing the sink of the last one cannot interleave.
+     */
+    private static final class UserSink {
+        private final Sinks.Many<HubEvent> sink = Sinks.many().multicast()
+                .onBackpressureBuffer(SINK_BUFFER_SIZE, false);
+        private int streams;
+    }
+
+    /**
+     * Stream of events for one user, starting with the current unread count.
+     */
+    public Flux<HubEvent> subscribe(UUID userId) {
+        return Flux.defer(() -> {
+            UserSink userSink = sinks.compute(userId, (id, current) -> {
+                UserSink registered = current != null ? current : new UserSink();
+                registered.streams++;
+                return registered;
+            });
+            // The sink is subscribed before the count query runs, so events committed
+            // meanwhile are not dropped
+            return Flux.merge(userSink.sink.asFlux(), unreadCount(userId))
+                    .doFinally(signal -> release(userId, userSink));
+        });
+    }
+
+    private void release(UUID userId, UserSink userSink) {
+        sinks.computeIfPresent(userId, (id, current) -> {
+            if (current != userSink) {
+                return current;
+            }
+            return --current.streams == 0 ? null : current;
+        });
+    }
+
+    public void publish(UUID userId, String type, Object data) {
+        if (userId == null) {
+            return;
+        }
+        HubEvent event = new HubEvent(userId, type, data);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(event);
+                }
+            });
+        } else {
+            broadcast(event);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return sinks.values().stream().mapToInt(userSink -> userSink.sink.currentSubscriberCount()).sum();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListener() {
+        if (!enabled) {
+            log.info("Hub events LISTEN/NOTIFY fan-out disabled, dispatching locally only");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "hub-events-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stopListener() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void broadcast(HubEvent event) {
+        if (!listening) {
+            dispatch(event);
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, CHANNEL);
+            statement.setString(2, toNotifyPayload(event));
+            statement.execute();
+        } catch (Exception e) {
+            log.warn("Failed to NOTIFY hub event {} for user {}, dispatching locally: {}", event.type(),
+                    event.userId(), e.getMessage());
+            dispatch(event);
+        }
+    }
+
+    private String toNotifyPayload(HubEvent event) throws Exception {
+        String payload = objectMapper.writeValueAsString(event);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_NOTIFY_PAYLOAD_BYTES) {
+            payload = objectMapper.writeValueAsString(new HubEvent(event.userId(), REFRESH, Map.of("type", event.type())));
+        }
+        return payload;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                listening = true;
+                log.info("Listening for hub events on Postgres channel {}", CHANNEL);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(LISTEN_POLL_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        try {
+                            dispatch(objectMapper.readValue(notification.getParameter(), HubEvent.class));
+                        } catch (Exception e) {
+                            log.warn("Ignoring malformed hub event: {}", e.getMessage());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                listening = false;
+                if (!running) {
+                    break;
+                }
+                log.warn("Hub events listener disconnected, retrying in {} ms: {}", LISTEN_RETRY_MILLIS,
+                        e.getMessage());
+                try {
+                    Thread.sleep(LISTEN_RETRY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        listening = false;
+    }
+
+    void dispatch(HubEvent event) {
+        UserSink userSink = sinks.get(event.userId());
+        if (userSink == null || userSink.sink.currentSubscriberCount() == 0) {
+            return;
+        }
+        Sinks.Many<HubEvent> sink = userSink.sink;
+        emit(sink, event);
+        if (NOTIFICATION.equals(event.type()) || NOTIFICATIONS_READ.equals(event.type())) {
+            // Only users connected to this replica pay for the count query
+            unreadCount(event.userId()).subscribe(countEvent -> emit(sink, countEvent),
+                    e -> log.warn("Failed to push unread count to user {}: {}", event.userId(), e.getMessage()));
+        }
+    }
+
+    private void emit(Sinks.Many<HubEvent> sink, HubEvent event) {
+        Sinks.EmitResult result;
+        // The listener thread and count queries may emit concurrently
+        synchronized (sink) {
+            result = sink.tryEmitNext(event);
+        }
+        if (result.isFailure()) {
+            log.debug("Dropped hub event {} for user {}: {}", event.type(), event.userId(), result);
+        }
+    }
+
+    private Mono<HubEvent> unreadCount(UUID userId) {
+        return Mono.fromCallable(() -> new HubEvent(userId, UNREAD_COUNT,
+                new GetUnreadNotificationsCount200Response()
+                        .count((int) notificationRepository.countByUserIdAndAlreadyReadFalse(userId))))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
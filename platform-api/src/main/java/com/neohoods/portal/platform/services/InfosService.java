@@ -14,6 +14,8 @@ import com.neohoods.portal.platform.exceptions.CodedError;
 import com.neohoods.portal.platform.exceptions.CodedException;
 import com.neohoods.portal.platform.model.Info;
 import com.neohoods.portal.platform.repositories.InfoRepository;
+
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
@@ -25,10 +27,21 @@ public class InfosService {
     // Well-known UUID for the community info record
     private static final UUID COMMUNITY_INFO_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
     private final InfoRepository infoRepository;
+    private final ReferenceDataCaches referenceDataCaches;
+
+    private ReferenceDataCache<Info> infosCache;
+
+    @PostConstruct
+    void init() {
+        infosCache = referenceDataCaches.create("infos", this::loadInfos);
+    }
 
     public Mono<Info> getInfos() {
         log.info("Retrieving community infos");
+        return Mono.just(infosCache.get());
+    }
 
+    private Info loadInfos() {
         // First load the InfoEntity with delegates
         InfoEntity entityWithDelegates = infoRepository.findByIdWithDelegates(COMMUNITY_INFO_ID)
                 .orElseThrow(() -> new CodedException(
@@ -44,8 +57,8 @@ public class InfosService {
         // Merge the collections - set contact numbers from the second query
         entityWithDelegates.setContactNumbers(entityWithContactNumbers.getContactNumbers());
 
-        log.info("Found community infos with delegates and contact numbers");
-        return Mono.just(entityWithDelegates.toInfo());
+        log.info("Loaded community infos with delegates and contact numbers");
+        return entityWithDelegates.toInfo();
     }
 
     public Mono<Info> updateInfos(Info info) {
@@ -97,6 +110,7 @@ public class InfosService {
         }
 
         InfoEntity savedEntity = infoRepository.save(existingEntityWithDelegates);
+        infosCache.invalidate();
         log.info("Updated community infos");
 
         // Reload the entity with relations to avoid lazy loading issues
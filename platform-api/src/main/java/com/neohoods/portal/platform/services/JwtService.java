@@ -1,8 +1,10 @@
 package com.neohoods.portal.platform.services;
 
 import java.text.ParseException;
+import java.time.Duration;
 import java.util.Date;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.nimbusds.jose.JOSEException;
@@ -15,6 +17,9 @@ import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.security.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -24,12 +29,22 @@ public class JwtService {
     private final JWSSigner signer;
     private final JWSVerifier verifier;
 
+    // ECDSA verification is costly and assistant tokens are reused for every
+    // MCP call of a conversation
+    private final VerifiedTokenCache<JWTClaimsSet> verifiedTokens = new VerifiedTokenCache<>(
+            "assistant", 10_000, Duration.ofMinutes(10));
+
     public JwtService(JwkService jwkService) throws JOSEException {
         this.jwkService = jwkService;
         this.signer = new ECDSASigner(jwkService.getSigningKey());
         this.verifier = new ECDSAVerifier(jwkService.getSigningKey());
     }
 
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        verifiedTokens.bindTo(meterRegistry);
+    }
+
     /**
      * Creates an assistant JWT carrying conversation context
      */
@@ -69,6 +84,10 @@ public class JwtService {
     }
 
     public JWTClaimsSet verifyToken(String token) throws JOSEException, ParseException {
+        JWTClaimsSet cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
         log.debug("Verifying JWT token");
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
@@ -84,6 +103,7 @@ public class JwtService {
             }
 
             log.info("JWT token verified successfully");
+            verifiedTokens.put(token, claims, claims.getExpirationTime());
             return claims;
         } catch (ParseException e) {
             log.error("Failed to parse JWT token", e);
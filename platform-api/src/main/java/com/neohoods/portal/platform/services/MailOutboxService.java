@@ -0,0 +1,397 @@
+package com.neohoods.portal.platform.services;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neohoods.portal.platform.entities.MailOutboxEntity;
+import com.neohoods.portal.platform.repositories.MailOutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable queue of the outgoing emails.
+ *
+ * Request paths only insert the rendered email in the mail_outbox table, in
+ * their own transaction when there is one, so a rolled back booking sends
+ * nothing and nobody waits on MailerSend. A pool of workers drains the table
+ * after each commit and every few seconds: due rows are claimed with FOR
+ * UPDATE SKIP LOCKED (several instances can drain together) under a lease,
+ * and sent at the provider rate limit. Failed sends are retried with
+ * exponential backoff, a 429 also pauses the sends for its Retry-After, and
+ * emails that cannot be sent (rejected, or out of attempts) are kept as DEAD.
+ * An idempotency key makes enqueuing the same email twice a no-op.
+ *
+ * Delivery is at least once: an instance dying between the MailerSend call
+ * and the update leaves the row to be sent again when its lease expires.
+ */
+@Service
+@Slf4j
+public class MailOutboxService {
+
+    public static final String METRIC_SENDS = "neohoods.mail.outbox.sends";
+
+    public static final String OUTCOME_SENT = "sent";
+    public static final String OUTCOME_RETRIED = "retried";
+    public static final String OUTCOME_DEAD = "dead";
+
+    // mail_outbox.last_error is a TEXT, kept readable
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private MailerSendClient mailerSendClient;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${neohoods.portal.mail.outbox.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${neohoods.portal.mail.outbox.workers:4}")
+    private int workers = 4;
+
+    @Value("${neohoods.portal.mail.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    // MailerSend API quota, shared by the workers of this instance
+    @Value("${neohoods.portal.mail.outbox.rate-per-second:10}")
+    private double ratePerSecond = 10;
+
+    @Value("${neohoods.portal.mail.outbox.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    @Value("${neohoods.portal.mail.outbox.retry-backoff-ms:30000}")
+    private long retryBackoffMillis = 30000;
+
+    @Value("${neohoods.portal.mail.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMillis = 3600000;
+
+    // A claimed row not updated within this delay is sent again
+    @Value("${neohoods.portal.mail.outbox.lease-ms:300000}")
+    private long leaseMillis = 300000;
+
+    @Value("${neohoods.portal.mail.outbox.retention-days:7}")
+    private int retentionDays = 7;
+
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    private volatile ThreadPoolExecutor dispatcher;
+    private volatile ThreadPoolExecutor senders;
+
+    private PacingClock pacingClock = PacingClock.SYSTEM;
+
+    // Guarded by this: earliest time the next email may be sent
+    private long nextSendNanos = pacingClock.nanoTime();
+
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Queue an email, sent once the current transaction commits
+     *
+     * @param idempotencyKey Key of the email, null for a new one
+     * @return false if an email with this key was already queued
+     */
+    public boolean enqueue(String to, String subject, String htmlContent, String idempotencyKey) {
+        String key = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+        int inserted = inWritableTransaction(
+                () -> mailOutboxRepository.enqueue(UUID.randomUUID(), key, to, subject, htmlContent));
+        if (inserted == 0) {
+            log.info("Email {} to {} already queued, skipped", key, to);
+            return false;
+        }
+        log.debug("Queued email {} to {}", key, to);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDrain();
+                }
+            });
+        } else {
+            requestDrain();
+        }
+        return true;
+    }
+
+    /**
+     * Drain the outbox in the background, unless a drain is already waiting
+     */
+    public void requestDrain() {
+        if (!enabled || !drainQueued.compareAndSet(false, true)) {
+            return;
+        }
+        dispatcher().execute(() -> {
+            // Emails queued from now on need another pass
+            drainQueued.set(false);
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                log.error("Failed to drain the mail outbox", e);
+            }
+        });
+    }
+
+    /**
+     * Catches up on emails to retry and on leases left by stopped instances
+     */
+    @Scheduled(initialDelayString = "${neohoods.portal.mail.outbox.initial-delay-ms:10000}", fixedDelayString = "${neohoods.portal.mail.outbox.poll-ms:5000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    @Scheduled(fixedDelayString = "${neohoods.portal.mail.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        int deleted = mailOutboxRepository.deleteSentBefore(OffsetDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Purged {} sent emails older than {} days from the mail outbox", deleted, retentionDays);
+        }
+    }
+
+    /**
+     * Send the due emails, in the calling thread until there are none left
+     *
+     * @return Number of emails processed (sent, retried later or dead)
+     */
+    int drain() {
+        int processed = 0;
+        List<MailOutboxEntity> batch;
+        do {
+            batch = claim();
+            List<Future<?>> sends = new ArrayList<>(batch.size());
+            for (MailOutboxEntity mail : batch) {
+                sends.add(senders().submit(() -> deliver(mail)));
+            }
+            for (Future<?> send : sends) {
+                try {
+                    send.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return processed;
+                } catch (ExecutionException e) {
+                    log.error("Unexpected error while sending an email", e.getCause());
+                }
+            }
+            processed += batch.size();
+        } while (batch.size() >= batchSize);
+        return processed;
+    }
+
+    private List<MailOutboxEntity> claim() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            List<UUID> ids = mailOutboxRepository.findDueIdsForUpdate(now, batchSize);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            mailOutboxRepository.claim(ids, now.plus(Duration.ofMillis(leaseMillis)));
+            return mailOutboxRepository.findAllById(ids);
+        });
+    }
+
+    private void deliver(MailOutboxEntity mail) {
+        try {
+            awaitSendSlot();
+        } catch (InterruptedException e) {
+            // The lease brings it back
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            mailerSendClient.send(mail.getRecipient(), mail.getSubject(), mail.getHtmlContent());
+            mailOutboxRepository.markSent(mail.getId(), OffsetDateTime.now());
+            count(OUTCOME_SENT);
+            log.info("Email {} sent to {} (attempt {})", mail.getIdempotencyKey(), mail.getRecipient(),
+                    mail.getAttempts());
+        } catch (MailerSendClient.SendException e) {
+            if (e.getRetryAfter() != null) {
+                pauseSends(e.getRetryAfter());
+            }
+            fail(mail, e.getMessage(), e.isRetryable(), e.getRetryAfter());
+        } catch (RuntimeException e) {
+            fail(mail, e.toString(), true, null);
+        }
+    }
+
+    private void fail(MailOutboxEntity mail, String error, boolean retryable, Duration retryAfter) {
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error;
+        if (!retryable || mail.getAttempts() >= maxAttempts) {
+            mailOutboxRepository.markDead(mail.getId(), lastError);
+            count(OUTCOME_DEAD);
+            log.error("Email {} to {} dead after {} attempts: {}", mail.getIdempotencyKey(), mail.getRecipient(),
+                    mail.getAttempts(), error);
+            return;
+        }
+        Duration delay = backoff(mail.getAttempts());
+        if (retryAfter != null && retryAfter.compareTo(delay) > 0) {
+            delay = retryAfter;
+        }
+        mailOutboxRepository.reschedule(mail.getId(), OffsetDateTime.now().plus(delay), lastError);
+        count(OUTCOME_RETRIED);
+        log.warn("Failed to send email {} to {} (attempt {}/{}), retrying in {} ms: {}",
+                mail.getIdempotencyKey(), mail.getRecipient(), mail.getAttempts(), maxAttempts,
+                delay.toMillis(), error);
+    }
+
+    /**
+     * Exponential backoff with jitter, so emails failing together do not
+     * come back together
+     */
+    Duration backoff(int attempts) {
+        long delay = retryBackoffMillis << Math.min(Math.max(attempts - 1, 0), 20);
+        delay = Math.min(delay, maxBackoffMillis);
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    /**
+     * Time source and sleeps of the send pacing
+     */
+    interface PacingClock {
+        PacingClock SYSTEM = new PacingClock() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void sleep(long nanos) throws InterruptedException {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            }
+        };
+
+        long nanoTime();
+
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    synchronized void setPacingClock(PacingClock pacingClock) {
+        this.pacingClock = pacingClock;
+        nextSendNanos = pacingClock.nanoTime();
+    }
+
+    private void awaitSendSlot() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = pacingClock.nanoTime();
+            long slot = now - nextSendNanos > 0 ? now : nextSendNanos;
+            nextSendNanos = slot + (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            pacingClock.sleep(waitNanos);
+        }
+    }
+
+    private synchronized void pauseSends(Duration pause) {
+        long resumeAt = pacingClock.nanoTime() + pause.toNanos();
+        if (resumeAt - nextSendNanos > 0) {
+            nextSendNanos = resumeAt;
+        }
+        log.warn("MailerSend rate limit reached, pausing sends for {} ms", pause.toMillis());
+    }
+
+    /**
+     * Runs in the current transaction, or in a new one when there is none or
+     * it is read-only
+     */
+    private <T> T inWritableTransaction(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return work.get();
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template.execute(status -> work.get());
+    }
+
+    private void count(String outcome) {
+        if (meterRegistry != null) {
+            Counter.builder(METRIC_SENDS)
+                    .description("Emails handled by the mail outbox workers")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private ThreadPoolExecutor dispatcher() {
+        ThreadPoolExecutor current = dispatcher;
+        if (current == null) {
+            synchronized (this) {
+                if (dispatcher == null) {
+                    dispatcher = newPool(1, "mail-outbox-drain");
+                }
+                current = dispatcher;
+            }
+        }
+        return current;
+    }
+
+    private ThreadPoolExecutor senders() {
+        ThreadPoolExecutor current = senders;
+        if (current == null) {
+            synchronized (this) {
+                if (senders == null) {
+                    senders = newPool(workers, "mail-outbox-send-");
+                }
+                current = senders;
+            }
+        }
+        return current;
+    }
+
+    // A drain submits at most a batch at a time, so the queue stays small
+    private static ThreadPoolExecutor newPool(int threads, String name) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, threads == 1 ? name : name + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Claimed emails not sent yet come back when their lease expires
+        for (ThreadPoolExecutor pool : new ThreadPoolExecutor[] { dispatcher, senders }) {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.neohoods.portal.platform.services;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -9,19 +10,9 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.MessageSource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import com.neohoods.portal.platform.entities.UserEntity;
-import com.nimbusds.jose.util.Pair;
 import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -32,33 +23,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MailService {
 
-    private final SpringTemplateEngine templateEngine;
-    private final MessageSource messageSource;
-    private final RestTemplate restTemplate;
-
-    @Value("${mailersend.api-key}")
-    private String mailerSendApiKey;
-
-    @Value("${mailersend.from.email}")
-    private String mailerSendFromEmail;
-
-    @Value("${mailersend.from.name}")
-    private String mailerSendFromName;
-
-    @Value("${neohoods.portal.email.template.logo-url}")
-    private String logoUrl;
-
-    @Value("${neohoods.portal.email.template.app-name}")
-    private String appName;
-
-    @Value("${neohoods.portal.email.template.leafs-url}")
-    private String leafsUrl;
-
-    @Value("${neohoods.portal.email.template.leafs-accent-url}")
-    private String leafsAccentUrl;
-
-    @Value("${neohoods.portal.email.template.notifications-url}")
-    private String notificationsUrl;
+    private final EmailRenderer emailRenderer;
+    private final MailOutboxService mailOutboxService;
 
     @Value("${neohoods.portal.frontend-url}")
     private String frontendUrl;
@@ -113,155 +79,55 @@ public class MailService {
         }
     }
 
+    /**
+     * Queue an email in the mail outbox; it is sent by the outbox workers
+     * once the current transaction commits
+     */
     public void sendMail(String to, String subject, String htmlContent) {
+        sendMail(to, subject, htmlContent, null);
+    }
+
+    /**
+     * @param idempotencyKey Key identifying this email (e.g. per reservation),
+     *                       so enqueuing it again is a no-op; null for none
+     */
+    public void sendMail(String to, String subject, String htmlContent, String idempotencyKey) {
         // Check if email should be sent
         if (!shouldSendEmail(to)) {
             log.info("Email blocked by silent mode: to={}, subject={}", to, subject);
             return;
         }
 
-        log.info("Sending email via MailerSend to: {}, subject: {}", to, subject);
-
-        try {
-            // Prepare the request body
-            Map<String, Object> requestBody = Map.of(
-                    "from", Map.of(
-                            "email", mailerSendFromEmail,
-                            "name", mailerSendFromName),
-                    "to", List.of(Map.of(
-                            "email", to,
-                            "name", "")),
-                    "subject", subject,
-                    "html", htmlContent);
-
-            // Prepare headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(mailerSendApiKey);
-
-            // Create request entity
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            // Send request
-            ResponseEntity<String> response = restTemplate.exchange(
-                    "https://api.mailersend.com/v1/email",
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Email sent successfully via MailerSend to: {}, status: {}", to,
-                        response.getStatusCode());
-            } else {
-                log.error("Failed to send email via MailerSend to: {}, status: {}, body: {}. " +
-                                "User signup will continue, but email verification may need to be requested manually.",
-                        to, response.getStatusCode(), response.getBody());
-                // Don't throw exception - let signup continue
-            }
-
-        } catch (Exception ex) {
-            log.error("Exception while sending email via MailerSend to: {}. " +
-                            "User signup will continue, but email verification may need to be requested manually.",
-                    to, ex);
-            // Don't throw exception - let signup continue
-        }
+        log.info("Queuing email to: {}, subject: {}", to, subject);
+        mailOutboxService.enqueue(to, subject, htmlContent, idempotencyKey);
     }
 
     public void sendTemplatedEmail(UserEntity user, String subject, String templateName,
                                    List<TemplateVariable> variables, Locale locale) {
+        sendTemplatedEmail(user, subject, templateName, variables, locale, null);
+    }
+
+    public void sendTemplatedEmail(UserEntity user, String subject, String templateName,
+                                   List<TemplateVariable> variables, Locale locale, String idempotencyKey) {
 
         if (user.getEmail().endsWith("example.com")) {
             log.info("Skipping email notification for @example.com mails");
             return;
         }
 
-        log.info("MailService - appName: '{}', logoUrl: '{}', locale: {}", appName, logoUrl, locale);
-
-        // Create a mutable copy of the variables list
-        List<TemplateVariable> mutableVariables = new ArrayList<>(variables);
-
-        mutableVariables.add(
-                TemplateVariable.builder()
-                        .type(TemplateVariableType.RAW)
-                        .ref("logoUrl")
-                        .value(logoUrl)
-                        .build());
-        mutableVariables.add(
-                TemplateVariable.builder()
-                        .type(TemplateVariableType.RAW)
-                        .ref("appName")
-                        .value(appName)
-                        .build());
-        mutableVariables.add(
-                TemplateVariable.builder()
-                        .type(TemplateVariableType.RAW)
-                        .ref("leafsUrl")
-                        .value(leafsUrl)
-                        .build());
-        mutableVariables.add(
-                TemplateVariable.builder()
-                        .type(TemplateVariableType.RAW)
-                        .ref("leafsAccentUrl")
-                        .value(leafsAccentUrl)
-                        .build());
-        mutableVariables.add(
-                TemplateVariable.builder()
-                        .type(TemplateVariableType.RAW)
-                        .ref("notificationsUrl")
-                        .value(notificationsUrl)
-                        .build());
-
-        // Add pre-translated team signature
-        String teamSignature = messageSource.getMessage("email.newsletter.team_signature",
-                new Object[]{appName},
-                locale);
-        mutableVariables.add(
-                TemplateVariable.builder()
-                        .type(TemplateVariableType.RAW)
-                        .ref("teamSignature")
-                        .value(teamSignature)
-                        .build());
-
-        Map<String, Object> variablesMap = mutableVariables.stream()
-                .map(v -> {
-                    switch (v.type) {
-                        case TRANSLATABLE_TEXT -> {
-                            return Pair.of(v.ref,
-                                    messageSource.getMessage(v.translateKey, v.args,
-                                            locale));
-                        }
-                        default -> {
-                            return Pair.of(v.ref, v.value == null ? "" : v.value);
-                        }
-                    }
-                })
-                .collect(Collectors.toMap(
-                        Pair::getLeft,
-                        Pair::getRight));
-
-        Context context = new Context(locale);
-        context.setVariables(variablesMap);
+        Map<String, Object> recipientVariables = emailRenderer.resolve(variables, locale);
 
         try {
-            String htmlContent = templateEngine.process(templateName, context);
+            String htmlContent = emailRenderer.render(templateName, locale, recipientVariables);
             log.debug("Template processed successfully");
 
             // Only translate subject if it looks like a translation key (contains dots or
             // underscores)
-            String finalSubject;
-            if (subject.contains(".") || subject.contains("_")) {
-                try {
-                    finalSubject = messageSource.getMessage(subject, null, locale);
-                } catch (Exception e) {
-                    // If translation fails, use the subject as-is
-                    log.debug("Subject '{}' is not a translation key, using as-is", subject);
-                    finalSubject = subject;
-                }
-            } else {
-                finalSubject = subject;
-            }
+            String finalSubject = subject.contains(".") || subject.contains("_")
+                    ? emailRenderer.subject(subject, locale)
+                    : subject;
 
-            sendMail(user.getEmail(), finalSubject, htmlContent);
+            sendMail(user.getEmail(), finalSubject, htmlContent, idempotencyKey);
         } catch (Exception e) {
             log.error("Failed to process template: {} for user: {}. " +
                             "User signup will continue, but email verification may need to be requested manually.",
@@ -347,7 +213,7 @@ public class MailService {
                         .build());
 
         sendTemplatedEmail(user, "reservations.email.confirmation.title",
-                "email/reservation-confirmation", variables, locale);
+                "email/reservation-confirmation", variables, locale, "reservation-confirmation:" + reservationId);
     }
 
     /**
@@ -356,25 +222,13 @@ public class MailService {
     private void sendTemplatedEmailToAddress(String email, String subject, String templateName,
                                              List<TemplateVariable> variables, Locale locale) {
         try {
-            Context context = new Context(locale);
+            Map<String, Object> recipientVariables = new HashMap<>();
             for (TemplateVariable variable : variables) {
-                context.setVariable(variable.getRef(), variable.getValue());
+                recipientVariables.put(variable.getRef(), variable.getValue());
             }
 
-            String htmlContent = templateEngine.process(templateName, context);
-
-            String finalSubject;
-            if (subject != null && messageSource != null) {
-                try {
-                    finalSubject = messageSource.getMessage(subject, null, locale);
-                } catch (Exception e) {
-                    // If translation fails, use the subject as-is
-                    log.debug("Subject '{}' is not a translation key, using as-is", subject);
-                    finalSubject = subject;
-                }
-            } else {
-                finalSubject = subject;
-            }
+            String htmlContent = emailRenderer.render(templateName, locale, recipientVariables);
+            String finalSubject = subject != null ? emailRenderer.subject(subject, locale) : null;
 
             sendMail(email, finalSubject, htmlContent);
         } catch (Exception e) {
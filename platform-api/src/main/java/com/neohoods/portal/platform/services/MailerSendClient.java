@@ -0,0 +1,128 @@
+package com.neohoods.portal.platform.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends one email through the MailerSend API. Only the mail outbox workers
+ * call it; everything else enqueues through {@link MailService}.
+ */
+@Component
+@Slf4j
+public class MailerSendClient {
+
+    /**
+     * The email was not accepted
+     *
+     * @param retryable  False when sending it again cannot succeed (invalid
+     *                   recipient, rejected content)
+     * @param retryAfter Delay asked by MailerSend (429), null if none
+     */
+    public static class SendException extends RuntimeException {
+        private final boolean retryable;
+        private final Duration retryAfter;
+
+        public SendException(String message, boolean retryable, Duration retryAfter, Throwable cause) {
+            super(message, cause);
+            this.retryable = retryable;
+            this.retryAfter = retryAfter;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+
+    @Value("${mailersend.api-url:https://api.mailersend.com}")
+    private String apiUrl = "https://api.mailersend.com";
+
+    @Value("${mailersend.api-key:}")
+    private String mailerSendApiKey;
+
+    @Value("${mailersend.from.email}")
+    private String mailerSendFromEmail;
+
+    @Value("${mailersend.from.name}")
+    private String mailerSendFromName;
+
+    @Value("${mailersend.connect-timeout-ms:5000}")
+    private int connectTimeoutMillis = 5000;
+
+    @Value("${mailersend.read-timeout-ms:30000}")
+    private int readTimeoutMillis = 30000;
+
+    // Own timeouts, so a hanging call does not hold an outbox worker forever
+    private RestTemplate restTemplate;
+
+    @PostConstruct
+    void init() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMillis);
+        requestFactory.setReadTimeout(readTimeoutMillis);
+        restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * @throws SendException If MailerSend did not accept the email
+     */
+    public void send(String to, String subject, String htmlContent) {
+        Map<String, Object> requestBody = Map.of(
+                "from", Map.of(
+                        "email", mailerSendFromEmail,
+                        "name", mailerSendFromName),
+                "to", List.of(Map.of(
+                        "email", to,
+                        "name", "")),
+                "subject", subject,
+                "html", htmlContent);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(mailerSendApiKey);
+
+        try {
+            restTemplate.exchange(apiUrl + "/v1/email", HttpMethod.POST, new HttpEntity<>(requestBody, headers),
+                    String.class);
+        } catch (HttpStatusCodeException e) {
+            int status = e.getStatusCode().value();
+            boolean retryable = status == 429 || status == 408 || e.getStatusCode().is5xxServerError();
+            throw new SendException("MailerSend answered " + status + ": " + e.getResponseBodyAsString(),
+                    retryable, status == 429 ? retryAfter(e.getResponseHeaders()) : null, e);
+        } catch (RestClientException e) {
+            // Connection refused, timeout: the email may be sent again
+            throw new SendException("MailerSend unreachable: " + e.getMessage(), true, null, e);
+        }
+        log.debug("Email accepted by MailerSend for {}", to);
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
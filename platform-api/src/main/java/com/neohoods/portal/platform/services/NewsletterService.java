@@ -2,9 +2,11 @@ package com.neohoods.portal.platform.services;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
@@ -20,7 +22,6 @@ import com.neohoods.portal.platform.entities.NewsletterEntity;
 import com.neohoods.portal.platform.entities.NewsletterLogEntity;
 import com.neohoods.portal.platform.entities.NewsletterLogEntity.NewsletterLogStatus;
 import com.neohoods.portal.platform.entities.NewsletterStatus;
-import com.neohoods.portal.platform.entities.NotificationSettingsEntity;
 import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.exceptions.CodedError;
 import com.neohoods.portal.platform.exceptions.CodedException;
@@ -30,7 +31,6 @@ import com.neohoods.portal.platform.model.PaginatedNewslettersResponse;
 import com.neohoods.portal.platform.model.UserType;
 import com.neohoods.portal.platform.repositories.NewsletterLogRepository;
 import com.neohoods.portal.platform.repositories.NewsletterRepository;
-import com.neohoods.portal.platform.repositories.NotificationSettingsRepository;
 import com.neohoods.portal.platform.repositories.UsersRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -44,7 +44,7 @@ public class NewsletterService {
     private final NewsletterRepository newsletterRepository;
     private final NewsletterLogRepository newsletterLogRepository;
     private final UsersRepository usersRepository;
-    private final NotificationSettingsRepository notificationSettingsRepository;
+    private final AudienceService audienceService;
     private final MailService mailService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -244,36 +244,51 @@ public class NewsletterService {
         // Parse audience configuration
         NewsletterAudience audience = parseAudienceFromNewsletter(newsletter);
 
-        // Find users based on audience and newsletter preferences
-        List<UserEntity> targetUsers = findTargetUsersForNewsletter(audience);
+        log.info("Sending newsletter {} (audience: {})", newsletter.getId(), audience.getType());
+        AtomicInteger recipientCount = new AtomicInteger();
 
-        if (targetUsers.isEmpty()) {
-            log.warn("No users found to send newsletter to (audience: {})", audience.getType());
-            newsletter.setStatus(NewsletterStatus.SENT);
-            newsletter.setSentAt(OffsetDateTime.now());
-            newsletter.setRecipientCount(0);
-            newsletterRepository.save(newsletter);
-            return Mono.empty();
-        }
+        // Send newsletter to each target user, a chunk of users at a time
+        return audienceService.recipientIds(toAudience(audience))
+                .concatMap(userIds -> sendNewsletterToChunk(newsletter, userIds, recipientCount), 1)
+                .then()
+                .doOnSuccess(v -> {
+                    if (recipientCount.get() == 0) {
+                        log.warn("No users found to send newsletter to (audience: {})", audience.getType());
+                    }
+                    newsletter.setStatus(NewsletterStatus.SENT);
+                    newsletter.setSentAt(OffsetDateTime.now());
+                    newsletter.setRecipientCount(recipientCount.get());
+                    newsletterRepository.save(newsletter);
+                    log.info("Successfully sent newsletter to {} users", recipientCount.get());
+                })
+                .onErrorResume(error -> {
+                    log.error("Failed to send newsletter: {}", newsletter.getSubject(), error);
+                    // Optionally, update newsletter status to FAILED or log the error
+                    return Mono.empty(); // Don't fail the entire operation
+                });
+    }
 
-        log.info("Sending newsletter to {} users (audience: {})", targetUsers.size(), audience.getType());
+    private Mono<Void> sendNewsletterToChunk(NewsletterEntity newsletter, List<UUID> userIds,
+                                             AtomicInteger recipientCount) {
+        List<UserEntity> targetUsers = (List<UserEntity>) usersRepository.findAllById(userIds);
+        recipientCount.addAndGet(targetUsers.size());
 
         // Create initial log entries for target users
-        List<NewsletterLogEntity> initialLogs = targetUsers.stream()
-                .map(user -> NewsletterLogEntity.builder()
-                        .newsletterId(newsletter.getId())
-                        .userId(user.getId())
-                        .userEmail(user.getEmail())
-                        .status(NewsletterLogStatus.PENDING)
-                        .build())
-                .toList();
-
-        newsletterLogRepository.saveAll(initialLogs);
-        log.info("Created {} pending log entries for newsletter: {}", initialLogs.size(), newsletter.getId());
-
-        // Send newsletter to each target user
+        Map<UUID, NewsletterLogEntity> logsByUser = new HashMap<>();
+        for (UserEntity user : targetUsers) {
+            logsByUser.put(user.getId(), NewsletterLogEntity.builder()
+                    .newsletterId(newsletter.getId())
+                    .userId(user.getId())
+                    .userEmail(user.getEmail())
+                    .status(NewsletterLogStatus.PENDING)
+                    .build());
+        }
+        newsletterLogRepository.saveAll(logsByUser.values());
+        log.debug("Created {} pending log entries for newsletter: {}", logsByUser.size(), newsletter.getId());
+
         return Flux.fromIterable(targetUsers)
-                .flatMap(user -> {
+                .concatMap(user -> {
+                    NewsletterLogEntity logEntry = logsByUser.get(user.getId());
                     try {
                         // Create base template variables for processing
                         List<MailService.TemplateVariable> baseVariables = List.of(
@@ -330,35 +345,23 @@ public class NewsletterService {
                                 processedSubject,
                                 "email/newsletter",
                                 templateVariables,
-                                user.getLocale());
+                                user.getLocale(),
+                                "newsletter:" + newsletter.getId() + ":" + user.getId());
 
                         // Update log entry to SENT
-                        updateNewsletterLog(newsletter.getId(), user.getId(),
-                                NewsletterLogStatus.SENT, null);
+                        logEntry.setStatus(NewsletterLogStatus.SENT);
+                        logEntry.setSentAt(OffsetDateTime.now());
                         log.debug("Sent newsletter to: {}", user.getEmail());
-                        return Mono.empty();
+                        return Mono.<Void>empty();
                     } catch (Exception e) {
                         log.error("Failed to send newsletter to user: {}", user.getEmail(), e);
                         // Update log entry to FAILED
-                        updateNewsletterLog(newsletter.getId(), user.getId(),
-                                NewsletterLogStatus.FAILED,
-                                e.getMessage());
-                        return Mono.empty(); // Continue with other users
+                        logEntry.setStatus(NewsletterLogStatus.FAILED);
+                        logEntry.setErrorMessage(e.getMessage());
+                        return Mono.<Void>empty(); // Continue with other users
                     }
                 })
-                .then()
-                .doOnSuccess(v -> {
-                    newsletter.setStatus(NewsletterStatus.SENT);
-                    newsletter.setSentAt(OffsetDateTime.now());
-                    newsletter.setRecipientCount(targetUsers.size());
-                    newsletterRepository.save(newsletter);
-                    log.info("Successfully sent newsletter to {} users", targetUsers.size());
-                })
-                .onErrorResume(error -> {
-                    log.error("Failed to send newsletter: {}", newsletter.getSubject(), error);
-                    // Optionally, update newsletter status to FAILED or log the error
-                    return Mono.empty(); // Don't fail the entire operation
-                });
+                .then(Mono.fromRunnable(() -> newsletterLogRepository.saveAll(logsByUser.values())));
     }
 
     public Mono<Void> testNewsletter(UUID newsletterId, UUID userId) {
@@ -488,28 +491,6 @@ public class NewsletterService {
         return Mono.just(stats);
     }
 
-    private void updateNewsletterLog(UUID newsletterId, UUID userId, NewsletterLogStatus status,
-                                     String errorMessage) {
-        try {
-            newsletterLogRepository.findByNewsletterIdOrderByCreatedAtDesc(newsletterId).stream()
-                    .filter(log -> log.getUserId().equals(userId))
-                    .findFirst()
-                    .ifPresent(logEntry -> {
-                        logEntry.setStatus(status);
-                        logEntry.setErrorMessage(errorMessage);
-                        if (status == NewsletterLogStatus.SENT) {
-                            logEntry.setSentAt(OffsetDateTime.now());
-                        }
-                        newsletterLogRepository.save(logEntry);
-                        log.debug("Updated newsletter log for user: {} to status: {}", userId,
-                                status);
-                    });
-        } catch (Exception e) {
-            log.error("Failed to update newsletter log for user: {} and newsletter: {}", userId,
-                    newsletterId, e);
-        }
-    }
-
     /**
      * Process template variables in a string template
      */
@@ -599,77 +580,22 @@ public class NewsletterService {
     }
 
     /**
-     * Find target users based on audience configuration and newsletter preferences
+     * Recipients of a newsletter: its audience, minus users who turned
+     * newsletters off (users without settings get the enabled default)
      */
-    private List<UserEntity> findTargetUsersForNewsletter(NewsletterAudience audience) {
-        List<UserEntity> allUsers = (List<UserEntity>) usersRepository.findAll();
-
-        log.debug("Starting with {} total users", allUsers.size());
-
-        // Apply audience filtering first (most restrictive)
-        List<UserEntity> audienceFilteredUsers = switch (audience.getType()) {
-            case ALL -> allUsers;
-
-            case USER_TYPES -> allUsers.stream()
-                    .filter(user -> audience.getUserTypes()
-                            .contains(user.getType().toOpenApiUserType()))
-                    .collect(Collectors.toList());
-
-            case SPECIFIC_USERS -> allUsers.stream()
-                    .filter(user -> audience.getUserIds().contains(user.getId()))
-                    .collect(Collectors.toList());
-        };
-
-        log.debug("After audience filtering: {} users", audienceFilteredUsers.size());
-
-        // Apply exclusions
-        List<UserEntity> exclusionFilteredUsers = audienceFilteredUsers;
-        if (!audience.getExcludeUserIds().isEmpty()) {
-            exclusionFilteredUsers = audienceFilteredUsers.stream()
-                    .filter(user -> !audience.getExcludeUserIds().contains(user.getId()))
-                    .collect(Collectors.toList());
-        }
-
-        log.debug("After exclusions: {} users", exclusionFilteredUsers.size());
-
-        // Now filter by newsletter preferences (on the smaller set)
-        List<UUID> candidateUserIds = exclusionFilteredUsers.stream()
-                .map(UserEntity::getId)
-                .collect(Collectors.toList());
-
-        List<UUID> userIdsWithNewsletterEnabled = notificationSettingsRepository
-                .findUserIdsWithNewsletterEnabled(candidateUserIds);
-
-        // Ensure users have notification settings if they don't exist yet
-        exclusionFilteredUsers.forEach(this::ensureUserHasNotificationSettings);
-
-        // Final filter by newsletter preferences
-        List<UserEntity> finalTargetUsers = exclusionFilteredUsers.stream()
-                .filter(user -> userIdsWithNewsletterEnabled.contains(user.getId()))
-                .collect(Collectors.toList());
-
-        log.info("Final filtering: {} -> {} -> {} -> {} users (total -> audience -> exclusions -> newsletter preferences)",
-                allUsers.size(), audienceFilteredUsers.size(), exclusionFilteredUsers.size(),
-                finalTargetUsers.size());
-
-        return finalTargetUsers;
-    }
-
-    /**
-     * Ensure user has notification settings (create default if missing)
-     */
-    private void ensureUserHasNotificationSettings(UserEntity user) {
-        if (notificationSettingsRepository.findByUserId(user.getId()) == null) {
-            // Create default notification settings with newsletter enabled
-            NotificationSettingsEntity defaultSettings = NotificationSettingsEntity.builder()
-                    .id(UUID.randomUUID())
-                    .user(user)
-                    .enableNotifications(true)
-                    .newsletterEnabled(true) // Default to enabled for new users
-                    .build();
-
-            notificationSettingsRepository.save(defaultSettings);
-            log.debug("Created default notification settings for user: {}", user.getEmail());
+    private AudienceService.Audience toAudience(NewsletterAudience audience) {
+        AudienceService.Audience.AudienceBuilder builder = AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.NEWSLETTER)
+                .excludeUserIds(audience.getExcludeUserIds())
+                .deliverableEmailOnly(true);
+        switch (audience.getType()) {
+            case ALL -> {
+            }
+            case USER_TYPES -> builder.userTypes(audience.getUserTypes().stream()
+                    .map(com.neohoods.portal.platform.entities.UserType::fromOpenApiUserType)
+                    .toList());
+            case SPECIFIC_USERS -> builder.userIds(audience.getUserIds());
         }
+        return builder.build();
     }
 }
\ No newline at end of file
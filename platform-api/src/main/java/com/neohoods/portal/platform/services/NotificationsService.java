@@ -5,14 +5,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
 import com.neohoods.portal.platform.entities.NotificationEntity;
-import com.neohoods.portal.platform.entities.NotificationSettingsEntity;
 import com.neohoods.portal.platform.entities.NotificationType;
 import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.entities.UserType;
@@ -21,7 +19,6 @@ import com.neohoods.portal.platform.exceptions.CodedException;
 import com.neohoods.portal.platform.model.GetUnreadNotificationsCount200Response;
 import com.neohoods.portal.platform.model.Notification;
 import com.neohoods.portal.platform.repositories.NotificationRepository;
-import com.neohoods.portal.platform.repositories.NotificationSettingsRepository;
 import com.neohoods.portal.platform.repositories.UsersRepository;
 import com.neohoods.portal.platform.services.MailService.TemplateVariable;
 import com.neohoods.portal.platform.services.MailService.TemplateVariableType;
@@ -38,9 +35,10 @@ public class NotificationsService {
     public static final String PLATFORM_AUTHOR = "Platform";
     private final NotificationRepository notificationRepository;
     private final UsersRepository usersRepository;
-    private final NotificationSettingsRepository notificationSettingsRepository;
+    private final AudienceService audienceService;
     private final MailService mailService;
     private final MessageSource messageSource;
+    private final HubEventsService hubEventsService;
 
     @Value("${neohoods.portal.frontend-url}")
     private String frontendUrl;
@@ -64,6 +62,8 @@ public class NotificationsService {
                             notificationRepository.save(entity);
                             log.debug("Marked notification {} as read", notification.getId());
                         });
+                        hubEventsService.publish(userId, HubEventsService.NOTIFICATIONS_READ,
+                                notifList.stream().map(Notification::getId).toList());
                         log.info("Successfully acknowledged {} notifications", notifList.size());
                         return Mono.empty();
                     } catch (Exception e) {
@@ -139,6 +139,7 @@ public class NotificationsService {
         notification.setAuthor(PLATFORM_AUTHOR);
         notification.setDate(java.time.Instant.now());
         notificationRepository.save(notification);
+        hubEventsService.publish(userId, HubEventsService.NOTIFICATION, notification.toNotification().build());
     }
 
     public Mono<Void> sendNotifications(UserEntity user, NotificationEntity notification, Locale locale) {
@@ -146,6 +147,8 @@ public class NotificationsService {
             notification.setId(UUID.randomUUID());
             notification.setUserId(user.getId());
             notificationRepository.save(notification);
+            hubEventsService.publish(user.getId(), HubEventsService.NOTIFICATION,
+                    notification.toNotification().build());
 
             // Create template variables for the email
             List<TemplateVariable> templateVariables = getTemplateVariables(notification.getType(), notification,
@@ -200,38 +203,6 @@ public class NotificationsService {
         log.info("Notifying all users about new announcement: {}", announcement.getTitle());
 
         try {
-            // Find all users
-            List<UserEntity> allUsers = (List<UserEntity>) usersRepository.findAll();
-
-            if (allUsers.isEmpty()) {
-                log.warn("No users found to notify about new announcement");
-                return Mono.empty();
-            }
-
-            // Filter users by notification preferences (optimized to avoid N+1 queries)
-            List<UUID> userIds = allUsers.stream().map(UserEntity::getId).collect(Collectors.toList());
-
-            // Get all notification settings for these users in one query
-            List<NotificationSettingsEntity> allSettings = notificationSettingsRepository.findByUserIds(userIds);
-            Map<UUID, Boolean> userNotificationSettings = allSettings.stream()
-                    .collect(Collectors.toMap(
-                            settings -> settings.getUser().getId(),
-                            NotificationSettingsEntity::isEnableNotifications));
-
-            // Users without settings are considered to have notifications enabled by
-            // default
-            List<UserEntity> usersWithNotificationsEnabled = allUsers.stream()
-                    .filter(user -> userNotificationSettings.getOrDefault(user.getId(), true))
-                    .collect(Collectors.toList());
-
-            log.info("Filtered {} users with notifications enabled out of {} total users",
-                    usersWithNotificationsEnabled.size(), allUsers.size());
-
-            if (usersWithNotificationsEnabled.isEmpty()) {
-                log.warn("No users with notifications enabled found for announcement: {}", announcement.getTitle());
-                return Mono.empty();
-            }
-
             // Create notification payload
             Map<String, Object> payload = Map.of(
                     "announcementId", announcement.getId().toString(),
@@ -249,8 +220,12 @@ public class NotificationsService {
                     .payload(payload)
                     .build();
 
-            // Send notification to each user with notifications enabled
-            return Flux.fromIterable(usersWithNotificationsEnabled)
+            // Send notification to each user with notifications enabled (users without
+            // settings are considered to have notifications enabled by default)
+            return audienceService.recipientIds(AudienceService.Audience.builder()
+                            .channel(AudienceService.Channel.NOTIFICATIONS)
+                            .build())
+                    .concatMap(userIds -> Flux.fromIterable(usersRepository.findAllById(userIds)), 1)
                     .flatMap(user -> sendNotifications(user, notification)
                             .onErrorResume(error -> {
                                 log.error(
@@ -275,39 +250,6 @@ public class NotificationsService {
         log.info("Notifying admins about new user registration: {}", newUser.getUsername());
 
         try {
-            // Find all admin users
-            List<UserEntity> adminUsers = usersRepository.findByType(UserType.ADMIN);
-
-            if (adminUsers.isEmpty()) {
-                log.warn("No admin users found to notify about new user registration");
-                return Mono.empty();
-            }
-
-            // Filter admin users by notification preferences (optimized to avoid N+1
-            // queries)
-            List<UUID> adminUserIds = adminUsers.stream().map(UserEntity::getId).collect(Collectors.toList());
-
-            // Get all notification settings for these admins in one query
-            List<NotificationSettingsEntity> adminSettings = notificationSettingsRepository.findByUserIds(adminUserIds);
-            Map<UUID, Boolean> adminNotificationSettings = adminSettings.stream()
-                    .collect(Collectors.toMap(
-                            settings -> settings.getUser().getId(),
-                            NotificationSettingsEntity::isEnableNotifications));
-
-            // Admins without settings are considered to have notifications enabled by
-            // default
-            List<UserEntity> adminsWithNotificationsEnabled = adminUsers.stream()
-                    .filter(admin -> adminNotificationSettings.getOrDefault(admin.getId(), true))
-                    .collect(Collectors.toList());
-
-            log.info("Filtered {} admins with notifications enabled out of {} total admins",
-                    adminsWithNotificationsEnabled.size(), adminUsers.size());
-
-            if (adminsWithNotificationsEnabled.isEmpty()) {
-                log.warn("No admins with notifications enabled found for new user: {}", newUser.getUsername());
-                return Mono.empty();
-            }
-
             // Create notification payload
             Map<String, Object> payload = Map.of(
                     "newUserId", newUser.getId().toString(),
@@ -325,8 +267,13 @@ public class NotificationsService {
                     .payload(payload)
                     .build();
 
-            // Send notification to each admin with notifications enabled
-            return Flux.fromIterable(adminsWithNotificationsEnabled)
+            // Send notification to each admin with notifications enabled (admins without
+            // settings are considered to have notifications enabled by default)
+            return audienceService.recipientIds(AudienceService.Audience.builder()
+                            .channel(AudienceService.Channel.NOTIFICATIONS)
+                            .userTypes(List.of(UserType.ADMIN))
+                            .build())
+                    .concatMap(userIds -> Flux.fromIterable(usersRepository.findAllById(userIds)), 1)
                     .flatMap(admin -> sendNotifications(admin, notification)
                             .onErrorResume(error -> {
                                 log.error("Failed to send notification to admin: {} for new user: {}. " +
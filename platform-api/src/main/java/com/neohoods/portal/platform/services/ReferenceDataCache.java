@@ -0,0 +1,127 @@
+package com.neohoods.portal.platform.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Snapshot of read-mostly reference data (settings, infos, applications, help
+ * categories, custom pages), so the pages loading them on every request do
+ * not hit the database each time.
+ *
+ * The value is loaded once and shared until it expires (for writes made by
+ * another instance) or {@link #invalidate()} is called, which the owning
+ * service does on every write. Concurrent misses load once. Cached values are
+ * shared: callers must not mutate them.
+ */
+public final class ReferenceDataCache<T> {
+
+    public static final String METRIC_REQUESTS = "neohoods.reference.cache.requests";
+    public static final String METRIC_LOADS = "neohoods.reference.cache.loads";
+
+    private final String name;
+    private final long ttlMillis;
+    private final Supplier<T> loader;
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    private volatile Snapshot<T> snapshot;
+
+    private record Snapshot<T>(T value, long expiresAt) {
+    }
+
+    public ReferenceDataCache(String name, Duration ttl, Supplier<T> loader) {
+        this.name = name;
+        this.ttlMillis = ttl.toMillis();
+        this.loader = loader;
+    }
+
+    /**
+     * Registers hit/miss and load counters tagged with the cache name
+     */
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_REQUESTS, hits, LongAdder::sum)
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(METRIC_REQUESTS, misses, LongAdder::sum)
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(METRIC_LOADS, loads, LongAdder::sum)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    /**
+     * Cached value, loaded if absent or expired
+     */
+    public T get() {
+        Snapshot<T> current = snapshot;
+        if (current != null && System.currentTimeMillis() < current.expiresAt()) {
+            hits.increment();
+            return current.value();
+        }
+        misses.increment();
+        if (ttlMillis <= 0) {
+            loads.increment();
+            return loader.get();
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || System.currentTimeMillis() >= current.expiresAt()) {
+                long loadedVersion = version.get();
+                loads.increment();
+                current = new Snapshot<>(loader.get(), System.currentTimeMillis() + ttlMillis);
+                // Keep it only if no write happened while loading
+                if (version.get() == loadedVersion) {
+                    snapshot = current;
+                }
+            }
+            return current.value();
+        }
+    }
+
+    /**
+     * Drops the cached value so the next read reloads it. Within a
+     * transaction, it is dropped again once the transaction completes, so a
+     * read made before the commit (or of a rolled back write) is not kept.
+     */
+    public void invalidate() {
+        drop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    drop();
+                }
+            });
+        }
+    }
+
+    private void drop() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long loadCount() {
+        return loads.sum();
+    }
+}
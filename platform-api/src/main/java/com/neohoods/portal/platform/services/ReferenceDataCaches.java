@@ -0,0 +1,59 @@
+package com.neohoods.portal.platform.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the {@link ReferenceDataCache}s of the reference data services,
+ * with the configured TTL and their statistics published to Micrometer
+ * (neohoods.reference.cache.* on the actuator metrics/prometheus endpoints).
+ */
+@Component
+@Slf4j
+public class ReferenceDataCaches {
+
+    @Value("${neohoods.portal.reference-cache.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ReferenceDataCache<?>> caches = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * New cache of the value returned by the loader; a TTL of 0 disables
+     * caching
+     */
+    public <T> ReferenceDataCache<T> create(String name, Supplier<T> loader) {
+        ReferenceDataCache<T> cache = new ReferenceDataCache<>(name, Duration.ofSeconds(ttlSeconds), loader);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Reference data cache already exists: " + name);
+        }
+        if (meterRegistry != null) {
+            cache.bindTo(meterRegistry);
+        }
+        log.debug("Created reference data cache {} (TTL {}s)", name, ttlSeconds);
+        return cache;
+    }
+
+    /**
+     * Drops every cached value, e.g. after reference data was changed outside
+     * the services
+     */
+    public void invalidateAll() {
+        caches.values().forEach(ReferenceDataCache::invalidate);
+    }
+}
@@ -2,6 +2,8 @@ package com.neohoods.portal.platform.services;
 
 import java.util.UUID;
 
+import jakarta.annotation.PostConstruct;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,10 +22,18 @@ import reactor.core.publisher.Mono;
 public class SettingsService {
     private static final Logger log = LoggerFactory.getLogger(SettingsService.class);
     private final SettingsRepository settingsRepository;
+    private final ReferenceDataCaches referenceDataCaches;
+
+    private ReferenceDataCache<SettingsEntity> settingsCache;
 
     @Value("${neohoods.portal.sso.enabled:false}")
     private boolean ssoEnabled;
 
+    @PostConstruct
+    void init() {
+        settingsCache = referenceDataCaches.create("settings", this::getOrCreateDefaultSettings);
+    }
+
     private SettingsEntity getOrCreateDefaultSettings() {
         return settingsRepository.findTopByOrderByIdAsc()
                 .orElseGet(() -> {
@@ -43,7 +53,7 @@ public class SettingsService {
     }
 
     public Mono<GetPublicSettings200Response> getPublicSettings() {
-        SettingsEntity setting = getOrCreateDefaultSettings();
+        SettingsEntity setting = settingsCache.get();
 
         return Mono.just(new GetPublicSettings200Response()
                 .isRegistrationEnabled(setting.isRegistrationEnabled())
@@ -51,7 +61,7 @@ public class SettingsService {
     }
 
     public Mono<GetSecuritySettings200Response> getSecuritySettings() {
-        SettingsEntity setting = getOrCreateDefaultSettings();
+        SettingsEntity setting = settingsCache.get();
 
         return Mono.just(new GetSecuritySettings200Response()
                 .isRegistrationEnabled(setting.isRegistrationEnabled()));
@@ -64,6 +74,8 @@ public class SettingsService {
                 .id(existingSetting.getId())
                 .isRegistrationEnabled(request.getIsRegistrationEnabled())
                 .build();
-        return Mono.just(settingsRepository.save(updatedSetting));
+        SettingsEntity savedSetting = settingsRepository.save(updatedSetting);
+        settingsCache.invalidate();
+        return Mono.just(savedSetting);
     }
 }
\ No newline at end of file
@@ -41,6 +41,7 @@ public class UnitsService {
     private final UnitRepository unitRepository;
     private final UnitMemberRepository unitMemberRepository;
     private final UsersRepository usersRepository;
+    private final UserPrincipalService userPrincipalService;
 
     public Mono<Unit> createUnit(String name, UnitTypeForEntity type) {
         return this.createUnit(name, type, null);
@@ -86,6 +87,7 @@ public class UnitsService {
             if (unitCount == 1 && admin.getPrimaryUnit() == null) {
                 admin.setPrimaryUnit(savedUnit);
                 usersRepository.save(admin);
+                userPrincipalService.invalidate(admin.getId());
                 log.info("Set unit {} as primary unit for user {} (first unit)", savedUnit.getId(), adminId);
             }
 
@@ -156,6 +158,7 @@ public class UnitsService {
                 UserEntity user = member.getUser();
                 user.setDisabled(true);
                 usersRepository.save(user);
+                userPrincipalService.invalidate(user.getId());
                 disabledCount++;
                 log.info("Disabled user {} as they have no units after deletion of unit {}", user.getId(), unitId);
             }
@@ -224,6 +227,7 @@ public class UnitsService {
         if (unitCount == 1 && user.getPrimaryUnit() == null) {
             user.setPrimaryUnit(unit);
             usersRepository.save(user);
+            userPrincipalService.invalidate(user.getId());
             log.info("Set unit {} as primary unit for user {} (first unit)", unitId, userId);
         }
 
@@ -288,10 +292,12 @@ public class UnitsService {
                 }
             }
             usersRepository.save(user);
+            userPrincipalService.invalidate(user.getId());
         } else if (unitMemberRepository.countByUserId(userId) == 0) {
             // Disable user if they have no other units
             user.setDisabled(true);
             usersRepository.save(user);
+            userPrincipalService.invalidate(user.getId());
             log.info("Disabled user {} as they have no units", userId);
         }
 
@@ -455,6 +461,7 @@ public class UnitsService {
 
         user.setPrimaryUnit(unit);
         usersRepository.save(user);
+        userPrincipalService.invalidate(user.getId());
 
         log.info("Set unit {} as primary unit for user {}", unitId, userId);
         return Mono.empty();
@@ -1,14 +1,15 @@
 package com.neohoods.portal.platform.services;
 
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
 
 import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.security.UserPrincipal;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
@@ -18,39 +19,51 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class UserContextService {
 
-    private final UsersService usersService;
-
-    // Simple in-memory cache - in production, consider using Redis or Caffeine
-    private final ConcurrentMap<UUID, String> usernameCache = new ConcurrentHashMap<>();
+    private final UserPrincipalService userPrincipalService;
 
     public Mono<String> getUsername(UUID userId) {
-        // Check cache first
-        String cachedUsername = usernameCache.get(userId);
-        if (cachedUsername != null) {
-            log.debug("Username found in cache for user: {}", userId);
-            return Mono.just(cachedUsername);
-        }
-
-        // If not in cache, fetch from database
-        log.debug("Username not in cache, fetching from database for user: {}", userId);
-        return usersService.getUserById(userId)
-                .map(user -> {
-                    String username = user.getEmail(); // or user.getUsername() depending on what you want
-                    usernameCache.put(userId, username);
-                    log.debug("Username cached for user: {} -> {}", userId, username);
-                    return username;
-                })
+        return userPrincipalService.getPrincipal(userId)
+                .map(UserPrincipal::email)
                 .doOnError(error -> log.warn("Failed to fetch username for user: {}, error: {}", userId,
                         error.getMessage()));
     }
 
+    /**
+     * Principal of the current request: the one resolved by UserContextFilter,
+     * else loaded from the exchange principal. Empty when unauthenticated.
+     */
+    public Mono<UserPrincipal> getCurrentPrincipal(ServerWebExchange exchange) {
+        UserPrincipal resolved = exchange.getAttribute(UserPrincipal.ATTRIBUTE);
+        if (resolved != null) {
+            return Mono.just(resolved);
+        }
+        return exchange.getPrincipal()
+                .flatMap(principal -> {
+                    UUID userId;
+                    try {
+                        userId = UUID.fromString(principal.getName());
+                    } catch (IllegalArgumentException e) {
+                        return Mono.empty();
+                    }
+                    return resolvePrincipal(exchange, userId);
+                });
+    }
+
+    /**
+     * Loads the principal of the given user and keeps it for the rest of the
+     * request
+     */
+    public Mono<UserPrincipal> resolvePrincipal(ServerWebExchange exchange, UUID userId) {
+        return userPrincipalService.getPrincipal(userId)
+                .doOnNext(principal -> exchange.getAttributes().put(UserPrincipal.ATTRIBUTE, principal));
+    }
+
     public void clearCache(UUID userId) {
-        usernameCache.remove(userId);
-        log.debug("Cache cleared for user: {}", userId);
+        userPrincipalService.invalidate(userId);
     }
 
     public void clearAllCache() {
-        usernameCache.clear();
+        userPrincipalService.invalidateAll();
         log.debug("All user cache cleared");
     }
 
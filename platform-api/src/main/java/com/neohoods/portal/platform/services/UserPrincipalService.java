@@ -0,0 +1,90 @@
+package com.neohoods.portal.platform.services;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.security.UserPrincipal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Bounded, expire-after-write cache of {@link UserPrincipal}s by user id.
+ * Loads run on the bounded elastic scheduler, never on the event loop.
+ * UsersService invalidates an entry on every write to the user; the TTL
+ * covers writes made by another instance.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserPrincipalService {
+
+    private final UsersRepository usersRepository;
+
+    @Value("${neohoods.portal.security.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    @Value("${neohoods.portal.security.principal-cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    private final Map<UUID, CachedPrincipal> cache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record CachedPrincipal(UserPrincipal principal, long expiresAt) {
+    }
+
+    /**
+     * Principal of a user, empty if the user does not exist
+     */
+    public Mono<UserPrincipal> getPrincipal(UUID userId) {
+        CachedPrincipal cached = cache.get(userId);
+        if (cached != null && System.currentTimeMillis() < cached.expiresAt()) {
+            return Mono.just(cached.principal());
+        }
+        long loadedVersion = invalidations.get();
+        return Mono.fromCallable(() -> usersRepository.findById(userId).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic())
+                // Keep it only if no write happened while loading
+                .map(user -> invalidations.get() == loadedVersion ? put(user) : UserPrincipal.from(user));
+    }
+
+    /**
+     * Caches the principal of a freshly loaded user (e.g. at login)
+     */
+    public UserPrincipal put(UserEntity user) {
+        UserPrincipal principal = UserPrincipal.from(user);
+        if (ttlSeconds <= 0) {
+            return principal;
+        }
+        long now = System.currentTimeMillis();
+        if (cache.size() >= maxSize) {
+            cache.values().removeIf(entry -> now >= entry.expiresAt());
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+        }
+        cache.put(principal.id(), new CachedPrincipal(principal, now + ttlSeconds * 1000));
+        return principal;
+    }
+
+    public void invalidate(UUID userId) {
+        invalidations.incrementAndGet();
+        if (userId != null && cache.remove(userId) != null) {
+            log.debug("Principal cache invalidated for user: {}", userId);
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.clear();
+    }
+}
@@ -25,12 +25,15 @@ public class UsersService {
     private final UsersRepository usersRepository;
     private final PasswordEncoder passwordEncoder;
     private final java.util.Optional<MatrixAssistantService> matrixAssistantService;
+    private final UserPrincipalService userPrincipalService;
 
     public UsersService(UsersRepository usersRepository, PasswordEncoder passwordEncoder, 
-                        java.util.Optional<MatrixAssistantService> matrixAssistantService) {
+                        java.util.Optional<MatrixAssistantService> matrixAssistantService,
+                        UserPrincipalService userPrincipalService) {
         this.usersRepository = usersRepository;
         this.passwordEncoder = passwordEncoder;
         this.matrixAssistantService = matrixAssistantService;
+        this.userPrincipalService = userPrincipalService;
     }
 
     public Mono<User> getUserById(UUID id) {
@@ -107,6 +110,7 @@ public class UsersService {
         }
 
         UserEntity savedEntity = usersRepository.save(userEntity);
+        userPrincipalService.invalidate(userId);
         log.info("Profile updated successfully for user: {}", userId);
         UserEntity reloadedEntity = usersRepository.findById(savedEntity.getId())
                 .orElseThrow(() -> new RuntimeException("User not found after save"));
@@ -163,6 +167,7 @@ public class UsersService {
         }
 
         UserEntity savedEntity = usersRepository.save(entity);
+        userPrincipalService.invalidate(savedEntity.getId());
         
         // Handle new user in Matrix bot if enabled
         if (user.getId() == null && matrixAssistantService.isPresent()) {
@@ -182,6 +187,7 @@ public class UsersService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setPassword(passwordEncoder.encode(password));
         usersRepository.save(user);
+        userPrincipalService.invalidate(userId);
     }
 
     public Mono<Boolean> deleteUser(UUID userId) {
@@ -195,6 +201,7 @@ public class UsersService {
 
         UserEntity user = userOpt.get();
         usersRepository.delete(user);
+        userPrincipalService.invalidate(userId);
         log.info("User deleted successfully: {}", userId);
         return Mono.just(true);
     }
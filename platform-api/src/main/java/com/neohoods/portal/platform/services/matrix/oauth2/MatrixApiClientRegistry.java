@@ -0,0 +1,161 @@
+package com.neohoods.portal.platform.services.matrix.oauth2;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.neohoods.portal.platform.matrix.ApiClient;
+import com.neohoods.portal.platform.services.matrix.oauth2.SingleFlightToken.Grant;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Long-lived Matrix and MAS API clients.
+ *
+ * The generated ApiClient builds a new HttpClient (connection pool, selector
+ * thread) for every API instance. Here each identity gets one HttpClient,
+ * shared by all its API clients, so connections are kept alive between calls.
+ * API clients are cached per identity and base URI and resolve the access
+ * token on each request, so a renewed token is used without building a new
+ * client.
+ */
+@Component
+@Slf4j
+public class MatrixApiClientRegistry {
+
+    // Identities
+    public static final String BOT = "bot";
+    public static final String ADMIN = "admin";
+    public static final String MAS_ADMIN = "mas-admin";
+
+    public static final String TOKEN_RENEWALS = "matrix.api.token.renewals";
+    public static final String TOKEN_FAILURES = "matrix.api.token.failures";
+
+    @Value("${neohoods.portal.matrix.http.connect-timeout-seconds:10}")
+    private long connectTimeoutSeconds = 10;
+
+    @Value("${neohoods.portal.matrix.http.version:HTTP_2}")
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    private final Map<String, HttpClient> httpClients = new ConcurrentHashMap<>();
+    private final Map<ClientKey, ApiClient> matrixClients = new ConcurrentHashMap<>();
+    private final Map<ClientKey, com.neohoods.portal.platform.mas.ApiClient> masClients = new ConcurrentHashMap<>();
+    private final Map<String, SingleFlightToken> tokens = new ConcurrentHashMap<>();
+
+    private MeterRegistry meterRegistry;
+
+    private record ClientKey(String identity, String baseUri, String staticToken) {
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        tokens.values().forEach(this::registerMetrics);
+    }
+
+    /**
+     * Single-flight token of an identity, created on first use
+     */
+    public SingleFlightToken token(String identity, Supplier<Optional<Grant>> fetcher) {
+        return tokens.computeIfAbsent(identity, id -> {
+            SingleFlightToken token = new SingleFlightToken(id, fetcher);
+            registerMetrics(token);
+            return token;
+        });
+    }
+
+    /**
+     * Matrix API client of an identity using a fixed token
+     *
+     * @param homeserver Homeserver host, or base URI
+     */
+    public ApiClient matrixClient(String identity, String homeserver, String staticToken) {
+        return matrixClients.computeIfAbsent(new ClientKey(identity, homeserver, staticToken),
+                key -> newMatrixClient(identity, homeserver, () -> Optional.of(staticToken)));
+    }
+
+    /**
+     * Matrix API client of an identity using a renewed token
+     *
+     * @param homeserver Homeserver host, or base URI
+     */
+    public ApiClient matrixClient(String identity, String homeserver, SingleFlightToken token) {
+        return matrixClients.computeIfAbsent(new ClientKey(identity, homeserver, null),
+                key -> newMatrixClient(identity, homeserver, token::get));
+    }
+
+    /**
+     * MAS admin API client of an identity using a renewed token
+     *
+     * @param baseUri MAS base URI
+     */
+    public com.neohoods.portal.platform.mas.ApiClient masClient(String identity, String baseUri,
+            SingleFlightToken token) {
+        return masClients.computeIfAbsent(new ClientKey(identity, baseUri, null), key -> {
+            HttpClient httpClient = httpClient(identity);
+            com.neohoods.portal.platform.mas.ApiClient apiClient = new com.neohoods.portal.platform.mas.ApiClient() {
+                @Override
+                public HttpClient getHttpClient() {
+                    return httpClient;
+                }
+            };
+            apiClient.updateBaseUri(baseUri);
+            apiClient.setRequestInterceptor(builder -> token.get()
+                    .ifPresent(accessToken -> builder.header("Authorization", "Bearer " + accessToken)));
+            log.info("Configured MAS API client for {} with base path: {}", identity, baseUri);
+            return apiClient;
+        });
+    }
+
+    /**
+     * Shared HTTP client of an identity
+     */
+    public HttpClient httpClient(String identity) {
+        return httpClients.computeIfAbsent(identity, id -> HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .build());
+    }
+
+    private ApiClient newMatrixClient(String identity, String homeserver, Supplier<Optional<String>> token) {
+        HttpClient httpClient = httpClient(identity);
+        ApiClient apiClient = new ApiClient() {
+            @Override
+            public HttpClient getHttpClient() {
+                return httpClient;
+            }
+        };
+        if (homeserver.contains("://")) {
+            apiClient.updateBaseUri(homeserver);
+        } else {
+            apiClient.setHost(homeserver);
+        }
+        apiClient.setRequestInterceptor(builder -> token.get()
+                .ifPresent(accessToken -> builder.header("Authorization", "Bearer " + accessToken)));
+        log.info("Configured Matrix API client for {} on {}", identity, homeserver);
+        return apiClient;
+    }
+
+    private void registerMetrics(SingleFlightToken token) {
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder(TOKEN_RENEWALS, token, SingleFlightToken::getRenewals)
+                .description("Access token exchanges")
+                .tag("identity", token.getIdentity())
+                .register(meterRegistry);
+        FunctionCounter.builder(TOKEN_FAILURES, token, SingleFlightToken::getFailures)
+                .description("Failed access token exchanges")
+                .tag("identity", token.getIdentity())
+                .register(meterRegistry);
+    }
+}
@@ -5,6 +5,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
@@ -61,6 +62,7 @@ import com.neohoods.portal.platform.repositories.MatrixBotTokenRepository;
 import com.neohoods.portal.platform.repositories.UsersRepository;
 
 import com.neohoods.portal.platform.matrix.ApiClient;
+import com.neohoods.portal.platform.services.matrix.oauth2.SingleFlightToken.Grant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -73,6 +75,7 @@ public class MatrixOAuth2Service {
     private final MatrixBotErrorNotificationRepository errorNotificationRepository;
     private final UsersRepository usersRepository;
     private final MailService mailService;
+    private final MatrixApiClientRegistry clientRegistry;
 
     @Value("${neohoods.portal.matrix.oauth2.client-id}")
     private String clientId;
@@ -101,6 +104,9 @@ public class MatrixOAuth2Service {
     @Value("${neohoods.portal.matrix.oauth2.device-authorization-endpoint}")
     private String deviceAuthorizationEndpoint;
 
+    // Permanent tokens created for the local bot, by user id
+    private final Map<String, String> createdPermanentTokens = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         // Auto-deduce redirect-uri if not provided
@@ -246,22 +252,20 @@ public class MatrixOAuth2Service {
         return deviceCodeStorage.get(deviceCode);
     }
 
-    // Store admin access token with expiration
-    private static class AdminTokenEntry {
-        final String accessToken;
-        final OffsetDateTime expiresAt;
-
-        AdminTokenEntry(String accessToken, long expiresIn) {
-            this.accessToken = accessToken;
-            this.expiresAt = OffsetDateTime.now().plusSeconds(expiresIn);
-        }
-
-        boolean isExpired() {
-            return expiresAt.isBefore(OffsetDateTime.now());
-        }
+    /**
+     * OAuth2 user token (device code or authorization code flow), shared by
+     * all callers
+     */
+    private SingleFlightToken userToken() {
+        return clientRegistry.token(MatrixApiClientRegistry.ADMIN, this::fetchUserAccessToken);
     }
 
-    private volatile AdminTokenEntry adminTokenEntry = null;
+    /**
+     * MAS admin token (client credentials flow), shared by all callers
+     */
+    private SingleFlightToken masAdminToken() {
+        return clientRegistry.token(MatrixApiClientRegistry.MAS_ADMIN, this::fetchAdminAccessToken);
+    }
 
     /**
      * Generate OAuth2 redirect URI with PKCE using Nimbus OAuth SDK
@@ -472,20 +476,44 @@ public class MatrixOAuth2Service {
         // This is handled by MatrixAssistantService which calls this method
         // The local bot token check should be done in
         // MatrixAssistantService.getMatrixApiClientWithUserToken()
+        return userToken().get();
+    }
 
+    /**
+     * Load the user token from the database, refreshing it when it is about to
+     * expire
+     */
+    private Optional<Grant> fetchUserAccessToken() {
         Optional<MatrixBotTokenEntity> tokenOpt = tokenRepository.findFirstByOrderByCreatedAtDesc();
         if (tokenOpt.isEmpty()) {
             return Optional.empty();
         }
 
         MatrixBotTokenEntity tokenEntity = tokenOpt.get();
-        if (tokenEntity.getAccessToken() != null &&
-                (tokenEntity.getExpiresAt() == null || tokenEntity.getExpiresAt().isAfter(OffsetDateTime.now()))) {
-            return Optional.of(tokenEntity.getAccessToken());
+        Instant now = Instant.now();
+        Optional<Grant> stored = toGrant(tokenEntity);
+        if (stored.isPresent() && !stored.get().needsRenewal(now)) {
+            return stored;
         }
 
-        // Token expired or missing, try to refresh
-        return refreshAccessToken();
+        // Token expired, missing or about to expire, try to refresh
+        if (refreshAccessToken().isPresent()) {
+            return tokenRepository.findFirstByOrderByCreatedAtDesc().flatMap(this::toGrant);
+        }
+        // Keep using the stored token while it is valid, and retry the refresh later
+        return stored.filter(grant -> !grant.isExpired(now))
+                .map(grant -> new Grant(grant.accessToken(), grant.expiresAt(),
+                        now.plus(SingleFlightToken.RETRY_AFTER_FAILURE)));
+    }
+
+    private Optional<Grant> toGrant(MatrixBotTokenEntity tokenEntity) {
+        if (tokenEntity.getAccessToken() == null) {
+            return Optional.empty();
+        }
+        if (tokenEntity.getExpiresAt() == null) {
+            return Optional.of(Grant.permanent(tokenEntity.getAccessToken()));
+        }
+        return Optional.of(Grant.expiringAt(tokenEntity.getAccessToken(), tokenEntity.getExpiresAt().toInstant()));
     }
 
     /**
@@ -534,6 +562,8 @@ public class MatrixOAuth2Service {
         }
 
         tokenRepository.save(tokenEntity);
+        // Callers pick up the new token on their next request
+        userToken().invalidate();
     }
 
     /**
@@ -777,12 +807,13 @@ public class MatrixOAuth2Service {
      * 'urn:matrix:client:api:*' scopes.
      */
     public Optional<String> getAdminAccessToken() {
-        // Check if we have a cached valid token
-        if (adminTokenEntry != null && !adminTokenEntry.isExpired()) {
-            log.debug("Using cached admin access token");
-            return Optional.of(adminTokenEntry.accessToken);
-        }
+        return masAdminToken().get();
+    }
 
+    /**
+     * Exchange the client credentials for an admin access token
+     */
+    private Optional<Grant> fetchAdminAccessToken() {
         try {
             ClientID clientID = new ClientID(clientId);
             Secret clientSecret = new Secret(this.clientSecret);
@@ -805,10 +836,8 @@ public class MatrixOAuth2Service {
                 AccessToken accessToken = successResponse.getTokens().getAccessToken();
                 long expiresIn = accessToken.getLifetime() > 0 ? accessToken.getLifetime() : 3600; // Default 1 hour
 
-                // Cache the token
-                adminTokenEntry = new AdminTokenEntry(accessToken.getValue(), expiresIn);
                 log.info("Successfully obtained admin access token (expires in {}s)", expiresIn);
-                return Optional.of(accessToken.getValue());
+                return Optional.of(Grant.withLifetime(accessToken.getValue(), Instant.now(), expiresIn));
             } else {
                 com.nimbusds.oauth2.sdk.TokenErrorResponse errorResponse = tokenResponse.toErrorResponse();
                 com.nimbusds.oauth2.sdk.ErrorObject error = errorResponse.getErrorObject();
@@ -851,16 +880,18 @@ public class MatrixOAuth2Service {
 
         // Priority 1: Use matrix-access-token from Kubernetes secret
         if (matrixAccessToken != null && !matrixAccessToken.isEmpty()) {
-            log.info("Using matrix-access-token from Kubernetes secret (token prefix: {})",
+            log.debug("Using matrix-access-token from Kubernetes secret (token prefix: {})",
                     matrixAccessToken.substring(0, Math.min(10, matrixAccessToken.length())));
             accessTokenOpt = Optional.of(matrixAccessToken);
         }
         // Priority 2: Check if local bot is enabled and has a permanent token configured
         else if (localAssistantEnabled && localAssistantPermanentToken != null
                 && !localAssistantPermanentToken.isEmpty()) {
-            log.info("Using permanent token for local bot user: {} (token prefix: {})", localAssistantUserId,
+            log.debug("Using permanent token for local bot user: {} (token prefix: {})", localAssistantUserId,
                     localAssistantPermanentToken.substring(0, Math.min(10, localAssistantPermanentToken.length())));
             accessTokenOpt = Optional.of(localAssistantPermanentToken);
+        } else if (localAssistantEnabled && createdPermanentTokens.containsKey(localAssistantUserId)) {
+            accessTokenOpt = Optional.of(createdPermanentTokens.get(localAssistantUserId));
         } else if (localAssistantEnabled && createPermanentTokenCallback != null) {
             // Local bot enabled but no token configured - try to create one
             log.warn(
@@ -870,6 +901,7 @@ public class MatrixOAuth2Service {
                     "   NOTE: This will likely fail because we need a Synapse admin token (not MAS admin token) to create permanent tokens.");
             accessTokenOpt = createPermanentTokenCallback.apply(localAssistantUserId);
             if (accessTokenOpt.isPresent()) {
+                createdPermanentTokens.put(localAssistantUserId, accessTokenOpt.get());
                 log.info(
                         "Successfully created permanent token for local bot. Store it in MATRIX_LOCAL_BOT_PERMANENT_TOKEN for future use.");
             } else {
@@ -880,7 +912,8 @@ public class MatrixOAuth2Service {
 
         // Priority 3: Fallback to OAuth2 token if no other token is available
         // WARNING: OAuth2 tokens may not work for sending messages (they don't have access_token_id in Synapse)
-        if (accessTokenOpt.isEmpty()) {
+        boolean oauth2Fallback = accessTokenOpt.isEmpty();
+        if (oauth2Fallback) {
             log.error(
                     "No matrix-access-token or local bot token available, falling back to OAuth2 token. This WILL cause issues with sendMessage (500 error: AssertionError: Requester must have an access_token_id).");
             accessTokenOpt = getUserAccessToken();
@@ -904,15 +937,13 @@ public class MatrixOAuth2Service {
             return Optional.empty();
         }
 
-        ApiClient apiClient = new ApiClient();
-        apiClient.setHost(homeserverUrl);
-
-        Optional<String> finalAccessTokenOpt = accessTokenOpt;
-        apiClient.setRequestInterceptor(builder -> {
-            builder.header("Authorization", "Bearer " + finalAccessTokenOpt.get());
-        });
-
-        return Optional.of(apiClient);
+        if (oauth2Fallback) {
+            // The client follows the token refreshes
+            return Optional.of(clientRegistry.matrixClient(MatrixApiClientRegistry.ADMIN, homeserverUrl,
+                    userToken()));
+        }
+        return Optional.of(clientRegistry.matrixClient(MatrixApiClientRegistry.BOT, homeserverUrl,
+                accessTokenOpt.get()));
     }
 
     /**
@@ -932,15 +963,7 @@ public class MatrixOAuth2Service {
         log.debug("Using OAuth2 user access token for Matrix API (token prefix: {})",
                 accessTokenOpt.get().substring(0, Math.min(10, accessTokenOpt.get().length())));
 
-        ApiClient apiClient = new ApiClient();
-        apiClient.setHost(homeserverUrl);
-
-        Optional<String> finalAccessTokenOpt = accessTokenOpt;
-        apiClient.setRequestInterceptor(builder -> {
-            builder.header("Authorization", "Bearer " + finalAccessTokenOpt.get());
-        });
-
-        return Optional.of(apiClient);
+        return Optional.of(clientRegistry.matrixClient(MatrixApiClientRegistry.ADMIN, homeserverUrl, userToken()));
     }
 
     /**
@@ -956,19 +979,12 @@ public class MatrixOAuth2Service {
             return Optional.empty();
         }
 
-        com.neohoods.portal.platform.mas.ApiClient apiClient = new com.neohoods.portal.platform.mas.ApiClient();
         String normalizedMasUrl = masUrl;
         if (!normalizedMasUrl.startsWith("http://") && !normalizedMasUrl.startsWith("https://")) {
             normalizedMasUrl = "https://" + normalizedMasUrl;
         }
-        apiClient.updateBaseUri(normalizedMasUrl);
-        log.info("Configured MAS API client with base path: {}", normalizedMasUrl);
-
-        apiClient.setRequestInterceptor(builder -> {
-            builder.header("Authorization", "Bearer " + adminTokenOpt.get());
-        });
-
-        return Optional.of(apiClient);
+        return Optional.of(clientRegistry.masClient(MatrixApiClientRegistry.MAS_ADMIN, normalizedMasUrl,
+                masAdminToken()));
     }
 
     /**
@@ -0,0 +1,177 @@
+package com.neohoods.portal.platform.services.matrix.oauth2;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Access token of an identity, renewed by a single caller at a time.
+ *
+ * Before expiry, the token is renewed proactively: the first caller entering
+ * the renewal window fetches a new one while the others keep using the
+ * current one. Once expired, callers wait for the renewal in progress instead
+ * of starting their own token exchange.
+ */
+@Slf4j
+public class SingleFlightToken {
+
+    // Renew at most this long before expiry
+    static final Duration RENEW_BEFORE = Duration.ofSeconds(60);
+    // Wait between two failed renewals, so an unavailable token endpoint is not hammered
+    static final Duration RETRY_AFTER_FAILURE = Duration.ofSeconds(5);
+
+    /**
+     * Access token
+     *
+     * @param accessToken Token value
+     * @param expiresAt   Expiry, null if the token does not expire
+     * @param renewAt     When to start renewing it, null if the token does not
+     *                    expire
+     */
+    public record Grant(String accessToken, Instant expiresAt, Instant renewAt) {
+
+        public static Grant permanent(String accessToken) {
+            return new Grant(accessToken, null, null);
+        }
+
+        /**
+         * Token expiring at the given time, renewed RENEW_BEFORE earlier
+         */
+        public static Grant expiringAt(String accessToken, Instant expiresAt) {
+            return new Grant(accessToken, expiresAt, expiresAt.minus(RENEW_BEFORE));
+        }
+
+        /**
+         * Token valid for lifetimeSeconds from now, renewed after 80% of its
+         * lifetime (at most RENEW_BEFORE before expiry)
+         */
+        public static Grant withLifetime(String accessToken, Instant now, long lifetimeSeconds) {
+            Duration lifetime = Duration.ofSeconds(lifetimeSeconds);
+            Duration margin = lifetime.dividedBy(5);
+            if (margin.compareTo(RENEW_BEFORE) > 0) {
+                margin = RENEW_BEFORE;
+            }
+            Instant expiresAt = now.plus(lifetime);
+            return new Grant(accessToken, expiresAt, expiresAt.minus(margin));
+        }
+
+        boolean isExpired(Instant now) {
+            return expiresAt != null && !now.isBefore(expiresAt);
+        }
+
+        boolean needsRenewal(Instant now) {
+            return renewAt != null && !now.isBefore(renewAt);
+        }
+    }
+
+    private final String identity;
+    private final Supplier<Optional<Grant>> fetcher;
+    private final Clock clock;
+    private final ReentrantLock renewLock = new ReentrantLock();
+    private final AtomicLong renewals = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Grant current;
+    private volatile Instant nextAttempt = Instant.MIN;
+
+    public SingleFlightToken(String identity, Supplier<Optional<Grant>> fetcher) {
+        this(identity, fetcher, Clock.systemUTC());
+    }
+
+    SingleFlightToken(String identity, Supplier<Optional<Grant>> fetcher, Clock clock) {
+        this.identity = identity;
+        this.fetcher = fetcher;
+        this.clock = clock;
+    }
+
+    /**
+     * Current token, renewed first if needed
+     */
+    public Optional<String> get() {
+        Grant grant = current;
+        Instant now = clock.instant();
+        if (grant != null && !grant.needsRenewal(now)) {
+            return Optional.of(grant.accessToken());
+        }
+        if (grant != null && !grant.isExpired(now)) {
+            // Still valid: renew only if nobody else is already doing it
+            if (renewLock.tryLock()) {
+                try {
+                    renewIfNeeded();
+                } finally {
+                    renewLock.unlock();
+                }
+            }
+            return valid(current);
+        }
+        renewLock.lock();
+        try {
+            renewIfNeeded();
+        } finally {
+            renewLock.unlock();
+        }
+        return valid(current);
+    }
+
+    /**
+     * Forgets the current token, e.g. after new tokens were saved, so the next
+     * call fetches it again
+     */
+    public void invalidate() {
+        current = null;
+        nextAttempt = Instant.MIN;
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    public long getRenewals() {
+        return renewals.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    private Optional<String> valid(Grant grant) {
+        if (grant == null || grant.isExpired(clock.instant())) {
+            return Optional.empty();
+        }
+        return Optional.of(grant.accessToken());
+    }
+
+    // Called with renewLock held
+    private void renewIfNeeded() {
+        Instant now = clock.instant();
+        Grant grant = current;
+        if (grant != null && !grant.needsRenewal(now)) {
+            // Renewed by the previous lock holder
+            return;
+        }
+        if (now.isBefore(nextAttempt)) {
+            return;
+        }
+        Optional<Grant> fetched;
+        try {
+            fetched = fetcher.get();
+        } catch (Exception e) {
+            log.warn("Failed to renew the {} access token: {}", identity, e.getMessage());
+            fetched = Optional.empty();
+        }
+        if (fetched.isPresent()) {
+            current = fetched.get();
+            nextAttempt = Instant.MIN;
+            renewals.incrementAndGet();
+            log.debug("Renewed the {} access token (expires at {})", identity, current.expiresAt());
+        } else {
+            nextAttempt = now.plus(RETRY_AFTER_FAILURE);
+            failures.incrementAndGet();
+        }
+    }
+}
@@ -8,16 +8,17 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStage;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
@@ -30,7 +31,7 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "neohoods.portal.matrix.assistant.rag.enabled", havingValue = "true", matchIfMissing = false)
-public class MatrixAssistantRAGService {
+public class MatrixAssistantRAGService implements AssistantStartupStage {
 
     private final WebClient.Builder webClientBuilder;
     private final ResourceLoader resourceLoader;
@@ -48,8 +49,8 @@ public class MatrixAssistantRAGService {
     private String embeddingsApiUrl;
 
     // Simple in-memory storage of embeddings (to be replaced by a vector database
-    // in production)
-    private final List<DocumentChunk> documentChunks = new ArrayList<>();
+    // in production); searched while the documentation loads at startup
+    private final List<DocumentChunk> documentChunks = new CopyOnWriteArrayList<>();
 
     /**
      * Searches for relevant context in the documentation for a question
@@ -117,10 +118,19 @@ public class MatrixAssistantRAGService {
         log.info("Indexed document '{}' with {} chunks", title, chunks.length);
     }
 
+    @Override
+    public String getStageName() {
+        return RAG_DOCUMENTS;
+    }
+
+    @Override
+    public void runStage() {
+        loadInitialDocumentation();
+    }
+
     /**
      * Loads initial documentation at application startup
      */
-    @EventListener(ApplicationReadyEvent.class)
     public void loadInitialDocumentation() {
         log.info("Loading initial documentation for RAG");
 
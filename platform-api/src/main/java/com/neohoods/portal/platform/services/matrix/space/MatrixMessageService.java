@@ -23,6 +23,7 @@ import com.neohoods.portal.platform.matrix.ApiException;
 import com.neohoods.portal.platform.matrix.api.RoomParticipationApi;
 import com.neohoods.portal.platform.matrix.api.SessionManagementApi;
 import com.neohoods.portal.platform.matrix.model.GetTokenOwner200Response;
+import com.neohoods.portal.platform.matrix.model.SendMessage200Response;
 
 import com.neohoods.portal.platform.services.matrix.oauth2.MatrixOAuth2Service;
 import lombok.RequiredArgsConstructor;
@@ -260,12 +261,57 @@ public class MatrixMessageService {
      * operations
      */
     public boolean sendMessage(String roomId, String message) {
+        return sendContent(roomId, buildMessageContent(message), true) != null;
+    }
+
+    /**
+     * Sends a message to a room and returns its event ID, so it can be edited
+     * later with {@link #editMessage(String, String, String)}
+     */
+    public Optional<String> sendMessageForEventId(String roomId, String message) {
+        return Optional.ofNullable(sendContent(roomId, buildMessageContent(message), true))
+                .map(SendMessage200Response::getEventId);
+    }
+
+    /**
+     * Replaces the content of a message previously sent by the bot (m.replace
+     * edit). Clients display the new content in place of the original message.
+     */
+    public boolean editMessage(String roomId, String eventId, String message) {
+        Map<String, Object> newContent = buildMessageContent(message);
+
+        Map<String, Object> relatesTo = new HashMap<>();
+        relatesTo.put("rel_type", "m.replace");
+        relatesTo.put("event_id", eventId);
+
+        // Fallback for clients without edit support: "* " prefixed copy of the new content
+        Map<String, Object> editContent = new HashMap<>();
+        editContent.put("msgtype", "m.text");
+        editContent.put("body", "* " + newContent.get("body"));
+        if (newContent.containsKey("formatted_body")) {
+            editContent.put("format", newContent.get("format"));
+            editContent.put("formatted_body", "* " + newContent.get("formatted_body"));
+        }
+        editContent.put("m.new_content", newContent);
+        editContent.put("m.relates_to", relatesTo);
+
+        // The bot already posted the original message, no need to check membership again
+        return sendContent(roomId, editContent, false) != null;
+    }
+
+    /**
+     * Sends an m.room.message event
+     * 
+     * @return the send response, or null if the message could not be sent
+     */
+    private SendMessage200Response sendContent(String roomId, Map<String, Object> messageBody,
+            boolean checkMembership) {
         try {
             // Get bot user ID to check membership
             Optional<String> assistantUserIdOpt = getAssistantUserId();
             if (assistantUserIdOpt.isEmpty()) {
                 log.warn("Cannot send message: bot user ID not available");
-                return false;
+                return null;
             }
             String assistantUserId = assistantUserIdOpt.get();
 
@@ -278,7 +324,7 @@ public class MatrixMessageService {
             if (apiClientOpt.isEmpty()) {
                 log.error("No access token available for sending message to room {}. " +
                         "A permanent token created via Synapse Admin API is required.", roomId);
-                return false;
+                return null;
             }
 
             // Log which token type is being used
@@ -320,7 +366,9 @@ public class MatrixMessageService {
             }
 
             // Check if bot is a member of the room before sending
-            Optional<String> membership = membershipService.getUserRoomMembership(assistantUserId, decodedRoomId);
+            Optional<String> membership = checkMembership
+                    ? membershipService.getUserRoomMembership(assistantUserId, decodedRoomId)
+                    : Optional.of("join");
             if (!membership.isPresent() || !"join".equals(membership.get())) {
                 log.warn("Bot {} is not a member of room {} (membership: {}). Attempting to join...", assistantUserId,
                         decodedRoomId, membership.orElse("none"));
@@ -328,7 +376,7 @@ public class MatrixMessageService {
                 boolean joined = membershipService.joinRoomAsBot(decodedRoomId);
                 if (!joined) {
                     log.error("Cannot send message: bot {} failed to join room {}", assistantUserId, decodedRoomId);
-                    return false;
+                    return null;
                 }
                 // Re-check membership after joining
                 membership = membershipService.getUserRoomMembership(assistantUserId, decodedRoomId);
@@ -336,44 +384,11 @@ public class MatrixMessageService {
                     log.error("Bot {} still not a member of room {} after join attempt (membership: {})",
                             assistantUserId,
                             decodedRoomId, membership.orElse("none"));
-                    return false;
+                    return null;
                 }
                 log.info("Bot {} successfully joined room {} before sending message", assistantUserId, decodedRoomId);
             }
 
-            // Build message body - convert \n to <br /> and format for Matrix
-            Map<String, Object> messageBody = new HashMap<>();
-
-            // Always convert \n (both escaped and actual) to <br /> for proper HTML
-            // formatting in Matrix
-            String htmlBody = message;
-            if (htmlBody != null) {
-                // First handle escaped newlines from JSON (the string literal "\n")
-                // This happens when JSON contains \n which becomes the string "\n" in Java
-                htmlBody = htmlBody.replace("\\n", "<br />");
-
-                // Then handle actual newline characters
-                htmlBody = htmlBody.replace("\n", "<br />");
-
-                // Also handle carriage return + newline (Windows line endings)
-                htmlBody = htmlBody.replace("\r\n", "<br />");
-                htmlBody = htmlBody.replace("\r", "<br />");
-
-                // Convert Markdown to HTML (handles **bold**, *italic*, etc.)
-                htmlBody = convertMarkdownToMatrixHtml(htmlBody);
-            }
-
-            // Plain text body (for clients that don't support HTML)
-            String plainBody = htmlBody != null ? htmlBody.replace("<br />", "\n").replaceAll("<[^>]+>", "") : message;
-            messageBody.put("msgtype", "m.text");
-            messageBody.put("body", plainBody);
-
-            // Always set HTML format if we have HTML tags or <br />
-            if (htmlBody != null && (htmlBody.contains("<") || htmlBody.contains("<br />"))) {
-                messageBody.put("format", "org.matrix.custom.html");
-                messageBody.put("formatted_body", htmlBody);
-            }
-
             // Generate transaction ID (must be unique per room)
             String txnId = UUID.randomUUID().toString();
 
@@ -382,7 +397,10 @@ public class MatrixMessageService {
             log.debug("Message body: {}", messageBody);
 
             try {
-                participationApi.sendMessage(decodedRoomId, "m.room.message", txnId, messageBody);
+                SendMessage200Response response = participationApi.sendMessage(decodedRoomId, "m.room.message", txnId,
+                        messageBody);
+                log.info("Successfully sent message to room {}", decodedRoomId);
+                return response != null ? response : new SendMessage200Response();
             } catch (ApiException e) {
                 // If we get a 500 error with AssertionError about access_token_id, it means
                 // we're using an OAuth2 token
@@ -404,8 +422,6 @@ public class MatrixMessageService {
                 }
                 throw e;
             }
-            log.info("Successfully sent message to room {}", decodedRoomId);
-            return true;
         } catch (ApiException e) {
             log.error("Failed to send message to room {}: HTTP {} - {}", roomId, e.getCode(), e.getMessage());
             if (e.getResponseBody() != null) {
@@ -421,11 +437,50 @@ public class MatrixMessageService {
                             membership.orElse("none"));
                 }
             }
-            return false;
+            return null;
         } catch (Exception e) {
             log.error("Failed to send message to room {}: {}", roomId, e.getMessage(), e);
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Builds m.text content for a message - converts \n to <br /> and Markdown to
+     * HTML for Matrix
+     */
+    private Map<String, Object> buildMessageContent(String message) {
+        Map<String, Object> messageBody = new HashMap<>();
+
+        // Always convert \n (both escaped and actual) to <br /> for proper HTML
+        // formatting in Matrix
+        String htmlBody = message;
+        if (htmlBody != null) {
+            // First handle escaped newlines from JSON (the string literal "\n")
+            // This happens when JSON contains \n which becomes the string "\n" in Java
+            htmlBody = htmlBody.replace("\\n", "<br />");
+
+            // Then handle actual newline characters
+            htmlBody = htmlBody.replace("\n", "<br />");
+
+            // Also handle carriage return + newline (Windows line endings)
+            htmlBody = htmlBody.replace("\r\n", "<br />");
+            htmlBody = htmlBody.replace("\r", "<br />");
+
+            // Convert Markdown to HTML (handles **bold**, *italic*, etc.)
+            htmlBody = convertMarkdownToMatrixHtml(htmlBody);
+        }
+
+        // Plain text body (for clients that don't support HTML)
+        String plainBody = htmlBody != null ? htmlBody.replace("<br />", "\n").replaceAll("<[^>]+>", "") : message;
+        messageBody.put("msgtype", "m.text");
+        messageBody.put("body", plainBody);
+
+        // Always set HTML format if we have HTML tags or <br />
+        if (htmlBody != null && (htmlBody.contains("<") || htmlBody.contains("<br />"))) {
+            messageBody.put("format", "org.matrix.custom.html");
+            messageBody.put("formatted_body", htmlBody);
         }
+        return messageBody;
     }
 
     /**
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -20,6 +21,8 @@ import com.neohoods.portal.platform.matrix.model.ClientEvent;
 import com.neohoods.portal.platform.matrix.model.CreateRoom200Response;
 import com.neohoods.portal.platform.matrix.model.CreateRoomRequest;
 import com.neohoods.portal.platform.matrix.model.GetJoinedRooms200Response;
+import com.neohoods.portal.platform.matrix.model.GetSpaceHierarchy200Response;
+import com.neohoods.portal.platform.matrix.model.GetSpaceHierarchy200ResponseRoomsInner;
 import com.neohoods.portal.platform.matrix.api.SessionManagementApi;
 import com.neohoods.portal.platform.matrix.model.GetTokenOwner200Response;
 import com.neohoods.portal.platform.matrix.model.StateEvent;
@@ -38,8 +41,11 @@ import lombok.extern.slf4j.Slf4j;
 @ConditionalOnProperty(name = { "neohoods.portal.matrix.enabled" }, havingValue = "true", matchIfMissing = false)
 public class MatrixRoomService {
 
+    private static final int HIERARCHY_PAGE_SIZE = 100;
+
     private final MatrixOAuth2Service oauth2Service;
     private final MatrixMembershipService membershipService;
+    private final MatrixSpaceIndex spaceIndex;
 
     @Value("${neohoods.portal.matrix.disabled}")
     private boolean disabled;
@@ -192,86 +198,132 @@ public class MatrixRoomService {
         }
     }
 
+    /**
+     * Seed the space index once per space: the rooms listed by the space
+     * hierarchy, and the joined rooms only linked to the space by their
+     * m.space.parent (created before m.space.child was set)
+     */
+    private void ensureSpaceIndexed(String spaceId, ApiClient apiClient) throws ApiException {
+        if (spaceIndex.isSeeded(spaceId)) {
+            return;
+        }
+        SpacesApi spacesApi = new SpacesApi(apiClient);
+        Map<String, String> roomNames = new HashMap<>();
+        String from = null;
+        do {
+            // Direct children only, as rooms are linked to the space itself
+            GetSpaceHierarchy200Response hierarchy = spacesApi.getSpaceHierarchy(spaceId, null, HIERARCHY_PAGE_SIZE,
+                    1, from);
+            if (hierarchy == null || hierarchy.getRooms() == null) {
+                break;
+            }
+            for (GetSpaceHierarchy200ResponseRoomsInner room : hierarchy.getRooms()) {
+                // Skip the space itself
+                if (!spaceId.equals(room.getRoomId())) {
+                    roomNames.put(room.getRoomId(), room.getName());
+                }
+            }
+            from = hierarchy.getNextBatch();
+        } while (from != null && !from.isEmpty());
+        roomNames.putAll(findParentLinkedRooms(spaceId, roomNames.keySet(), apiClient));
+        spaceIndex.seed(spaceId, roomNames);
+    }
+
+    /**
+     * Joined rooms with an m.space.parent link to the space but missing from
+     * its hierarchy (roomId -> name). The missing m.space.child is added, so
+     * the hierarchy lists them from now on.
+     */
+    private Map<String, String> findParentLinkedRooms(String spaceId, Set<String> children, ApiClient apiClient)
+            throws ApiException {
+        Map<String, String> roomNames = new HashMap<>();
+        GetJoinedRooms200Response joinedRooms = new RoomMembershipApi(apiClient).getJoinedRooms();
+        if (joinedRooms == null || joinedRooms.getJoinedRooms() == null) {
+            return roomNames;
+        }
+        RoomParticipationApi participationApi = new RoomParticipationApi(apiClient);
+        for (String roomId : joinedRooms.getJoinedRooms()) {
+            if (roomId.equals(spaceId) || children.contains(roomId)) {
+                continue;
+            }
+            Optional<MatrixSpaceIndex.IndexedRoom> indexed = spaceIndex.getRoom(roomId);
+            if (indexed.isPresent()) {
+                // Parent already known from sync or an earlier check
+                if (spaceId.equals(indexed.get().spaceId())) {
+                    roomNames.put(roomId, indexed.get().name());
+                    addSpaceChild(spaceId, roomId, apiClient);
+                }
+                continue;
+            }
+            // One read of the room state gives both its parent and its name
+            List<ClientEvent> state;
+            try {
+                state = participationApi.getRoomState(roomId);
+            } catch (ApiException e) {
+                log.debug("Error reading room {} state: {}", roomId, e.getMessage());
+                continue;
+            }
+            String parentId = null;
+            String name = null;
+            for (ClientEvent event : state) {
+                Map<?, ?> content = event.getContent() instanceof Map<?, ?> map ? map : Map.of();
+                if ("m.space.parent".equals(event.getType()) && !content.isEmpty()
+                        && (parentId == null || spaceId.equals(event.getStateKey()))) {
+                    parentId = event.getStateKey();
+                } else if ("m.room.name".equals(event.getType()) && content.get("name") != null) {
+                    name = content.get("name").toString();
+                }
+            }
+            if (spaceId.equals(parentId)) {
+                roomNames.put(roomId, name);
+                addSpaceChild(spaceId, roomId, apiClient);
+            } else {
+                spaceIndex.putRoom(roomId, parentId, name);
+            }
+        }
+        if (!roomNames.isEmpty()) {
+            log.info("Found {} rooms of space {} linked by m.space.parent only", roomNames.size(), spaceId);
+        }
+        return roomNames;
+    }
+
+    /**
+     * Lists a room in the space hierarchy, which only follows m.space.child
+     */
+    private void addSpaceChild(String spaceId, String roomId, ApiClient apiClient) {
+        try {
+            Map<String, Object> spaceChildContent = new HashMap<>();
+            spaceChildContent.put("via", List.of(serverName));
+            new RoomParticipationApi(apiClient).setRoomStateWithKey(spaceId, "m.space.child", roomId,
+                    spaceChildContent);
+        } catch (ApiException e) {
+            log.warn("Could not add room {} as a child of space {}: HTTP {} - {}", roomId, spaceId, e.getCode(),
+                    e.getMessage());
+        }
+    }
+
     /**
      * Get all existing rooms in a space (name -> roomId map)
-     * Loads all rooms once and returns a map for efficient lookup
+     * Served from the space index, seeded from the space hierarchy on first use
      */
     public Map<String, String> getExistingRoomsInSpace(String spaceId) {
-        Map<String, String> roomsMap = new HashMap<>();
         try {
             Optional<ApiClient> apiClientOpt = getMatrixAccessToken();
             if (apiClientOpt.isEmpty()) {
-                return roomsMap;
+                return new HashMap<>();
             }
 
-            ApiClient apiClient = apiClientOpt.get();
-            RoomMembershipApi membershipApi = new RoomMembershipApi(apiClient);
-            GetJoinedRooms200Response joinedRooms = membershipApi.getJoinedRooms();
-
-            if (joinedRooms != null && joinedRooms.getJoinedRooms() != null) {
-                RoomParticipationApi participationApi = new RoomParticipationApi(apiClient);
-
-                for (String roomId : joinedRooms.getJoinedRooms()) {
-                    // Skip the space itself
-                    if (roomId.equals(spaceId)) {
-                        continue;
-                    }
-
-                    try {
-                        // Get all room states and filter manually to avoid SDK union type issues
-                        List<ClientEvent> roomStates = participationApi.getRoomState(roomId);
-
-                        // Check if this room belongs to the space by looking for m.space.parent state
-                        boolean belongsToSpace = false;
-                        String roomName = null;
-
-                        for (ClientEvent state : roomStates) {
-                            if (state.getType() != null) {
-                                if ("m.space.parent".equals(state.getType())
-                                        && spaceId.equals(state.getStateKey())) {
-                                    belongsToSpace = true;
-                                } else if ("m.room.name".equals(state.getType())
-                                        && (state.getStateKey() == null || state.getStateKey().isEmpty())) {
-                                    // Extract room name from content
-                                    if (state.getContent() != null && state.getContent() instanceof Map) {
-                                        @SuppressWarnings("unchecked")
-                                        Map<String, Object> content = (Map<String, Object>) state.getContent();
-                                        Object nameObj = content.get("name");
-                                        if (nameObj != null) {
-                                            roomName = nameObj.toString();
-                                        }
-                                    }
-                                }
-                            }
-                        }
-
-                        if (belongsToSpace && roomName != null && !roomName.isEmpty()) {
-                            // Store room name as-is (case-sensitive) for exact matching
-                            roomsMap.put(roomName, roomId);
-                            log.trace("Added room to map: {} -> {}", roomName, roomId);
-                        }
-                    } catch (ApiException e) {
-                        // Room might not have m.space.parent state or m.room.name state, skip it
-                        if (e.getCode() != 404) {
-                            log.debug("Error checking room {} state: {}", roomId, e.getMessage());
-                        }
-                        continue;
-                    } catch (Exception e) {
-                        log.debug("Error checking room {}: {}", roomId, e.getMessage());
-                        continue;
-                    }
-                }
-            }
+            ensureSpaceIndexed(spaceId, apiClientOpt.get());
+            return spaceIndex.getRoomsInSpace(spaceId);
         } catch (Exception e) {
             log.error("Error getting existing rooms in space {}", spaceId, e);
+            return new HashMap<>();
         }
-        return roomsMap;
     }
 
     /**
-     * Get room ID by name in a space
-     * Uses getJoinedRooms() like getCurrentSpaces(), then checks if room belongs to
-     * space
+     * Get room ID by name in a space (case-insensitive)
+     * Served from the space index, seeded from the space hierarchy on first use
      */
     public Optional<String> getRoomIdByName(String roomName, String spaceId) {
         try {
@@ -280,67 +332,10 @@ public class MatrixRoomService {
                 return Optional.empty();
             }
 
-            ApiClient apiClient = apiClientOpt.get();
-            RoomMembershipApi membershipApi = new RoomMembershipApi(apiClient);
-            GetJoinedRooms200Response joinedRooms = membershipApi.getJoinedRooms();
-
-            if (joinedRooms != null && joinedRooms.getJoinedRooms() != null) {
-                RoomParticipationApi participationApi = new RoomParticipationApi(apiClient);
-
-                for (String roomId : joinedRooms.getJoinedRooms()) {
-                    // Skip the space itself
-                    if (roomId.equals(spaceId)) {
-                        continue;
-                    }
-
-                    try {
-                        // Get all room states and filter manually to avoid SDK union type issues
-                        // This is more efficient: one API call instead of two
-                        List<ClientEvent> roomStates = participationApi.getRoomState(roomId);
-
-                        // Check if this room belongs to the space by looking for m.space.parent state
-                        boolean belongsToSpace = false;
-                        String actualRoomName = null;
-
-                        for (ClientEvent state : roomStates) {
-                            if (state.getType() != null) {
-                                if ("m.space.parent".equals(state.getType())
-                                        && spaceId.equals(state.getStateKey())) {
-                                    belongsToSpace = true;
-                                } else if ("m.room.name".equals(state.getType())
-                                        && (state.getStateKey() == null || state.getStateKey().isEmpty())) {
-                                    // Extract room name from content
-                                    if (state.getContent() != null && state.getContent() instanceof Map) {
-                                        @SuppressWarnings("unchecked")
-                                        Map<String, Object> content = (Map<String, Object>) state.getContent();
-                                        Object nameObj = content.get("name");
-                                        if (nameObj != null) {
-                                            actualRoomName = nameObj.toString();
-                                        }
-                                    }
-                                }
-                            }
-                        }
-
-                        // Check if name matches (case-insensitive comparison)
-                        if (belongsToSpace && roomName != null && actualRoomName != null
-                                && roomName.equalsIgnoreCase(actualRoomName)) {
-                            log.debug("Found room {} with ID {} (case-insensitive match)", roomName, roomId);
-                            return Optional.of(roomId);
-                        }
-                    } catch (ApiException e) {
-                        // Room might not have m.space.parent state or m.room.name state, skip it
-                        if (e.getCode() != 404) {
-                            log.debug("Error checking room {} state: {}", roomId, e.getMessage());
-                        }
-                        continue;
-                    } catch (Exception e) {
-                        log.debug("Error checking room {}: {}", roomId, e.getMessage());
-                        continue;
-                    }
-                }
-            }
-            return Optional.empty();
+            ensureSpaceIndexed(spaceId, apiClientOpt.get());
+            Optional<String> roomId = spaceIndex.findRoomByName(spaceId, roomName);
+            roomId.ifPresent(id -> log.debug("Found room {} with ID {} (case-insensitive match)", roomName, id));
+            return roomId;
         } catch (Exception e) {
             log.error("Error getting room ID by name: {} in space {}", roomName, spaceId, e);
             return Optional.empty();
@@ -349,6 +344,8 @@ public class MatrixRoomService {
 
     /**
      * Check if a room belongs to a specific space
+     * Rooms not indexed yet (e.g. joined since the last sync) have their
+     * m.space.parent state read once
      * 
      * @param roomId  The room ID to check
      * @param spaceId The space ID to check against
@@ -364,6 +361,10 @@ public class MatrixRoomService {
             return true;
         }
 
+        if (spaceIndex.isKnown(roomId)) {
+            return spaceIndex.belongsToSpace(roomId, spaceId);
+        }
+
         try {
             Optional<ApiClient> apiClientOpt = getMatrixAccessToken();
             if (apiClientOpt.isEmpty()) {
@@ -375,20 +376,15 @@ public class MatrixRoomService {
             RoomParticipationApi participationApi = new RoomParticipationApi(apiClient);
 
             try {
-                // Get all room states
-                List<ClientEvent> roomStates = participationApi.getRoomState(roomId);
-
-                // Check if this room belongs to the space by looking for m.space.parent state
-                for (ClientEvent state : roomStates) {
-                    if (state.getType() != null && "m.space.parent".equals(state.getType())
-                            && spaceId.equals(state.getStateKey())) {
-                        log.debug("Room {} belongs to space {}", roomId, spaceId);
-                        return true;
-                    }
-                }
+                participationApi.getRoomStateWithKey(roomId, "m.space.parent", spaceId, null);
+                log.debug("Room {} belongs to space {}", roomId, spaceId);
+                spaceIndex.putRoom(roomId, spaceId, null);
+                return true;
             } catch (ApiException e) {
-                // Room might not have m.space.parent state or might not exist
-                if (e.getCode() != 404) {
+                // Room has no m.space.parent state for this space, or does not exist
+                if (e.getCode() == 404) {
+                    spaceIndex.putRoom(roomId, null, null);
+                } else {
                     log.debug("Error checking room {} state: {}", roomId, e.getMessage());
                 }
                 return false;
@@ -400,8 +396,6 @@ public class MatrixRoomService {
             log.error("Error checking if room {} belongs to space {}", roomId, spaceId, e);
             return false;
         }
-
-        return false;
     }
 
     /**
@@ -440,12 +434,18 @@ public class MatrixRoomService {
 
     /**
      * Find existing DM room between bot and a user
+     * Served from the space index; joined rooms are only scanned on a miss
      * 
      * @param assistantUserId Bot user ID
      * @param matrixUserId    User ID to find DM with
      * @return Optional containing room ID if found
      */
     private Optional<String> findExistingDMRoom(String assistantUserId, String matrixUserId) {
+        Optional<String> indexedRoom = spaceIndex.findDmRoom(matrixUserId);
+        if (indexedRoom.isPresent()) {
+            return indexedRoom;
+        }
+
         try {
             Optional<ApiClient> apiClientOpt = getMatrixAccessToken();
             if (apiClientOpt.isEmpty()) {
@@ -473,6 +473,7 @@ public class MatrixRoomService {
                                 "join".equals(roomMembers.get(matrixUserId))) {
                             log.debug("Found existing DM room {} between {} and {}", roomId, assistantUserId,
                                     matrixUserId);
+                            spaceIndex.putDmRoom(matrixUserId, roomId);
                             return Optional.of(roomId);
                         }
                     }
@@ -517,6 +518,7 @@ public class MatrixRoomService {
             CreateRoom200Response response = roomCreationApi.createRoom(createRequest);
             String roomId = response.getRoomId();
             log.info("Created DM room {} with user {}", roomId, matrixUserId);
+            spaceIndex.putDmRoom(matrixUserId, roomId);
 
             return Optional.of(roomId);
         } catch (ApiException e) {
@@ -538,7 +540,8 @@ public class MatrixRoomService {
     /**
      * Create room in space
      * Uses user token (from device code or authorization code flow) to create room
-     * and add to space by setting m.space.parent in initial_state
+     * and add to space by setting m.space.parent in initial_state, and
+     * m.space.child on the space so it is listed in the space hierarchy
      * 
      * @param roomName    Name of the room
      * @param description Description of the room
@@ -622,6 +625,9 @@ public class MatrixRoomService {
             CreateRoom200Response response = roomCreationApi.createRoom(createRequest);
             String roomId = response.getRoomId();
             log.info("Created room {} ({}) and linked to space {} via m.space.parent", roomName, roomId, spaceId);
+            spaceIndex.putRoom(roomId, spaceId, roomName);
+
+            addSpaceChild(spaceId, roomId, apiClient);
 
             return Optional.of(roomId);
         } catch (ApiException e) {
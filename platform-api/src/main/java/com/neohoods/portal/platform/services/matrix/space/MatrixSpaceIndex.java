@@ -0,0 +1,339 @@
+package com.neohoods.portal.platform.services.matrix.space;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.neohoods.portal.platform.entities.MatrixRoomIndexEntity;
+import com.neohoods.portal.platform.entities.MatrixSpaceIndexSeedEntity;
+import com.neohoods.portal.platform.repositories.MatrixRoomIndexRepository;
+import com.neohoods.portal.platform.repositories.MatrixSpaceIndexSeedRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index of the rooms of each space (by name) and of the assistant's DM rooms
+ * (by user), so looking a room up does not scan the state of every joined
+ * room.
+ *
+ * A space is seeded once (from its /hierarchy and the m.space.parent links of
+ * the joined rooms), then kept up to date from the state events received by
+ * sync (m.space.parent, m.room.name, m.room.member) and from the rooms created
+ * by the portal. Entries are persisted in matrix_room_index and seeded spaces
+ * in matrix_space_index_seed, so a restart reloads them instead of seeding
+ * again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = { "neohoods.portal.matrix.enabled" }, havingValue = "true", matchIfMissing = false)
+public class MatrixSpaceIndex {
+
+    private static final Set<String> INDEXED_STATE_TYPES = Set.of("m.space.parent", "m.room.name", "m.room.member");
+
+    private final MatrixRoomIndexRepository roomIndexRepository;
+    private final MatrixSpaceIndexSeedRepository seedRepository;
+
+    private final Map<String, IndexedRoom> rooms = new ConcurrentHashMap<>();
+    // spaceId -> lower-cased room name -> roomId
+    private final Map<String, Map<String, String>> roomsBySpace = new ConcurrentHashMap<>();
+    // user -> DM room with the assistant
+    private final Map<String, String> dmRooms = new ConcurrentHashMap<>();
+    private final Set<String> seededSpaces = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    /**
+     * Indexed room
+     *
+     * @param spaceId  Parent space, null if none
+     * @param name     Room name, null if unknown
+     * @param dmUserId Other member, for DM rooms of the assistant
+     */
+    public record IndexedRoom(String spaceId, String name, String dmUserId) {
+        static final IndexedRoom NONE = new IndexedRoom(null, null, null);
+    }
+
+    /**
+     * Whether the rooms of the space are indexed (seeded, or seeded before a
+     * restart)
+     */
+    public boolean isSeeded(String spaceId) {
+        ensureLoaded();
+        return seededSpaces.contains(spaceId);
+    }
+
+    /**
+     * Indexes all the rooms of a space (roomId -> name), and marks it as
+     * seeded
+     */
+    public synchronized void seed(String spaceId, Map<String, String> roomNames) {
+        ensureLoaded();
+        List<MatrixRoomIndexEntity> changed = new ArrayList<>();
+        roomNames.forEach((roomId, name) -> {
+            MatrixRoomIndexEntity entity = apply(roomId,
+                    room -> new IndexedRoom(spaceId, name != null ? name : room.name(), room.dmUserId()));
+            if (entity != null) {
+                changed.add(entity);
+            }
+        });
+        seededSpaces.add(spaceId);
+        persist(changed);
+        try {
+            seedRepository.save(MatrixSpaceIndexSeedEntity.builder().spaceId(spaceId).build());
+        } catch (Exception e) {
+            // Seeded again after a restart
+            log.warn("Failed to persist the seed of space {}: {}", spaceId, e.getMessage());
+        }
+        log.info("Indexed {} rooms of space {} ({} changed)", roomNames.size(), spaceId, changed.size());
+    }
+
+    /**
+     * Whether the room was seen (in a space or not)
+     */
+    public boolean isKnown(String roomId) {
+        ensureLoaded();
+        return rooms.containsKey(roomId);
+    }
+
+    public Optional<IndexedRoom> getRoom(String roomId) {
+        ensureLoaded();
+        return Optional.ofNullable(rooms.get(roomId));
+    }
+
+    public boolean belongsToSpace(String roomId, String spaceId) {
+        ensureLoaded();
+        IndexedRoom room = rooms.get(roomId);
+        return room != null && spaceId.equals(room.spaceId());
+    }
+
+    /**
+     * Room of a space by name (case-insensitive)
+     */
+    public Optional<String> findRoomByName(String spaceId, String roomName) {
+        ensureLoaded();
+        Map<String, String> byName = roomsBySpace.get(spaceId);
+        if (byName == null || roomName == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byName.get(roomName.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Named rooms of a space (name -> roomId)
+     */
+    public Map<String, String> getRoomsInSpace(String spaceId) {
+        ensureLoaded();
+        Map<String, String> result = new HashMap<>();
+        Map<String, String> byName = roomsBySpace.get(spaceId);
+        if (byName != null) {
+            for (String roomId : byName.values()) {
+                IndexedRoom room = rooms.get(roomId);
+                if (room != null && room.name() != null) {
+                    result.put(room.name(), roomId);
+                }
+            }
+        }
+        return result;
+    }
+
+    public Optional<String> findDmRoom(String userId) {
+        ensureLoaded();
+        return Optional.ofNullable(dmRooms.get(userId));
+    }
+
+    /**
+     * Records a room of a space. A null name keeps the known one.
+     */
+    public void putRoom(String roomId, String spaceId, String name) {
+        update(roomId, room -> new IndexedRoom(spaceId, name != null ? name : room.name(), room.dmUserId()));
+    }
+
+    /**
+     * Records the DM room of the assistant with a user
+     */
+    public void putDmRoom(String userId, String roomId) {
+        String previous = dmRooms.get(userId);
+        if (previous != null && !previous.equals(roomId)) {
+            update(previous, room -> new IndexedRoom(room.spaceId(), room.name(), null));
+        }
+        update(roomId, room -> new IndexedRoom(room.spaceId(), room.name(), userId));
+    }
+
+    /**
+     * Applies the state events of a room received by sync
+     */
+    @SuppressWarnings("unchecked")
+    public void applyStateEvents(String roomId, List<Map<String, Object>> events) {
+        if (events == null) {
+            return;
+        }
+        List<Map<String, Object>> stateEvents = events.stream()
+                .filter(event -> event.get("state_key") instanceof String
+                        && INDEXED_STATE_TYPES.contains(event.get("type")))
+                .toList();
+        if (stateEvents.isEmpty()) {
+            return;
+        }
+        if (!isKnown(roomId) && stateEvents.stream().noneMatch(event -> "m.space.parent".equals(event.get("type")))) {
+            // Partial state of a room never seen: its parent is still unknown
+            return;
+        }
+        update(roomId, room -> {
+            IndexedRoom updated = room;
+            for (Map<String, Object> event : stateEvents) {
+                Object type = event.get("type");
+                String key = (String) event.get("state_key");
+                Map<String, Object> content = event.get("content") instanceof Map
+                        ? (Map<String, Object>) event.get("content")
+                        : Map.of();
+                if ("m.space.parent".equals(type)) {
+                    if (!content.isEmpty()) {
+                        updated = new IndexedRoom(key, updated.name(), updated.dmUserId());
+                    } else if (key.equals(updated.spaceId())) {
+                        // Empty content removes the link
+                        updated = new IndexedRoom(null, updated.name(), updated.dmUserId());
+                    }
+                } else if ("m.room.name".equals(type) && key.isEmpty()) {
+                    Object name = content.get("name");
+                    updated = new IndexedRoom(updated.spaceId(), name != null ? name.toString() : null,
+                            updated.dmUserId());
+                } else if ("m.room.member".equals(type) && updated.dmUserId() != null) {
+                    Object membership = content.get("membership");
+                    if ("leave".equals(membership) || "ban".equals(membership)) {
+                        // A DM needs both members
+                        updated = new IndexedRoom(updated.spaceId(), updated.name(), null);
+                    }
+                }
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Forgets a room the assistant left
+     */
+    public synchronized void removeRoom(String roomId) {
+        ensureLoaded();
+        IndexedRoom room = rooms.remove(roomId);
+        if (room == null) {
+            return;
+        }
+        unlink(roomId, room);
+        try {
+            roomIndexRepository.deleteById(roomId);
+        } catch (Exception e) {
+            log.warn("Failed to remove room {} from the room index: {}", roomId, e.getMessage());
+        }
+    }
+
+    private synchronized void update(String roomId, UnaryOperator<IndexedRoom> change) {
+        ensureLoaded();
+        MatrixRoomIndexEntity entity = apply(roomId, change);
+        if (entity != null) {
+            persist(List.of(entity));
+        }
+    }
+
+    /**
+     * Applies a change in memory
+     *
+     * @return the entity to persist, null if nothing changed
+     */
+    private MatrixRoomIndexEntity apply(String roomId, UnaryOperator<IndexedRoom> change) {
+        IndexedRoom previous = rooms.get(roomId);
+        IndexedRoom updated = change.apply(previous != null ? previous : IndexedRoom.NONE);
+        if (previous != null && previous.equals(updated)) {
+            return null;
+        }
+        if (previous != null) {
+            unlink(roomId, previous);
+        }
+        rooms.put(roomId, updated);
+        link(roomId, updated);
+        return MatrixRoomIndexEntity.builder()
+                .roomId(roomId)
+                .spaceId(updated.spaceId())
+                .name(updated.name())
+                .dmUserId(updated.dmUserId())
+                .build();
+    }
+
+    private void link(String roomId, IndexedRoom room) {
+        if (room.spaceId() != null) {
+            Map<String, String> byName = roomsBySpace.computeIfAbsent(room.spaceId(),
+                    k -> new ConcurrentHashMap<>());
+            // Unnamed rooms are still listed, under their id
+            byName.put(key(roomId, room), roomId);
+        }
+        if (room.dmUserId() != null) {
+            dmRooms.put(room.dmUserId(), roomId);
+        }
+    }
+
+    private void unlink(String roomId, IndexedRoom room) {
+        if (room.spaceId() != null) {
+            Map<String, String> byName = roomsBySpace.get(room.spaceId());
+            if (byName != null) {
+                byName.remove(key(roomId, room), roomId);
+            }
+        }
+        if (room.dmUserId() != null) {
+            dmRooms.remove(room.dmUserId(), roomId);
+        }
+    }
+
+    private static String key(String roomId, IndexedRoom room) {
+        return Objects.requireNonNullElse(room.name(), roomId).toLowerCase(Locale.ROOT);
+    }
+
+    private void persist(List<MatrixRoomIndexEntity> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        try {
+            roomIndexRepository.saveAll(entities);
+        } catch (Exception e) {
+            // The in-memory index stays usable, the next change or seed persists it again
+            log.warn("Failed to persist {} room index entries: {}", entities.size(), e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                int count = 0;
+                for (MatrixRoomIndexEntity entity : roomIndexRepository.findAll()) {
+                    IndexedRoom room = new IndexedRoom(entity.getSpaceId(), entity.getName(), entity.getDmUserId());
+                    rooms.put(entity.getRoomId(), room);
+                    link(entity.getRoomId(), room);
+                    count++;
+                }
+                // Rooms of a space may come from sync alone: only an explicit seed marks it complete
+                for (MatrixSpaceIndexSeedEntity seed : seedRepository.findAll()) {
+                    seededSpaces.add(seed.getSpaceId());
+                }
+                log.info("Loaded {} rooms of {} seeded spaces from the room index", count, seededSpaces.size());
+            } catch (Exception e) {
+                log.warn("Failed to load the room index, spaces will be seeded again: {}", e.getMessage());
+            }
+            loaded = true;
+        }
+    }
+}
@@ -14,6 +14,9 @@ import org.springframework.web.util.UriComponentsBuilder;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantLLMJudgeService;
 import com.neohoods.portal.platform.assistant.services.MatrixReactionEvaluationService;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAdminCommandService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantMetricsService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantStreamingService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantStreamingService.ProgressiveReply;
 import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAuthContextService;
 import com.neohoods.portal.platform.assistant.MatrixAssistantMessageHandler;
@@ -58,6 +61,17 @@ public class MatrixSyncService {
     @Autowired(required = false)
     private MatrixReactionEvaluationService reactionEvaluationService;
 
+    @Autowired(required = false)
+    private MatrixAssistantMetricsService metricsService = MatrixAssistantMetricsService.NOOP;
+
+    // Optional: streamed replies (only available if AI is enabled)
+    @Autowired(required = false)
+    private MatrixAssistantStreamingService streamingService;
+
+    // Optional: room index, kept up to date from the synced room state
+    @Autowired(required = false)
+    private MatrixSpaceIndex spaceIndex;
+
     @Value("${neohoods.portal.matrix.homeserver-url}")
     private String homeserverUrl;
 
@@ -122,6 +136,13 @@ public class MatrixSyncService {
             @SuppressWarnings("unchecked")
             Map<String, Object> rooms = (Map<String, Object>) syncData.get("rooms");
             if (rooms != null) {
+                // The initial sync carries the full state of joined rooms
+                if (rooms.get("join") instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> joinedRooms = (Map<String, Object>) rooms.get("join");
+                    joinedRooms.forEach(this::indexRoomState);
+                }
+
                 @SuppressWarnings("unchecked")
                 Map<String, Object> invitedRooms = (Map<String, Object>) rooms.get("invite");
                 if (invitedRooms != null && !invitedRooms.isEmpty()) {
@@ -175,7 +196,14 @@ public class MatrixSyncService {
             try {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> syncData = matrixAssistantService.performSync(syncUrl, accessTokenOpt.get());
-                if (syncData != null) {
+                if (syncData != null && syncData.get("rooms") != null) {
+                    // Only syncs carrying room events are timed, idle long-polls would flatten p50
+                    metricsService.observe(MatrixAssistantMetricsService.SYNC_RECEIVE, Map.of(), result -> Map.of(),
+                            () -> {
+                                processSyncResponse(syncData);
+                                return null;
+                            });
+                } else if (syncData != null) {
                     processSyncResponse(syncData);
                 }
             } catch (Exception e) {
@@ -264,8 +292,31 @@ public class MatrixSyncService {
         // Process left rooms (for cleanup if needed)
         Object leaveObj = rooms.get("leave");
         if (leaveObj instanceof Map) {
-            // Could handle left rooms here if needed
             log.debug("Found left rooms in sync response");
+            if (spaceIndex != null) {
+                ((Map<String, Object>) leaveObj).keySet().forEach(spaceIndex::removeRoom);
+            }
+        }
+    }
+
+    /**
+     * Feed the state events of a joined room (state block and state events of
+     * the timeline) to the room index
+     */
+    @SuppressWarnings("unchecked")
+    private void indexRoomState(String roomId, Object roomDataObj) {
+        if (spaceIndex == null || !(roomDataObj instanceof Map)) {
+            return;
+        }
+        Map<String, Object> roomData = (Map<String, Object>) roomDataObj;
+        for (String section : List.of("state", "timeline")) {
+            if (roomData.get(section) instanceof Map<?, ?> block && block.get("events") instanceof List<?> events) {
+                try {
+                    spaceIndex.applyStateEvents(roomId, (List<Map<String, Object>>) events);
+                } catch (Exception e) {
+                    log.warn("Failed to index state of room {}: {}", roomId, e.getMessage());
+                }
+            }
         }
     }
 
@@ -400,6 +451,8 @@ public class MatrixSyncService {
                 continue;
             }
 
+            indexRoomState(roomId, roomData);
+
             // For joined rooms, extract timeline events (messages)
             Object timelineObj = roomData.get("timeline");
             if (timelineObj instanceof Map) {
@@ -629,14 +682,18 @@ public class MatrixSyncService {
             final String userIdForEvaluation = sender;
             final String roomIdForEvaluation = roomId;
 
+            // Answer tokens are posted and edited in place while they are generated
+            final ProgressiveReply reply = streamingService != null ? streamingService.open(roomId) : null;
+
             messageHandler.handleMessage(roomId, sender, messageBody, isDirectMessage)
+                    .contextWrite(context -> reply != null ? context.put(ProgressiveReply.class, reply) : context)
                     .subscribe(
                             response -> {
                                 // Stop typing indicator before sending response
                                 matrixAssistantService.sendTypingIndicator(roomId, false, 0);
                                 if (response != null && !response.isEmpty()) {
                                     try {
-                                        sendMessage(roomId, response);
+                                        sendReply(roomId, response, reply);
                                         log.info("Sent AI response to room {}", roomId);
 
                                         // Trigger LLM-as-a-Judge evaluation asynchronously
@@ -667,10 +724,16 @@ public class MatrixSyncService {
                                     Locale locale = getLocaleForUser(sender);
                                     String errorMessage = messageSource.getMessage("matrix.error.generic", null,
                                             locale);
-                                    sendMessage(roomId, errorMessage);
+                                    sendReply(roomId, errorMessage, reply);
                                 } catch (Exception e) {
                                     log.error("Failed to send error response", e);
                                 }
+                            },
+                            () -> {
+                                // Stop pending edits if the handler produced no answer
+                                if (reply != null) {
+                                    reply.complete(null);
+                                }
                             });
         } else {
             // Fallback: simple hello response if AI handler not available
@@ -782,6 +845,20 @@ public class MatrixSyncService {
         }
     }
 
+    /**
+     * Sends the final answer, as an edit of the streamed message when part of it
+     * has already been posted
+     */
+    private void sendReply(String roomId, String message, ProgressiveReply reply) {
+        if (reply == null || !reply.complete(message)) {
+            sendMessage(roomId, message);
+            return;
+        }
+        if (conversationContextService != null) {
+            conversationContextService.addAssistantResponse(roomId, message);
+        }
+    }
+
     /**
      * Gets locale for a Matrix user (defaults to English)
      */
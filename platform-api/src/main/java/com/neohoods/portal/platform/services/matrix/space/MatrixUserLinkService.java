@@ -0,0 +1,178 @@
+package com.neohoods.portal.platform.services.matrix.space;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.neohoods.portal.platform.entities.MatrixUserLinkEntity;
+import com.neohoods.portal.platform.mas.ApiClient;
+import com.neohoods.portal.platform.mas.api.UpstreamOauthLinkApi;
+import com.neohoods.portal.platform.mas.model.IncludeCount;
+import com.neohoods.portal.platform.mas.model.PaginatedResponseForUpstreamOAuthLink;
+import com.neohoods.portal.platform.mas.model.SingleResourceForUpstreamOAuthLink;
+import com.neohoods.portal.platform.repositories.MatrixUserLinkRepository;
+import com.neohoods.portal.platform.services.matrix.oauth2.MatrixOAuth2Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persisted Auth0 subject -> MAS user index (matrix_user_links).
+ *
+ * Rows are written when users are provisioned or linked, and a periodic
+ * reconciliation only lists the upstream OAuth links created since the last
+ * one it saw, so provisioning looks users up with one indexed query instead of
+ * rescanning every MAS user and their links.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = { "neohoods.portal.matrix.enabled" }, havingValue = "true", matchIfMissing = false)
+public class MatrixUserLinkService {
+
+    private final MatrixUserLinkRepository linkRepository;
+    private final MatrixOAuth2Service oauth2Service;
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    @Value("${neohoods.portal.matrix.disabled}")
+    private boolean disabled;
+
+    @Value("${neohoods.portal.matrix.mas.url}")
+    private String masUrl;
+
+    @Value("${neohoods.portal.matrix.mas.auth0-provider-id}")
+    private String auth0ProviderId;
+
+    @Value("${neohoods.portal.matrix.mas.link-reconciliation.page-size:100}")
+    private int pageSize = 100;
+
+    /**
+     * Link of an already provisioned portal user
+     */
+    public Optional<MatrixUserLinkEntity> findByUserId(UUID userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return linkRepository.findFirstByUserId(userId);
+    }
+
+    /**
+     * Link of an Auth0 subject
+     */
+    public Optional<MatrixUserLinkEntity> findBySubject(String auth0Subject) {
+        if (auth0Subject == null || auth0Subject.isEmpty()) {
+            return Optional.empty();
+        }
+        return linkRepository.findById(auth0Subject);
+    }
+
+    /**
+     * Records (or completes) the link of an Auth0 subject. Null values keep
+     * what is already known.
+     */
+    public void record(String auth0Subject, String masUserId, String matrixUsername, UUID userId) {
+        upsert(auth0Subject, masUserId, matrixUsername, userId, null);
+    }
+
+    /**
+     * Indexes the upstream OAuth links created since the last reconciliation.
+     * Link ids are ULIDs, so MAS pages them in creation order and the last
+     * one seen is the cursor. The first run (empty table) lists every link.
+     *
+     * @return number of links indexed
+     */
+    @Scheduled(initialDelayString = "${neohoods.portal.matrix.mas.link-reconciliation.initial-delay-ms:60000}", fixedDelayString = "${neohoods.portal.matrix.mas.link-reconciliation.interval-ms:900000}")
+    public int reconcile() {
+        if (disabled || !reconciling.compareAndSet(false, true)) {
+            return 0;
+        }
+        int indexed = 0;
+        try {
+            Optional<ApiClient> masClientOpt = oauth2Service.getMASApiClient(masUrl);
+            if (masClientOpt.isEmpty()) {
+                log.warn("No admin access token for reconciling Matrix user links");
+                return 0;
+            }
+            UpstreamOauthLinkApi upstreamOauthLinkApi = new UpstreamOauthLinkApi(masClientOpt.get());
+            // filterProvider must be a ULID, not a string like "auth0"
+            String filterProvider = (auth0ProviderId != null && auth0ProviderId.length() == 26)
+                    ? auth0ProviderId
+                    : null;
+            String pageAfter = linkRepository.findLastMasLinkId().orElse(null);
+            while (true) {
+                PaginatedResponseForUpstreamOAuthLink linksResponse = upstreamOauthLinkApi.listUpstreamOAuthLinks(
+                        null, // pageBefore
+                        pageAfter, // pageAfter
+                        pageSize, // pageFirst
+                        null, // pageLast
+                        new IncludeCount("false"), // count
+                        null, // filterUser
+                        filterProvider, // filterProvider - must be ULID or null
+                        null // filterSubject
+                );
+                if (linksResponse == null || linksResponse.getData() == null || linksResponse.getData().isEmpty()) {
+                    break;
+                }
+                List<SingleResourceForUpstreamOAuthLink> links = linksResponse.getData();
+                for (SingleResourceForUpstreamOAuthLink linkResource : links) {
+                    pageAfter = linkResource.getId();
+                    if (linkResource.getAttributes() == null || linkResource.getAttributes().getSubject() == null
+                            || linkResource.getAttributes().getUserId() == null) {
+                        continue;
+                    }
+                    upsert(linkResource.getAttributes().getSubject(), linkResource.getAttributes().getUserId(), null,
+                            null, linkResource.getId());
+                    indexed++;
+                }
+                if (links.size() < pageSize) {
+                    break;
+                }
+            }
+            if (indexed > 0) {
+                log.info("Indexed {} new MAS upstream OAuth links", indexed);
+            }
+        } catch (Exception e) {
+            log.error("Error reconciling Matrix user links", e);
+        } finally {
+            reconciling.set(false);
+        }
+        return indexed;
+    }
+
+    private void upsert(String auth0Subject, String masUserId, String matrixUsername, UUID userId, String masLinkId) {
+        try {
+            save(auth0Subject, masUserId, matrixUsername, userId, masLinkId);
+        } catch (DataIntegrityViolationException e) {
+            // Inserted concurrently (provisioning vs. reconciliation): update it
+            save(auth0Subject, masUserId, matrixUsername, userId, masLinkId);
+        }
+    }
+
+    private void save(String auth0Subject, String masUserId, String matrixUsername, UUID userId, String masLinkId) {
+        MatrixUserLinkEntity link = linkRepository.findById(auth0Subject)
+                .orElseGet(() -> MatrixUserLinkEntity.builder().auth0Subject(auth0Subject).build());
+        if (link.getMasUserId() != null && !link.getMasUserId().equals(masUserId)) {
+            // Subject moved to another MAS user: what we knew is stale
+            link.setMatrixUsername(null);
+        }
+        link.setMasUserId(masUserId);
+        if (matrixUsername != null) {
+            link.setMatrixUsername(matrixUsername);
+        }
+        if (userId != null) {
+            link.setUserId(userId);
+        }
+        if (masLinkId != null) {
+            link.setMasLinkId(masLinkId);
+        }
+        linkRepository.save(link);
+    }
+}
@@ -1,7 +1,6 @@
 package com.neohoods.portal.platform.services.matrix.space;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -16,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.neohoods.portal.platform.entities.MatrixUserLinkEntity;
 import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.mas.api.UserApi;
 import com.neohoods.portal.platform.mas.api.UserEmailApi;
@@ -23,11 +23,8 @@ import com.neohoods.portal.platform.mas.api.UpstreamOauthLinkApi;
 import com.neohoods.portal.platform.mas.model.AddUserRequest;
 import com.neohoods.portal.platform.mas.model.AddUserEmailRequest;
 import com.neohoods.portal.platform.mas.model.AddUpstreamOauthLinkRequest;
-import com.neohoods.portal.platform.mas.model.PaginatedResponseForUser;
 import com.neohoods.portal.platform.mas.model.PaginatedResponseForUserEmail;
 import com.neohoods.portal.platform.mas.model.PaginatedResponseForUpstreamOAuthLink;
-import com.neohoods.portal.platform.mas.model.SingleResourceForUser;
-import com.neohoods.portal.platform.mas.model.SingleResourceForUpstreamOAuthLink;
 import com.neohoods.portal.platform.mas.model.SingleResourceForUserEmail;
 import com.neohoods.portal.platform.mas.model.IncludeCount;
 import com.neohoods.portal.platform.mas.model.SingleResponseForUser;
@@ -50,6 +47,7 @@ public class MatrixUserService {
     private final MatrixOAuth2Service oauth2Service;
     private final RestTemplate restTemplate;
     private final Auth0Service auth0Service;
+    private final MatrixUserLinkService userLinkService;
 
     @Value("${neohoods.portal.matrix.disabled}")
     private boolean disabled;
@@ -69,9 +67,6 @@ public class MatrixUserService {
     @Value("${neohoods.portal.matrix.mas.auth0-provider-id}")
     private String auth0ProviderId;
 
-    // Cache for Auth0 subject -> MAS user ID mapping (lazy loaded)
-    private Map<String, String> auth0SubjectToMasUserIdCache = null;
-
     /**
      * Get MAS API client configured with admin access token (client credentials flow)
      * Delegates to MatrixOAuth2Service
@@ -86,208 +81,145 @@ public class MatrixUserService {
     }
 
     /**
-     * Load all existing MAS users and build Auth0 subject -> MAS user ID cache
-     * This includes checking upstream OAuth links (Auth0) for each user
+     * Matrix user lookup result
+     *
+     * @param auth0Subject Auth0 subject of the portal user, if known
+     * @param masUserId    MAS user ID, if the user exists
+     * @param userId       Matrix user ID (e.g. "@username:server.com"), if the
+     *                     user exists
      */
-    private synchronized Map<String, String> loadExistingMasUsers() {
-        if (auth0SubjectToMasUserIdCache != null) {
-            return auth0SubjectToMasUserIdCache;
+    private record MatrixUserLookup(String auth0Subject, String masUserId, String userId) {
+        boolean found() {
+            return masUserId != null && userId != null;
         }
+    }
 
-        Map<String, String> cache = new HashMap<>();
+    /**
+     * Get the Auth0 subject (user_id) of an email
+     */
+    private String fetchAuth0Subject(String email) {
+        if (email == null || email.isEmpty()) {
+            return null;
+        }
         try {
-            Optional<com.neohoods.portal.platform.mas.ApiClient> masClientOpt = getMASAccessToken();
-            if (masClientOpt.isEmpty()) {
-                log.warn("No admin access token for loading existing MAS users");
-                return cache;
+            Map<String, Object> auth0User = auth0Service.getUserDetails(email).block();
+            if (auth0User != null && auth0User.get("user_id") != null) {
+                String auth0Subject = (String) auth0User.get("user_id");
+                log.debug("Found Auth0 subject for email {}: {}", email, auth0Subject);
+                return auth0Subject;
             }
+        } catch (Exception e) {
+            log.debug("Failed to get Auth0 user details for email {}: {}", email, e.getMessage());
+        }
+        return null;
+    }
 
-            com.neohoods.portal.platform.mas.ApiClient masClient = masClientOpt.get();
-            UserApi userApi = new UserApi(masClient);
-            UpstreamOauthLinkApi upstreamOauthLinkApi = new UpstreamOauthLinkApi(masClient);
-
-            // Load all users (paginated)
-            String pageAfter = null;
-            int pageSize = 100;
-            int totalUsers = 0;
-
-            do {
-                // Create IncludeCount with false to avoid including count (faster)
-                IncludeCount count = new IncludeCount("false");
-                PaginatedResponseForUser usersResponse = userApi.listUsers(
-                        null, // pageBefore
-                        pageAfter, // pageAfter
-                        pageSize, // pageFirst
-                        null, // pageLast
-                        count, // count - use false to avoid counting total items
-                        null, // filterAdmin
-                        null, // filterLegacyGuest
-                        null, // filterSearch
-                        null // filterStatus
-                );
-
-                if (usersResponse == null || usersResponse.getData() == null) {
-                    break;
-                }
-
-                List<SingleResourceForUser> users = usersResponse.getData();
-                totalUsers += users.size();
+    /**
+     * Find the Matrix user of a portal user.
+     * Uses the matrix_user_links index first (by portal user, then by Auth0
+     * subject), then falls back to the username.
+     *
+     * @param user    UserEntity containing user information
+     * @param indexed Link already found for the portal user, if any
+     * @param userApi MAS user API
+     */
+    private MatrixUserLookup lookupUser(UserEntity user, Optional<MatrixUserLinkEntity> indexed, UserApi userApi) {
+        String username = user.getUsername().toLowerCase().replaceAll("[^a-z0-9_]", "_");
 
-                // For each user, get their upstream OAuth links (Auth0)
-                for (SingleResourceForUser userResource : users) {
-                    String masUserId = userResource.getId();
+        // Auth0 is only asked for users never provisioned from the portal
+        Optional<MatrixUserLinkEntity> link = indexed;
+        String auth0Subject;
+        if (link.isPresent()) {
+            auth0Subject = link.get().getAuth0Subject();
+        } else {
+            auth0Subject = fetchAuth0Subject(user.getEmail());
+            link = userLinkService.findBySubject(auth0Subject);
+        }
 
-                    // Get upstream OAuth links (Auth0)
-                    try {
-                        IncludeCount countForLinks = new IncludeCount("false");
-                        // filterProvider must be a ULID, not a string like "auth0"
-                        // If auth0ProviderId is not a valid ULID (26 chars), pass null
-                        String filterProvider = (auth0ProviderId != null && auth0ProviderId.length() == 26) 
-                                ? auth0ProviderId 
-                                : null;
-                        PaginatedResponseForUpstreamOAuthLink linksResponse = upstreamOauthLinkApi
-                                .listUpstreamOAuthLinks(
-                                        null, // pageBefore
-                                        null, // pageAfter
-                                        100, // pageFirst
-                                        null, // pageLast
-                                        countForLinks, // count - use false to avoid counting total items
-                                        masUserId, // filterUser
-                                        filterProvider, // filterProvider - must be ULID or null
-                                        null // filterSubject
-                                );
-
-                        if (linksResponse != null && linksResponse.getData() != null) {
-                            for (SingleResourceForUpstreamOAuthLink linkResource : linksResponse.getData()) {
-                                if (linkResource.getAttributes() != null
-                                        && linkResource.getAttributes().getSubject() != null) {
-                                    String subject = linkResource.getAttributes().getSubject();
-                                    cache.put(subject, masUserId);
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to get upstream OAuth links for user {}: {}", masUserId, e.getMessage());
+        // Check if user with same Auth0 subject already exists
+        if (link.isPresent()) {
+            MatrixUserLinkEntity existing = link.get();
+            String existingUsername = existing.getMatrixUsername();
+            if (existingUsername == null) {
+                // Indexed by reconciliation, which does not fetch usernames
+                try {
+                    SingleResponseForUser existingUserResponse = userApi.getUser(existing.getMasUserId());
+                    if (existingUserResponse != null && existingUserResponse.getData() != null) {
+                        existingUsername = existingUserResponse.getData().getAttributes().getUsername();
                     }
+                } catch (Exception e) {
+                    log.debug("Failed to get existing user details for MAS ID {}: {}", existing.getMasUserId(),
+                            e.getMessage());
                 }
-
-                // Check if there are more pages
-                if (usersResponse.getLinks() != null && usersResponse.getLinks().getNext() != null) {
-                    // Extract pageAfter from next link if available
-                    // For now, we'll use a simple approach: if we got less than pageSize, we're done
-                    if (users.size() < pageSize) {
-                        break;
-                    }
-                    // Otherwise, we need to extract the cursor from the last user
-                    if (!users.isEmpty()) {
-                        pageAfter = users.get(users.size() - 1).getId();
-                    } else {
-                        break;
-                    }
-                } else {
-                    break;
+            }
+            if (existingUsername != null) {
+                if (existing.getMatrixUsername() == null || existing.getUserId() == null) {
+                    recordLink(auth0Subject, existing.getMasUserId(), existingUsername, user);
                 }
-            } while (true);
+                String userId = "@" + existingUsername + ":" + serverName;
+                log.debug("Found existing Matrix user by Auth0 subject {}: {} (MAS ID: {})", auth0Subject, userId,
+                        existing.getMasUserId());
+                return new MatrixUserLookup(auth0Subject, existing.getMasUserId(), userId);
+            }
+        }
 
-            log.info("Loaded {} MAS users and built Auth0 subject cache with {} entries", totalUsers, cache.size());
-            auth0SubjectToMasUserIdCache = cache;
-            return cache;
+        // Check if user with same username already exists
+        try {
+            SingleResponseForUser existingUserByUsername = userApi.getUserByUsername(username);
+            if (existingUserByUsername != null && existingUserByUsername.getData() != null) {
+                String masUserId = existingUserByUsername.getData().getId();
+                String existingUsername = existingUserByUsername.getData().getAttributes().getUsername();
+                String userId = "@" + existingUsername + ":" + serverName;
+                log.debug("Found existing Matrix user by username {}: {} (MAS ID: {})", username, userId,
+                        masUserId);
+                return new MatrixUserLookup(auth0Subject, masUserId, userId);
+            }
         } catch (Exception e) {
-            log.error("Error loading existing MAS users", e);
-            return cache;
+            log.debug("Error checking for existing user by username {}: {}", username, e.getMessage());
         }
+
+        return new MatrixUserLookup(auth0Subject, null, null);
     }
 
     /**
-     * Find existing MAS user by Auth0 subject
-     * 
-     * @param auth0Subject Auth0 subject (user_id) to search for
-     * @return Optional containing MAS user ID if found
+     * Record a subject -> MAS user link, without failing the provisioning
      */
-    private Optional<String> findExistingMasUserByAuth0Subject(String auth0Subject) {
-        if (auth0Subject == null || auth0Subject.isEmpty()) {
-            return Optional.empty();
+    private void recordLink(String auth0Subject, String masUserId, String matrixUsername, UserEntity user) {
+        try {
+            userLinkService.record(auth0Subject, masUserId, matrixUsername, user.getId());
+        } catch (Exception e) {
+            log.warn("Failed to record Matrix user link for subject {}: {}", auth0Subject, e.getMessage());
         }
-
-        Map<String, String> cache = loadExistingMasUsers();
-        String masUserId = cache.get(auth0Subject);
-        return Optional.ofNullable(masUserId);
     }
 
     /**
      * Find an existing Matrix user by UserEntity
-     * Checks Auth0 subject first, then username
+     * Checks the portal user and Auth0 subject links first, then username
      * 
      * @param user UserEntity containing user information
      * @return Optional containing the Matrix user ID if found, empty otherwise
      */
     public Optional<String> findUserInMatrix(UserEntity user) {
-        // Extract information from UserEntity
-        String username = user.getUsername().toLowerCase().replaceAll("[^a-z0-9_]", "_");
-        String email = user.getEmail();
+        if (disabled) {
+            log.debug("Matrix bot is disabled");
+            return Optional.empty();
+        }
 
         try {
+            // Already provisioned: one indexed query
+            Optional<MatrixUserLinkEntity> indexed = userLinkService.findByUserId(user.getId());
+            if (indexed.isPresent() && indexed.get().getMatrixUsername() != null) {
+                return Optional.of("@" + indexed.get().getMatrixUsername() + ":" + serverName);
+            }
+
             Optional<com.neohoods.portal.platform.mas.ApiClient> masClientOpt = getMASAccessToken();
             if (masClientOpt.isEmpty()) {
                 log.warn("No admin access token for finding Matrix user via MAS");
                 return Optional.empty();
             }
 
-            com.neohoods.portal.platform.mas.ApiClient masClient = masClientOpt.get();
-            UserApi userApi = new UserApi(masClient);
-
-            String auth0Subject = null;
-
-            // Get Auth0 subject from email first (if email is provided)
-            if (email != null && !email.isEmpty()) {
-                try {
-                    Map<String, Object> auth0User = auth0Service.getUserDetails(email).block();
-                    if (auth0User != null && auth0User.get("user_id") != null) {
-                        auth0Subject = (String) auth0User.get("user_id");
-                        log.debug("Found Auth0 subject for email {}: {}", email, auth0Subject);
-                    }
-                } catch (Exception e) {
-                    log.debug("Failed to get Auth0 user details for email {}: {}", email, e.getMessage());
-                }
-            }
-
-            // Check if user with same Auth0 subject already exists
-            if (auth0Subject != null && !auth0Subject.isEmpty()) {
-                Optional<String> existingMasUserIdOpt = findExistingMasUserByAuth0Subject(auth0Subject);
-                if (existingMasUserIdOpt.isPresent()) {
-                    String masUserId = existingMasUserIdOpt.get();
-                    // Get the user to find the username
-                    try {
-                        SingleResponseForUser existingUserResponse = userApi.getUser(masUserId);
-                        if (existingUserResponse != null && existingUserResponse.getData() != null) {
-                            String existingUsername = existingUserResponse.getData().getAttributes().getUsername();
-                            String userId = "@" + existingUsername + ":" + serverName;
-                            log.debug("Found existing Matrix user by Auth0 subject {}: {} (MAS ID: {})", auth0Subject,
-                                    userId, masUserId);
-                            return Optional.of(userId);
-                        }
-                    } catch (Exception e) {
-                        log.debug("Failed to get existing user details for MAS ID {}: {}", masUserId, e.getMessage());
-                    }
-                }
-            }
-
-            // Check if user with same username already exists
-            try {
-                SingleResponseForUser existingUserByUsername = userApi.getUserByUsername(username);
-                if (existingUserByUsername != null && existingUserByUsername.getData() != null) {
-                    String masUserId = existingUserByUsername.getData().getId();
-                    String existingUsername = existingUserByUsername.getData().getAttributes().getUsername();
-                    String userId = "@" + existingUsername + ":" + serverName;
-                    log.debug("Found existing Matrix user by username {}: {} (MAS ID: {})", username, userId,
-                            masUserId);
-                    return Optional.of(userId);
-                }
-            } catch (Exception e) {
-                log.debug("Error checking for existing user by username {}: {}", username, e.getMessage());
-            }
-
-            return Optional.empty();
+            MatrixUserLookup lookup = lookupUser(user, indexed, new UserApi(masClientOpt.get()));
+            return Optional.ofNullable(lookup.userId());
         } catch (Exception e) {
             log.warn("Error finding user in Matrix: {}", e.getMessage());
             return Optional.empty();
@@ -314,14 +246,6 @@ public class MatrixUserService {
         String email = user.getEmail();
         String displayName = buildDisplayName(user);
         try {
-            // First, try to find existing user
-            Optional<String> existingUserId = findUserInMatrix(user);
-            if (existingUserId.isPresent()) {
-                log.info("User already exists in Matrix: {}", existingUserId.get());
-                // Still need to ensure email and upstream link are set
-                // This will be handled below
-            }
-
             // Use MAS API to create user
             Optional<com.neohoods.portal.platform.mas.ApiClient> masClientOpt = getMASAccessToken();
             if (masClientOpt.isEmpty()) {
@@ -333,37 +257,17 @@ public class MatrixUserService {
             log.info("Using MAS API client with base path: {}", masClient.getBaseUri());
             UserApi userApi = new UserApi(masClient);
 
-            String masUserId = null;
-            String userId = null;
-            boolean userAlreadyExists = existingUserId.isPresent();
-            String auth0Subject = null;
-
-            // Get Auth0 subject from email (needed for upstream OAuth link)
-            if (email != null && !email.isEmpty()) {
-                try {
-                    Map<String, Object> auth0User = auth0Service.getUserDetails(email).block();
-                    if (auth0User != null && auth0User.get("user_id") != null) {
-                        auth0Subject = (String) auth0User.get("user_id");
-                        log.debug("Found Auth0 subject for email {}: {}", email, auth0Subject);
-                    }
-                } catch (Exception e) {
-                    log.debug("Failed to get Auth0 user details for email {}: {}", email, e.getMessage());
-                }
-            }
+            // First, try to find existing user (also resolves the Auth0 subject,
+            // needed for upstream OAuth link)
+            MatrixUserLookup existing = lookupUser(user, userLinkService.findByUserId(user.getId()), userApi);
+            boolean userAlreadyExists = existing.found();
+            String auth0Subject = existing.auth0Subject();
+            String masUserId = existing.masUserId();
+            String userId = existing.userId();
 
             if (userAlreadyExists) {
-                // User exists, extract masUserId from existing userId
-                userId = existingUserId.get();
-                // Extract username from userId (format: @username:server)
-                String existingUsername = userId.substring(1, userId.indexOf(":"));
-                try {
-                    SingleResponseForUser existingUserResponse = userApi.getUserByUsername(existingUsername);
-                    if (existingUserResponse != null && existingUserResponse.getData() != null) {
-                        masUserId = existingUserResponse.getData().getId();
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to get MAS user ID for existing user {}: {}", userId, e.getMessage());
-                }
+                log.info("User already exists in Matrix: {}", userId);
+                // Still need to ensure email is set
             } else {
                 // Create new user
                 // Create AddUserRequest
@@ -471,13 +375,10 @@ public class MatrixUserService {
                         upstreamOauthLinkApi.addUpstreamOAuthLink(addLinkRequest);
                         log.info("Added upstream OAuth link (Auth0) to Matrix user {} (subject: {})", userId,
                                 auth0Subject);
-                        // Update cache
-                        if (auth0SubjectToMasUserIdCache != null) {
-                            auth0SubjectToMasUserIdCache.put(auth0Subject, masUserId);
-                        }
                     } else {
                         log.debug("Upstream OAuth link (Auth0) already exists for Matrix user {}", userId);
                     }
+                    recordLink(auth0Subject, masUserId, username, user);
                 } catch (Exception e) {
                     log.warn("Failed to add upstream OAuth link (Auth0) to Matrix user {}: {}", userId,
                             e.getMessage());
@@ -7,9 +7,6 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
@@ -33,9 +30,11 @@ import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceStatusForEntity;
-import com.neohoods.portal.platform.spaces.services.ReservationMapper;
 import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationListItem;
 import com.neohoods.portal.platform.spaces.services.ReservationAuditService;
+import com.neohoods.portal.platform.spaces.services.ReservationListingPage;
+import com.neohoods.portal.platform.spaces.services.ReservationMapper;
 import com.neohoods.portal.platform.spaces.services.ReservationsService;
 
 import reactor.core.publisher.Flux;
@@ -53,9 +52,9 @@ public class ReservationsAdminApiApiDelegateImpl implements ReservationsAdminApi
     @Override
     public Mono<ResponseEntity<PaginatedReservations>> getAdminReservations(
             UUID spaceId, UUID userId, ReservationStatus status, LocalDate startDate, LocalDate endDate,
-            SpaceType spaceType, String search, Integer page, Integer size, ServerWebExchange exchange) {
-        // Create a Pageable for getting reservations with filters
-        Pageable pageable = PageRequest.of(page != null ? page : 0, size != null ? size : 20);
+            SpaceType spaceType, String search, Integer page, Integer size, String cursor, Boolean includeTotal,
+            ServerWebExchange exchange) {
+        int pageSize = size != null ? size : 20;
 
         // Convert API status to entity status
         ReservationStatusForEntity entityStatus = status != null ? convertApiStatusToEntityStatus(status) : null;
@@ -63,20 +62,22 @@ public class ReservationsAdminApiApiDelegateImpl implements ReservationsAdminApi
         // Convert API spaceType to entity spaceType
         SpaceTypeForEntity entitySpaceType = spaceType != null ? convertApiTypeToEntityType(spaceType) : null;
 
-        // Use the new filtered query (search parameter removed - replaced by userId filter)
-        Page<ReservationEntity> pageResult = reservationsService.getReservationsWithFilters(
-                spaceId, userId, entityStatus, startDate, endDate, entitySpaceType, pageable);
+        // Use the listing projection (search parameter removed - replaced by userId filter)
+        ReservationListingPage listing = reservationsService.getReservationListing(
+                spaceId, userId, entityStatus, startDate, endDate, entitySpaceType, cursor, page, pageSize,
+                includeTotal);
 
         // Convert to API models
-        List<Reservation> reservations = pageResult.getContent().stream()
+        List<Reservation> reservations = listing.items().stream()
                 .map(this::convertToApiModel)
                 .toList();
 
         PaginatedReservations response = PaginatedReservations.builder()
                 .content(reservations)
-                .totalElements(BigDecimal.valueOf(pageResult.getTotalElements()))
-                .number(pageResult.getNumber())
-                .size(pageResult.getSize())
+                .totalElements(BigDecimal.valueOf(listing.total()))
+                .number(cursor == null && page != null ? page : 0)
+                .size(pageSize)
+                .nextCursor(listing.nextCursor())
                 .build();
         return Mono.just(ResponseEntity.ok(response));
     }
@@ -193,6 +194,76 @@ public class ReservationsAdminApiApiDelegateImpl implements ReservationsAdminApi
                 .build();
     }
 
+    private Reservation convertToApiModel(ReservationListItem item) {
+        ReservationMapper.PricingDetails pricingDetails = ReservationMapper.calculatePricingDetails(item);
+
+        PriceBreakdown priceBreakdown = new PriceBreakdown();
+        priceBreakdown.setUnitPrice(pricingDetails.unitPrice.floatValue());
+        priceBreakdown.setNumberOfDays((int) pricingDetails.numberOfDays);
+        priceBreakdown.setTotalDaysPrice(pricingDetails.totalDaysPrice.floatValue());
+        priceBreakdown.setCleaningFee(pricingDetails.cleaningFee.floatValue());
+        priceBreakdown.setSubtotal(pricingDetails.subtotal.floatValue());
+        priceBreakdown.setDeposit(pricingDetails.deposit.floatValue());
+        priceBreakdown.setPlatformFeeAmount(pricingDetails.platformFeeAmount.floatValue());
+        priceBreakdown.setPlatformFixedFeeAmount(pricingDetails.platformFixedFeeAmount.floatValue());
+        priceBreakdown.setTotalPrice(pricingDetails.totalPrice.floatValue());
+
+        Space space = Space.builder()
+                .id(item.spaceId())
+                .name(item.spaceName())
+                .description(item.spaceDescription())
+                .type(convertEntityTypeToApiType(item.spaceType()))
+                .status(convertEntityStatusToApiStatus(item.spaceStatus()))
+                .instructions(item.spaceInstructions())
+                .pricing(null)
+                .rules(null)
+                .images(new java.util.ArrayList<>())
+                .accessCodeEnabled(item.spaceAccessCodeEnabled())
+                .createdAt(item.spaceCreatedAt().atOffset(java.time.ZoneOffset.UTC))
+                .updatedAt(item.spaceUpdatedAt().atOffset(java.time.ZoneOffset.UTC))
+                .build();
+        User user = User.builder()
+                .id(item.userId())
+                .firstName(item.userFirstName())
+                .lastName(item.userLastName())
+                .email(item.userEmail())
+                .isEmailVerified(item.userEmailVerified())
+                .type(convertEntityUserTypeToApiType(item.userType()))
+                .username(item.userUsername())
+                .disabled(item.userDisabled())
+                .streetAddress(item.userStreetAddress())
+                .city(item.userCity())
+                .postalCode(item.userPostalCode())
+                .country(item.userCountry())
+                .createdAt(item.userCreatedAt())
+                .build();
+
+        return Reservation.builder()
+                .id(item.id())
+                .spaceId(item.spaceId())
+                .userId(item.userId())
+                .space(space)
+                .user(user)
+                .startDate(item.startDate())
+                .endDate(item.endDate())
+                .status(convertEntityStatusToApiStatus(item.status()))
+                .totalPrice(item.totalPrice().floatValue())
+                .currency(item.spaceCurrency())
+                .cleaningFee(pricingDetails.cleaningFee.floatValue())
+                .deposit(pricingDetails.deposit.floatValue())
+                .platformFeeAmount(pricingDetails.platformFeeAmount.floatValue())
+                .platformFixedFeeAmount(pricingDetails.platformFixedFeeAmount.floatValue())
+                .priceBreakdown(priceBreakdown)
+                .stripePaymentIntentId(item.stripePaymentIntentId())
+                .stripeSessionId(item.stripeSessionId())
+                .paymentExpiresAt(item.paymentExpiresAt() != null
+                        ? item.paymentExpiresAt().atOffset(java.time.ZoneOffset.UTC)
+                        : null)
+                .createdAt(item.createdAt().atOffset(java.time.ZoneOffset.UTC))
+                .updatedAt(item.updatedAt().atOffset(java.time.ZoneOffset.UTC))
+                .build();
+    }
+
     private ReservationStatus convertEntityStatusToApiStatus(
             ReservationStatusForEntity entityStatus) {
         return switch (entityStatus) {
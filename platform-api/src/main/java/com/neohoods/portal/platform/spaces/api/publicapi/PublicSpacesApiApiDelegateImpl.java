@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
 
 import com.neohoods.portal.platform.api.PublicSpacesApiApiDelegate;
+import com.neohoods.portal.platform.spaces.services.CalendarFeed;
 import com.neohoods.portal.platform.spaces.services.CalendarService;
 import com.neohoods.portal.platform.spaces.services.CalendarTokenService;
 import com.nimbusds.jose.JOSEException;
@@ -52,27 +53,34 @@ public class PublicSpacesApiApiDelegateImpl implements PublicSpacesApiApiDelegat
             }
 
             // Generate calendar based on type
-            String calendarContent;
+            CalendarFeed feed;
             String filename;
             if ("reservation".equals(calendarType)) {
                 // For reservation type, use userId from token if present
                 UUID userId = tokenResult.getUserId();
-                calendarContent = calendarService.generateReservationCalendarIcs(spaceId, userId);
+                feed = calendarService.getReservationCalendarFeed(spaceId, userId);
                 filename = "reservation-calendar.ics";
             } else {
                 // Default to cleaning calendar
-                calendarContent = calendarService.generateCalendarIcs(spaceId);
+                feed = calendarService.getCleaningCalendarFeed(spaceId);
                 filename = "cleaning-calendar.ics";
             }
 
+            // Calendar clients poll: answer 304 when their copy is current
+            if (exchange != null && feed.isNotModified(exchange.getRequest().getHeaders())) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .headers(feed.validatorHeaders())
+                        .<String>build());
+            }
+
             // Set headers for iCalendar
-            HttpHeaders headers = new HttpHeaders();
+            HttpHeaders headers = feed.validatorHeaders();
             headers.setContentType(MediaType.parseMediaType("text/calendar; charset=utf-8"));
             headers.setContentDispositionFormData("attachment", filename);
 
             return Mono.just(ResponseEntity.ok()
                     .headers(headers)
-                    .body(calendarContent));
+                    .body(feed.content()));
 
         } catch (JOSEException e) {
             log.warn("Invalid or expired token for space {}", spaceId, e);
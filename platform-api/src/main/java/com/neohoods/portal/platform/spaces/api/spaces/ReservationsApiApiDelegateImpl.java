@@ -6,9 +6,6 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
@@ -28,11 +25,14 @@ import com.neohoods.portal.platform.model.ReservationFeedbackRequest;
 import com.neohoods.portal.platform.model.ReservationStatus;
 import com.neohoods.portal.platform.model.SpaceType;
 import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.services.UserContextService;
 import com.neohoods.portal.platform.services.UsersService;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationListItem;
+import com.neohoods.portal.platform.spaces.services.ReservationListingPage;
 import com.neohoods.portal.platform.spaces.services.ReservationMapper;
 import com.neohoods.portal.platform.spaces.services.ReservationsService;
 import com.neohoods.portal.platform.spaces.services.SpacesService;
@@ -50,6 +50,8 @@ public class ReservationsApiApiDelegateImpl implements ReservationsApiApiDelegat
     private UsersService usersService;
     @Autowired
     private UsersRepository usersRepository;
+    @Autowired
+    private UserContextService userContextService;
 
     @Autowired
     private SpacesService spacesService;
@@ -59,11 +61,11 @@ public class ReservationsApiApiDelegateImpl implements ReservationsApiApiDelegat
 
     @Override
     public Mono<ResponseEntity<PaginatedReservations>> getMyReservations(
-            ReservationStatus status, SpaceType spaceType, Integer page, Integer size, ServerWebExchange exchange) {
-        return getCurrentUser(exchange)
+            ReservationStatus status, SpaceType spaceType, Integer page, Integer size, String cursor,
+            Boolean includeTotal, ServerWebExchange exchange) {
+        return userContextService.getCurrentPrincipal(exchange)
                 .map(user -> {
-                    // Create a Pageable for getting user reservations with filters
-                    Pageable pageable = PageRequest.of(page != null ? page : 0, size != null ? size : 20);
+                    int pageSize = size != null ? size : 20;
 
                     // Convert API types to entity types
                     ReservationStatusForEntity entityStatus = status != null
@@ -73,20 +75,22 @@ public class ReservationsApiApiDelegateImpl implements ReservationsApiApiDelegat
                             ? convertApiTypeToEntityType(spaceType)
                             : null;
 
-                    // Use the new filtered query
-                    Page<ReservationEntity> pageResult = reservationsService.getUserReservationsWithFilters(
-                            user.getId(), entityStatus, entitySpaceType, pageable);
+                    // Use the listing projection, restricted to the user
+                    ReservationListingPage listing = reservationsService.getReservationListing(
+                            null, user.id(), entityStatus, null, null, entitySpaceType, cursor, page, pageSize,
+                            includeTotal);
 
                     // Convert to API models
-                    List<Reservation> reservations = pageResult.getContent().stream()
+                    List<Reservation> reservations = listing.items().stream()
                             .map(this::convertToApiModel)
                             .toList();
 
                     PaginatedReservations response = PaginatedReservations.builder()
                             .content(reservations)
-                            .totalElements(BigDecimal.valueOf(pageResult.getTotalElements()))
-                            .number(pageResult.getNumber())
-                            .size(pageResult.getSize())
+                            .totalElements(BigDecimal.valueOf(listing.total()))
+                            .number(cursor == null && page != null ? page : 0)
+                            .size(pageSize)
+                            .nextCursor(listing.nextCursor())
                             .build();
                     return ResponseEntity.ok(response);
 
@@ -312,6 +316,43 @@ public class ReservationsApiApiDelegateImpl implements ReservationsApiApiDelegat
                 .build();
     }
 
+    private Reservation convertToApiModel(ReservationListItem item) {
+        ReservationMapper.PricingDetails pricingDetails = ReservationMapper.calculatePricingDetails(item);
+
+        PriceBreakdown priceBreakdown = new PriceBreakdown();
+        priceBreakdown.setUnitPrice(pricingDetails.unitPrice.floatValue());
+        priceBreakdown.setNumberOfDays((int) pricingDetails.numberOfDays);
+        priceBreakdown.setTotalDaysPrice(pricingDetails.totalDaysPrice.floatValue());
+        priceBreakdown.setCleaningFee(pricingDetails.cleaningFee.floatValue());
+        priceBreakdown.setSubtotal(pricingDetails.subtotal.floatValue());
+        priceBreakdown.setDeposit(pricingDetails.deposit.floatValue());
+        priceBreakdown.setPlatformFeeAmount(pricingDetails.platformFeeAmount.floatValue());
+        priceBreakdown.setPlatformFixedFeeAmount(pricingDetails.platformFixedFeeAmount.floatValue());
+        priceBreakdown.setTotalPrice(pricingDetails.totalPrice.floatValue());
+
+        return Reservation.builder()
+                .id(item.id())
+                .spaceId(item.spaceId())
+                .userId(item.userId())
+                .startDate(item.startDate())
+                .endDate(item.endDate())
+                .status(convertEntityStatusToApiStatus(item.status()))
+                .totalPrice(item.totalPrice().floatValue())
+                .currency(item.spaceCurrency())
+                .cleaningFee(pricingDetails.cleaningFee.floatValue())
+                .deposit(pricingDetails.deposit.floatValue())
+                .platformFeeAmount(pricingDetails.platformFeeAmount.floatValue())
+                .platformFixedFeeAmount(pricingDetails.platformFixedFeeAmount.floatValue())
+                .priceBreakdown(priceBreakdown)
+                .stripePaymentIntentId(item.stripePaymentIntentId())
+                .stripeSessionId(item.stripeSessionId())
+                .paymentExpiresAt(
+                        item.paymentExpiresAt() != null ? item.paymentExpiresAt().atOffset(ZoneOffset.UTC) : null)
+                .createdAt(item.createdAt().atOffset(ZoneOffset.UTC))
+                .updatedAt(item.updatedAt().atOffset(ZoneOffset.UTC))
+                .build();
+    }
+
     private ReservationStatus convertEntityStatusToApiStatus(
             ReservationStatusForEntity entityStatus) {
         return switch (entityStatus) {
@@ -14,7 +14,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
 
 import com.neohoods.portal.platform.api.SpacesApiApiDelegate;
-import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.entities.UserType;
 import com.neohoods.portal.platform.model.AvailabilityResponse;
 import com.neohoods.portal.platform.model.CleaningSettings;
@@ -31,8 +30,8 @@ import com.neohoods.portal.platform.model.SpacePricing;
 import com.neohoods.portal.platform.model.SpaceRules;
 import com.neohoods.portal.platform.model.SpaceType;
 import com.neohoods.portal.platform.model.TimeRange;
-import com.neohoods.portal.platform.repositories.UsersRepository;
 import com.neohoods.portal.platform.spaces.services.PriceCalculationResult;
+import com.neohoods.portal.platform.services.UserContextService;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceImageEntity;
@@ -57,7 +56,7 @@ public class SpacesApiApiDelegateImpl implements SpacesApiApiDelegate {
     private SpaceStatisticsService spaceStatisticsService;
 
     @Autowired
-    private UsersRepository usersRepository;
+    private UserContextService userContextService;
 
     @Override
     public Mono<ResponseEntity<PaginatedSpaces>> getSpaces(
@@ -212,27 +211,10 @@ public class SpacesApiApiDelegateImpl implements SpacesApiApiDelegate {
             return Mono.just(ResponseEntity.notFound().build());
         }
 
-        // Get current user and determine if owner
-        return exchange.getPrincipal()
-                .map(principal -> UUID.fromString(principal.getName()))
-                .flatMap(userId -> {
-                    UserEntity user = usersRepository.findById(userId)
-                            .orElseThrow(() -> new RuntimeException("User not found"));
-
-                    // Determine if user is owner (ADMIN, OWNER, LANDLORD)
-                    boolean isOwner = false;
-                    if (user.getType() != null) {
-                        switch (user.getType()) {
-                            case ADMIN:
-                            case OWNER:
-                            case LANDLORD:
-                                isOwner = true;
-                                break;
-                            default:
-                                isOwner = false;
-                                break;
-                        }
-                    }
+        // Get current user and determine if owner (ADMIN, OWNER, LANDLORD)
+        return userContextService.getCurrentPrincipal(exchange)
+                .flatMap(principal -> {
+                    boolean isOwner = principal.isOwner();
 
                     // Calculate price breakdown
                     PriceCalculationResult priceBreakdown = spacesService.calculatePriceBreakdown(
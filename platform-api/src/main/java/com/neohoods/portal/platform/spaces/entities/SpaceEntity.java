@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -87,7 +88,9 @@ public class SpaceEntity {
     @Column
     private Integer capacity;
 
+    // Loaded for up to 50 spaces per query rather than one query per space
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     @CollectionTable(name = "space_shared_with", joinColumns = @JoinColumn(name = "space_id"))
     @Column(name = "shared_space_id")
     private List<UUID> shareSpaceWith = new ArrayList<>();
@@ -101,6 +104,7 @@ public class SpaceEntity {
     private Integer usedAnnualReservations = 0;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     @CollectionTable(name = "space_allowed_days", joinColumns = @JoinColumn(name = "space_id"))
     @Column(name = "day_of_week")
     @Enumerated(EnumType.STRING)
@@ -113,12 +117,14 @@ public class SpaceEntity {
     private String allowedHoursEnd = "20:00";
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     @CollectionTable(name = "space_cleaning_days", joinColumns = @JoinColumn(name = "space_id"))
     @Column(name = "day_of_week")
     @Enumerated(EnumType.STRING)
     private List<DayOfWeek> cleaningDays = new ArrayList<>();
 
     @OneToMany(mappedBy = "space", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     private List<SpaceImageEntity> images = new ArrayList<>();
 
     @OneToMany(mappedBy = "space", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -130,6 +136,13 @@ public class SpaceEntity {
     @Column(nullable = false)
     private Boolean accessCodeEnabled = true;
 
+    // Access code format, the default one when null
+    @Column
+    private Integer accessCodeLength;
+
+    @Column(length = 64)
+    private String accessCodeAlphabet;
+
     @Column(nullable = false)
     private Boolean enableNotifications = true;
 
@@ -371,6 +384,22 @@ public class SpaceEntity {
         this.accessCodeEnabled = accessCodeEnabled;
     }
 
+    public Integer getAccessCodeLength() {
+        return accessCodeLength;
+    }
+
+    public void setAccessCodeLength(Integer accessCodeLength) {
+        this.accessCodeLength = accessCodeLength;
+    }
+
+    public String getAccessCodeAlphabet() {
+        return accessCodeAlphabet;
+    }
+
+    public void setAccessCodeAlphabet(String accessCodeAlphabet) {
+        this.accessCodeAlphabet = accessCodeAlphabet;
+    }
+
     public Boolean getEnableNotifications() {
         return enableNotifications;
     }
@@ -1,17 +1,22 @@
 package com.neohoods.portal.platform.spaces.repositories;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.neohoods.portal.platform.spaces.entities.AccessCodeEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
 
 @Repository
 public interface AccessCodeRepository extends JpaRepository<AccessCodeEntity, UUID> {
@@ -70,6 +75,24 @@ public interface AccessCodeRepository extends JpaRepository<AccessCodeEntity, UU
      */
     boolean existsByCode(String code);
 
+    /**
+     * Insert the access code of a reservation unless the code is taken. The
+     * digital lock is the one of the reservation's space.
+     *
+     * @return 1 if inserted, 0 if the code is taken
+     */
+    @Modifying
+    @Query(value = "INSERT INTO access_codes (id, reservation_id, code, expires_at, digital_lock_id, is_active, " +
+            "created_at, updated_at) " +
+            "SELECT :id, r.id, :code, :expiresAt, s.digital_lock_id, TRUE, NOW(), NOW() " +
+            "FROM reservations r JOIN spaces s ON s.id = r.space_id WHERE r.id = :reservationId " +
+            "ON CONFLICT (code) DO NOTHING", nativeQuery = true)
+    int insertIfCodeFree(
+            @Param("id") UUID id,
+            @Param("reservationId") UUID reservationId,
+            @Param("code") String code,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
     /**
      * Find access codes by reservation with reservation details
      */
@@ -88,4 +111,52 @@ public interface AccessCodeRepository extends JpaRepository<AccessCodeEntity, UU
             "LEFT JOIN FETCH r.space " +
             "LEFT JOIN FETCH r.user")
     List<AccessCodeEntity> findAllWithReservationDetails();
+
+    /**
+     * Find the codes a lock should hold: active codes of reservations in the
+     * given statuses, starting before the horizon, on a space using the lock
+     */
+    @Query("SELECT ac FROM AccessCodeEntity ac " +
+            "JOIN FETCH ac.reservation r " +
+            "JOIN FETCH r.space s " +
+            "WHERE s.digitalLockId = :digitalLockId " +
+            "AND ac.isActive = true " +
+            "AND ac.expiresAt > :currentTime " +
+            "AND r.status IN :statuses " +
+            "AND r.startDate <= :horizon")
+    List<AccessCodeEntity> findDesiredLockCodes(
+            @Param("digitalLockId") UUID digitalLockId,
+            @Param("currentTime") LocalDateTime currentTime,
+            @Param("horizon") LocalDate horizon,
+            @Param("statuses") Collection<ReservationStatusForEntity> statuses);
+
+    /**
+     * Find the vendor ids of the codes pushed to a lock
+     */
+    @Query("SELECT ac.digitalLockCodeId FROM AccessCodeEntity ac " +
+            "WHERE ac.digitalLockId = :digitalLockId AND ac.digitalLockCodeId IS NOT NULL")
+    List<String> findDigitalLockCodeIds(@Param("digitalLockId") UUID digitalLockId);
+
+    /**
+     * Record the vendor id of a code pushed to a lock
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AccessCodeEntity ac SET ac.digitalLockId = :digitalLockId, " +
+            "ac.digitalLockCodeId = :digitalLockCodeId WHERE ac.id = :id")
+    int recordDigitalLockCode(
+            @Param("id") UUID id,
+            @Param("digitalLockId") UUID digitalLockId,
+            @Param("digitalLockCodeId") String digitalLockCodeId);
+
+    /**
+     * Forget the vendor ids of codes deleted from a lock
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AccessCodeEntity ac SET ac.digitalLockCodeId = NULL " +
+            "WHERE ac.digitalLockId = :digitalLockId AND ac.digitalLockCodeId IN :digitalLockCodeIds")
+    int clearDigitalLockCodes(
+            @Param("digitalLockId") UUID digitalLockId,
+            @Param("digitalLockCodeIds") Collection<String> digitalLockCodeIds);
 }
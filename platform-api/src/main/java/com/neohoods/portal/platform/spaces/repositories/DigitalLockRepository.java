@@ -1,6 +1,7 @@
 package com.neohoods.portal.platform.spaces.repositories;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
@@ -36,4 +37,25 @@ public interface DigitalLockRepository extends JpaRepository<DigitalLockEntity,
     long countByStatus(DigitalLockStatusForEntity status);
 
     long countByType(DigitalLockTypeForEntity type);
+
+    @Query("SELECT dl FROM DigitalLockEntity dl " +
+            "LEFT JOIN FETCH dl.ttlockConfig " +
+            "LEFT JOIN FETCH dl.nukiConfig " +
+            "WHERE dl.id = :id")
+    Optional<DigitalLockEntity> findByIdWithConfig(@Param("id") UUID id);
+
+    @Query("SELECT dl.id FROM DigitalLockEntity dl WHERE dl.status = :status")
+    List<UUID> findIdsByStatus(@Param("status") DigitalLockStatusForEntity status);
+
+    @Query("SELECT dl FROM DigitalLockEntity dl JOIN FETCH dl.ttlockConfig c " +
+            "WHERE c.batteryLevel < :threshold ORDER BY c.batteryLevel")
+    List<DigitalLockEntity> findTtlockLocksWithLowBattery(@Param("threshold") int threshold);
+
+    @Query("SELECT dl FROM DigitalLockEntity dl JOIN FETCH dl.nukiConfig c " +
+            "WHERE c.batteryLevel < :threshold ORDER BY c.batteryLevel")
+    List<DigitalLockEntity> findNukiLocksWithLowBattery(@Param("threshold") int threshold);
+
+    @Query("SELECT dl FROM DigitalLockEntity dl JOIN FETCH dl.ttlockConfig c " +
+            "WHERE c.signalStrength < :threshold ORDER BY c.signalStrength")
+    List<DigitalLockEntity> findTtlockLocksWithWeakSignal(@Param("threshold") int threshold);
 }
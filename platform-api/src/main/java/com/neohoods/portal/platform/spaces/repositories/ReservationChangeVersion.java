@@ -0,0 +1,10 @@
+package com.neohoods.portal.platform.spaces.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap change marker for a set of reservations: any insert, update or
+ * delete changes the count or the latest update time.
+ */
+public record ReservationChangeVersion(long count, LocalDateTime lastUpdatedAt) {
+}
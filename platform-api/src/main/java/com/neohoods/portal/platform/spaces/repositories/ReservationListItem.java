@@ -0,0 +1,70 @@
+package com.neohoods.portal.platform.spaces.repositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import com.neohoods.portal.platform.entities.UserType;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+
+/**
+ * Row of a reservation listing: the reservation, space and user columns
+ * shown by the listing APIs, selected in one query instead of loading the
+ * entity graphs (and the space's eager collections)
+ */
+public record ReservationListItem(
+        UUID id,
+        LocalDate startDate,
+        LocalDate endDate,
+        ReservationStatusForEntity status,
+        BigDecimal totalPrice,
+        BigDecimal platformFeeAmount,
+        BigDecimal platformFixedFeeAmount,
+        String stripePaymentIntentId,
+        String stripeSessionId,
+        LocalDateTime paymentExpiresAt,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        UUID spaceId,
+        String spaceName,
+        String spaceDescription,
+        SpaceTypeForEntity spaceType,
+        SpaceStatusForEntity spaceStatus,
+        String spaceInstructions,
+        Boolean spaceAccessCodeEnabled,
+        String spaceCurrency,
+        BigDecimal spaceCleaningFee,
+        BigDecimal spaceDeposit,
+        LocalDateTime spaceCreatedAt,
+        LocalDateTime spaceUpdatedAt,
+        UUID userId,
+        String userFirstName,
+        String userLastName,
+        String userEmail,
+        boolean userEmailVerified,
+        UserType userType,
+        String userUsername,
+        boolean userDisabled,
+        String userStreetAddress,
+        String userCity,
+        String userPostalCode,
+        String userCountry,
+        OffsetDateTime userCreatedAt) {
+
+    /**
+     * Select clause building this record, aliases r (reservation), s (space)
+     * and u (user)
+     */
+    static final String SELECT = "SELECT new com.neohoods.portal.platform.spaces.repositories.ReservationListItem("
+            + "r.id, r.startDate, r.endDate, r.status, r.totalPrice, r.platformFeeAmount, "
+            + "r.platformFixedFeeAmount, r.stripePaymentIntentId, r.stripeSessionId, r.paymentExpiresAt, "
+            + "r.createdAt, r.updatedAt, "
+            + "s.id, s.name, s.description, s.type, s.status, s.instructions, s.accessCodeEnabled, s.currency, "
+            + "s.cleaningFee, s.deposit, s.createdAt, s.updatedAt, "
+            + "u.id, u.firstName, u.lastName, u.email, u.isEmailVerified, u.type, u.username, u.disabled, "
+            + "u.streetAddress, u.city, u.postalCode, u.country, u.createdAt) ";
+}
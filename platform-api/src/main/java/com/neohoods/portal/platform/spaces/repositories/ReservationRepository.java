@@ -2,6 +2,7 @@ package com.neohoods.portal.platform.spaces.repositories;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,6 +13,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
@@ -210,6 +212,67 @@ public interface ReservationRepository extends JpaRepository<ReservationEntity,
                         "AND r.endDate < :currentDate")
         List<ReservationEntity> findReservationsToComplete(@Param("currentDate") LocalDate currentDate);
 
+        /**
+         * Activate, in one statement, the confirmed reservations whose start date
+         * is reached, and write their status change audit rows (see
+         * ReservationLifecycleService). The status guard skips rows another
+         * instance already moved.
+         *
+         * @return One row per activated reservation: id, user id, payment status,
+         *         true if it has no access code yet
+         */
+        @Transactional
+        @Query(value = "WITH moved AS (" +
+                        "UPDATE reservations SET status = 'ACTIVE', updated_at = :now " +
+                        "WHERE status = 'CONFIRMED' AND start_date <= :currentDate " +
+                        "RETURNING id, user_id, payment_status), " +
+                        "audited AS (" +
+                        "INSERT INTO reservation_audit_log (reservation_id, event_type, old_value, new_value, " +
+                        "log_message, performed_by, created_at) " +
+                        "SELECT m.id, :eventType, 'CONFIRMED', 'ACTIVE', :logMessage, " +
+                        "COALESCE(u.username, u.email, 'system'), :now " +
+                        "FROM moved m JOIN users u ON u.id = m.user_id) " +
+                        "SELECT m.id, m.user_id, m.payment_status, " +
+                        "NOT EXISTS (SELECT 1 FROM access_codes ac WHERE ac.reservation_id = m.id) " +
+                        "FROM moved m", nativeQuery = true)
+        List<Object[]> activateDueReservations(
+                        @Param("currentDate") LocalDate currentDate,
+                        @Param("now") LocalDateTime now,
+                        @Param("eventType") String eventType,
+                        @Param("logMessage") String logMessage);
+
+        /**
+         * Complete, in one statement, the active reservations whose end date is
+         * passed, deactivate their access codes and write their status change
+         * audit rows (see ReservationLifecycleService)
+         *
+         * @return One row per completed reservation and deactivated code: id, user
+         *         id, payment status, digital lock id and lock code id of the code
+         *         (null if it had none)
+         */
+        @Transactional
+        @Query(value = "WITH moved AS (" +
+                        "UPDATE reservations SET status = 'COMPLETED', updated_at = :now " +
+                        "WHERE status = 'ACTIVE' AND end_date < :currentDate " +
+                        "RETURNING id, user_id, payment_status), " +
+                        "audited AS (" +
+                        "INSERT INTO reservation_audit_log (reservation_id, event_type, old_value, new_value, " +
+                        "log_message, performed_by, created_at) " +
+                        "SELECT m.id, :eventType, 'ACTIVE', 'COMPLETED', :logMessage, " +
+                        "COALESCE(u.username, u.email, 'system'), :now " +
+                        "FROM moved m JOIN users u ON u.id = m.user_id), " +
+                        "deactivated AS (" +
+                        "UPDATE access_codes ac SET is_active = false, updated_at = :now " +
+                        "FROM moved m WHERE ac.reservation_id = m.id AND ac.is_active " +
+                        "RETURNING ac.reservation_id, ac.digital_lock_id, ac.digital_lock_code_id) " +
+                        "SELECT m.id, m.user_id, m.payment_status, d.digital_lock_id, d.digital_lock_code_id " +
+                        "FROM moved m LEFT JOIN deactivated d ON d.reservation_id = m.id", nativeQuery = true)
+        List<Object[]> completeDueReservations(
+                        @Param("currentDate") LocalDate currentDate,
+                        @Param("now") LocalDateTime now,
+                        @Param("eventType") String eventType,
+                        @Param("logMessage") String logMessage);
+
         /**
          * Find reservation by user and ID
          */
@@ -263,6 +326,142 @@ public interface ReservationRepository extends JpaRepository<ReservationEntity,
                         @Param("spaceType") SpaceTypeForEntity spaceType,
                         Pageable pageable);
 
+        /**
+         * Keyset page of the reservation listing (admin and "my reservations"),
+         * ordered by start date then id, starting after the given position.
+         * Selects only the listed columns: no entity graph, no count.
+         */
+        @Query(ReservationListItem.SELECT +
+                        "FROM ReservationEntity r JOIN r.space s JOIN r.user u " +
+                        "WHERE (:spaceId IS NULL OR s.id = :spaceId) AND " +
+                        "(:userId IS NULL OR u.id = :userId) AND " +
+                        "(:status IS NULL OR r.status = :status) AND " +
+                        "(:startDate IS NULL OR r.startDate >= :startDate) AND " +
+                        "(:endDate IS NULL OR r.endDate <= :endDate) AND " +
+                        "(:spaceType IS NULL OR s.type = :spaceType) AND " +
+                        "(r.startDate > :afterDate OR (r.startDate = :afterDate AND r.id > :afterId)) " +
+                        "ORDER BY r.startDate, r.id")
+        List<ReservationListItem> findListingPageAfter(
+                        @Param("spaceId") UUID spaceId,
+                        @Param("userId") UUID userId,
+                        @Param("status") ReservationStatusForEntity status,
+                        @Param("startDate") LocalDate startDate,
+                        @Param("endDate") LocalDate endDate,
+                        @Param("spaceType") SpaceTypeForEntity spaceType,
+                        @Param("afterDate") LocalDate afterDate,
+                        @Param("afterId") UUID afterId,
+                        Pageable pageable);
+
+        /**
+         * Offset page of the reservation listing, for clients still paging by
+         * number
+         */
+        @Query(ReservationListItem.SELECT +
+                        "FROM ReservationEntity r JOIN r.space s JOIN r.user u " +
+                        "WHERE (:spaceId IS NULL OR s.id = :spaceId) AND " +
+                        "(:userId IS NULL OR u.id = :userId) AND " +
+                        "(:status IS NULL OR r.status = :status) AND " +
+                        "(:startDate IS NULL OR r.startDate >= :startDate) AND " +
+                        "(:endDate IS NULL OR r.endDate <= :endDate) AND " +
+                        "(:spaceType IS NULL OR s.type = :spaceType) " +
+                        "ORDER BY r.startDate, r.id")
+        List<ReservationListItem> findListingPage(
+                        @Param("spaceId") UUID spaceId,
+                        @Param("userId") UUID userId,
+                        @Param("status") ReservationStatusForEntity status,
+                        @Param("startDate") LocalDate startDate,
+                        @Param("endDate") LocalDate endDate,
+                        @Param("spaceType") SpaceTypeForEntity spaceType,
+                        Pageable pageable);
+
+        @Query("SELECT COUNT(r) FROM ReservationEntity r " +
+                        "WHERE (:spaceId IS NULL OR r.space.id = :spaceId) AND " +
+                        "(:userId IS NULL OR r.user.id = :userId) AND " +
+                        "(:status IS NULL OR r.status = :status) AND " +
+                        "(:startDate IS NULL OR r.startDate >= :startDate) AND " +
+                        "(:endDate IS NULL OR r.endDate <= :endDate) AND " +
+                        "(:spaceType IS NULL OR r.space.type = :spaceType)")
+        long countListing(
+                        @Param("spaceId") UUID spaceId,
+                        @Param("userId") UUID userId,
+                        @Param("status") ReservationStatusForEntity status,
+                        @Param("startDate") LocalDate startDate,
+                        @Param("endDate") LocalDate endDate,
+                        @Param("spaceType") SpaceTypeForEntity spaceType);
+
+        /**
+         * Reservations of a space shown in its ICS feeds: given statuses, ending
+         * on or after a date, optionally for one user
+         */
+        @Query("SELECT r FROM ReservationEntity r " +
+                        "JOIN FETCH r.user " +
+                        "WHERE r.space.id = :spaceId AND r.status IN :statuses AND r.endDate >= :from AND " +
+                        "(:userId IS NULL OR r.user.id = :userId) " +
+                        "ORDER BY r.startDate, r.id")
+        List<ReservationEntity> findCalendarReservationsBySpace(
+                        @Param("spaceId") UUID spaceId,
+                        @Param("userId") UUID userId,
+                        @Param("statuses") Collection<ReservationStatusForEntity> statuses,
+                        @Param("from") LocalDate from);
+
+        /**
+         * Reservations of a user shown in the user's ICS feed
+         */
+        @Query("SELECT r FROM ReservationEntity r " +
+                        "JOIN FETCH r.space " +
+                        "WHERE r.user.id = :userId AND r.status IN :statuses AND r.endDate >= :from " +
+                        "ORDER BY r.startDate, r.id")
+        List<ReservationEntity> findCalendarReservationsByUser(
+                        @Param("userId") UUID userId,
+                        @Param("statuses") Collection<ReservationStatusForEntity> statuses,
+                        @Param("from") LocalDate from);
+
+        /**
+         * Reservations of a unit shown in the unit's ICS feed
+         */
+        @Query("SELECT r FROM ReservationEntity r " +
+                        "LEFT JOIN FETCH r.space " +
+                        "LEFT JOIN FETCH r.user " +
+                        "WHERE r.unit.id = :unitId AND r.status IN :statuses AND r.endDate >= :from " +
+                        "ORDER BY r.startDate, r.id")
+        List<ReservationEntity> findCalendarReservationsByUnit(
+                        @Param("unitId") UUID unitId,
+                        @Param("statuses") Collection<ReservationStatusForEntity> statuses,
+                        @Param("from") LocalDate from);
+
+        @Query("SELECT new com.neohoods.portal.platform.spaces.repositories.ReservationChangeVersion(" +
+                        "COUNT(r), MAX(r.updatedAt)) FROM ReservationEntity r WHERE r.space.id = :spaceId")
+        ReservationChangeVersion findChangeVersionBySpaceId(@Param("spaceId") UUID spaceId);
+
+        @Query("SELECT new com.neohoods.portal.platform.spaces.repositories.ReservationChangeVersion(" +
+                        "COUNT(r), MAX(r.updatedAt)) FROM ReservationEntity r WHERE r.user.id = :userId")
+        ReservationChangeVersion findChangeVersionByUserId(@Param("userId") UUID userId);
+
+        @Query("SELECT new com.neohoods.portal.platform.spaces.repositories.ReservationChangeVersion(" +
+                        "COUNT(r), MAX(r.updatedAt)) FROM ReservationEntity r WHERE r.unit.id = :unitId")
+        ReservationChangeVersion findChangeVersionByUnitId(@Param("unitId") UUID unitId);
+
+        /**
+         * Keyset page of reservations overlapping [from, to], ordered by start
+         * date then id, for assistant listings
+         */
+        @Query("SELECT r FROM ReservationEntity r " +
+                        "LEFT JOIN FETCH r.space " +
+                        "LEFT JOIN FETCH r.user " +
+                        "WHERE (:spaceId IS NULL OR r.space.id = :spaceId) AND " +
+                        "(:status IS NULL OR r.status = :status) AND " +
+                        "r.endDate >= :from AND r.startDate <= :to AND " +
+                        "(r.startDate > :afterDate OR (r.startDate = :afterDate AND r.id > :afterId)) " +
+                        "ORDER BY r.startDate, r.id")
+        List<ReservationEntity> findPageAfter(
+                        @Param("spaceId") UUID spaceId,
+                        @Param("status") ReservationStatusForEntity status,
+                        @Param("from") LocalDate from,
+                        @Param("to") LocalDate to,
+                        @Param("afterDate") LocalDate afterDate,
+                        @Param("afterId") UUID afterId,
+                        Pageable pageable);
+
         /**
          * Find reservations by space and date range (for calendar view)
          * This method is more specific and avoids null parameter issues
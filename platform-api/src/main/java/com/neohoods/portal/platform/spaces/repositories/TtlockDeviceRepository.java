@@ -21,6 +21,10 @@ public interface TtlockDeviceRepository extends JpaRepository<TtlockDeviceEntity
     @Query("SELECT t FROM TtlockDeviceEntity t WHERE t.status = :status")
     List<TtlockDeviceEntity> findActiveDevices(@Param("status") TtlockDeviceStatusForEntity status);
 
+    List<TtlockDeviceEntity> findByBatteryLevelLessThan(Integer batteryLevel);
+
+    List<TtlockDeviceEntity> findBySignalStrengthLessThan(Integer signalStrength);
+
     @Query("SELECT COUNT(t) FROM TtlockDeviceEntity t WHERE t.status = :status")
     long countByStatus(@Param("status") TtlockDeviceStatusForEntity status);
 }
@@ -0,0 +1,140 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.neohoods.portal.platform.exceptions.CodedError;
+import com.neohoods.portal.platform.exceptions.CodedErrorException;
+import com.neohoods.portal.platform.spaces.entities.AccessCodeEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.repositories.AccessCodeRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Allocates unique access codes.
+ *
+ * Codes are drawn with SecureRandom in the format of the space and inserted
+ * with ON CONFLICT (code) DO NOTHING: the unique constraint decides, so there
+ * is no existence check beforehand and two concurrent confirmations drawing
+ * the same code cannot both get it. A lost draw is retried with a new code.
+ */
+@Component
+public class AccessCodeAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessCodeAllocator.class);
+
+    public static final String METRIC_COLLISIONS = "neohoods.access.codes.collisions";
+
+    // access_codes.code is a VARCHAR(10)
+    static final int MIN_LENGTH = 4;
+    static final int MAX_LENGTH = 10;
+
+    /**
+     * Code format
+     *
+     * @param alphabet Characters a code is made of
+     * @param length   Number of characters
+     */
+    public record CodeFormat(String alphabet, int length) {
+
+        boolean isValid() {
+            return alphabet != null && alphabet.chars().distinct().count() >= 2
+                    && length >= MIN_LENGTH && length <= MAX_LENGTH;
+        }
+    }
+
+    @Autowired
+    private AccessCodeRepository accessCodeRepository;
+
+    // Lock keypads only take digits
+    @Value("${neohoods.portal.spaces.access-codes.alphabet:0123456789}")
+    private String defaultAlphabet = "0123456789";
+
+    @Value("${neohoods.portal.spaces.access-codes.length:6}")
+    private int defaultLength = 6;
+
+    @Value("${neohoods.portal.spaces.access-codes.max-attempts:20}")
+    private int maxAttempts = 20;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Insert the access code of a reservation, with a new unique code
+     *
+     * @return The inserted access code, managed
+     */
+    public AccessCodeEntity allocate(ReservationEntity reservation, LocalDateTime expiresAt) {
+        CodeFormat format = formatOf(reservation.getSpace());
+        UUID id = UUID.randomUUID();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            String code = draw(format);
+            if (accessCodeRepository.insertIfCodeFree(id, reservation.getId(), code, expiresAt) == 1) {
+                return accessCodeRepository.findById(id).orElseThrow();
+            }
+            if (meterRegistry != null) {
+                Counter.builder(METRIC_COLLISIONS)
+                        .description("Access codes drawn that were already taken")
+                        .register(meterRegistry)
+                        .increment();
+            }
+            log.debug("Access code already taken, drawing another one for reservation {} (attempt {}/{})",
+                    reservation.getId(), attempt, maxAttempts);
+        }
+        log.error("No free access code found for reservation {} after {} attempts, the {} format is filling up",
+                reservation.getId(), maxAttempts, format);
+        throw new CodedErrorException(CodedError.ACCESS_CODE_CREATION_FAILED,
+                Map.of("reservationId", reservation.getId(), "attempts", maxAttempts));
+    }
+
+    /**
+     * Format of the codes of a space, the default one if it has none or an
+     * invalid one
+     */
+    public CodeFormat formatOf(SpaceEntity space) {
+        CodeFormat defaultFormat = defaultFormat();
+        if (space == null || (space.getAccessCodeAlphabet() == null && space.getAccessCodeLength() == null)) {
+            return defaultFormat;
+        }
+        CodeFormat format = new CodeFormat(
+                space.getAccessCodeAlphabet() != null ? space.getAccessCodeAlphabet() : defaultFormat.alphabet(),
+                space.getAccessCodeLength() != null ? space.getAccessCodeLength() : defaultFormat.length());
+        if (!format.isValid()) {
+            log.warn("Invalid access code format {} for space {}, using {}", format, space.getId(), defaultFormat);
+            return defaultFormat;
+        }
+        return format;
+    }
+
+    public CodeFormat defaultFormat() {
+        return new CodeFormat(defaultAlphabet, defaultLength);
+    }
+
+    /**
+     * Random code in the given format, not checked for uniqueness
+     */
+    public String draw(CodeFormat format) {
+        StringBuilder code = new StringBuilder(format.length());
+        for (int i = 0; i < format.length(); i++) {
+            code.append(format.alphabet().charAt(random.nextInt(format.alphabet().length())));
+        }
+        return code.toString();
+    }
+}
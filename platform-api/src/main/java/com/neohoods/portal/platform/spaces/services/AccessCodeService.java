@@ -3,7 +3,6 @@ package com.neohoods.portal.platform.spaces.services;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 import java.util.UUID;
 
 import org.slf4j.Logger;
@@ -34,44 +33,18 @@ public class AccessCodeService {
     @Autowired
     private DigitalLockRepository digitalLockRepository;
 
-    @Autowired
-    private TTlockRemoteAPIService ttlockRemoteAPIService;
-
     @Autowired
     @Lazy
     private ReservationsService reservationsService;
 
     @Autowired
-    private DigitalLockService digitalLockService;
+    private AccessCodeAllocator accessCodeAllocator;
 
     @Autowired
-    private ReservationAuditService auditService;
+    private LockCodeReconciliationService lockCodeReconciliationService;
 
-    private static final String CODE_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private static final int CODE_LENGTH = 6;
-    private static final Random RANDOM = new Random();
-
-    /**
-     * Generate a unique access code
-     */
-    private String generateUniqueCode() {
-        String code;
-        do {
-            code = generateCode();
-        } while (accessCodeRepository.existsByCode(code));
-        return code;
-    }
-
-    /**
-     * Generate a random access code
-     */
-    private String generateCode() {
-        StringBuilder code = new StringBuilder(CODE_LENGTH);
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            code.append(CODE_CHARACTERS.charAt(RANDOM.nextInt(CODE_CHARACTERS.length())));
-        }
-        return code.toString();
-    }
+    @Autowired
+    private ReservationAuditService auditService;
 
     /**
      * Generate access code for a reservation
@@ -83,12 +56,6 @@ public class AccessCodeService {
             return existingCode.get();
         }
 
-        // Generate new access code through DigitalLockService
-        String code = digitalLockService.generateAccessCode(
-                reservation.getSpace().getDigitalLockId(),
-                24, // 24 hours duration
-                "Reservation access code");
-
         // Calculate expiration time - ensure it's at least 1 hour after creation
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime reservationEndTime = reservation.getEndDate().atTime(23, 59, 59);
@@ -96,20 +63,15 @@ public class AccessCodeService {
                 ? reservationEndTime
                 : now.plusHours(1); // At least 1 hour from now
 
-        AccessCodeEntity accessCode = new AccessCodeEntity(reservation, code, expiresAt);
-        accessCode.setIsActive(true);
-
-        // Save the access code first
-        accessCode = accessCodeRepository.save(accessCode);
+        AccessCodeEntity accessCode = accessCodeAllocator.allocate(reservation, expiresAt);
+        String code = accessCode.getCode();
 
         // Log audit event
         auditService.logCodeGenerated(reservation.getId(), code, "system");
 
-        // The DigitalLockService handles the integration with the appropriate digital
-        // lock service
-        // (TTLock, Nuki, etc.) based on the digital lock type
-        logger.info("Generated access code {} for reservation {} through DigitalLockService", code,
-                reservation.getId());
+        // Pushed to the lock in the background, once committed
+        lockCodeReconciliationService.requestReconcileAfterCommit(accessCode.getDigitalLockId());
+        logger.info("Generated access code {} for reservation {}", code, reservation.getId());
 
         return accessCode;
     }
@@ -130,9 +92,6 @@ public class AccessCodeService {
             accessCodeRepository.save(oldCodeEntity);
         }
 
-        // Generate new access code
-        String code = generateUniqueCode();
-
         // Calculate expiration time - ensure it's at least 1 hour after creation
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime reservationEndTime = reservation.getEndDate().atTime(23, 59, 59);
@@ -140,38 +99,21 @@ public class AccessCodeService {
                 ? reservationEndTime
                 : now.plusHours(1); // At least 1 hour from now
 
-        AccessCodeEntity accessCode = new AccessCodeEntity(reservation, code, expiresAt);
-        accessCode.setIsActive(true);
+        // Generate new access code
+        AccessCodeEntity accessCode = accessCodeAllocator.allocate(reservation, expiresAt);
+        String code = accessCode.getCode();
         accessCode.setRegeneratedAt(LocalDateTime.now());
         accessCode.setRegeneratedBy(regeneratedBy);
 
-        // Save the access code first
-        accessCode = accessCodeRepository.save(accessCode);
-
-        // Update the code through DigitalLockService
-        // The DigitalLockService handles the integration with the appropriate digital
-        // lock service
-        // (TTLock, Nuki, etc.) based on the digital lock type
-        try {
-            String updatedCode = digitalLockService.generateAccessCode(
-                    reservation.getSpace().getDigitalLockId(),
-                    24, // 24 hours duration
-                    "Regenerated reservation access code");
-            accessCode.setCode(updatedCode);
-            accessCode = accessCodeRepository.save(accessCode);
-
-            // Log audit event
-            auditService.logCodeRegenerated(reservation.getId(), oldCode, updatedCode, regeneratedBy);
-
-            logger.info("Regenerated access code {} for reservation {} through DigitalLockService",
-                    updatedCode, reservation.getId());
-        } catch (Exception e) {
-            logger.error("Failed to regenerate access code for reservation {}: {}",
-                    reservation.getId(), e.getMessage(), e);
-            throw new com.neohoods.portal.platform.exceptions.CodedException(
-                    com.neohoods.portal.platform.exceptions.CodedError.EXTERNAL_SERVICE_ERROR.getCode(),
-                    "Failed to regenerate access code through digital lock service: " + e.getMessage());
-        }
+        // Log audit event
+        auditService.logCodeRegenerated(reservation.getId(), oldCode, code, regeneratedBy);
+
+        // The old code is removed from the lock and the new one pushed in the
+        // background, once committed
+        lockCodeReconciliationService.requestReconcileAfterCommit(accessCode.getDigitalLockId());
+        existingCode.ifPresent(old -> lockCodeReconciliationService
+                .requestReconcileAfterCommit(old.getDigitalLockId()));
+        logger.info("Regenerated access code {} for reservation {}", code, reservation.getId());
 
         return accessCode;
     }
@@ -244,16 +186,9 @@ public class AccessCodeService {
     public AccessCodeEntity deactivateAccessCode(AccessCodeEntity accessCode) {
         accessCode.setIsActive(false);
 
-        // Delete the code from TTlock device if it exists
+        // Removed from the lock in the background, once committed
         if (accessCode.getDigitalLockCodeId() != null) {
-            try {
-                ttlockRemoteAPIService.deleteTemporaryCode(accessCode.getDigitalLockCodeId());
-            } catch (Exception e) {
-                logger.error("Failed to delete TTlock code {}: {}",
-                        accessCode.getDigitalLockCodeId(), e.getMessage(), e);
-                // Continue without TTlock integration for now
-                // In a production environment, this should throw a proper exception
-            }
+            lockCodeReconciliationService.requestReconcileAfterCommit(accessCode.getDigitalLockId());
         }
 
         return accessCodeRepository.save(accessCode);
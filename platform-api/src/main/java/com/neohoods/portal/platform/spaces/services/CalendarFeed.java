@@ -0,0 +1,44 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Rendered ICS feed with the validators calendar clients revalidate against
+ * (ETag and Last-Modified), so that unchanged feeds are answered with 304.
+ */
+public record CalendarFeed(String content, String etag, Instant lastModified) {
+
+    /**
+     * True when the request's conditional headers match this feed.
+     * If-None-Match takes precedence over If-Modified-Since (RFC 9110).
+     */
+    public boolean isNotModified(HttpHeaders requestHeaders) {
+        if (requestHeaders == null) {
+            return false;
+        }
+        if (!requestHeaders.getIfNoneMatch().isEmpty()) {
+            return requestHeaders.getIfNoneMatch().stream()
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0 && lastModified != null
+                && !lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(Instant.ofEpochMilli(ifModifiedSince));
+    }
+
+    /**
+     * ETag, Last-Modified and a Cache-Control asking clients to revalidate
+     */
+    public HttpHeaders validatorHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        return headers;
+    }
+}
@@ -0,0 +1,80 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.neohoods.portal.platform.spaces.repositories.ReservationChangeVersion;
+
+/**
+ * Rendered ICS feeds, keyed by feed and reused as long as the feed version
+ * (reservation count and last update, plus whatever else the feed depends
+ * on) is unchanged. A poll of an unchanged feed costs one version query.
+ */
+class CalendarFeedCache {
+
+    private static final int MAX_FEEDS = 512;
+
+    private final Map<String, CalendarFeed> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached feed if its version matches, else renders it
+     *
+     * @param feedKey      identifies the feed (type and ids)
+     * @param version      reservation change version of the feed
+     * @param extraVersion other inputs of the rendering (space settings,
+     *                     window start)
+     * @param lastUpdate   latest update among the other inputs, may be null
+     */
+    CalendarFeed get(String feedKey, ReservationChangeVersion version, String extraVersion,
+            LocalDateTime lastUpdate, Supplier<String> renderer) {
+        if (version == null) {
+            version = new ReservationChangeVersion(0, null);
+        }
+        String etag = etag(feedKey + "|" + version.count() + "|" + version.lastUpdatedAt() + "|" + extraVersion);
+        CalendarFeed cached = feeds.get(feedKey);
+        if (cached != null && cached.etag().equals(etag)) {
+            return cached;
+        }
+        Instant lastModified = toInstant(latest(version.lastUpdatedAt(), lastUpdate));
+        if (lastModified == null
+                || (cached != null && !lastModified.isAfter(cached.lastModified()))) {
+            // A deletion can lower the latest update time: move forward anyway
+            lastModified = Instant.now();
+        }
+        CalendarFeed feed = new CalendarFeed(renderer.get(), etag, lastModified);
+        if (feeds.size() >= MAX_FEEDS) {
+            feeds.clear();
+        }
+        feeds.put(feedKey, feed);
+        return feed;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    private static Instant toInstant(LocalDateTime utc) {
+        // Timestamps are stored in UTC (see ReservationEntity lifecycle callbacks)
+        return utc != null ? utc.toInstant(ZoneOffset.UTC) : null;
+    }
+
+    private static String etag(String version) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(version.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            return "\"" + Integer.toHexString(version.hashCode()) + "\"";
+        }
+    }
+}
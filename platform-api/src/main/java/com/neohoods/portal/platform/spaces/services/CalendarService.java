@@ -10,10 +10,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
-import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.repositories.UsersRepository;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
@@ -34,15 +34,24 @@ public class CalendarService {
     private final UsersRepository usersRepository;
     private final MessageSource messageSource;
 
-    @org.springframework.beans.factory.annotation.Value("${neohoods.portal.base-url}")
+    @Value("${neohoods.portal.base-url}")
     private String baseUrl;
 
-    @org.springframework.beans.factory.annotation.Value("${neohoods.portal.email.template.app-name}")
+    @Value("${neohoods.portal.email.template.app-name}")
     private String appName;
 
     private static final DateTimeFormatter ICAL_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
     private static final Locale DEFAULT_LOCALE = Locale.getDefault();
+    private static final List<ReservationStatusForEntity> CALENDAR_STATUSES = List.of(
+            ReservationStatusForEntity.CONFIRMED,
+            ReservationStatusForEntity.ACTIVE,
+            ReservationStatusForEntity.COMPLETED);
+
+    @Value("${neohoods.portal.spaces.calendar.past-days:90}")
+    private int pastDays = 90;
+
+    private final CalendarFeedCache feedCache = new CalendarFeedCache();
 
     /**
      * Generate iCalendar content for a space's cleaning schedule
@@ -51,6 +60,14 @@ public class CalendarService {
      * @return iCalendar content as string
      */
     public String generateCalendarIcs(UUID spaceId) {
+        return getCleaningCalendarFeed(spaceId).content();
+    }
+
+    /**
+     * Cleaning schedule feed of a space, re-rendered only when its
+     * reservations or the space settings changed
+     */
+    public CalendarFeed getCleaningCalendarFeed(UUID spaceId) {
         SpaceEntity space = spaceRepository.findById(spaceId)
                 .orElseThrow(() -> new IllegalArgumentException("Space not found: " + spaceId));
 
@@ -58,13 +75,18 @@ public class CalendarService {
             throw new IllegalStateException("Cleaning calendar is not enabled for this space");
         }
 
-        // Fetch reservations with status CONFIRMED, ACTIVE, or COMPLETED
-        List<ReservationEntity> reservations = reservationRepository.findBySpace(space).stream()
-                .filter(r -> r.getStatus() == ReservationStatusForEntity.CONFIRMED
-                        || r.getStatus() == ReservationStatusForEntity.ACTIVE
-                        || r.getStatus() == ReservationStatusForEntity.COMPLETED)
-                .toList();
+        LocalDate from = windowStart();
+        return feedCache.get("cleaning:" + spaceId, reservationRepository.findChangeVersionBySpaceId(spaceId),
+                space.getUpdatedAt() + "|" + from, space.getUpdatedAt(),
+                () -> renderCleaningCalendar(space, from));
+    }
+
+    private String renderCleaningCalendar(SpaceEntity space, LocalDate from) {
+        UUID spaceId = space.getId();
+        List<ReservationEntity> reservations = reservationRepository.findCalendarReservationsBySpace(spaceId, null,
+                CALENDAR_STATUSES, from);
 
+        // Labels are resolved once per feed, not per event
         String cleaningLabel = messageSource.getMessage("cleaning.calendar.cleaning", null, DEFAULT_LOCALE);
         String scheduleForLabel = messageSource.getMessage("cleaning.calendar.scheduleFor", null, DEFAULT_LOCALE);
         String cleaningInterventionsLabel;
@@ -73,6 +95,18 @@ public class CalendarService {
         } catch (org.springframework.context.NoSuchMessageException e) {
             cleaningInterventionsLabel = "Cleaning interventions";
         }
+        String cleaningForReservationLabel = messageSource.getMessage("cleaning.calendar.cleaningForReservation",
+                null, DEFAULT_LOCALE);
+        String guestLabel = messageSource.getMessage("cleaning.calendar.guest", null, DEFAULT_LOCALE);
+        String checkoutLabel = messageSource.getMessage("cleaning.calendar.checkout", null, DEFAULT_LOCALE);
+        String reservationLabel = messageSource.getMessage("cleaning.calendar.reservation", null, DEFAULT_LOCALE);
+        String toLabel = messageSource.getMessage("cleaning.calendar.to", null, DEFAULT_LOCALE);
+        String reservationIdLabel = messageSource.getMessage("cleaning.calendar.reservationId", null,
+                DEFAULT_LOCALE);
+        String spaceIdLabel = messageSource.getMessage("cleaning.calendar.spaceId", null, DEFAULT_LOCALE);
+
+        LocalTime cleaningTime = parseTime(space.getCleaningHour());
+        String dtStamp = ZonedDateTime.now().format(ICAL_DATE_FORMAT);
 
         StringBuilder ics = new StringBuilder();
         ics.append("BEGIN:VCALENDAR\r\n");
@@ -86,7 +120,6 @@ public class CalendarService {
         for (ReservationEntity reservation : reservations) {
             LocalDate checkoutDate = reservation.getEndDate();
             LocalDate cleaningDate = checkoutDate.plusDays(space.getCleaningDaysAfterCheckout());
-            LocalTime cleaningTime = parseTime(space.getCleaningHour());
 
             LocalDateTime cleaningDateTime = LocalDateTime.of(cleaningDate, cleaningTime);
             ZonedDateTime startZoned = cleaningDateTime.atZone(ZoneId.systemDefault());
@@ -95,19 +128,8 @@ public class CalendarService {
             String guestName = reservation.getUser().getFirstName() + " " + reservation.getUser().getLastName();
             String guestEmail = reservation.getUser().getEmail();
 
-            String cleaningForReservationLabel = messageSource.getMessage("cleaning.calendar.cleaningForReservation",
-                    null, DEFAULT_LOCALE);
-            String guestLabel = messageSource.getMessage("cleaning.calendar.guest", null, DEFAULT_LOCALE);
-            String checkoutLabel = messageSource.getMessage("cleaning.calendar.checkout", null, DEFAULT_LOCALE);
-            String reservationLabel = messageSource.getMessage("cleaning.calendar.reservation", null, DEFAULT_LOCALE);
-            String toLabel = messageSource.getMessage("cleaning.calendar.to", null, DEFAULT_LOCALE);
-
             String eventTitle = cleaningLabel + " - " + space.getName() + " - " + guestName + " (" + guestEmail + ")";
 
-            String reservationIdLabel = messageSource.getMessage("cleaning.calendar.reservationId", null,
-                    DEFAULT_LOCALE);
-            String spaceIdLabel = messageSource.getMessage("cleaning.calendar.spaceId", null, DEFAULT_LOCALE);
-
             String description = cleaningForReservationLabel + "\n"
                     + guestLabel + " " + guestName + " (" + guestEmail + ")\n"
                     + checkoutLabel + " " + checkoutDate.format(DateTimeFormatter.ISO_DATE) + "\n"
@@ -121,7 +143,7 @@ public class CalendarService {
             ics.append("UID:").append(reservation.getId()).append("@neohoods-portal\r\n");
             ics.append("DTSTART:").append(startZoned.format(ICAL_DATE_FORMAT)).append("\r\n");
             ics.append("DTEND:").append(endZoned.format(ICAL_DATE_FORMAT)).append("\r\n");
-            ics.append("DTSTAMP:").append(ZonedDateTime.now().format(ICAL_DATE_FORMAT)).append("\r\n");
+            ics.append("DTSTAMP:").append(dtStamp).append("\r\n");
             ics.append("SUMMARY:").append(escapeText(eventTitle)).append("\r\n");
             ics.append("DESCRIPTION:").append(escapeText(description)).append("\r\n");
             ics.append("LOCATION:").append(escapeText(space.getName())).append("\r\n");
@@ -148,16 +170,27 @@ public class CalendarService {
      * @return iCalendar content as string
      */
     public String generateReservationCalendarIcs(UUID spaceId, UUID userId) {
+        return getReservationCalendarFeed(spaceId, userId).content();
+    }
+
+    /**
+     * Reservation schedule feed of a space, optionally for one user
+     */
+    public CalendarFeed getReservationCalendarFeed(UUID spaceId, UUID userId) {
         SpaceEntity space = spaceRepository.findById(spaceId)
                 .orElseThrow(() -> new IllegalArgumentException("Space not found: " + spaceId));
 
-        // Fetch reservations with status CONFIRMED, ACTIVE, or COMPLETED
-        List<ReservationEntity> reservations = reservationRepository.findBySpace(space).stream()
-                .filter(r -> r.getStatus() == ReservationStatusForEntity.CONFIRMED
-                        || r.getStatus() == ReservationStatusForEntity.ACTIVE
-                        || r.getStatus() == ReservationStatusForEntity.COMPLETED)
-                .filter(r -> userId == null || r.getUser().getId().equals(userId))
-                .toList();
+        LocalDate from = windowStart();
+        return feedCache.get("reservation:" + spaceId + ":" + userId,
+                reservationRepository.findChangeVersionBySpaceId(spaceId),
+                space.getUpdatedAt() + "|" + from, space.getUpdatedAt(),
+                () -> renderReservationCalendar(space, userId, from));
+    }
+
+    private String renderReservationCalendar(SpaceEntity space, UUID userId, LocalDate from) {
+        UUID spaceId = space.getId();
+        List<ReservationEntity> reservations = reservationRepository.findCalendarReservationsBySpace(spaceId,
+                userId, CALENDAR_STATUSES, from);
 
         String reservationLabel = messageSource.getMessage("calendar.reservation.title", null, DEFAULT_LOCALE);
         String scheduleForLabel = messageSource.getMessage("calendar.reservation.scheduleFor", null, DEFAULT_LOCALE);
@@ -181,6 +214,8 @@ public class CalendarService {
                 DEFAULT_LOCALE);
         String spaceIdLabel = messageSource.getMessage("calendar.reservation.spaceId", null, DEFAULT_LOCALE);
 
+        String dtStamp = ZonedDateTime.now().format(ICAL_DATE_FORMAT);
+
         for (ReservationEntity reservation : reservations) {
             LocalDate startDate = reservation.getStartDate();
             LocalDate endDate = reservation.getEndDate();
@@ -208,7 +243,7 @@ public class CalendarService {
             ics.append("UID:").append(reservation.getId()).append("@neohoods-portal-reservation\r\n");
             ics.append("DTSTART:").append(startZoned.format(ICAL_DATE_FORMAT)).append("\r\n");
             ics.append("DTEND:").append(endZoned.format(ICAL_DATE_FORMAT)).append("\r\n");
-            ics.append("DTSTAMP:").append(ZonedDateTime.now().format(ICAL_DATE_FORMAT)).append("\r\n");
+            ics.append("DTSTAMP:").append(dtStamp).append("\r\n");
             ics.append("SUMMARY:").append(escapeText(eventTitle)).append("\r\n");
             ics.append("DESCRIPTION:").append(escapeText(description)).append("\r\n");
             ics.append("LOCATION:").append(escapeText(space.getName())).append("\r\n");
@@ -235,16 +270,28 @@ public class CalendarService {
      * @return iCalendar content as string
      */
     public String generateUserCalendarIcs(UUID userId) {
+        return getUserCalendarFeed(userId).content();
+    }
+
+    /**
+     * Personal reservation feed of a user across all spaces
+     */
+    public CalendarFeed getUserCalendarFeed(UUID userId) {
         // Verify user exists
-        UserEntity user = usersRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+        if (!usersRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
 
-        // Fetch all reservations for user across all spaces
-        List<ReservationEntity> reservations = reservationRepository.findByUser(user).stream()
-                .filter(r -> r.getStatus() == ReservationStatusForEntity.CONFIRMED
-                        || r.getStatus() == ReservationStatusForEntity.ACTIVE
-                        || r.getStatus() == ReservationStatusForEntity.COMPLETED)
-                .toList();
+        LocalDate from = windowStart();
+        return feedCache.get("user:" + userId, reservationRepository.findChangeVersionByUserId(userId),
+                String.valueOf(from), null,
+                () -> renderUserCalendar(userId, from));
+    }
+
+    private String renderUserCalendar(UUID userId, LocalDate from) {
+        // Reservations for user across all spaces
+        List<ReservationEntity> reservations = reservationRepository.findCalendarReservationsByUser(userId,
+                CALENDAR_STATUSES, from);
 
         String scheduleForLabel = messageSource.getMessage("calendar.user.scheduleFor", null, DEFAULT_LOCALE);
         String myReservationsLabel = messageSource.getMessage("calendar.user.myReservations", null, DEFAULT_LOCALE);
@@ -268,6 +315,8 @@ public class CalendarService {
                 DEFAULT_LOCALE);
         String spaceIdLabel = messageSource.getMessage("calendar.reservation.spaceId", null, DEFAULT_LOCALE);
 
+        String dtStamp = ZonedDateTime.now().format(ICAL_DATE_FORMAT);
+
         for (ReservationEntity reservation : reservations) {
             SpaceEntity space = reservation.getSpace();
             LocalDate startDate = reservation.getStartDate();
@@ -291,7 +340,7 @@ public class CalendarService {
             ics.append("UID:").append(reservation.getId()).append("@neohoods-portal-user\r\n");
             ics.append("DTSTART:").append(startZoned.format(ICAL_DATE_FORMAT)).append("\r\n");
             ics.append("DTEND:").append(endZoned.format(ICAL_DATE_FORMAT)).append("\r\n");
-            ics.append("DTSTAMP:").append(ZonedDateTime.now().format(ICAL_DATE_FORMAT)).append("\r\n");
+            ics.append("DTSTAMP:").append(dtStamp).append("\r\n");
             ics.append("SUMMARY:").append(escapeText(eventTitle)).append("\r\n");
             ics.append("DESCRIPTION:").append(escapeText(description)).append("\r\n");
             ics.append("LOCATION:").append(escapeText(space.getName())).append("\r\n");
@@ -310,6 +359,14 @@ public class CalendarService {
         return ics.toString();
     }
 
+    /**
+     * First day of the feed window: recent past plus everything to come.
+     * Older reservations never change and calendar clients keep them.
+     */
+    private LocalDate windowStart() {
+        return LocalDate.now().minusDays(pastDays);
+    }
+
     private LocalTime parseTime(String timeStr) {
         try {
             return LocalTime.parse(timeStr, TIME_FORMAT);
@@ -4,12 +4,15 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.neohoods.portal.platform.security.VerifiedTokenCache;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
@@ -20,6 +23,7 @@ import com.nimbusds.jose.crypto.MACVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -31,6 +35,10 @@ public class CalendarTokenService {
     private final JWSSigner signer;
     private final JWSVerifier verifier;
 
+    // Calendar clients poll with the same long-lived token all day
+    private final VerifiedTokenCache<TokenVerificationResult> verifiedTokens = new VerifiedTokenCache<>(
+            "calendar", 10_000, Duration.ofMinutes(30));
+
     public CalendarTokenService(
             @Value("${neohoods.portal.cleaning.calendar.jwt-secret}") String jwtSecret,
             @Value("${neohoods.portal.cleaning.calendar.jwt-expiration-hours:8760}") int jwtExpirationHours) {
@@ -53,6 +61,11 @@ public class CalendarTokenService {
         }
     }
 
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        verifiedTokens.bindTo(meterRegistry);
+    }
+
     /**
      * Generate a JWT token for calendar access (backward compatibility)
      * 
@@ -199,6 +212,10 @@ public class CalendarTokenService {
      * @throws JOSEException If token is invalid or expired
      */
     public TokenVerificationResult verifyTokenWithClaims(String token) throws JOSEException {
+        TokenVerificationResult cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
 
@@ -232,7 +249,9 @@ public class CalendarTokenService {
             }
 
             log.debug("Verified calendar token - spaceId: {}, userId: {}, type: {}", spaceId, userId, type);
-            return new TokenVerificationResult(spaceId, userId, type);
+            TokenVerificationResult result = new TokenVerificationResult(spaceId, userId, type);
+            verifiedTokens.put(token, result, claims.getExpirationTime());
+            return result;
         } catch (ParseException e) {
             log.error("Failed to parse calendar token", e);
             throw new JOSEException("Failed to parse token", e);
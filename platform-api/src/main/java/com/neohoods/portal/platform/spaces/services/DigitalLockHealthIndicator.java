@@ -0,0 +1,60 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import com.neohoods.portal.platform.spaces.entities.DigitalLockEntity;
+
+/**
+ * Digital locks needing a visit, under "digitalLocks": battery below the
+ * threshold (TTLock and Nuki) and signal below the threshold (TTLock).
+ *
+ * UP while the locks can be listed (DOWN otherwise), since the codes are
+ * still served: the locks to look after are reported in the details, shown by
+ * the "locks" health group.
+ */
+@Component("digitalLocks")
+public class DigitalLockHealthIndicator extends AbstractHealthIndicator {
+
+    @Autowired
+    private DigitalLockService digitalLockService;
+
+    @Value("${neohoods.portal.spaces.locks.health.battery-threshold:20}")
+    private int batteryThreshold;
+
+    @Value("${neohoods.portal.spaces.locks.health.signal-threshold:50}")
+    private int signalThreshold;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        List<DigitalLockEntity> lowBattery = digitalLockService.getDigitalLocksWithLowBattery(batteryThreshold);
+        List<DigitalLockEntity> weakSignal = digitalLockService.getDigitalLocksWithWeakSignal(signalThreshold);
+        builder.up()
+                .withDetail("batteryThreshold", batteryThreshold)
+                .withDetail("lowBattery", lowBattery.stream().map(lock -> lockDetail(lock, batteryLevel(lock))).toList())
+                .withDetail("signalThreshold", signalThreshold)
+                .withDetail("weakSignal", weakSignal.stream()
+                        .map(lock -> lockDetail(lock, lock.getTtlockConfig().getSignalStrength())).toList());
+    }
+
+    private static Integer batteryLevel(DigitalLockEntity lock) {
+        return lock.getTtlockConfig() != null ? lock.getTtlockConfig().getBatteryLevel()
+                : lock.getNukiConfig().getBatteryLevel();
+    }
+
+    private static Map<String, Object> lockDetail(DigitalLockEntity lock, Integer level) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("id", lock.getId());
+        detail.put("name", lock.getName());
+        detail.put("type", lock.getType());
+        detail.put("level", level);
+        return detail;
+    }
+}
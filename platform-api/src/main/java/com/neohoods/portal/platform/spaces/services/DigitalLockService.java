@@ -35,6 +35,9 @@ public class DigitalLockService {
     @Autowired
     private NukiRemoteAPIService nukiRemoteAPIService;
 
+    @Autowired
+    private AccessCodeAllocator accessCodeAllocator;
+
     public Page<DigitalLockEntity> getAllDigitalLocks(Pageable pageable) {
         return digitalLockRepository.findAll(pageable);
     }
@@ -114,8 +117,7 @@ public class DigitalLockService {
 
     // Generate access code for a digital lock
     public String generateAccessCode(UUID digitalLockId, int durationHours, String reason) {
-        // Generate a random 6-digit code
-        String code = String.format("%06d", (int) (Math.random() * 1000000));
+        String code = accessCodeAllocator.draw(accessCodeAllocator.defaultFormat());
 
         // Create the code on the actual device
         return createAccessCodeOnDevice(digitalLockId, code, durationHours, reason);
@@ -385,6 +387,28 @@ public class DigitalLockService {
         return stats;
     }
 
+    /**
+     * Get digital locks whose last reported battery level is below the threshold,
+     * lowest first
+     */
+    public List<DigitalLockEntity> getDigitalLocksWithLowBattery(int batteryThreshold) {
+        List<DigitalLockEntity> locks = new java.util.ArrayList<>(
+                digitalLockRepository.findTtlockLocksWithLowBattery(batteryThreshold));
+        locks.addAll(digitalLockRepository.findNukiLocksWithLowBattery(batteryThreshold));
+        logger.debug("Found {} digital locks with battery level below {}%", locks.size(), batteryThreshold);
+        return locks;
+    }
+
+    /**
+     * Get digital locks whose last reported signal strength is below the
+     * threshold (TTLock only, Nuki does not report it)
+     */
+    public List<DigitalLockEntity> getDigitalLocksWithWeakSignal(int signalThreshold) {
+        List<DigitalLockEntity> locks = digitalLockRepository.findTtlockLocksWithWeakSignal(signalThreshold);
+        logger.debug("Found {} digital locks with signal strength below {}", locks.size(), signalThreshold);
+        return locks;
+    }
+
     /**
      * Get digital lock health status
      */
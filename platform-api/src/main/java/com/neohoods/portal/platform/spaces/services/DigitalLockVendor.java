@@ -0,0 +1,49 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import com.neohoods.portal.platform.spaces.entities.DigitalLockTypeForEntity;
+
+/**
+ * Access code API of a lock vendor, as used by the code reconciliation.
+ *
+ * Times are UTC.
+ */
+public interface DigitalLockVendor {
+
+    /**
+     * Code the lock should hold
+     *
+     * @param accessCodeId Access code it comes from
+     * @param codeId       Vendor id recorded for it, null if not pushed yet
+     */
+    record DesiredCode(UUID accessCodeId, String codeId, String code, String name, LocalDateTime validFrom,
+            LocalDateTime validUntil) {
+    }
+
+    /**
+     * Code held by the lock
+     *
+     * @param validFrom Null if the vendor does not report it
+     */
+    record DeviceCode(String id, String code, String name, LocalDateTime validFrom, LocalDateTime validUntil) {
+    }
+
+    DigitalLockTypeForEntity getType();
+
+    /**
+     * All the codes of a device, in one call
+     */
+    List<DeviceCode> listCodes(String deviceId);
+
+    /**
+     * @return Vendor id of the new code
+     */
+    String createCode(String deviceId, DesiredCode code);
+
+    void updateCode(String deviceId, String codeId, DesiredCode code);
+
+    void deleteCode(String deviceId, String codeId);
+}
@@ -0,0 +1,466 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.neohoods.portal.platform.spaces.entities.AccessCodeEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockTypeForEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+import com.neohoods.portal.platform.spaces.repositories.AccessCodeRepository;
+import com.neohoods.portal.platform.spaces.repositories.DigitalLockRepository;
+import com.neohoods.portal.platform.spaces.services.DigitalLockVendor.DesiredCode;
+import com.neohoods.portal.platform.spaces.services.DigitalLockVendor.DeviceCode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the codes held by the digital locks in line with the reservations.
+ *
+ * Bookings only change access codes in the database and request the
+ * reconciliation of the lock after commit, so they never wait on a lock
+ * vendor. A bounded pool of workers then lists the codes of the device in one
+ * call, diffs them against the codes of the upcoming reservations and pushes
+ * only the difference, retrying failed vendor calls with backoff. Requests for
+ * a lock already waiting are coalesced, and a periodic full pass catches up on
+ * what was missed (full queue, vendor outage, restart).
+ */
+@Service
+public class LockCodeReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(LockCodeReconciliationService.class);
+
+    public static final String METRIC_OPERATIONS = "neohoods.locks.codes.operations";
+    public static final String METRIC_RECONCILE = "neohoods.locks.reconcile";
+    public static final String METRIC_QUEUE = "neohoods.locks.reconcile.queue";
+
+    // Reservations whose code must be on the lock
+    static final List<ReservationStatusForEntity> CODE_STATUSES = List.of(
+            ReservationStatusForEntity.CONFIRMED,
+            ReservationStatusForEntity.ACTIVE);
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * Outcome of the reconciliation of a lock
+     */
+    public record Result(int created, int updated, int deleted, int failed) {
+        static final Result NONE = new Result(0, 0, 0, 0);
+    }
+
+    /**
+     * Code pushed under an existing vendor id
+     */
+    record Push(String codeId, DesiredCode code) {
+    }
+
+    /**
+     * Vendor calls bringing a lock to the desired state
+     *
+     * @param adoptions Codes found on the lock whose vendor id was not recorded
+     */
+    record Plan(List<DesiredCode> creates, List<Push> updates, List<Push> adoptions, List<String> deletes) {
+    }
+
+    @Autowired
+    private AccessCodeRepository accessCodeRepository;
+
+    @Autowired
+    private DigitalLockRepository digitalLockRepository;
+
+    @Value("${neohoods.portal.spaces.locks.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${neohoods.portal.spaces.locks.lead-days:14}")
+    private int leadDays = 14;
+
+    @Value("${neohoods.portal.spaces.locks.workers:4}")
+    private int workers = 4;
+
+    @Value("${neohoods.portal.spaces.locks.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${neohoods.portal.spaces.locks.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    @Value("${neohoods.portal.spaces.locks.retry-backoff-ms:500}")
+    private long retryBackoffMillis = 500;
+
+    private final Map<DigitalLockTypeForEntity, DigitalLockVendor> vendors = new EnumMap<>(
+            DigitalLockTypeForEntity.class);
+    // Locks waiting for a worker
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+    // One reconciliation at a time per lock
+    private final Map<UUID, ReentrantLock> lockGuards = new ConcurrentHashMap<>();
+    private volatile ThreadPoolExecutor executor;
+
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    public void setVendors(List<DigitalLockVendor> vendors) {
+        for (DigitalLockVendor vendor : vendors) {
+            if (vendor.getType() != null) {
+                this.vendors.put(vendor.getType(), vendor);
+            }
+        }
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(METRIC_QUEUE, queued, Set::size)
+                .description("Locks waiting for a code reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reconcile a lock once the current transaction commits, or now outside a
+     * transaction
+     */
+    public void requestReconcileAfterCommit(UUID digitalLockId) {
+        if (digitalLockId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestReconcile(digitalLockId);
+                }
+            });
+        } else {
+            requestReconcile(digitalLockId);
+        }
+    }
+
+    /**
+     * Queue the reconciliation of a lock, unless one is already waiting
+     *
+     * @return false if it could not be queued, leaving it to the next full pass
+     */
+    public boolean requestReconcile(UUID digitalLockId) {
+        if (!enabled) {
+            return false;
+        }
+        if (!queued.add(digitalLockId)) {
+            // The waiting reconciliation will see this change too
+            return true;
+        }
+        try {
+            executor().execute(() -> {
+                // Changes committed from now on need another pass
+                queued.remove(digitalLockId);
+                reconcileGuarded(digitalLockId);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.remove(digitalLockId);
+            log.warn("Lock reconciliation queue full, lock {} left to the next full pass", digitalLockId);
+            return false;
+        }
+    }
+
+    /**
+     * Queue the reconciliation of every active lock
+     */
+    @Scheduled(initialDelayString = "${neohoods.portal.spaces.locks.initial-delay-ms:60000}", fixedDelayString = "${neohoods.portal.spaces.locks.interval-ms:900000}")
+    public int reconcileAll() {
+        if (!enabled) {
+            return 0;
+        }
+        int requested = 0;
+        for (UUID digitalLockId : digitalLockRepository.findIdsByStatus(DigitalLockStatusForEntity.ACTIVE)) {
+            if (requestReconcile(digitalLockId)) {
+                requested++;
+            }
+        }
+        log.debug("Requested the code reconciliation of {} locks", requested);
+        return requested;
+    }
+
+    /**
+     * Bring the codes of a lock to the desired state, in the calling thread
+     */
+    public Result reconcile(UUID digitalLockId) {
+        long start = System.nanoTime();
+        DigitalLockEntity lock = digitalLockRepository.findByIdWithConfig(digitalLockId).orElse(null);
+        if (lock == null || lock.getStatus() != DigitalLockStatusForEntity.ACTIVE) {
+            log.debug("Lock {} is missing or inactive, not reconciled", digitalLockId);
+            return Result.NONE;
+        }
+        DigitalLockVendor vendor = vendors.get(lock.getType());
+        String deviceId = deviceId(lock);
+        if (vendor == null || deviceId == null) {
+            log.warn("Lock {} ({}) has no vendor or device configured, not reconciled", digitalLockId,
+                    lock.getType());
+            return Result.NONE;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DesiredCode> desired = accessCodeRepository
+                .findDesiredLockCodes(digitalLockId, now, now.toLocalDate().plusDays(leadDays), CODE_STATUSES)
+                .stream()
+                .map(accessCode -> toDesiredCode(digitalLockId, accessCode))
+                .toList();
+        Set<String> pushed = new HashSet<>(accessCodeRepository.findDigitalLockCodeIds(digitalLockId));
+        List<DeviceCode> held = withRetries("list", digitalLockId, () -> vendor.listCodes(deviceId));
+
+        Plan plan = plan(desired, held, pushed);
+        int failed = 0;
+
+        for (Push adoption : plan.adoptions()) {
+            accessCodeRepository.recordDigitalLockCode(adoption.code().accessCodeId(), digitalLockId,
+                    adoption.codeId());
+        }
+
+        // Deletes first, to free vendor slots
+        List<String> deleted = new ArrayList<>();
+        for (String codeId : plan.deletes()) {
+            try {
+                withRetries("delete", digitalLockId, () -> {
+                    vendor.deleteCode(deviceId, codeId);
+                    return null;
+                });
+                deleted.add(codeId);
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Failed to delete code {} from lock {}: {}", codeId, digitalLockId, e.getMessage());
+            }
+        }
+        if (!deleted.isEmpty()) {
+            accessCodeRepository.clearDigitalLockCodes(digitalLockId, deleted);
+        }
+
+        int updated = 0;
+        for (Push update : plan.updates()) {
+            try {
+                withRetries("update", digitalLockId, () -> {
+                    vendor.updateCode(deviceId, update.codeId(), update.code());
+                    return null;
+                });
+                updated++;
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Failed to update code {} on lock {}: {}", update.codeId(), digitalLockId,
+                        e.getMessage());
+            }
+        }
+
+        int created = 0;
+        for (DesiredCode code : plan.creates()) {
+            try {
+                String codeId = withRetries("create", digitalLockId, () -> vendor.createCode(deviceId, code));
+                accessCodeRepository.recordDigitalLockCode(code.accessCodeId(), digitalLockId, codeId);
+                created++;
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Failed to create the code of access code {} on lock {}: {}", code.accessCodeId(),
+                        digitalLockId, e.getMessage());
+            }
+        }
+
+        Result result = new Result(created, updated, deleted.size(), failed);
+        if (meterRegistry != null) {
+            Timer.builder(METRIC_RECONCILE)
+                    .description("Time spent reconciling the codes of a lock")
+                    .tag("type", lock.getType().name())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (created + updated + deleted.size() + failed > 0) {
+            log.info("Reconciled lock {}: {} desired codes, {} held, {}", digitalLockId, desired.size(), held.size(),
+                    result);
+        }
+        return result;
+    }
+
+    /**
+     * Diff the codes a lock should hold against the codes it holds. Codes the
+     * lock holds but that were not pushed by us are left alone.
+     *
+     * @param pushed Vendor ids of the codes pushed to the lock
+     */
+    static Plan plan(List<DesiredCode> desired, List<DeviceCode> held, Set<String> pushed) {
+        Map<String, DeviceCode> heldById = new HashMap<>();
+        Map<String, DeviceCode> heldByCode = new HashMap<>();
+        for (DeviceCode code : held) {
+            heldById.put(code.id(), code);
+            if (code.code() != null) {
+                heldByCode.putIfAbsent(code.code(), code);
+            }
+        }
+
+        List<DesiredCode> creates = new ArrayList<>();
+        List<Push> updates = new ArrayList<>();
+        List<Push> adoptions = new ArrayList<>();
+        Set<String> kept = new HashSet<>();
+        for (DesiredCode code : desired) {
+            DeviceCode current = code.codeId() != null ? heldById.get(code.codeId()) : null;
+            if (current == null) {
+                // Pushed before its id could be recorded
+                DeviceCode same = heldByCode.get(code.code());
+                if (same != null && Objects.equals(same.name(), code.name()) && !kept.contains(same.id())) {
+                    current = same;
+                    adoptions.add(new Push(same.id(), code));
+                }
+            }
+            if (current == null) {
+                creates.add(code);
+                continue;
+            }
+            kept.add(current.id());
+            if (!matches(code, current)) {
+                updates.add(new Push(current.id(), code));
+            }
+        }
+
+        List<String> deletes = new ArrayList<>();
+        for (DeviceCode code : held) {
+            if (!kept.contains(code.id()) && pushed.contains(code.id())) {
+                deletes.add(code.id());
+            }
+        }
+        return new Plan(creates, updates, adoptions, deletes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ThreadPoolExecutor current = executor;
+        if (current != null) {
+            // Whatever is left is caught up by the first full pass after restart
+            current.shutdownNow();
+        }
+    }
+
+    // Fields the vendor does not report (null) are not compared
+    private static boolean matches(DesiredCode desired, DeviceCode held) {
+        return (held.code() == null || held.code().equals(desired.code()))
+                && (held.validFrom() == null || held.validFrom().equals(desired.validFrom()))
+                && Objects.equals(held.validUntil(), desired.validUntil());
+    }
+
+    private static DesiredCode toDesiredCode(UUID digitalLockId, AccessCodeEntity accessCode) {
+        ReservationEntity reservation = accessCode.getReservation();
+        // A vendor id recorded on another lock (space moved to a new lock) does not count here
+        String codeId = digitalLockId.equals(accessCode.getDigitalLockId()) ? accessCode.getDigitalLockCodeId()
+                : null;
+        return new DesiredCode(
+                accessCode.getId(),
+                codeId,
+                accessCode.getCode(),
+                "Guest - " + reservation.getSpace().getName(),
+                reservation.getStartDate().atStartOfDay(),
+                accessCode.getExpiresAt().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private static String deviceId(DigitalLockEntity lock) {
+        return switch (lock.getType()) {
+            case TTLOCK -> lock.getTtlockConfig() != null ? lock.getTtlockConfig().getDeviceId() : null;
+            case NUKI -> lock.getNukiConfig() != null ? lock.getNukiConfig().getDeviceId() : null;
+            default -> null;
+        };
+    }
+
+    private void reconcileGuarded(UUID digitalLockId) {
+        ReentrantLock guard = lockGuards.computeIfAbsent(digitalLockId, id -> new ReentrantLock());
+        guard.lock();
+        try {
+            reconcile(digitalLockId);
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile the codes of lock {}: {}", digitalLockId, e.getMessage(), e);
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    private <T> T withRetries(String operation, UUID digitalLockId, Supplier<T> call) {
+        long backoff = retryBackoffMillis;
+        for (int attempt = 1;; attempt++) {
+            try {
+                T result = call.get();
+                count(operation, "success");
+                return result;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    count(operation, "failure");
+                    throw e;
+                }
+                count(operation, "retry");
+                log.warn("Lock {} {} failed (attempt {}/{}), retrying in {} ms: {}", digitalLockId, operation,
+                        attempt, maxAttempts, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        if (meterRegistry != null) {
+            Counter.builder(METRIC_OPERATIONS)
+                    .description("Lock vendor calls made by the code reconciliation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private ThreadPoolExecutor executor() {
+        ThreadPoolExecutor current = executor;
+        if (current == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    AtomicInteger threads = new AtomicInteger();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                                Thread thread = new Thread(runnable,
+                                        "lock-reconcile-" + threads.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+                current = executor;
+            }
+        }
+        return current;
+    }
+}
@@ -1,8 +1,10 @@
 package com.neohoods.portal.platform.spaces.services;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,12 +22,13 @@ import org.springframework.web.client.RestTemplate;
 import com.neohoods.portal.platform.exceptions.CodedError;
 import com.neohoods.portal.platform.exceptions.CodedErrorException;
 import com.neohoods.portal.platform.spaces.entities.AccessCodeEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockTypeForEntity;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
-public class NukiRemoteAPIService {
+public class NukiRemoteAPIService implements DigitalLockVendor {
 
     @Value("${nuki.api-url}")
     private String nukiApiUrl;
@@ -270,6 +273,131 @@ public class NukiRemoteAPIService {
         }
     }
 
+    @Override
+    public DigitalLockTypeForEntity getType() {
+        return DigitalLockTypeForEntity.NUKI;
+    }
+
+    /**
+     * List the authorizations of a smartlock
+     */
+    @Override
+    public List<DeviceCode> listCodes(String smartlockId) {
+        try {
+            String url = nukiApiUrl + "/smartlock/" + smartlockId + "/auth";
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bearer " + nukiToken);
+
+            ResponseEntity<NukiCodeResponse[]> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    new HttpEntity<Void>(headers),
+                    NukiCodeResponse[].class);
+
+            if (response.getStatusCode() != HttpStatus.OK) {
+                throw new CodedErrorException(CodedError.NUKI_API_ERROR,
+                        Map.of("operation", "listCodes", "smartlockId", smartlockId, "statusCode",
+                                response.getStatusCode()));
+            }
+            NukiCodeResponse[] codes = response.getBody();
+            if (codes == null) {
+                return List.of();
+            }
+            return Arrays.stream(codes)
+                    .map(code -> new DeviceCode(code.getId(), code.getCode(), code.getName(),
+                            parseDate(code.getAllowedFromDate()), parseDate(code.getAllowedUntilDate())))
+                    .toList();
+        } catch (CodedErrorException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error listing Nuki codes of smartlock {}: {}", smartlockId, e.getMessage());
+            throw new CodedErrorException(CodedError.NUKI_API_ERROR,
+                    Map.of("operation", "listCodes", "smartlockId", smartlockId), e);
+        }
+    }
+
+    @Override
+    public String createCode(String smartlockId, DesiredCode code) {
+        try {
+            String url = nukiApiUrl + "/smartlock/" + smartlockId + "/auth";
+
+            ResponseEntity<NukiCodeResponse> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    codeRequest(code),
+                    NukiCodeResponse.class);
+
+            if (response.getStatusCode() != HttpStatus.CREATED || response.getBody() == null) {
+                throw new CodedErrorException(CodedError.NUKI_API_ERROR,
+                        Map.of("operation", "createCode", "smartlockId", smartlockId, "statusCode",
+                                response.getStatusCode()));
+            }
+            log.info("Created Nuki code for access code {} on smartlock {}", code.accessCodeId(), smartlockId);
+            return response.getBody().getId();
+        } catch (CodedErrorException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error creating Nuki code for access code {} on smartlock {}: {}",
+                    code.accessCodeId(), smartlockId, e.getMessage());
+            throw new CodedErrorException(CodedError.NUKI_API_ERROR,
+                    Map.of("operation", "createCode", "smartlockId", smartlockId), e);
+        }
+    }
+
+    @Override
+    public void updateCode(String smartlockId, String authId, DesiredCode code) {
+        try {
+            String url = nukiApiUrl + "/smartlock/" + smartlockId + "/auth/" + authId;
+
+            ResponseEntity<NukiCodeResponse> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.PUT,
+                    codeRequest(code),
+                    NukiCodeResponse.class);
+
+            if (response.getStatusCode() != HttpStatus.OK) {
+                throw new CodedErrorException(CodedError.NUKI_API_ERROR,
+                        Map.of("operation", "updateCode", "smartlockId", smartlockId, "authId", authId,
+                                "statusCode", response.getStatusCode()));
+            }
+            log.info("Updated Nuki code {} on smartlock {}", authId, smartlockId);
+        } catch (CodedErrorException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error updating Nuki code {} on smartlock {}: {}", authId, smartlockId, e.getMessage());
+            throw new CodedErrorException(CodedError.NUKI_API_ERROR,
+                    Map.of("operation", "updateCode", "smartlockId", smartlockId, "authId", authId), e);
+        }
+    }
+
+    @Override
+    public void deleteCode(String smartlockId, String authId) {
+        deleteTemporaryCode(smartlockId, authId);
+    }
+
+    private HttpEntity<Map<String, Object>> codeRequest(DesiredCode code) {
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("name", code.name());
+        requestBody.put("type", 0); // Temporary code
+        requestBody.put("code", code.code());
+        requestBody.put("allowedFromDate", code.validFrom().atOffset(ZoneOffset.UTC).format(formatter));
+        requestBody.put("allowedUntilDate", code.validUntil().atOffset(ZoneOffset.UTC).format(formatter));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + nukiToken);
+        return new HttpEntity<>(requestBody, headers);
+    }
+
+    private static LocalDateTime parseDate(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        return OffsetDateTime.parse(date).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
     // Response DTOs
     @lombok.Data
     public static class NukiCodeResponse {
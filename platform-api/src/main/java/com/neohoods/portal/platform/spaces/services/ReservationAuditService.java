@@ -2,31 +2,76 @@ package com.neohoods.portal.platform.spaces.services;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.neohoods.portal.platform.spaces.entities.ReservationAuditLogEntity;
 import com.neohoods.portal.platform.spaces.repositories.ReservationAuditLogRepository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reservation audit trail.
+ *
+ * Audit rows are persisted in the caller's transaction and written at flush
+ * as one JDBC batch (hibernate.jdbc.batch_size, order_inserts), so a
+ * confirmation (status change, confirmation, payment) costs one round trip
+ * instead of one insert each, while the rows stay visible to queries in the
+ * same transaction. Event types listed in async-event-types are instead
+ * queued after commit and written in the background, in batches.
+ */
 @Service
 @Transactional
 public class ReservationAuditService {
 
     private static final Logger log = LoggerFactory.getLogger(ReservationAuditService.class);
 
-    @Autowired
+    public static final String METRIC_FLUSH = "neohoods.reservations.audit.flush";
+    public static final String METRIC_BATCH_SIZE = "neohoods.reservations.audit.batch.size";
+
     private final ReservationAuditLogRepository auditLogRepository;
 
+    @Value("${neohoods.portal.spaces.audit.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${neohoods.portal.spaces.audit.async-event-types:}")
+    private Set<String> asyncEventTypes = Set.of();
+
+    @Value("${neohoods.portal.spaces.audit.async-queue-capacity:10000}")
+    private int asyncQueueCapacity = 10000;
+
+    private volatile BlockingQueue<ReservationAuditLogEntity> asyncQueue;
+
+    private MeterRegistry meterRegistry;
+
     public ReservationAuditService(ReservationAuditLogRepository auditLogRepository) {
         this.auditLogRepository = auditLogRepository;
     }
 
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Log an event for a reservation
      */
@@ -42,7 +87,12 @@ public class ReservationAuditService {
             auditLog.setPerformedBy(performedBy);
             auditLog.setCreatedAt(LocalDateTime.now(ZoneOffset.UTC));
 
-            auditLogRepository.save(auditLog);
+            if (asyncEventTypes.contains(eventType)) {
+                enqueueAfterCommit(auditLog);
+            } else {
+                // No SQL yet: the insert is batched with the others at flush
+                auditLogRepository.save(auditLog);
+            }
             log.debug("Audit log created for reservation {}: {} - {}", reservationId, eventType, logMessage);
         } catch (Exception e) {
             log.error("Failed to create audit log for reservation {}: {}", reservationId, e.getMessage(), e);
@@ -53,10 +103,18 @@ public class ReservationAuditService {
      * Log a status change event
      */
     public void logStatusChange(UUID reservationId, String oldStatus, String newStatus, String performedBy) {
-        String logMessage = String.format("Reservation status changed from %s to %s", oldStatus, newStatus);
+        String logMessage = statusChangeMessage(oldStatus, newStatus);
         logEvent(reservationId, ReservationAuditLogEntity.STATUS_CHANGE, oldStatus, newStatus, logMessage, performedBy);
     }
 
+    /**
+     * Message of a status change event, also used by the bulk transitions that
+     * write their audit rows in SQL (see ReservationLifecycleService)
+     */
+    public static String statusChangeMessage(String oldStatus, String newStatus) {
+        return String.format("Reservation status changed from %s to %s", oldStatus, newStatus);
+    }
+
     /**
      * Log an access code generation event
      */
@@ -104,4 +162,81 @@ public class ReservationAuditService {
     public List<ReservationAuditLogEntity> getAuditLogsForReservation(UUID reservationId) {
         return auditLogRepository.findByReservationIdOrderByCreatedAtDesc(reservationId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the queued asynchronous events, one batch at a time
+     */
+    @Scheduled(fixedDelayString = "${neohoods.portal.spaces.audit.async-flush-interval-ms:1000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void flushAsyncEvents() {
+        BlockingQueue<ReservationAuditLogEntity> queue = asyncQueue;
+        if (queue == null) {
+            return;
+        }
+        List<ReservationAuditLogEntity> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} queued audit logs: {}", batch.size(), e.getMessage(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAsyncEvents();
+    }
+
+    private void enqueueAfterCommit(ReservationAuditLogEntity auditLog) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(auditLog);
+                }
+            });
+        } else {
+            enqueue(auditLog);
+        }
+    }
+
+    private void enqueue(ReservationAuditLogEntity auditLog) {
+        // Runs after commit, where a write could not get a transaction of its own
+        if (!asyncQueue().offer(auditLog)) {
+            log.warn("Audit queue full, dropping {} event for reservation {}", auditLog.getEventType(),
+                    auditLog.getReservationId());
+        }
+    }
+
+    private BlockingQueue<ReservationAuditLogEntity> asyncQueue() {
+        BlockingQueue<ReservationAuditLogEntity> queue = asyncQueue;
+        if (queue == null) {
+            synchronized (this) {
+                if (asyncQueue == null) {
+                    asyncQueue = new ArrayBlockingQueue<>(Math.max(1, asyncQueueCapacity));
+                }
+                queue = asyncQueue;
+            }
+        }
+        return queue;
+    }
+
+    private void write(List<ReservationAuditLogEntity> auditLogs) {
+        long start = System.nanoTime();
+        // One transaction, one batch
+        auditLogRepository.saveAll(auditLogs);
+        if (meterRegistry != null) {
+            Timer.builder(METRIC_FLUSH)
+                    .description("Time spent writing queued reservation audit logs")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder(METRIC_BATCH_SIZE)
+                    .description("Queued reservation audit logs written per batch")
+                    .register(meterRegistry)
+                    .record(auditLogs.size());
+        }
+        log.debug("Wrote {} queued reservation audit logs", auditLogs.size());
+    }
+}
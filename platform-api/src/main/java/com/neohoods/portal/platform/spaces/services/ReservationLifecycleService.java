@@ -0,0 +1,155 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neohoods.portal.platform.services.HubEventsService;
+import com.neohoods.portal.platform.spaces.entities.PaymentStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationAuditLogEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationRepository;
+
+/**
+ * Date-driven reservation transitions: CONFIRMED to ACTIVE once the start
+ * date is reached, ACTIVE to COMPLETED once the end date is passed.
+ *
+ * Each transition is one set-based statement, which moves every due
+ * reservation still in the expected status and writes their audit rows. The
+ * side effects (access codes, lock reconciliation, hub events) are emitted
+ * from the returned rows, without loading the reservations.
+ */
+@Service
+@Transactional
+public class ReservationLifecycleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationLifecycleService.class);
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private AccessCodeService accessCodeService;
+
+    @Autowired
+    private LockCodeReconciliationService lockCodeReconciliationService;
+
+    @Autowired
+    private HubEventsService hubEventsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Activate the confirmed reservations starting on or before the given day
+     *
+     * @return The number of activated reservations
+     */
+    public int activateDueReservations(LocalDate currentDate) {
+        String oldStatus = ReservationStatusForEntity.CONFIRMED.toString();
+        String newStatus = ReservationStatusForEntity.ACTIVE.toString();
+        List<Object[]> rows = reservationRepository.activateDueReservations(currentDate,
+                LocalDateTime.now(ZoneOffset.UTC), ReservationAuditLogEntity.STATUS_CHANGE,
+                ReservationAuditService.statusChangeMessage(oldStatus, newStatus));
+
+        List<UUID> withoutAccessCode = new ArrayList<>();
+        for (Object[] row : rows) {
+            UUID reservationId = (UUID) row[0];
+            publishStatusChange(reservationId, (UUID) row[1], ReservationStatusForEntity.ACTIVE, oldStatus,
+                    (String) row[2]);
+            if (Boolean.TRUE.equals(row[3])) {
+                withoutAccessCode.add(reservationId);
+            }
+        }
+
+        // Codes are generated at confirmation: only the few confirmed without one are loaded.
+        // Each one in its own transaction, so a failure rolls back that code only and not the
+        // whole activation (it would be marked rollback-only otherwise)
+        TransactionTemplate codeTransaction = new TransactionTemplate(transactionManager);
+        codeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int generated = 0;
+        for (ReservationEntity reservation : reservationRepository.findAllById(withoutAccessCode)) {
+            try {
+                codeTransaction.executeWithoutResult(status -> accessCodeService.generateAccessCode(reservation));
+                generated++;
+            } catch (Exception e) {
+                logger.error("Error generating access code for activated reservation {}: {}", reservation.getId(),
+                        e.getMessage(), e);
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            logger.info("Activated {} reservations ({} of {} access codes generated)", rows.size(), generated,
+                    withoutAccessCode.size());
+        }
+        return rows.size();
+    }
+
+    /**
+     * Complete the active reservations which ended before the given day, and
+     * deactivate their access codes
+     *
+     * @return The number of completed reservations
+     */
+    public int completeDueReservations(LocalDate currentDate) {
+        String oldStatus = ReservationStatusForEntity.ACTIVE.toString();
+        String newStatus = ReservationStatusForEntity.COMPLETED.toString();
+        List<Object[]> rows = reservationRepository.completeDueReservations(currentDate,
+                LocalDateTime.now(ZoneOffset.UTC), ReservationAuditLogEntity.STATUS_CHANGE,
+                ReservationAuditService.statusChangeMessage(oldStatus, newStatus));
+
+        Set<UUID> completed = new HashSet<>();
+        Set<UUID> digitalLockIds = new HashSet<>();
+        for (Object[] row : rows) {
+            UUID reservationId = (UUID) row[0];
+            // One row per deactivated access code
+            if (completed.add(reservationId)) {
+                publishStatusChange(reservationId, (UUID) row[1], ReservationStatusForEntity.COMPLETED, oldStatus,
+                        (String) row[2]);
+            }
+            if (row[3] != null && row[4] != null) {
+                digitalLockIds.add((UUID) row[3]);
+            }
+        }
+
+        // Codes removed from the locks in the background, once committed
+        digitalLockIds.forEach(lockCodeReconciliationService::requestReconcileAfterCommit);
+
+        if (!completed.isEmpty()) {
+            logger.info("Completed {} reservations ({} locks to reconcile)", completed.size(),
+                    digitalLockIds.size());
+        }
+        return completed.size();
+    }
+
+    /**
+     * Push the new status to the reservation owner's hub event stream once the
+     * transaction commits
+     */
+    void publishStatusChange(UUID reservationId, UUID userId, ReservationStatusForEntity status, String oldStatus,
+            String paymentStatus) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("reservationId", reservationId);
+        data.put("status", status);
+        data.put("oldStatus", oldStatus);
+        data.put("paymentStatus", paymentStatus != null ? PaymentStatusForEntity.valueOf(paymentStatus) : null);
+        hubEventsService.publish(userId, HubEventsService.RESERVATION_STATUS, data);
+    }
+}
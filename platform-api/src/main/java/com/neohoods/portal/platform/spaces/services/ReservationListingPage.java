@@ -0,0 +1,53 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import com.neohoods.portal.platform.spaces.repositories.ReservationListItem;
+
+/**
+ * One page of a reservation listing
+ *
+ * @param items      rows of the page
+ * @param nextCursor cursor of the next page, null on the last page
+ * @param total      number of matching reservations, -1 when not counted
+ */
+public record ReservationListingPage(List<ReservationListItem> items, String nextCursor, long total) {
+
+    public static final long TOTAL_NOT_COUNTED = -1;
+
+    /**
+     * Keyset position in a listing ordered by start date then id
+     */
+    public record Cursor(LocalDate startDate, UUID id) {
+
+        public static final Cursor FIRST = new Cursor(LocalDate.of(1, 1, 1), new UUID(0L, 0L));
+
+        public static Cursor after(ReservationListItem item) {
+            return new Cursor(item.startDate(), item.id());
+        }
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((startDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @throws IllegalArgumentException if the cursor was not produced by
+         *                                  {@link #encode()}
+         */
+        public static Cursor decode(String token) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf('|');
+                return new Cursor(LocalDate.parse(decoded.substring(0, separator)),
+                        UUID.fromString(decoded.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + token, e);
+            }
+        }
+    }
+}
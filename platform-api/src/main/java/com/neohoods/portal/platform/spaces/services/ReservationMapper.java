@@ -2,6 +2,7 @@ package com.neohoods.portal.platform.spaces.services;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
 import org.springframework.stereotype.Component;
@@ -10,6 +11,7 @@ import com.neohoods.portal.platform.model.Reservation;
 import com.neohoods.portal.platform.model.ReservationStatus;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationListItem;
 
 @Component
 public class ReservationMapper {
@@ -58,21 +60,35 @@ public class ReservationMapper {
      * @return An object with all pricing details: numberOfDays, unitPrice, totalDaysPrice, cleaningFee, subtotal, deposit, platformFeeAmount, platformFixedFeeAmount, totalPrice
      */
     public static PricingDetails calculatePricingDetails(ReservationEntity entity) {
+        return calculatePricingDetails(entity.getStartDate(), entity.getEndDate(), entity.getTotalPrice(),
+                entity.getSpace().getCleaningFee(), entity.getSpace().getDeposit(), entity.getPlatformFeeAmount(),
+                entity.getPlatformFixedFeeAmount());
+    }
+
+    /**
+     * Calculate pricing details for a reservation listing row
+     */
+    public static PricingDetails calculatePricingDetails(ReservationListItem item) {
+        return calculatePricingDetails(item.startDate(), item.endDate(), item.totalPrice(), item.spaceCleaningFee(),
+                item.spaceDeposit(), item.platformFeeAmount(), item.platformFixedFeeAmount());
+    }
+
+    private static PricingDetails calculatePricingDetails(LocalDate startDate, LocalDate endDate,
+            BigDecimal totalPrice, BigDecimal spaceCleaningFee, BigDecimal spaceDeposit,
+            BigDecimal reservationPlatformFeeAmount, BigDecimal reservationPlatformFixedFeeAmount) {
         // Calculate number of days/nights (inclusive: endDate - startDate + 1)
-        long numberOfDays = ChronoUnit.DAYS.between(entity.getStartDate(), entity.getEndDate()) + 1;
+        long numberOfDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
 
         // Calculate totalDaysPrice: totalPrice - cleaningFee - deposit - platformFees
-        BigDecimal cleaningFee = entity.getSpace().getCleaningFee() != null ? entity.getSpace().getCleaningFee()
-                : BigDecimal.ZERO;
-        BigDecimal deposit = entity.getSpace().getDeposit() != null ? entity.getSpace().getDeposit()
-                : BigDecimal.ZERO;
-        BigDecimal platformFeeAmount = entity.getPlatformFeeAmount() != null ? entity.getPlatformFeeAmount()
+        BigDecimal cleaningFee = spaceCleaningFee != null ? spaceCleaningFee : BigDecimal.ZERO;
+        BigDecimal deposit = spaceDeposit != null ? spaceDeposit : BigDecimal.ZERO;
+        BigDecimal platformFeeAmount = reservationPlatformFeeAmount != null ? reservationPlatformFeeAmount
                 : BigDecimal.ZERO;
-        BigDecimal platformFixedFeeAmount = entity.getPlatformFixedFeeAmount() != null
-                ? entity.getPlatformFixedFeeAmount()
+        BigDecimal platformFixedFeeAmount = reservationPlatformFixedFeeAmount != null
+                ? reservationPlatformFixedFeeAmount
                 : BigDecimal.ZERO;
 
-        BigDecimal totalDaysPrice = entity.getTotalPrice()
+        BigDecimal totalDaysPrice = totalPrice
                 .subtract(cleaningFee)
                 .subtract(deposit)
                 .subtract(platformFeeAmount)
@@ -88,7 +104,7 @@ public class ReservationMapper {
         BigDecimal subtotal = totalDaysPrice.add(cleaningFee);
 
         return new PricingDetails(numberOfDays, unitPrice, totalDaysPrice, cleaningFee, subtotal, deposit,
-                platformFeeAmount, platformFixedFeeAmount, entity.getTotalPrice());
+                platformFeeAmount, platformFixedFeeAmount, totalPrice);
     }
 
     /**
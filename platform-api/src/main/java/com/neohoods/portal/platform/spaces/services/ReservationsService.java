@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +24,7 @@ import com.neohoods.portal.platform.exceptions.CodedError;
 import com.neohoods.portal.platform.exceptions.CodedErrorException;
 import com.neohoods.portal.platform.exceptions.ResourceNotFoundException;
 import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.services.HubEventsService;
 import com.neohoods.portal.platform.services.MailService;
 import com.neohoods.portal.platform.services.NotificationsService;
 import com.neohoods.portal.platform.services.UnitsService;
@@ -33,6 +35,7 @@ import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationListItem;
 import com.neohoods.portal.platform.spaces.repositories.ReservationRepository;
 
 @Service
@@ -74,6 +77,12 @@ public class ReservationsService {
     @Autowired
     private UsersRepository usersRepository;
 
+    @Autowired
+    private HubEventsService hubEventsService;
+
+    @Autowired
+    private ReservationLifecycleService reservationLifecycleService;
+
     /**
      * Get all reservations for a user
      */
@@ -117,6 +126,50 @@ public class ReservationsService {
                 pageable);
     }
 
+    /**
+     * Reservation listing page (admin, or a user's own with userId set).
+     * With a cursor, or on the first page, rows are read by keyset so every
+     * page costs the same; a numbered page beyond the first falls back to an
+     * offset. The total is counted on the first page unless includeTotal says
+     * otherwise, and only on request after that.
+     */
+    @Transactional(readOnly = true)
+    public ReservationListingPage getReservationListing(UUID spaceId, UUID userId,
+            ReservationStatusForEntity status, LocalDate startDate, LocalDate endDate,
+            SpaceTypeForEntity spaceType, String cursor, Integer page, int size, Boolean includeTotal) {
+        boolean keyset = cursor != null || page == null || page == 0;
+        List<ReservationListItem> items;
+        boolean hasMore;
+        if (keyset) {
+            ReservationListingPage.Cursor after = ReservationListingPage.Cursor.FIRST;
+            if (cursor != null) {
+                try {
+                    after = ReservationListingPage.Cursor.decode(cursor);
+                } catch (IllegalArgumentException e) {
+                    throw new CodedErrorException(CodedError.INVALID_INPUT, "cursor", cursor);
+                }
+            }
+            // One extra row tells whether a next page exists
+            List<ReservationListItem> rows = reservationRepository.findListingPageAfter(spaceId, userId, status,
+                    startDate, endDate, spaceType, after.startDate(), after.id(), PageRequest.of(0, size + 1));
+            hasMore = rows.size() > size;
+            items = hasMore ? rows.subList(0, size) : rows;
+        } else {
+            items = reservationRepository.findListingPage(spaceId, userId, status, startDate, endDate, spaceType,
+                    PageRequest.of(page, size));
+            hasMore = items.size() == size;
+        }
+
+        boolean count = includeTotal != null ? includeTotal : cursor == null;
+        long total = count
+                ? reservationRepository.countListing(spaceId, userId, status, startDate, endDate, spaceType)
+                : ReservationListingPage.TOTAL_NOT_COUNTED;
+        String nextCursor = hasMore && !items.isEmpty()
+                ? ReservationListingPage.Cursor.after(items.get(items.size() - 1)).encode()
+                : null;
+        return new ReservationListingPage(items, nextCursor, total);
+    }
+
     /**
      * Get user reservations with filters and pagination
      */
@@ -298,6 +351,7 @@ public class ReservationsService {
         auditService.logEvent(reservation.getId(), ReservationAuditLogEntity.STATUS_CHANGE,
                 null, ReservationStatusForEntity.PENDING_PAYMENT.toString(),
                 "Reservation created", performedBy);
+        publishStatusChange(reservation, null);
 
         // Increment used annual reservations for the space
         spacesService.incrementUsedAnnualReservations(space.getId());
@@ -337,6 +391,7 @@ public class ReservationsService {
                 : (user.getEmail() != null ? user.getEmail() : "system");
         auditService.logStatusChange(reservation.getId(), oldStatus,
                 ReservationStatusForEntity.CONFIRMED.toString(), performedBy);
+        publishStatusChange(reservation, oldStatus);
         auditService.logConfirmation(reservation.getId(), performedBy);
         if (stripePaymentIntentId != null) {
             auditService.logPaymentReceived(reservation.getId(), stripePaymentIntentId, performedBy);
@@ -388,6 +443,19 @@ public class ReservationsService {
         return reservation;
     }
 
+    /**
+     * Push the new status to the reservation owner's hub event stream once the
+     * transaction commits
+     */
+    void publishStatusChange(ReservationEntity reservation, String oldStatus) {
+        Map<String, Object> data = new java.util.HashMap<>();
+        data.put("reservationId", reservation.getId());
+        data.put("status", reservation.getStatus());
+        data.put("oldStatus", oldStatus);
+        data.put("paymentStatus", reservation.getPaymentStatus());
+        hubEventsService.publish(reservation.getUser().getId(), HubEventsService.RESERVATION_STATUS, data);
+    }
+
     /**
      * Find an admin user for notifications
      * Returns the first admin user found, or null if no admin users exist
@@ -432,6 +500,7 @@ public class ReservationsService {
                 : (reservation.getUser().getEmail() != null ? reservation.getUser().getEmail() : "system");
         auditService.logStatusChange(reservation.getId(), oldStatus,
                 ReservationStatusForEntity.ACTIVE.toString(), performedBy);
+        publishStatusChange(reservation, oldStatus);
 
         return reservation;
     }
@@ -465,6 +534,7 @@ public class ReservationsService {
                 : (reservation.getUser().getEmail() != null ? reservation.getUser().getEmail() : "system");
         auditService.logStatusChange(reservation.getId(), oldStatus,
                 ReservationStatusForEntity.COMPLETED.toString(), performedBy);
+        publishStatusChange(reservation, oldStatus);
 
         return reservation;
     }
@@ -502,6 +572,7 @@ public class ReservationsService {
         // Log audit events
         auditService.logStatusChange(reservation.getId(), oldStatus,
                 ReservationStatusForEntity.CANCELLED.toString(), cancelledBy);
+        publishStatusChange(reservation, oldStatus);
         auditService.logCancellation(reservation.getId(), reason, cancelledBy);
 
         // Send cleaning company cancellation notification
@@ -544,6 +615,7 @@ public class ReservationsService {
         // Log audit events
         auditService.logStatusChange(reservation.getId(), oldStatus,
                 ReservationStatusForEntity.EXPIRED.toString(), "system");
+        publishStatusChange(reservation, oldStatus);
         auditService.logCancellation(reservation.getId(), reason, "system");
 
         return reservation;
@@ -604,34 +676,14 @@ public class ReservationsService {
      * Process reservations that need to be activated (start date reached)
      */
     public void processReservationsToActivate() {
-        List<ReservationEntity> reservationsToActivate = reservationRepository
-                .findReservationsToActivate(LocalDate.now());
-
-        for (ReservationEntity reservation : reservationsToActivate) {
-            try {
-                activateReservation(reservation.getId());
-            } catch (Exception e) {
-                logger.error("Error activating reservation {}: {}", reservation.getId(), e.getMessage(), e);
-                // Continue processing other reservations
-            }
-        }
+        reservationLifecycleService.activateDueReservations(LocalDate.now());
     }
 
     /**
      * Process reservations that need to be completed (end date reached)
      */
     public void processReservationsToComplete() {
-        List<ReservationEntity> reservationsToComplete = reservationRepository
-                .findReservationsToComplete(LocalDate.now());
-
-        for (ReservationEntity reservation : reservationsToComplete) {
-            try {
-                completeReservation(reservation.getId());
-            } catch (Exception e) {
-                logger.error("Error completing reservation {}: {}", reservation.getId(), e.getMessage(), e);
-                // Continue processing other reservations
-            }
-        }
+        reservationLifecycleService.completeDueReservations(LocalDate.now());
     }
 
     /**
@@ -743,10 +795,13 @@ public class ReservationsService {
     @Transactional
     public ReservationEntity cancelUserReservation(UserEntity user, UUID reservationId, String reason) {
         ReservationEntity reservation = getUserReservationById(user, reservationId);
+        String oldStatus = reservation.getStatus().toString();
         reservation.setStatus(ReservationStatusForEntity.CANCELLED);
         reservation.setCancellationReason(reason);
         reservation.setCancelledAt(LocalDateTime.now(ZoneOffset.UTC));
-        return reservationRepository.save(reservation);
+        reservation = reservationRepository.save(reservation);
+        publishStatusChange(reservation, oldStatus);
+        return reservation;
     }
 
     /**
@@ -0,0 +1,282 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+import com.neohoods.portal.platform.spaces.repositories.SpaceRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory lookup of spaces by id, number ("Place de parking N°7" → "7"),
+ * name and alias, shared by the assistant (space resolution from user
+ * messages and LLM arguments) and the list_spaces MCP tool. The booking flow
+ * only resolves ACTIVE spaces, through the "active" lookups.
+ *
+ * The snapshot is immutable and rebuilt lazily: on expiry (for writes made by
+ * another instance) or after {@link #invalidate()}, which SpacesService calls
+ * on every space write.
+ */
+@Service
+@Slf4j
+public class SpaceResolverIndex {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("N°\\s*(\\d{1,9})\\b");
+    private static final Pattern TRAILING_NUMBER_PATTERN = Pattern.compile("\\b(\\d{1,9})\\s*$");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern LEADING_ZEROS = Pattern.compile("^0+(?=\\d)");
+    private static final Pattern NUMBER_LEADING_ZEROS = Pattern.compile("\\b0+(?=\\d)");
+    private static final Pattern LETTER_DIGIT_BOUNDARY = Pattern.compile("(?<=[a-z])(?=\\d)|(?<=\\d)(?=[a-z])");
+
+    @Autowired
+    private SpaceRepository spaceRepository;
+
+    private volatile Snapshot snapshot;
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Space fields needed to resolve and list spaces
+     */
+    public record SpaceRef(UUID id, String name, String number, SpaceTypeForEntity type,
+            SpaceStatusForEntity status, String description) {
+    }
+
+    private record Lookup(Map<UUID, SpaceRef> byId, Map<String, SpaceRef> byNumber, Map<String, SpaceRef> byName,
+            Map<String, SpaceRef> byAlias) {
+    }
+
+    private record Snapshot(List<SpaceRef> spaces, Lookup all, Lookup active, long expiresAt) {
+    }
+
+    /**
+     * All spaces, sorted by type then number/name
+     */
+    public List<SpaceRef> getAll() {
+        return current().spaces();
+    }
+
+    public Optional<SpaceRef> findById(UUID id) {
+        return Optional.ofNullable(current().all().byId().get(id));
+    }
+
+    public Optional<SpaceRef> findByNumber(String number) {
+        return findByNumber(current().all(), number);
+    }
+
+    /**
+     * Like {@link #findByNumber(String)}, among ACTIVE spaces only
+     */
+    public Optional<SpaceRef> findActiveByNumber(String number) {
+        return findByNumber(current().active(), number);
+    }
+
+    /**
+     * Number → space id for the numbered ACTIVE spaces of a type, in number
+     * order
+     */
+    public Map<String, String> getNumberToId(SpaceTypeForEntity type) {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        for (SpaceRef space : current().spaces()) {
+            if (space.type() == type && space.number() != null && isActive(space)) {
+                mapping.putIfAbsent(space.number(), space.id().toString());
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Resolves free text (UUID, number, name or alias such as "parking 7",
+     * "place 7", "p7") to a space. Falls back to the first name containing the
+     * text.
+     */
+    public Optional<SpaceRef> resolve(String candidate) {
+        return resolve(current().all(), candidate);
+    }
+
+    /**
+     * Like {@link #resolve(String)}, among ACTIVE spaces only
+     */
+    public Optional<SpaceRef> resolveActive(String candidate) {
+        return resolve(current().active(), candidate);
+    }
+
+    private static Optional<SpaceRef> findByNumber(Lookup lookup, String number) {
+        if (number == null || number.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(lookup.byNumber().get(stripLeadingZeros(number.trim())));
+    }
+
+    private static Optional<SpaceRef> resolve(Lookup current, String candidate) {
+        if (candidate == null || candidate.isBlank()) {
+            return Optional.empty();
+        }
+        String trimmed = candidate.trim();
+        try {
+            SpaceRef byId = current.byId().get(UUID.fromString(trimmed));
+            if (byId != null) {
+                return Optional.of(byId);
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a UUID
+        }
+        String key = normalize(trimmed);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        SpaceRef match = current.byName().get(key);
+        if (match == null) {
+            match = current.byAlias().get(key);
+        }
+        if (match == null && key.chars().allMatch(Character::isDigit)) {
+            match = current.byNumber().get(stripLeadingZeros(key));
+        }
+        if (match == null) {
+            match = current.byName().entrySet().stream()
+                    .filter(entry -> entry.getKey().contains(key))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(null);
+        }
+        return Optional.ofNullable(match);
+    }
+
+    /**
+     * Drops the snapshot so the next lookup reloads spaces
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() < current.expiresAt()) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || System.currentTimeMillis() >= current.expiresAt()) {
+                long loadedVersion = version.get();
+                current = load();
+                // Keep it only if no write happened while loading
+                if (version.get() == loadedVersion) {
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    private Snapshot load() {
+        List<SpaceRef> spaces = spaceRepository.findAll().stream()
+                .map(SpaceResolverIndex::toRef)
+                .sorted(Comparator.comparing((SpaceRef space) -> space.type() != SpaceTypeForEntity.PARKING)
+                        .thenComparing(space -> space.type() != null ? space.type().name() : "")
+                        .thenComparing(space -> space.number() != null ? Long.parseLong(space.number())
+                                : Long.MAX_VALUE)
+                        .thenComparing(space -> space.name() != null ? space.name() : ""))
+                .toList();
+
+        Snapshot loaded = new Snapshot(spaces, index(spaces),
+                index(spaces.stream().filter(SpaceResolverIndex::isActive).toList()),
+                System.currentTimeMillis() + TTL.toMillis());
+        log.debug("Space resolver index loaded with {} spaces ({} active)", spaces.size(),
+                loaded.active().byId().size());
+        return loaded;
+    }
+
+    private static Lookup index(List<SpaceRef> spaces) {
+        Map<UUID, SpaceRef> byId = new HashMap<>();
+        Map<String, SpaceRef> byNumber = new HashMap<>();
+        // Sorted, for a deterministic "name contains" fallback
+        Map<String, SpaceRef> byName = new LinkedHashMap<>();
+        Map<String, SpaceRef> byAlias = new HashMap<>();
+        for (SpaceRef space : spaces) {
+            byId.put(space.id(), space);
+            if (space.name() != null) {
+                byName.putIfAbsent(normalize(space.name()), space);
+            }
+            if (space.number() != null) {
+                // Parking spaces sort first, so they win on a shared number
+                byNumber.putIfAbsent(space.number(), space);
+                for (String alias : aliases(space)) {
+                    byAlias.putIfAbsent(normalize(alias), space);
+                }
+            }
+        }
+        return new Lookup(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byNumber),
+                Collections.unmodifiableMap(byName), Collections.unmodifiableMap(byAlias));
+    }
+
+    private static boolean isActive(SpaceRef space) {
+        return space.status() == SpaceStatusForEntity.ACTIVE;
+    }
+
+    private static SpaceRef toRef(SpaceEntity space) {
+        return new SpaceRef(space.getId(), space.getName(), extractNumber(space.getName()), space.getType(),
+                space.getStatus(), space.getDescription());
+    }
+
+    private static List<String> aliases(SpaceRef space) {
+        String number = space.number();
+        String type = space.type() != null ? space.type().name() : "";
+        return List.of(
+                "n" + number,
+                "p" + number,
+                "place " + number,
+                "place n " + number,
+                "parking " + number,
+                "place de parking " + number,
+                type + " " + number);
+    }
+
+    /**
+     * Space number from its name: digits after "N°", else trailing digits
+     */
+    static String extractNumber(String name) {
+        if (name == null) {
+            return null;
+        }
+        Matcher matcher = NUMBER_PATTERN.matcher(name);
+        if (matcher.find()) {
+            return stripLeadingZeros(matcher.group(1));
+        }
+        matcher = TRAILING_NUMBER_PATTERN.matcher(name);
+        return matcher.find() ? stripLeadingZeros(matcher.group(1)) : null;
+    }
+
+    /**
+     * Lower case, without accents, punctuation and leading zeros ("Place de
+     * parking N°07" → "place de parking n 7")
+     */
+    static String normalize(String text) {
+        String decomposed = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        String words = NON_ALPHANUMERIC.matcher(decomposed.toLowerCase()).replaceAll(" ").trim();
+        String separated = LETTER_DIGIT_BOUNDARY.matcher(words).replaceAll(" ");
+        return NUMBER_LEADING_ZEROS.matcher(separated).replaceAll("");
+    }
+
+    private static String stripLeadingZeros(String number) {
+        return LEADING_ZEROS.matcher(number).replaceFirst("");
+    }
+}
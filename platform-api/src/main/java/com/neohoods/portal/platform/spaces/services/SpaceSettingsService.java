@@ -8,9 +8,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.neohoods.portal.platform.services.ReferenceDataCache;
+import com.neohoods.portal.platform.services.ReferenceDataCaches;
 import com.neohoods.portal.platform.spaces.entities.SpaceSettingsEntity;
 import com.neohoods.portal.platform.spaces.repositories.SpaceSettingsRepository;
 
+import jakarta.annotation.PostConstruct;
+
 @Service
 @Transactional
 public class SpaceSettingsService {
@@ -18,12 +22,31 @@ public class SpaceSettingsService {
     @Autowired
     private SpaceSettingsRepository spaceSettingsRepository;
 
+    @Autowired
+    private ReferenceDataCaches referenceDataCaches;
+
+    private ReferenceDataCache<PlatformFees> platformFeesCache;
+
     @Value("${neohoods.portal.spaces.settings.default-platform-fee-percentage:2.00}")
     private BigDecimal defaultPlatformFeePercentage;
 
     @Value("${neohoods.portal.spaces.settings.default-platform-fixed-fee:0.25}")
     private BigDecimal defaultPlatformFixedFee;
 
+    /**
+     * Platform fees applied to reservation prices
+     */
+    public record PlatformFees(BigDecimal percentage, BigDecimal fixedFee) {
+    }
+
+    @PostConstruct
+    void init() {
+        platformFeesCache = referenceDataCaches.create("space-settings", () -> {
+            SpaceSettingsEntity settings = getSpaceSettings();
+            return new PlatformFees(settings.getPlatformFeePercentage(), settings.getPlatformFixedFee());
+        });
+    }
+
     /**
      * Get the current space settings, creating default settings if none exist
      * 
@@ -51,7 +74,9 @@ public class SpaceSettingsService {
      * @return Saved SpaceSettingsEntity
      */
     public SpaceSettingsEntity saveSpaceSettings(SpaceSettingsEntity settings) {
-        return spaceSettingsRepository.save(settings);
+        SpaceSettingsEntity saved = spaceSettingsRepository.save(settings);
+        platformFeesCache.invalidate();
+        return saved;
     }
 
     /**
@@ -65,7 +90,19 @@ public class SpaceSettingsService {
         SpaceSettingsEntity settings = getSpaceSettings();
         settings.setPlatformFeePercentage(platformFeePercentage);
         settings.setPlatformFixedFee(platformFixedFee);
-        return spaceSettingsRepository.save(settings);
+        SpaceSettingsEntity saved = spaceSettingsRepository.save(settings);
+        platformFeesCache.invalidate();
+        return saved;
+    }
+
+    /**
+     * Current platform fees, cached (unlike {@link #getSpaceSettings()}, whose
+     * entity may be modified and saved)
+     *
+     * @return Current platform fee percentage and fixed fee
+     */
+    public PlatformFees getPlatformFees() {
+        return platformFeesCache.get();
     }
 
     /**
@@ -73,9 +110,8 @@ public class SpaceSettingsService {
      * 
      * @return Current platform fee percentage
      */
-    @Transactional(readOnly = true)
     public BigDecimal getPlatformFeePercentage() {
-        return getSpaceSettings().getPlatformFeePercentage();
+        return getPlatformFees().percentage();
     }
 
     /**
@@ -83,8 +119,7 @@ public class SpaceSettingsService {
      * 
      * @return Current platform fixed fee
      */
-    @Transactional(readOnly = true)
     public BigDecimal getPlatformFixedFee() {
-        return getSpaceSettings().getPlatformFixedFee();
+        return getPlatformFees().fixedFee();
     }
 }
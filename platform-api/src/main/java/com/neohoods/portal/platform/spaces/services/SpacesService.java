@@ -21,7 +21,6 @@ import com.neohoods.portal.platform.exceptions.CodedError;
 import com.neohoods.portal.platform.exceptions.CodedErrorException;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
-import com.neohoods.portal.platform.spaces.entities.SpaceSettingsEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceStatusForEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
 import com.neohoods.portal.platform.spaces.repositories.ReservationRepository;
@@ -46,6 +45,9 @@ public class SpacesService {
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private SpaceResolverIndex spaceResolverIndex;
+
     @Transactional(readOnly = true)
     public boolean isSpaceAvailable(UUID spaceId, LocalDate startDate, LocalDate endDate) {
         log.debug("Checking availability for space {} from {} to {}", spaceId, startDate, endDate);
@@ -413,9 +415,9 @@ public class SpacesService {
         }
 
         // Get platform fee settings
-        SpaceSettingsEntity settings = spaceSettingsService.getSpaceSettings();
-        BigDecimal platformFeePercentage = settings.getPlatformFeePercentage();
-        BigDecimal platformFixedFee = settings.getPlatformFixedFee();
+        SpaceSettingsService.PlatformFees platformFees = spaceSettingsService.getPlatformFees();
+        BigDecimal platformFeePercentage = platformFees.percentage();
+        BigDecimal platformFixedFee = platformFees.fixedFee();
 
         // Calculate base price with cleaning fee (platform fees are calculated on thistotal)
         BigDecimal basePriceWithCleaning = finalTotalDaysPrice.add(space.getCleaningFee());
@@ -479,14 +481,19 @@ public class SpacesService {
     }
 
     public SpaceEntity createSpace(SpaceEntity space) {
-        return spaceRepository.save(space);
+        SpaceEntity saved = spaceRepository.save(space);
+        spaceResolverIndex.invalidate();
+        return saved;
     }
 
     public SpaceEntity updateSpace(SpaceEntity space) {
-        return spaceRepository.save(space);
+        SpaceEntity saved = spaceRepository.save(space);
+        spaceResolverIndex.invalidate();
+        return saved;
     }
 
     public void deleteSpace(UUID spaceId) {
         spaceRepository.deleteById(spaceId);
+        spaceResolverIndex.invalidate();
     }
 }
\ No newline at end of file
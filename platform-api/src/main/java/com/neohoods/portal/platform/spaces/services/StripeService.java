@@ -295,9 +295,11 @@ public class StripeService {
                 // Update reservation status to PAYMENT_FAILED
                 UUID reservationUuid = UUID.fromString(reservationId);
                 ReservationEntity reservation = reservationsService.getReservationById(reservationUuid);
+                String oldStatus = reservation.getStatus().toString();
                 reservation.setStatus(ReservationStatusForEntity.PAYMENT_FAILED);
                 reservation.setPaymentStatus(PaymentStatusForEntity.FAILED);
-                reservationsService.updateReservation(reservation);
+                reservation = reservationsService.updateReservation(reservation);
+                reservationsService.publishStatusChange(reservation, oldStatus);
                 logger.info("Reservation {} marked as payment failed", reservationId);
 
                 // Send failure notification
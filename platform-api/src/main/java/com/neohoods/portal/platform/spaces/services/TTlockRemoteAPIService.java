@@ -2,6 +2,7 @@ package com.neohoods.portal.platform.spaces.services;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -17,12 +18,13 @@ import org.springframework.web.client.RestTemplate;
 import com.neohoods.portal.platform.exceptions.CodedError;
 import com.neohoods.portal.platform.exceptions.CodedErrorException;
 import com.neohoods.portal.platform.spaces.entities.AccessCodeEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockTypeForEntity;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
-public class TTlockRemoteAPIService {
+public class TTlockRemoteAPIService implements DigitalLockVendor {
 
     @Value("${ttlock.api-url:https://api.ttlock.com}")
     private String ttlockApiUrl;
@@ -188,6 +190,109 @@ public class TTlockRemoteAPIService {
         }
     }
 
+    @Override
+    public DigitalLockTypeForEntity getType() {
+        return DigitalLockTypeForEntity.TTLOCK;
+    }
+
+    /**
+     * List the codes of a device. TTlock codes have no start date.
+     */
+    @Override
+    public List<DeviceCode> listCodes(String deviceId) {
+        String url = ttlockApiUrl + "/devices/" + deviceId + "/codes";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + ttlockApiKey);
+
+        ResponseEntity<TTlockCodesList> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                new HttpEntity<Void>(headers),
+                TTlockCodesList.class);
+
+        if (response.getStatusCode() != HttpStatus.OK) {
+            throw new CodedErrorException(CodedError.TTLOCK_API_ERROR,
+                    Map.of("operation", "listCodes", "deviceId", deviceId, "statusCode", response.getStatusCode()));
+        }
+        TTlockCodesList codes = response.getBody();
+        if (codes == null || codes.getCodes() == null) {
+            return List.of();
+        }
+        return codes.getCodes().stream()
+                .map(code -> new DeviceCode(code.getId(), code.getCode(), code.getDescription(), null,
+                        code.getExpiresAt() != null ? LocalDateTime.parse(code.getExpiresAt()) : null))
+                .toList();
+    }
+
+    @Override
+    public String createCode(String deviceId, DesiredCode code) {
+        String url = ttlockApiUrl + "/devices/" + deviceId + "/codes";
+
+        ResponseEntity<TTlockCodeResponse> response = restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                codeRequest(code),
+                TTlockCodeResponse.class);
+
+        if (response.getStatusCode() != HttpStatus.CREATED || response.getBody() == null) {
+            throw new CodedErrorException(CodedError.TTLOCK_API_ERROR,
+                    Map.of("operation", "createCode", "deviceId", deviceId, "statusCode", response.getStatusCode()));
+        }
+        log.info("Created TTlock code for access code {} on device {}", code.accessCodeId(), deviceId);
+        return response.getBody().getId();
+    }
+
+    @Override
+    public void updateCode(String deviceId, String ttlockCodeId, DesiredCode code) {
+        String url = ttlockApiUrl + "/devices/" + deviceId + "/codes/" + ttlockCodeId;
+
+        ResponseEntity<TTlockCodeResponse> response = restTemplate.exchange(
+                url,
+                HttpMethod.PUT,
+                codeRequest(code),
+                TTlockCodeResponse.class);
+
+        if (response.getStatusCode() != HttpStatus.OK) {
+            throw new CodedErrorException(CodedError.TTLOCK_API_ERROR,
+                    Map.of("operation", "updateCode", "deviceId", deviceId, "codeId", ttlockCodeId,
+                            "statusCode", response.getStatusCode()));
+        }
+        log.info("Updated TTlock code {} on device {}", ttlockCodeId, deviceId);
+    }
+
+    @Override
+    public void deleteCode(String deviceId, String ttlockCodeId) {
+        String url = ttlockApiUrl + "/devices/" + deviceId + "/codes/" + ttlockCodeId;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + ttlockApiKey);
+
+        ResponseEntity<Void> response = restTemplate.exchange(
+                url,
+                HttpMethod.DELETE,
+                new HttpEntity<Void>(headers),
+                Void.class);
+
+        if (response.getStatusCode() != HttpStatus.NO_CONTENT) {
+            throw new CodedErrorException(CodedError.TTLOCK_API_ERROR,
+                    Map.of("operation", "deleteCode", "deviceId", deviceId, "codeId", ttlockCodeId,
+                            "statusCode", response.getStatusCode()));
+        }
+    }
+
+    private HttpEntity<Map<String, Object>> codeRequest(DesiredCode code) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("code", code.code());
+        requestBody.put("expires_at", code.validUntil().toString());
+        requestBody.put("description", code.name());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + ttlockApiKey);
+        return new HttpEntity<>(requestBody, headers);
+    }
+
     // Response DTOs
     @lombok.Data
     public static class TTlockCodeResponse {
@@ -146,10 +146,8 @@ public class TtlockDeviceService {
      */
     @Transactional(readOnly = true)
     public List<TtlockDeviceEntity> getTtlockDevicesWithLowBattery(int batteryThreshold) {
-        List<TtlockDeviceEntity> allDevices = ttlockDeviceRepository.findAll();
-        List<TtlockDeviceEntity> lowBatteryDevices = allDevices.stream()
-                .filter(device -> device.getBatteryLevel() != null && device.getBatteryLevel() < batteryThreshold)
-                .toList();
+        List<TtlockDeviceEntity> lowBatteryDevices = ttlockDeviceRepository
+                .findByBatteryLevelLessThan(batteryThreshold);
         logger.info("Found {} TTLock devices with battery level below {}%",
                 lowBatteryDevices.size(), batteryThreshold);
         return lowBatteryDevices;
@@ -160,10 +158,8 @@ public class TtlockDeviceService {
      */
     @Transactional(readOnly = true)
     public List<TtlockDeviceEntity> getTtlockDevicesWithWeakSignal(int signalThreshold) {
-        List<TtlockDeviceEntity> allDevices = ttlockDeviceRepository.findAll();
-        List<TtlockDeviceEntity> weakSignalDevices = allDevices.stream()
-                .filter(device -> device.getSignalStrength() != null && device.getSignalStrength() < signalThreshold)
-                .toList();
+        List<TtlockDeviceEntity> weakSignalDevices = ttlockDeviceRepository
+                .findBySignalStrengthLessThan(signalThreshold);
         logger.info("Found {} TTLock devices with signal strength below {}",
                 weakSignalDevices.size(), signalThreshold);
         return weakSignalDevices;
@@ -1,11 +1,13 @@
 package com.neohoods.portal.platform.spaces.services;
 
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
@@ -22,42 +24,57 @@ public class UnitCalendarService {
     private final ReservationRepository reservationRepository;
 
     private static final DateTimeFormatter ICS_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final List<ReservationStatusForEntity> CALENDAR_STATUSES = List.of(
+            ReservationStatusForEntity.CONFIRMED,
+            ReservationStatusForEntity.ACTIVE);
+
+    @Value("${neohoods.portal.spaces.calendar.past-days:90}")
+    private int pastDays = 90;
+
+    private final CalendarFeedCache feedCache = new CalendarFeedCache();
 
     /**
      * Generate ICS calendar content for a unit's confirmed/active reservations
      */
     public String generateICSForUnit(UUID unitId) {
+        return getUnitCalendarFeed(unitId).content();
+    }
+
+    /**
+     * Unit reservation feed, re-rendered only when the unit's reservations
+     * changed
+     */
+    public CalendarFeed getUnitCalendarFeed(UUID unitId) {
+        LocalDate from = LocalDate.now().minusDays(pastDays);
+        return feedCache.get("unit:" + unitId, reservationRepository.findChangeVersionByUnitId(unitId),
+                String.valueOf(from), null, () -> renderUnitCalendar(unitId, from));
+    }
+
+    private String renderUnitCalendar(UUID unitId, LocalDate from) {
         log.debug("Generating ICS calendar for unit: {}", unitId);
-        
-        // Get confirmed and active reservations for the unit
-        List<ReservationEntity> confirmedReservations = reservationRepository
-                .findByUnitIdAndStatus(unitId, ReservationStatusForEntity.CONFIRMED);
-        List<ReservationEntity> activeReservations = reservationRepository
-                .findByUnitIdAndStatus(unitId, ReservationStatusForEntity.ACTIVE);
-        
+
+        // Confirmed and active reservations for the unit, in date order
+        List<ReservationEntity> reservations = reservationRepository.findCalendarReservationsByUnit(unitId,
+                CALENDAR_STATUSES, from);
+        String dtStamp = ZonedDateTime.now(ZoneId.of("UTC")).format(ICS_DATE_FORMAT);
+
         StringBuilder ics = new StringBuilder();
         ics.append("BEGIN:VCALENDAR\r\n");
         ics.append("VERSION:2.0\r\n");
         ics.append("PRODID:-//NeoHoods//Unit Reservations//EN\r\n");
         ics.append("CALSCALE:GREGORIAN\r\n");
         ics.append("METHOD:PUBLISH\r\n");
-        
-        // Add confirmed reservations
-        for (ReservationEntity reservation : confirmedReservations) {
-            addReservationToICS(ics, reservation);
-        }
-        
-        // Add active reservations
-        for (ReservationEntity reservation : activeReservations) {
-            addReservationToICS(ics, reservation);
+
+        for (ReservationEntity reservation : reservations) {
+            addReservationToICS(ics, reservation, dtStamp);
         }
-        
+
         ics.append("END:VCALENDAR\r\n");
-        
+
         return ics.toString();
     }
 
-    private void addReservationToICS(StringBuilder ics, ReservationEntity reservation) {
+    private void addReservationToICS(StringBuilder ics, ReservationEntity reservation, String dtStamp) {
         String uid = reservation.getId().toString();
         String summary = escapeText("Réservation: " + (reservation.getSpace() != null ? reservation.getSpace().getName() : "Espace"));
         String description = escapeText(
@@ -72,7 +89,6 @@ public class UnitCalendarService {
         
         String dtStart = startDateTime.format(ICS_DATE_FORMAT);
         String dtEnd = endDateTime.format(ICS_DATE_FORMAT);
-        String dtStamp = ZonedDateTime.now(ZoneId.of("UTC")).format(ICS_DATE_FORMAT);
         
         ics.append("BEGIN:VEVENT\r\n");
         ics.append("UID:").append(uid).append("@neohoods.com\r\n");
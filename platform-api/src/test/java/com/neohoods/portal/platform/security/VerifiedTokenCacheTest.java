@@ -0,0 +1,49 @@
+package com.neohoods.portal.platform.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.Date;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("VerifiedTokenCache Unit Tests")
+class VerifiedTokenCacheTest {
+
+    @Test
+    @DisplayName("entries should not outlive the token expiration")
+    void testExpiration() throws Exception {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>("test", 10, Duration.ofMinutes(10));
+        Date soon = new Date(System.currentTimeMillis() + 50);
+
+        cache.put("short-lived", "claims", soon);
+        cache.put("expired", "claims", new Date(System.currentTimeMillis() - 1000));
+
+        assertEquals("claims", cache.get("short-lived"));
+        assertNull(cache.get("expired"));
+        Thread.sleep(100);
+        assertNull(cache.get("short-lived"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    @DisplayName("a full cache should evict one-off tokens before frequently used ones")
+    void testEviction() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>("test", 4, Duration.ofMinutes(10));
+        cache.put("feed", "feed-claims", null);
+        for (int i = 0; i < 5; i++) {
+            cache.get("feed");
+        }
+
+        for (int i = 0; i < 20; i++) {
+            cache.put("one-off-" + i, "claims", null);
+        }
+
+        assertEquals(4, cache.size());
+        assertEquals("feed-claims", cache.get("feed"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.neohoods.portal.platform.BaseIntegrationTest;
+import com.neohoods.portal.platform.entities.UserType;
+
+import jakarta.persistence.EntityManagerFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Audience query played against PostgreSQL: filters, keyset chunks and
+ * statements per chunk, on a large number of users.
+ *
+ * The users are committed (the chunks are read on another thread) and
+ * deleted after each test.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "neohoods.portal.audience.chunk-size=" + AudienceServiceIntegrationTest.CHUNK_SIZE
+})
+@DisplayName("Audience selection integration tests")
+public class AudienceServiceIntegrationTest extends BaseIntegrationTest {
+
+    static final int CHUNK_SIZE = 500;
+    private static final int USERS = 5_000;
+    private static final UserType[] TYPES = { UserType.OWNER, UserType.TENANT, UserType.ADMIN, UserType.LANDLORD };
+
+    @Autowired
+    private AudienceService audienceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final String batch = UUID.randomUUID().toString().substring(0, 8);
+    private final String role = "AUDIENCE_" + batch;
+    private UUID unitId;
+
+    // Users of the test by their number, which drives their attributes
+    private final Map<Integer, UUID> users = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        jdbcTemplate.update("INSERT INTO users (username, email, password, user_type, status) " +
+                "SELECT 'audience-' || ? || '-' || n, " +
+                "'audience-' || ? || '-' || n || CASE WHEN n % 11 = 0 THEN '@example.com' ELSE '@neohoods.com' END, " +
+                "'x', (ARRAY['OWNER', 'TENANT', 'ADMIN', 'LANDLORD'])[n % 4 + 1], 'ACTIVE' " +
+                "FROM generate_series(0, ? - 1) n", batch, batch, USERS);
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username LIKE ?",
+                rs -> {
+                    String username = rs.getString("username");
+                    users.put(Integer.parseInt(username.substring(username.lastIndexOf('-') + 1)),
+                            rs.getObject("id", UUID.class));
+                }, "audience-" + batch + "-%");
+
+        unitId = jdbcTemplate.queryForObject("INSERT INTO units (name) VALUES (?) RETURNING id", UUID.class,
+                "Audience " + batch);
+        List<Object[]> settings = new ArrayList<>();
+        List<Object[]> roles = new ArrayList<>();
+        List<Object[]> members = new ArrayList<>();
+        users.forEach((n, id) -> {
+            // Users without settings have everything enabled
+            if (n % 5 == 0 || n % 7 == 0) {
+                settings.add(new Object[] { id, n % 7 != 0, n % 5 != 0 });
+            }
+            if (n % 3 == 0) {
+                roles.add(new Object[] { id, role });
+            }
+            if (n % 2 == 0) {
+                members.add(new Object[] { unitId, id });
+            }
+        });
+        jdbcTemplate.batchUpdate("INSERT INTO notification_settings (user_id, enable_notifications, " +
+                "newsletter_enabled) VALUES (?, ?, ?)", settings);
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role) VALUES (?, ?)", roles);
+        jdbcTemplate.batchUpdate("INSERT INTO unit_members (unit_id, user_id, role) VALUES (?, ?, 'MEMBER')",
+                members);
+    }
+
+    @AfterEach
+    void tearDown() {
+        String users = "SELECT id FROM users WHERE username LIKE ?";
+        String pattern = "audience-" + batch + "-%";
+        jdbcTemplate.update("DELETE FROM notification_settings WHERE user_id IN (" + users + ")", pattern);
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (" + users + ")", pattern);
+        jdbcTemplate.update("DELETE FROM units WHERE id = ?", unitId);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", pattern);
+    }
+
+    private static UserType type(int n) {
+        return TYPES[n % TYPES.length];
+    }
+
+    private Set<UUID> usersMatching(IntPredicate filter) {
+        Set<UUID> ids = new HashSet<>();
+        users.forEach((n, id) -> {
+            if (filter.test(n)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    @Test
+    @DisplayName("5,000 users should be read in bounded chunks, one statement per chunk")
+    void testStreamLargeAudience() {
+        AudienceService.Audience audience = AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.NEWSLETTER)
+                .userTypes(List.of(UserType.OWNER, UserType.TENANT))
+                .excludeUserIds(List.of(users.get(0), users.get(1)))
+                .deliverableEmailOnly(true)
+                .build();
+        Set<UUID> expected = usersMatching(n -> (type(n) == UserType.OWNER || type(n) == UserType.TENANT)
+                && n > 1 && n % 5 != 0 && n % 11 != 0);
+
+        Set<UUID> received = new HashSet<>();
+        AtomicInteger chunks = new AtomicInteger();
+        AtomicInteger maxChunkSize = new AtomicInteger();
+        AtomicLong maxStatementsAhead = new AtomicLong();
+        statistics.clear();
+
+        // Consumed like the bulk sends do: one chunk at a time
+        audienceService.recipientIds(audience)
+                .concatMap(ids -> Mono.fromRunnable(() -> {
+                    int chunk = chunks.incrementAndGet();
+                    maxChunkSize.accumulateAndGet(ids.size(), Math::max);
+                    maxStatementsAhead.accumulateAndGet(statistics.getPrepareStatementCount() - chunk, Math::max);
+                    ids.forEach(id -> assertTrue(received.add(id), "Recipient selected twice: " + id));
+                }), 1)
+                .blockLast();
+
+        // The users of the test data may match too
+        received.retainAll(users.values());
+        assertEquals(expected, received);
+        assertTrue(chunks.get() >= (expected.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        assertTrue(maxChunkSize.get() <= CHUNK_SIZE);
+        // One statement per chunk, plus the empty page ending an audience of full chunks
+        assertTrue(statistics.getPrepareStatementCount() <= chunks.get() + 1,
+                statistics.getPrepareStatementCount() + " statements for " + chunks.get() + " chunks");
+        // Never more than a chunk of ids in memory, plus the one read ahead
+        assertTrue(maxStatementsAhead.get() <= 1, "Read " + maxStatementsAhead.get() + " chunks ahead of the send");
+    }
+
+    @Test
+    @DisplayName("unit, role and notification preference filters should be applied by the query")
+    void testFilters() {
+        List<List<UUID>> chunks = audienceService.recipientIds(AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.NOTIFICATIONS)
+                .unitIds(List.of(unitId))
+                .roles(List.of(role, "AUDIENCE_NONE"))
+                .build()).collectList().block();
+
+        Set<UUID> received = new HashSet<>();
+        chunks.forEach(received::addAll);
+        assertEquals(usersMatching(n -> n % 2 == 0 && n % 3 == 0 && n % 7 != 0), received);
+    }
+
+    @Test
+    @DisplayName("explicit and excluded users should be selected in id order")
+    void testUserIds() {
+        List<UUID> picked = List.of(users.get(10), users.get(20), users.get(30));
+
+        List<UUID> received = audienceService.recipientIds(AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.ANY)
+                .userIds(picked)
+                .excludeUserIds(List.of(users.get(20)))
+                .build()).blockLast();
+
+        List<UUID> expected = jdbcTemplate.queryForList("SELECT id FROM users WHERE id IN (?, ?) ORDER BY id",
+                UUID.class, users.get(10), users.get(30));
+        assertEquals(expected, received);
+    }
+}
@@ -0,0 +1,206 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.entities.UserType;
+import com.neohoods.portal.platform.repositories.UsersRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AudienceService Unit Tests")
+class AudienceServiceTest {
+
+    private static final int USERS = 50_000;
+    private static final int CHUNK_SIZE = 1_000;
+
+    /**
+     * Synthetic user, as seen by the audience query
+     */
+    record SyntheticUser(UUID id, UserType type, boolean newsletterEnabled, boolean notificationsEnabled,
+                         String email) {
+    }
+
+    @Mock
+    private UsersRepository usersRepository;
+
+    @InjectMocks
+    private AudienceService audienceService;
+
+    // Ordered like PostgreSQL orders uuids (unsigned bytes, i.e. the hex string)
+    private List<SyntheticUser> users;
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(audienceService, "chunkSize", CHUNK_SIZE);
+
+        UserType[] types = { UserType.OWNER, UserType.TENANT, UserType.ADMIN, UserType.LANDLORD };
+        users = IntStream.range(0, USERS)
+                .mapToObj(i -> new SyntheticUser(
+                        UUID.randomUUID(),
+                        types[i % types.length],
+                        i % 5 != 0,
+                        i % 7 != 0,
+                        i % 11 == 0 ? "user" + i + "@example.com" : "user" + i + "@neohoods.com"))
+                .sorted(Comparator.comparing(user -> user.id().toString()))
+                .toList();
+
+        // Plays the keyset query against the synthetic users
+        lenient().when(usersRepository.findAudienceIdsAfter(any(), any(), any(), any(), any(), any(),
+                anyBoolean(), anyBoolean(), anyBoolean(), anyInt())).thenAnswer(invocation -> {
+                    queries.incrementAndGet();
+                    String afterId = invocation.getArgument(0, UUID.class).toString();
+                    Set<String> userTypes = split(invocation.getArgument(1));
+                    Set<String> excludeUserIds = split(invocation.getArgument(3));
+                    boolean newsletter = invocation.getArgument(6);
+                    boolean notifications = invocation.getArgument(7);
+                    boolean deliverableOnly = invocation.getArgument(8);
+                    int limit = invocation.getArgument(9);
+                    return users.stream()
+                            .filter(user -> user.id().toString().compareTo(afterId) > 0)
+                            .filter(user -> userTypes == null || userTypes.contains(user.type().name()))
+                            .filter(user -> excludeUserIds == null
+                                    || !excludeUserIds.contains(user.id().toString()))
+                            .filter(user -> !newsletter || user.newsletterEnabled())
+                            .filter(user -> !notifications || user.notificationsEnabled())
+                            .filter(user -> !deliverableOnly || !user.email().endsWith("example.com"))
+                            .limit(limit)
+                            .map(SyntheticUser::id)
+                            .toList();
+                });
+    }
+
+    private static Set<String> split(String joined) {
+        return joined == null ? null : new HashSet<>(Arrays.asList(joined.split(",")));
+    }
+
+    @Test
+    @DisplayName("50,000 users should be read in bounded chunks, one query per chunk")
+    void testStreamLargeAudience() {
+        AudienceService.Audience audience = AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.NEWSLETTER)
+                .userTypes(List.of(UserType.OWNER, UserType.TENANT))
+                .excludeUserIds(List.of(users.get(0).id(), users.get(1).id()))
+                .deliverableEmailOnly(true)
+                .build();
+        Set<UUID> expected = new HashSet<>();
+        users.stream()
+                .filter(user -> user.type() == UserType.OWNER || user.type() == UserType.TENANT)
+                .filter(user -> !user.id().equals(users.get(0).id()) && !user.id().equals(users.get(1).id()))
+                .filter(SyntheticUser::newsletterEnabled)
+                .filter(user -> !user.email().endsWith("example.com"))
+                .forEach(user -> expected.add(user.id()));
+
+        Set<UUID> received = new HashSet<>();
+        AtomicInteger chunks = new AtomicInteger();
+        AtomicInteger maxChunkSize = new AtomicInteger();
+        AtomicInteger maxQueriesAhead = new AtomicInteger();
+        long start = System.nanoTime();
+
+        // Consumed like the bulk sends do: one chunk at a time
+        audienceService.recipientIds(audience)
+                .concatMap(ids -> Mono.fromRunnable(() -> {
+                    int chunk = chunks.incrementAndGet();
+                    maxChunkSize.accumulateAndGet(ids.size(), Math::max);
+                    maxQueriesAhead.accumulateAndGet(queries.get() - chunk, Math::max);
+                    ids.forEach(id -> assertTrue(received.add(id), "Recipient selected twice: " + id));
+                }), 1)
+                .blockLast();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        int expectedChunks = (expected.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        log.info("Selected {} recipients out of {} users in {} chunks, {} queries, {} ms",
+                received.size(), USERS, chunks.get(), queries.get(), elapsedMillis);
+
+        assertEquals(expected, received);
+        assertEquals(expectedChunks, chunks.get());
+        // A short last chunk ends the stream without an extra query
+        int extraQuery = expected.size() % CHUNK_SIZE == 0 ? 1 : 0;
+        assertEquals(expectedChunks + extraQuery, queries.get());
+        // Never more than a chunk of ids in memory, plus the one read ahead
+        assertTrue(maxChunkSize.get() <= CHUNK_SIZE);
+        assertTrue(maxQueriesAhead.get() <= 1, "Read " + maxQueriesAhead.get() + " chunks ahead of the send");
+    }
+
+    @Test
+    @DisplayName("each chunk should be queried only when requested")
+    void testReadChunksLazily() {
+        Flux<List<UUID>> recipients = audienceService.recipientIds(AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.ANY)
+                .build());
+        assertEquals(0, queries.get());
+
+        List<UUID> firstChunk = recipients.blockFirst();
+
+        assertEquals(CHUNK_SIZE, firstChunk.size());
+        assertEquals(users.get(0).id(), firstChunk.get(0));
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    @DisplayName("an audience size multiple of the chunk size should end on an empty page")
+    void testExactMultipleOfChunkSize() {
+        List<List<UUID>> chunks = audienceService.recipientIds(AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.ANY)
+                .build()).collectList().block();
+
+        assertEquals(USERS / CHUNK_SIZE, chunks.size());
+        assertEquals(USERS / CHUNK_SIZE + 1, queries.get());
+    }
+
+    @Test
+    @DisplayName("filters should be passed to the query and an empty user list should select nobody")
+    void testFilters() {
+        UUID unitId = UUID.randomUUID();
+        audienceService.recipientIds(AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.NOTIFICATIONS)
+                .unitIds(List.of(unitId))
+                .roles(List.of("ADMIN", "MANAGER"))
+                .build()).blockLast();
+
+        verify(usersRepository).findAudienceIdsAfter(eq(new UUID(0, 0)), isNull(), isNull(), isNull(),
+                eq(unitId.toString()), eq("ADMIN,MANAGER"), eq(false), eq(true), eq(false), eq(CHUNK_SIZE));
+
+        queries.set(0);
+        List<List<UUID>> nobody = audienceService.recipientIds(AudienceService.Audience.builder()
+                .channel(AudienceService.Channel.NEWSLETTER)
+                .userIds(List.of())
+                .build()).collectList().block();
+
+        assertTrue(nobody.isEmpty());
+        assertEquals(0, queries.get());
+        verify(usersRepository, never()).findAudienceIdsAfter(any(), any(), eq(""), any(), any(), any(),
+                anyBoolean(), anyBoolean(), anyBoolean(), anyInt());
+    }
+}
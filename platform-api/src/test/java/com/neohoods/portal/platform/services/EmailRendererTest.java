@@ -0,0 +1,168 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@DisplayName("EmailRenderer Unit Tests")
+class EmailRendererTest {
+
+    /**
+     * Message bundles counting the lookups of each code and locale
+     */
+    static class CountingMessageSource extends ResourceBundleMessageSource {
+
+        private final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+
+        CountingMessageSource() {
+            setBasenames("messages");
+            setDefaultEncoding("UTF-8");
+        }
+
+        @Override
+        protected String getMessageInternal(String code, Object[] args, Locale locale) {
+            lookups.computeIfAbsent(code + "/" + locale, k -> new AtomicInteger()).incrementAndGet();
+            return super.getMessageInternal(code, args, locale);
+        }
+
+        int lookups(String code, Locale locale) {
+            AtomicInteger count = lookups.get(code + "/" + locale);
+            return count == null ? 0 : count.get();
+        }
+    }
+
+    private CountingMessageSource messageSource;
+    private EmailRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        messageSource = new CountingMessageSource();
+
+        renderer = new EmailRenderer(templateEngine(true), messageSource);
+        ReflectionTestUtils.setField(renderer, "logoUrl", "https://portal.example.org/logo.png");
+        ReflectionTestUtils.setField(renderer, "appName", "Terres de Laya");
+        ReflectionTestUtils.setField(renderer, "leafsUrl", "https://portal.example.org/leafs.png");
+        ReflectionTestUtils.setField(renderer, "leafsAccentUrl", "https://portal.example.org/leafs-accent.png");
+        ReflectionTestUtils.setField(renderer, "notificationsUrl", "https://portal.example.org/notifications");
+    }
+
+    private SpringTemplateEngine templateEngine(boolean cacheable) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(cacheable);
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        engine.setTemplateEngineMessageSource(messageSource);
+        return engine;
+    }
+
+    private Map<String, Object> newsletterVariables(int recipient) {
+        return Map.of(
+                "username", "user" + recipient,
+                "firstName", "First" + recipient,
+                "lastName", "Last" + recipient,
+                "newsletterTitle", "Newsletter for First" + recipient,
+                "newsletterContent", "<p>Hello First" + recipient + ", here is the news of the month.</p>");
+    }
+
+    private long renderNewsletters(EmailRenderer emailRenderer, int emails) {
+        long start = System.nanoTime();
+        for (int i = 0; i < emails; i++) {
+            Locale locale = i % 2 == 0 ? Locale.FRENCH : Locale.ENGLISH;
+            String html = emailRenderer.render("email/newsletter", locale, newsletterVariables(i));
+            assertTrue(html.contains("Hello First" + i + ","));
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    @DisplayName("10,000 personalized newsletters should share the parsed template and static variables")
+    void testRenderPersonalizedNewsletters() {
+        int emails = 10_000;
+        // Warm up the JIT and the caches
+        renderNewsletters(renderer, 500);
+
+        long cachedNanos = renderNewsletters(renderer, emails);
+
+        // The signature is translated once per locale, not once per email
+        assertEquals(1, messageSource.lookups("email.newsletter.team_signature", Locale.FRENCH));
+        assertEquals(1, messageSource.lookups("email.newsletter.team_signature", Locale.ENGLISH));
+
+        // Same rendering, parsing the templates for every email
+        int uncachedEmails = 1_000;
+        EmailRenderer uncached = new EmailRenderer(templateEngine(false), messageSource);
+        ReflectionTestUtils.setField(uncached, "appName", "Terres de Laya");
+        renderNewsletters(uncached, 100);
+        long uncachedNanos = renderNewsletters(uncached, uncachedEmails);
+
+        log.info("Rendered {} newsletters in {} ms ({} µs/email), {} µs/email when parsing the templates every time",
+                emails, cachedNanos / 1_000_000, cachedNanos / 1_000 / emails, uncachedNanos / 1_000 / uncachedEmails);
+
+        String html = renderer.render("email/newsletter", Locale.FRENCH, newsletterVariables(42));
+        assertTrue(html.contains("https://portal.example.org/logo.png"));
+        assertTrue(html.contains("Newsletter for First42"));
+    }
+
+    @Test
+    @DisplayName("subjects should be translated when they are keys and kept as-is otherwise")
+    void testSubject() {
+        String key = "reservations.email.confirmation.title";
+        String translated = renderer.subject(key, Locale.ENGLISH);
+
+        assertEquals("Reservation Confirmation - portal NeoHoods", translated);
+        assertEquals(translated, renderer.subject(key, Locale.ENGLISH));
+        assertEquals(1, messageSource.lookups(key, Locale.ENGLISH));
+        assertEquals("Fête des voisins.", renderer.subject("Fête des voisins.", Locale.FRENCH));
+    }
+
+    @Test
+    @DisplayName("recipient variables should be resolved and translated")
+    void testResolve() {
+        Map<String, Object> resolved = renderer.resolve(List.of(
+                MailService.TemplateVariable.builder()
+                        .type(MailService.TemplateVariableType.RAW)
+                        .ref("username")
+                        .value("alice")
+                        .build(),
+                MailService.TemplateVariable.builder()
+                        .type(MailService.TemplateVariableType.RAW)
+                        .ref("firstName")
+                        .build(),
+                MailService.TemplateVariable.builder()
+                        .type(MailService.TemplateVariableType.TRANSLATABLE_TEXT)
+                        .ref("button")
+                        .translateKey("email.common.button_fallback")
+                        .build()),
+                Locale.ENGLISH);
+
+        assertEquals("alice", resolved.get("username"));
+        assertEquals("", resolved.get("firstName"));
+        assertEquals(messageSource.getMessage("email.common.button_fallback", null, Locale.ENGLISH),
+                resolved.get("button"));
+        assertThrows(IllegalStateException.class, () -> renderer.resolve(List.of(
+                MailService.TemplateVariable.builder().type(MailService.TemplateVariableType.RAW).ref("a").build(),
+                MailService.TemplateVariable.builder().type(MailService.TemplateVariableType.RAW).ref("a").build()),
+                Locale.ENGLISH));
+    }
+}
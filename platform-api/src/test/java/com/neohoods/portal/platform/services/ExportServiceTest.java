@@ -0,0 +1,230 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import com.neohoods.portal.platform.services.ExportService.Format;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExportService Unit Tests")
+class ExportServiceTest {
+
+    private static final List<String> COLUMNS = List.of("id", "status", "total_price", "log_message", "created_at");
+    private static final List<String> TYPES = List.of("uuid", "varchar", "numeric", "text", "timestamp");
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    private ExportService exportService;
+
+    /** Rows read from the result set so far */
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        exportService = new ExportService(dataSource);
+        lenient().when(dataSource.getConnection()).thenReturn(connection);
+        lenient().when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+    }
+
+    @Test
+    @DisplayName("an export slot should only be held while the body is subscribed")
+    void testSlot_TakenOnSubscribe() {
+        exportService.init();
+
+        // Bodies built but never written hold no slot
+        exportService.inSlot("never written", Flux::never);
+        exportService.inSlot("never written", Flux::never);
+        assertTrue(exportService.hasFreeSlot());
+
+        Disposable first = exportService.inSlot("first", Flux::never).subscribe();
+        Disposable second = exportService.inSlot("second", Flux::never).subscribe();
+        assertFalse(exportService.hasFreeSlot());
+        StepVerifier.create(exportService.inSlot("third", Flux::empty))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        // Released on cancel and on completion
+        first.dispose();
+        assertTrue(exportService.hasFreeSlot());
+        StepVerifier.create(exportService.inSlot("third", Flux::empty)).verifyComplete();
+        second.dispose();
+        exportService.inSlot("fourth", Flux::never).subscribe();
+        exportService.inSlot("fifth", Flux::never).subscribe();
+        assertFalse(exportService.hasFreeSlot());
+    }
+
+    @Test
+    @DisplayName("CSV should quote, neutralize formulas and release the connection")
+    void testCsv() throws Exception {
+        givenRows(2, row -> row == 0
+                ? new Object[] { new UUID(0L, 1L), "CONFIRMED", new BigDecimal("1E+2"), "said \"hi\", left",
+                        LocalDateTime.of(2025, 7, 14, 10, 30) }
+                : new Object[] { new UUID(0L, 2L), "CANCELLED", null, "=HYPERLINK(\"x\")", null });
+
+        String csv = read(exportService.export("test", "SELECT", Format.CSV, false), false);
+
+        assertEquals("""
+                id,status,total_price,log_message,created_at
+                00000000-0000-0000-0000-000000000001,CONFIRMED,100,"said ""hi"", left",2025-07-14T10:30
+                00000000-0000-0000-0000-000000000002,CANCELLED,,"'=HYPERLINK(""x"")",
+                """, csv);
+        verify(statement).setFetchSize(1000);
+        verify(connection).setAutoCommit(false);
+        verify(connection).rollback();
+        verify(connection).close();
+    }
+
+    @Test
+    @DisplayName("NDJSON should write one typed JSON object per line, gzipped on request")
+    void testNdjsonGzip() throws Exception {
+        givenRows(1, row -> new Object[] { new UUID(0L, 1L), "CONFIRMED", new BigDecimal("75.50"), "a\nb", null });
+
+        String ndjson = read(exportService.export("test", "SELECT", Format.NDJSON, true), true);
+
+        assertEquals("{\"id\":\"00000000-0000-0000-0000-000000000001\",\"status\":\"CONFIRMED\","
+                + "\"total_price\":75.50,\"log_message\":\"a\\nb\",\"created_at\":null}\n", ndjson);
+    }
+
+    @Test
+    @DisplayName("a 1M-row export should only read the rows of the chunk being sent")
+    void testMillionRows_ConstantMemory() throws Exception {
+        int total = 1_000_000;
+        Object[] values = { null, "CONFIRMED", new BigDecimal("75.50"), "Parking 7",
+                LocalDateTime.of(2025, 7, 14, 10, 30) };
+        givenRows(total, row -> {
+            values[0] = new UUID(0L, row);
+            return values;
+        });
+
+        AtomicLong rowsSent = new AtomicLong(-1); // minus the header line
+        AtomicLong maxReadAhead = new AtomicLong();
+        AtomicLong maxChunk = new AtomicLong();
+        CountDownLatch completed = new CountDownLatch(1);
+        exportService.export("test", "SELECT", Format.CSV, false)
+                .subscribe(new BaseSubscriber<DataBuffer>() {
+                    @Override
+                    protected void hookOnSubscribe(Subscription subscription) {
+                        request(1);
+                    }
+
+                    @Override
+                    protected void hookOnNext(DataBuffer buffer) {
+                        int size = buffer.readableByteCount();
+                        maxChunk.accumulateAndGet(size, Math::max);
+                        for (int i = 0; i < size; i++) {
+                            if (buffer.getByte(i) == '\n') {
+                                rowsSent.incrementAndGet();
+                            }
+                        }
+                        maxReadAhead.accumulateAndGet(rowsRead.get() - rowsSent.get(), Math::max);
+                        request(1);
+                    }
+
+                    @Override
+                    protected void hookOnComplete() {
+                        completed.countDown();
+                    }
+                });
+
+        assertTrue(completed.await(60, TimeUnit.SECONDS));
+
+        assertEquals(total, rowsSent.get());
+        // Nothing is read ahead of what was sent, and chunks stay small
+        assertEquals(0, maxReadAhead.get());
+        assertTrue(maxChunk.get() < 32 * 1024, "chunk of " + maxChunk.get() + " bytes");
+    }
+
+    private void givenRows(long count, LongFunction<Object[]> rows) throws SQLException {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> COLUMNS.size();
+                    case "getColumnLabel" -> COLUMNS.get((int) args[0] - 1);
+                    case "getColumnTypeName" -> TYPES.get((int) args[0] - 1);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        // Hand-rolled rather than mocked: a mock would record every call
+        Object[][] current = new Object[1][];
+        ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        if (rowsRead.get() >= count) {
+                            yield false;
+                        }
+                        current[0] = rows.apply(rowsRead.getAndIncrement());
+                        yield true;
+                    }
+                    case "getObject" -> current[0][(int) args[0] - 1];
+                    case "getMetaData" -> metaData;
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        when(statement.executeQuery()).thenReturn(resultSet);
+    }
+
+    private static String read(Flux<DataBuffer> export, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.doOnNext(buffer -> {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            out.writeBytes(bytes);
+            DataBufferUtils.release(buffer);
+        }).blockLast();
+        byte[] bytes = out.toByteArray();
+        if (gzip) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
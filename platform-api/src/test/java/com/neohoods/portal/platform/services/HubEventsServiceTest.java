@@ -0,0 +1,170 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.model.GetUnreadNotificationsCount200Response;
+import com.neohoods.portal.platform.repositories.NotificationRepository;
+import com.neohoods.portal.platform.services.HubEventsService.HubEvent;
+
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("HubEventsService Unit Tests")
+class HubEventsServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private HubEventsService hubEventsService;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        // Listener is never started: events are dispatched locally
+        hubEventsService = new HubEventsService(dataSource, new ObjectMapper(), notificationRepository);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("subscribe should start with the current unread count")
+    void testSubscribe_InitialUnreadCount() {
+        when(notificationRepository.countByUserIdAndAlreadyReadFalse(userId)).thenReturn(3L);
+
+        StepVerifier.create(hubEventsService.subscribe(userId).take(1))
+                .assertNext(event -> {
+                    assertEquals(HubEventsService.UNREAD_COUNT, event.type());
+                    assertEquals(3, ((GetUnreadNotificationsCount200Response) event.data()).getCount());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("publish should push the notification followed by a refreshed unread count")
+    void testPublish_NotificationRefreshesCount() {
+        when(notificationRepository.countByUserIdAndAlreadyReadFalse(userId)).thenReturn(0L, 1L);
+
+        StepVerifier.create(hubEventsService.subscribe(userId).take(3))
+                .assertNext(event -> assertEquals(HubEventsService.UNREAD_COUNT, event.type()))
+                .then(() -> hubEventsService.publish(userId, HubEventsService.NOTIFICATION, Map.of("id", "n1")))
+                .assertNext(event -> assertEquals(HubEventsService.NOTIFICATION, event.type()))
+                .assertNext(event -> {
+                    assertEquals(HubEventsService.UNREAD_COUNT, event.type());
+                    assertEquals(1, ((GetUnreadNotificationsCount200Response) event.data()).getCount());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("publish should only reach the target user")
+    void testPublish_OtherUserNotNotified() {
+        UUID otherUserId = UUID.randomUUID();
+        when(notificationRepository.countByUserIdAndAlreadyReadFalse(userId)).thenReturn(0L);
+
+        StepVerifier.create(hubEventsService.subscribe(userId).map(HubEvent::type).take(2))
+                .expectNext(HubEventsService.UNREAD_COUNT)
+                .then(() -> {
+                    hubEventsService.publish(otherUserId, HubEventsService.RESERVATION_STATUS, Map.of());
+                    hubEventsService.publish(userId, HubEventsService.RESERVATION_STATUS, Map.of());
+                })
+                .expectNext(HubEventsService.RESERVATION_STATUS)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("subscriber count should drop once the stream is cancelled")
+    void testSubscribe_CleanupOnCancel() {
+        when(notificationRepository.countByUserIdAndAlreadyReadFalse(userId)).thenReturn(0L);
+
+        StepVerifier.create(hubEventsService.subscribe(userId))
+                .expectNextCount(1)
+                .then(() -> assertEquals(1, hubEventsService.getSubscriberCount()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(0, hubEventsService.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("streams opened while others are cancelled should keep receiving events")
+    void testSubscribe_ConcurrentRegisterAndCancel() throws Exception {
+        lenient().when(notificationRepository.countByUserIdAndAlreadyReadFalse(any())).thenReturn(0L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> churn = new ArrayList<>();
+                for (int i = 0; i < 7; i++) {
+                    churn.add(executor.submit(() -> {
+                        start.await();
+                        hubEventsService.subscribe(userId).subscribe().dispose();
+                        return null;
+                    }));
+                }
+                List<String> received = new ArrayList<>();
+                CountDownLatch delivered = new CountDownLatch(1);
+                Future<Disposable> kept = executor.submit(() -> {
+                    start.await();
+                    return hubEventsService.subscribe(userId).map(HubEvent::type).subscribe(type -> {
+                        synchronized (received) {
+                            received.add(type);
+                        }
+                        if (HubEventsService.RESERVATION_STATUS.equals(type)) {
+                            delivered.countDown();
+                        }
+                    });
+                });
+                start.countDown();
+                for (Future<?> future : churn) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+                Disposable stream = kept.get(5, TimeUnit.SECONDS);
+
+                // Reaches the stream kept open, whatever the order of the cancellations. The merge
+                // may hand it to the thread still emitting the unread count, so it is awaited
+                hubEventsService.publish(userId, HubEventsService.RESERVATION_STATUS, Map.of());
+                boolean reached = delivered.await(5, TimeUnit.SECONDS);
+                synchronized (received) {
+                    assertTrue(reached, "Round " + round + " lost the event: " + received);
+                }
+
+                stream.dispose();
+                assertEquals(0, ((Map<?, ?>) ReflectionTestUtils.getField(hubEventsService, "sinks")).size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.entities.MailOutboxEntity;
+import com.neohoods.portal.platform.entities.MailOutboxStatus;
+import com.neohoods.portal.platform.repositories.MailOutboxRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MailOutboxService Unit Tests")
+class MailOutboxServiceTest {
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MailOutboxService service;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // mail_outbox rows
+    private final Map<UUID, MailOutboxEntity> rows = new ConcurrentHashMap<>();
+
+    // Local MailerSend stub
+    private HttpServer server;
+    private volatile StubBehavior behavior = recipient -> 202;
+    private final Map<String, AtomicInteger> delivered = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * Status the stub answers for a recipient; 429s come with a Retry-After
+     * of 1 second
+     */
+    interface StubBehavior {
+        int status(String recipient);
+    }
+
+    /**
+     * Pacing clock standing still, recording the sleeps instead of taking
+     * them
+     */
+    private static class FrozenClock implements MailOutboxService.PacingClock {
+        private final List<Long> sleeps = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public long nanoTime() {
+            return 0;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            sleeps.add(nanos);
+        }
+
+        List<Long> sortedSleepMillis() {
+            synchronized (sleeps) {
+                return sleeps.stream().map(nanos -> nanos / 1_000_000).sorted().toList();
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/email", this::handle);
+        server.start();
+
+        MailerSendClient client = new MailerSendClient();
+        ReflectionTestUtils.setField(client, "apiUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "mailerSendApiKey", "test-key");
+        ReflectionTestUtils.setField(client, "mailerSendFromEmail", "portal@neohoods.com");
+        ReflectionTestUtils.setField(client, "mailerSendFromName", "Portal");
+        client.init();
+
+        service = new MailOutboxService();
+        ReflectionTestUtils.setField(service, "mailOutboxRepository", mailOutboxRepository);
+        ReflectionTestUtils.setField(service, "mailerSendClient", client);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        // Drained by the tests only
+        ReflectionTestUtils.setField(service, "enabled", false);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "ratePerSecond", 200.0);
+        ReflectionTestUtils.setField(service, "retryBackoffMillis", 20L);
+        ReflectionTestUtils.setField(service, "maxBackoffMillis", 200L);
+        ReflectionTestUtils.setField(service, "maxAttempts", 10);
+        service.setMeterRegistry(meterRegistry);
+
+        stubRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String recipient;
+        try (InputStream body = exchange.getRequestBody()) {
+            JsonNode json = objectMapper.readTree(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            recipient = json.path("to").path(0).path("email").asText();
+        }
+        int status = behavior.status(recipient);
+        if (status == 429) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+        }
+        if (status == 202) {
+            delivered.computeIfAbsent(recipient, r -> new AtomicInteger()).incrementAndGet();
+        }
+        byte[] response = ("{\"status\":" + status + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+
+    private void stubRepository() {
+        lenient().when(mailOutboxRepository.enqueue(any(), anyString(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    String key = invocation.getArgument(1);
+                    synchronized (rows) {
+                        if (rows.values().stream().anyMatch(row -> row.getIdempotencyKey().equals(key))) {
+                            return 0;
+                        }
+                        UUID id = invocation.getArgument(0);
+                        rows.put(id, MailOutboxEntity.builder()
+                                .id(id)
+                                .idempotencyKey(key)
+                                .recipient(invocation.getArgument(2))
+                                .subject(invocation.getArgument(3))
+                                .htmlContent(invocation.getArgument(4))
+                                .status(MailOutboxStatus.PENDING)
+                                .nextAttemptAt(OffsetDateTime.now())
+                                .createdAt(OffsetDateTime.now())
+                                .build());
+                        return 1;
+                    }
+                });
+        lenient().when(mailOutboxRepository.findDueIdsForUpdate(any(), anyInt())).thenAnswer(invocation -> {
+            OffsetDateTime now = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return rows.values().stream()
+                    .filter(row -> row.getStatus() == MailOutboxStatus.PENDING
+                            || row.getStatus() == MailOutboxStatus.SENDING)
+                    .filter(row -> !row.getNextAttemptAt().isAfter(now))
+                    .sorted(Comparator.comparing(MailOutboxEntity::getNextAttemptAt))
+                    .limit(limit)
+                    .map(MailOutboxEntity::getId)
+                    .toList();
+        });
+        lenient().when(mailOutboxRepository.claim(anyList(), any())).thenAnswer(invocation -> {
+            List<UUID> ids = invocation.getArgument(0);
+            for (UUID id : ids) {
+                MailOutboxEntity row = rows.get(id);
+                row.setStatus(MailOutboxStatus.SENDING);
+                row.setAttempts(row.getAttempts() + 1);
+                row.setNextAttemptAt(invocation.getArgument(1));
+            }
+            return ids.size();
+        });
+        lenient().when(mailOutboxRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<UUID> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> copy(rows.get(id))).toList();
+        });
+        lenient().when(mailOutboxRepository.markSent(any(), any())).thenAnswer(invocation -> {
+            MailOutboxEntity row = rows.get(invocation.getArgument(0));
+            row.setStatus(MailOutboxStatus.SENT);
+            row.setSentAt(invocation.getArgument(1));
+            return 1;
+        });
+        lenient().when(mailOutboxRepository.reschedule(any(), any(), anyString())).thenAnswer(invocation -> {
+            MailOutboxEntity row = rows.get(invocation.getArgument(0));
+            row.setStatus(MailOutboxStatus.PENDING);
+            row.setNextAttemptAt(invocation.getArgument(1));
+            row.setLastError(invocation.getArgument(2));
+            return 1;
+        });
+        lenient().when(mailOutboxRepository.markDead(any(), anyString())).thenAnswer(invocation -> {
+            MailOutboxEntity row = rows.get(invocation.getArgument(0));
+            row.setStatus(MailOutboxStatus.DEAD);
+            row.setLastError(invocation.getArgument(1));
+            return 1;
+        });
+    }
+
+    private static MailOutboxEntity copy(MailOutboxEntity row) {
+        return MailOutboxEntity.builder()
+                .id(row.getId())
+                .idempotencyKey(row.getIdempotencyKey())
+                .recipient(row.getRecipient())
+                .subject(row.getSubject())
+                .htmlContent(row.getHtmlContent())
+                .status(row.getStatus())
+                .attempts(row.getAttempts())
+                .nextAttemptAt(row.getNextAttemptAt())
+                .lastError(row.getLastError())
+                .createdAt(row.getCreatedAt())
+                .sentAt(row.getSentAt())
+                .build();
+    }
+
+    private long count(MailOutboxStatus status) {
+        return rows.values().stream().filter(row -> row.getStatus() == status).count();
+    }
+
+    /**
+     * Drains until nothing is pending or sending anymore
+     */
+    private void drainAll(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (count(MailOutboxStatus.PENDING) + count(MailOutboxStatus.SENDING) > 0) {
+            assertTrue(System.nanoTime() < deadline, "Outbox not drained in time");
+            service.drain();
+            Thread.sleep(10);
+        }
+    }
+
+    private double sends(String outcome) {
+        return meterRegistry.get(MailOutboxService.METRIC_SENDS).tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("every email should be delivered exactly once by a stub failing intermittently")
+    void testIntermittentFailures() throws Exception {
+        Random random = new Random(42);
+        AtomicInteger rateLimited = new AtomicInteger();
+        behavior = recipient -> {
+            synchronized (random) {
+                // A single 429, then 30% of the calls failing
+                if (rateLimited.get() == 0 && requests.get() > 20 && rateLimited.incrementAndGet() == 1) {
+                    return 429;
+                }
+                return random.nextInt(10) < 3 ? (random.nextBoolean() ? 500 : 503) : 202;
+            }
+        };
+
+        int emails = 100;
+        for (int i = 0; i < emails; i++) {
+            assertTrue(service.enqueue("user" + i + "@neohoods.com", "Subject " + i, "<p>Hello " + i + "</p>",
+                    null));
+        }
+        drainAll(Duration.ofSeconds(30));
+
+        log.info("Delivered {} emails: {} requests, {} retries", delivered.size(), requests.get(),
+                (long) sends(MailOutboxService.OUTCOME_RETRIED));
+
+        assertEquals(emails, count(MailOutboxStatus.SENT));
+        assertEquals(emails, delivered.size());
+        assertTrue(delivered.values().stream().allMatch(sent -> sent.get() == 1));
+        assertEquals(emails, (long) sends(MailOutboxService.OUTCOME_SENT));
+        assertEquals(requests.get() - emails, (long) sends(MailOutboxService.OUTCOME_RETRIED));
+        assertTrue(sends(MailOutboxService.OUTCOME_RETRIED) > 0);
+    }
+
+    @Test
+    @DisplayName("a 429 should pause the sends for its Retry-After")
+    void testRetryAfter() throws Exception {
+        FrozenClock clock = new FrozenClock();
+        service.setPacingClock(clock);
+        behavior = recipient -> requests.get() == 1 ? 429 : 202;
+
+        service.enqueue("user@neohoods.com", "Subject", "<p>Hello</p>", null);
+        drainAll(Duration.ofSeconds(10));
+
+        // Sent right away, then held back one second by the Retry-After
+        assertEquals(1, delivered.get("user@neohoods.com").get());
+        assertEquals(2, requests.get());
+        assertEquals(List.of(1000L), clock.sortedSleepMillis());
+    }
+
+    @Test
+    @DisplayName("rejected emails and emails out of attempts should be dead-lettered")
+    void testDeadLetters() throws Exception {
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        behavior = recipient -> recipient.startsWith("rejected") ? 422 : recipient.startsWith("down") ? 503 : 202;
+
+        service.enqueue("rejected@neohoods.com", "Subject", "<p>Hello</p>", null);
+        service.enqueue("down@neohoods.com", "Subject", "<p>Hello</p>", null);
+        service.enqueue("ok@neohoods.com", "Subject", "<p>Hello</p>", null);
+        drainAll(Duration.ofSeconds(10));
+
+        Map<String, MailOutboxEntity> byRecipient = new ConcurrentHashMap<>();
+        rows.values().forEach(row -> byRecipient.put(row.getRecipient(), row));
+        assertEquals(MailOutboxStatus.DEAD, byRecipient.get("rejected@neohoods.com").getStatus());
+        assertEquals(1, byRecipient.get("rejected@neohoods.com").getAttempts());
+        assertTrue(byRecipient.get("rejected@neohoods.com").getLastError().contains("422"));
+        assertEquals(MailOutboxStatus.DEAD, byRecipient.get("down@neohoods.com").getStatus());
+        assertEquals(3, byRecipient.get("down@neohoods.com").getAttempts());
+        assertEquals(MailOutboxStatus.SENT, byRecipient.get("ok@neohoods.com").getStatus());
+        assertEquals(2, (long) sends(MailOutboxService.OUTCOME_DEAD));
+    }
+
+    @Test
+    @DisplayName("an email enqueued twice with the same key should be sent once")
+    void testIdempotencyKey() throws Exception {
+        assertTrue(service.enqueue("user@neohoods.com", "Confirmation", "<p>1</p>", "reservation-confirmation:1"));
+        assertFalse(service.enqueue("user@neohoods.com", "Confirmation", "<p>1</p>", "reservation-confirmation:1"));
+        assertTrue(service.enqueue("user@neohoods.com", "Confirmation", "<p>2</p>", "reservation-confirmation:2"));
+        drainAll(Duration.ofSeconds(10));
+
+        assertEquals(2, rows.size());
+        assertEquals(2, requests.get());
+        assertEquals(2, delivered.get("user@neohoods.com").get());
+    }
+
+    @Test
+    @DisplayName("sends should not exceed the provider rate")
+    void testRateLimit() throws Exception {
+        ReflectionTestUtils.setField(service, "ratePerSecond", 20.0);
+        FrozenClock clock = new FrozenClock();
+        service.setPacingClock(clock);
+        for (int i = 0; i < 21; i++) {
+            service.enqueue("user" + i + "@neohoods.com", "Subject", "<p>Hello</p>", null);
+        }
+
+        drainAll(Duration.ofSeconds(10));
+
+        // 21 sends at 20 per second: the first right away, the others 50 ms apart
+        assertEquals(21, delivered.size());
+        List<Long> expected = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            expected.add(i * 50L);
+        }
+        assertEquals(expected, clock.sortedSleepMillis());
+    }
+
+    @Test
+    @DisplayName("backoff should grow exponentially up to the maximum, with jitter")
+    void testBackoff() {
+        ReflectionTestUtils.setField(service, "retryBackoffMillis", 1000L);
+        ReflectionTestUtils.setField(service, "maxBackoffMillis", 60000L);
+
+        for (int i = 0; i < 20; i++) {
+            long first = service.backoff(1).toMillis();
+            long fourth = service.backoff(4).toMillis();
+            long last = service.backoff(30).toMillis();
+            assertTrue(first >= 500 && first <= 1000, "attempt 1: " + first);
+            assertTrue(fourth >= 4000 && fourth <= 8000, "attempt 4: " + fourth);
+            assertTrue(last >= 30000 && last <= 60000, "attempt 30: " + last);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.api.internal.mcp.MatrixAssistantMCPController;
+import com.neohoods.portal.platform.api.internal.mcp.MatrixAssistantMCPController.MCPListToolsResponse;
+import com.neohoods.portal.platform.api.internal.mcp.MatrixAssistantMCPController.MCPResponse;
+import com.neohoods.portal.platform.assistant.mcp.MatrixAssistantMCPServer;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPContent;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPTool;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPToolResult;
+import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantAuthContextService;
+import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatrixAssistantMCPController Unit Tests")
+class MatrixAssistantMCPControllerTest {
+
+    private static final String TOKEN = "session-token";
+    private static final String AUTHORIZATION = "Bearer " + TOKEN;
+
+    @Mock
+    private MatrixAssistantMCPServer mcpServer;
+
+    @Mock
+    private MatrixAssistantAuthContextService authContextService;
+
+    @Mock
+    private UsersRepository usersRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MatrixAssistantMCPController controller;
+    private MatrixAssistantAuthContext authContext;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        controller = new MatrixAssistantMCPController(mcpServer, authContextService, usersRepository, jwtService,
+                objectMapper);
+
+        UserEntity user = new UserEntity();
+        user.setId(UUID.randomUUID());
+        authContext = MatrixAssistantAuthContext.builder()
+                .matrixUserId("@alice:chat.neohoods.com")
+                .roomId("!dm:chat.neohoods.com")
+                .isDirectMessage(true)
+                .userEntity(user)
+                .build();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(user.getId().toString())
+                .claim("matrixUserId", "@alice:chat.neohoods.com")
+                .claim("roomId", "!dm:chat.neohoods.com")
+                .claim("isDM", true)
+                .expirationTime(new Date(System.currentTimeMillis() + 600_000))
+                .build();
+        when(jwtService.verifyToken(TOKEN)).thenReturn(claims);
+        when(usersRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(authContextService.createAuthContextFromUser(eq(user), anyString(), anyString(), eq(true)))
+                .thenReturn(authContext);
+    }
+
+    @Test
+    @DisplayName("a batch should answer every request in order with one auth resolution")
+    @SuppressWarnings("unchecked")
+    void testBatch_AnswersInOrder() throws Exception {
+        when(mcpServer.callTool(eq("list_spaces"), anyMap(), eq(authContext))).thenReturn(text(false, "Parking 7"));
+        when(mcpServer.callTool(eq("get_users"), anyMap(), eq(authContext))).thenReturn(text(true, "DM required"));
+        JsonNode batch = objectMapper.readTree("""
+                [
+                  {"jsonrpc": "2.0", "id": 1, "method": "tools/call", "params": {"name": "list_spaces"}},
+                  {"jsonrpc": "2.0", "method": "tools/call", "params": {"name": "list_spaces"}},
+                  {"jsonrpc": "2.0", "id": "b", "method": "tools/call",
+                   "params": {"name": "get_users", "arguments": {"namePrefix": "Du"}}},
+                  {"jsonrpc": "2.0", "id": 3, "method": "resources/list"}
+                ]
+                """);
+
+        ResponseEntity<Object> response = controller.handleJsonRpc(AUTHORIZATION, null, null, null, null, batch)
+                .block();
+
+        assertNotNull(response);
+        List<MCPResponse> responses = (List<MCPResponse>) response.getBody();
+        // The notification (no id) gets no response
+        assertEquals(3, responses.size());
+        assertEquals(1, responses.get(0).getId());
+        assertNull(responses.get(0).getError());
+        assertEquals("b", responses.get(1).getId());
+        assertEquals(-32000, responses.get(1).getError().getCode());
+        assertEquals(3, responses.get(2).getId());
+        assertEquals(-32601, responses.get(2).getError().getCode());
+
+        verify(mcpServer, times(2)).callTool(eq("list_spaces"), anyMap(), eq(authContext));
+        verify(jwtService, times(1)).verifyToken(TOKEN);
+    }
+
+    @Test
+    @DisplayName("tools/list should carry an ETag and answer 304 when it matches")
+    void testListTools_ETag() throws Exception {
+        when(mcpServer.isAdminUser(authContext)).thenReturn(false);
+        when(mcpServer.listToolsForUser(authContext)).thenReturn(List.of(MCPTool.builder()
+                .name("list_spaces")
+                .description("List spaces")
+                .inputSchema(Map.of("type", "object"))
+                .build()));
+
+        ResponseEntity<MCPListToolsResponse> first = controller
+                .listTools(AUTHORIZATION, null, null, null, null, null, null).block();
+        String etag = first.getHeaders().getETag();
+        ResponseEntity<MCPListToolsResponse> second = controller
+                .listTools(AUTHORIZATION, null, null, null, null, etag, null).block();
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        verify(mcpServer, times(1)).listToolsForUser(any());
+        verify(jwtService, times(1)).verifyToken(TOKEN);
+    }
+
+    @Test
+    @DisplayName("tools/list should not cache an empty listing and should reload an expired one")
+    void testListTools_CacheRefresh() throws Exception {
+        MCPTool listSpaces = MCPTool.builder()
+                .name("list_spaces")
+                .description("List spaces")
+                .inputSchema(Map.of("type", "object"))
+                .build();
+        when(mcpServer.isAdminUser(authContext)).thenReturn(false);
+        when(mcpServer.listToolsForUser(authContext)).thenReturn(List.of(), List.of(listSpaces));
+
+        ResponseEntity<MCPListToolsResponse> empty = controller
+                .listTools(AUTHORIZATION, null, null, null, null, null, null).block();
+        ResponseEntity<MCPListToolsResponse> loaded = controller
+                .listTools(AUTHORIZATION, null, null, null, null, null, null).block();
+        controller.listTools(AUTHORIZATION, null, null, null, null, null, null).block();
+
+        assertEquals(List.of(), empty.getBody().getResult().get("tools"));
+        assertEquals(List.of(listSpaces), loaded.getBody().getResult().get("tools"));
+        verify(mcpServer, times(2)).listToolsForUser(any());
+
+        // Listings cached with no TTL expire at once
+        ReflectionTestUtils.setField(controller, "toolsCacheTtlSeconds", 0L);
+        ((Map<?, ?>) ReflectionTestUtils.getField(controller, "toolListings")).clear();
+        controller.listTools(AUTHORIZATION, null, null, null, null, null, null).block();
+        controller.listTools(AUTHORIZATION, null, null, null, null, null, null).block();
+        verify(mcpServer, times(4)).listToolsForUser(any());
+    }
+
+    private static MCPToolResult text(boolean isError, String text) {
+        return MCPToolResult.builder()
+                .isError(isError)
+                .content(List.of(MCPContent.builder().type("text").text(text).build()))
+                .build();
+    }
+}
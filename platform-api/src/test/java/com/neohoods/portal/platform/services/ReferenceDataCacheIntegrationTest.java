@@ -0,0 +1,101 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import com.neohoods.portal.platform.BaseIntegrationTest;
+import com.neohoods.portal.platform.model.Application;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Statements issued by the reference data read on the hub home page
+ * (settings, infos, applications, help categories, custom page links).
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("Reference data cache integration tests")
+public class ReferenceDataCacheIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReferenceDataCaches referenceDataCaches;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private InfosService infosService;
+
+    @Autowired
+    private ApplicationsService applicationsService;
+
+    @Autowired
+    private HelpService helpService;
+
+    @Autowired
+    private CustomPagesService customPagesService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        referenceDataCaches.invalidateAll();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("the hub home page should only query the database on the first load")
+    void testHubHomeStatements() {
+        loadHubHome();
+        long firstLoad = statistics.getPrepareStatementCount();
+        assertTrue(firstLoad > 0);
+        // Infos: one query with delegates, one with contact numbers
+        assertTrue(firstLoad <= 6, firstLoad + " statements");
+
+        statistics.clear();
+        loadHubHome();
+        loadHubHome();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("a write should be visible on the next read")
+    void testInvalidation() {
+        Application application = applicationsService.getApplications().blockFirst();
+
+        // Cached values are shared: update a copy
+        applicationsService.updateApplication(application.getId(), Application.builder()
+                .name(application.getName())
+                .url(application.getUrl())
+                .icon(application.getIcon())
+                .helpText("Updated help text")
+                .disabled(application.getDisabled())
+                .build()).block();
+
+        assertEquals("Updated help text", applicationsService.getApplications()
+                .filter(candidate -> candidate.getId().equals(application.getId()))
+                .blockFirst()
+                .getHelpText());
+    }
+
+    private void loadHubHome() {
+        settingsService.getPublicSettings().block();
+        assertNotNull(infosService.getInfos().block());
+        applicationsService.getApplications().collectList().block();
+        helpService.getHelpCategories().collectList().block();
+        customPagesService.getCustomPageRefs().collectList().block();
+    }
+}
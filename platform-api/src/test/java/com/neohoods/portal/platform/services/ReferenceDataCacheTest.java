@@ -0,0 +1,83 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@DisplayName("ReferenceDataCache Unit Tests")
+class ReferenceDataCacheTest {
+
+    @Test
+    @DisplayName("reads should be served from the snapshot until invalidated")
+    void testInvalidate() {
+        AtomicInteger loads = new AtomicInteger();
+        ReferenceDataCache<Integer> cache = new ReferenceDataCache<>("test", Duration.ofMinutes(5),
+                loads::incrementAndGet);
+
+        assertEquals(1, cache.get());
+        assertEquals(1, cache.get());
+        cache.invalidate();
+        assertEquals(2, cache.get());
+
+        assertEquals(2, cache.loadCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    @DisplayName("a value loaded while a write was made should not be kept")
+    void testInvalidateWhileLoading() {
+        AtomicInteger loads = new AtomicInteger();
+        ReferenceDataCache<Integer>[] cache = new ReferenceDataCache[1];
+        cache[0] = new ReferenceDataCache<>("test", Duration.ofMinutes(5), () -> {
+            int load = loads.incrementAndGet();
+            if (load == 1) {
+                cache[0].invalidate();
+            }
+            return load;
+        });
+
+        assertEquals(1, cache[0].get());
+        assertEquals(2, cache[0].get());
+        assertEquals(2, cache[0].get());
+    }
+
+    @Test
+    @DisplayName("a value read before the write transaction completed should be dropped")
+    void testInvalidateAfterCompletion() {
+        AtomicInteger loads = new AtomicInteger();
+        ReferenceDataCache<Integer> cache = new ReferenceDataCache<>("test", Duration.ofMinutes(5),
+                loads::incrementAndGet);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate();
+            // Read by another request before the commit
+            assertEquals(1, cache.get());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2, cache.get());
+    }
+
+    @Test
+    @DisplayName("a TTL of 0 should disable caching")
+    void testDisabled() {
+        AtomicInteger loads = new AtomicInteger();
+        ReferenceDataCache<Integer> cache = new ReferenceDataCache<>("test", Duration.ZERO, loads::incrementAndGet);
+
+        cache.get();
+        cache.get();
+
+        assertEquals(2, loads.get());
+    }
+}
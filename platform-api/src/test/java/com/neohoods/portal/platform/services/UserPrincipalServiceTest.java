@@ -0,0 +1,112 @@
+package com.neohoods.portal.platform.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.neohoods.portal.platform.entities.UnitEntity;
+import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.entities.UserType;
+import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.security.UserPrincipal;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserPrincipalService Unit Tests")
+class UserPrincipalServiceTest {
+
+    @Mock
+    private UsersRepository usersRepository;
+
+    @InjectMocks
+    private UserPrincipalService userPrincipalService;
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        UnitEntity unit = new UnitEntity();
+        unit.setId(UUID.randomUUID());
+        user = new UserEntity();
+        user.setId(UUID.randomUUID());
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setType(UserType.OWNER);
+        user.setPreferredLanguage("fr");
+        user.setPrimaryUnit(unit);
+        when(usersRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    @DisplayName("principal should carry id, roles, primary unit and locale and be loaded once")
+    void testGetPrincipal_Cached() {
+        StepVerifier.create(userPrincipalService.getPrincipal(user.getId()))
+                .assertNext(principal -> {
+                    assertEquals(user.getId(), principal.id());
+                    assertEquals("alice", principal.username());
+                    assertEquals(List.of("hub"), principal.roles());
+                    assertEquals(user.getPrimaryUnit().getId(), principal.primaryUnitId());
+                    assertEquals(Locale.FRENCH, principal.locale());
+                    assertTrue(principal.isOwner());
+                })
+                .verifyComplete();
+        userPrincipalService.getPrincipal(user.getId()).block();
+
+        verify(usersRepository, times(1)).findById(user.getId());
+    }
+
+    @Test
+    @DisplayName("invalidate should make the next lookup reload the user")
+    void testInvalidate() {
+        userPrincipalService.getPrincipal(user.getId()).block();
+        user.setEmail("alice@new.example.com");
+        userPrincipalService.invalidate(user.getId());
+
+        assertEquals("alice@new.example.com", userPrincipalService.getPrincipal(user.getId()).block().email());
+        verify(usersRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    @DisplayName("the request principal should be resolved once per exchange")
+    void testCurrentPrincipal_RequestScoped() {
+        UserContextService userContextService = new UserContextService(userPrincipalService);
+        Principal principal = () -> user.getId().toString();
+        ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hub/profile"))
+                .mutate()
+                .principal(Mono.just(principal))
+                .build();
+
+        UserPrincipal first = userContextService.getCurrentPrincipal(exchange).block();
+        userPrincipalService.invalidate(user.getId());
+        UserPrincipal again = userContextService.getCurrentPrincipal(exchange).block();
+
+        assertSame(first, again);
+        assertSame(first, exchange.getAttribute(UserPrincipal.ATTRIBUTE));
+        verify(usersRepository, times(1)).findById(user.getId());
+        assertTrue(userContextService
+                .getCurrentPrincipal(MockServerWebExchange.from(MockServerHttpRequest.get("/api/hub/profile")))
+                .blockOptional().isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupHealthContributor;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupOrchestrator;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupOrchestrator.StageStatus;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStage;
+
+@DisplayName("AssistantStartupOrchestrator Unit Tests")
+class AssistantStartupOrchestratorTest {
+
+    /** Start and end of each stand-in, in ms since the test started */
+    private final Map<String, long[]> timings = new ConcurrentHashMap<>();
+    private final long origin = System.nanoTime();
+
+    @Test
+    @DisplayName("independent stages should run concurrently, so time-to-ready is the critical path")
+    void testTimeToReady() throws Exception {
+        AssistantStartupOrchestrator orchestrator = new AssistantStartupOrchestrator(List.of(
+                stage(AssistantStartupStage.RAG_DOCUMENTS, 300, false, Set.of(), Set.of()),
+                stage(AssistantStartupStage.MCP_TOOLS, 100, false, Set.of(), Set.of()),
+                stage(AssistantStartupStage.DOCUMENT_LIBRARY, 300, false, Set.of(), Set.of()),
+                stage(AssistantStartupStage.AGENTS, 200, false, Set.of(AssistantStartupStage.MCP_TOOLS),
+                        Set.of(AssistantStartupStage.DOCUMENT_LIBRARY)),
+                stage(AssistantStartupStage.MATRIX_ROOMS, 300, false, Set.of(), Set.of())));
+
+        long start = System.nanoTime();
+        var ready = orchestrator.start();
+        // Startup does not wait for the stages
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+        assertFalse(orchestrator.isDone());
+
+        ready.get(5, TimeUnit.SECONDS);
+
+        // 1200 ms one after another; 500 ms on the critical path (library, then agents)
+        long timeToReady = orchestrator.getTimeToReadyMillis();
+        assertTrue(timeToReady >= 500 && timeToReady < 900, "time-to-ready " + timeToReady + " ms");
+        assertTrue(timings.get(AssistantStartupStage.AGENTS)[0] >= timings.get(AssistantStartupStage.MCP_TOOLS)[1]);
+        assertTrue(timings.get(AssistantStartupStage.AGENTS)[0]
+                >= timings.get(AssistantStartupStage.DOCUMENT_LIBRARY)[1]);
+        orchestrator.getStageStates().values()
+                .forEach(state -> assertEquals(StageStatus.UP, state.status()));
+    }
+
+    @Test
+    @DisplayName("a failed dependency should skip its dependents, a failed optional one should not")
+    void testFailedDependencies() throws Exception {
+        AssistantStartupOrchestrator orchestrator = new AssistantStartupOrchestrator(List.of(
+                stage("tools", 10, true, Set.of(), Set.of()),
+                stage("library", 10, true, Set.of(), Set.of()),
+                stage("agents", 10, false, Set.of("tools"), Set.of()),
+                stage("rooms", 10, false, Set.of(), Set.of("library"))));
+
+        orchestrator.start().get(5, TimeUnit.SECONDS);
+
+        assertEquals(StageStatus.FAILED, orchestrator.getStageState("tools").status());
+        assertEquals(StageStatus.SKIPPED, orchestrator.getStageState("agents").status());
+        assertEquals(StageStatus.UP, orchestrator.getStageState("rooms").status());
+        assertFalse(timings.containsKey("agents"));
+    }
+
+    @Test
+    @DisplayName("each stage should be a health component, warming up until it ends")
+    void testHealth() throws Exception {
+        AssistantStartupOrchestrator orchestrator = new AssistantStartupOrchestrator(List.of(
+                stage("fast", 10, false, Set.of(), Set.of()),
+                stage("broken", 10, true, Set.of(), Set.of())));
+        AssistantStartupHealthContributor contributor = new AssistantStartupHealthContributor(orchestrator);
+
+        assertEquals(AssistantStartupHealthContributor.WARMING_UP, status(contributor, "fast"));
+
+        orchestrator.start().get(5, TimeUnit.SECONDS);
+
+        assertEquals(Status.UP, status(contributor, "fast"));
+        assertEquals(AssistantStartupHealthContributor.FAILED, status(contributor, "broken"));
+    }
+
+    private static Status status(AssistantStartupHealthContributor contributor, String stage) {
+        return ((HealthIndicator) contributor.getContributor(stage)).health().getStatus();
+    }
+
+    private AssistantStartupStage stage(String name, long durationMillis, boolean fails, Set<String> dependencies,
+            Set<String> optionalDependencies) {
+        return new AssistantStartupStage() {
+            @Override
+            public String getStageName() {
+                return name;
+            }
+
+            @Override
+            public Set<String> getStageDependencies() {
+                return dependencies;
+            }
+
+            @Override
+            public Set<String> getOptionalStageDependencies() {
+                return optionalDependencies;
+            }
+
+            @Override
+            public void runStage() throws Exception {
+                long start = elapsedMillis();
+                Thread.sleep(durationMillis);
+                timings.put(name, new long[] { start, elapsedMillis() });
+                if (fails) {
+                    throw new IllegalStateException(name + " failed");
+                }
+            }
+        };
+    }
+
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origin);
+    }
+}
@@ -0,0 +1,344 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.matrix.ApiClient;
+import com.neohoods.portal.platform.matrix.api.SessionManagementApi;
+import com.neohoods.portal.platform.repositories.MatrixBotErrorNotificationRepository;
+import com.neohoods.portal.platform.repositories.MatrixBotTokenRepository;
+import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.services.MailService;
+import com.neohoods.portal.platform.services.matrix.oauth2.MatrixApiClientRegistry;
+import com.neohoods.portal.platform.services.matrix.oauth2.MatrixOAuth2Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatrixApiClientRegistry Unit Tests")
+@Slf4j
+class MatrixApiClientRegistryTest {
+
+    private static final int CALLS = 200;
+    private static final String BOT_TOKEN = "syt_bot_token";
+
+    @Mock
+    private MatrixBotTokenRepository tokenRepository;
+
+    @Mock
+    private MatrixBotErrorNotificationRepository errorNotificationRepository;
+
+    @Mock
+    private UsersRepository usersRepository;
+
+    @Mock
+    private MailService mailService;
+
+    private HomeserverStub homeserver;
+    private SimpleMeterRegistry meterRegistry;
+    private MatrixOAuth2Service oauth2Service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        homeserver = new HomeserverStub();
+        meterRegistry = new SimpleMeterRegistry();
+        MatrixApiClientRegistry clientRegistry = new MatrixApiClientRegistry();
+        // The stub only speaks HTTP/1.1 (no h2c upgrade)
+        ReflectionTestUtils.setField(clientRegistry, "httpVersion", HttpClient.Version.HTTP_1_1);
+        clientRegistry.setMeterRegistry(meterRegistry);
+
+        oauth2Service = new MatrixOAuth2Service(tokenRepository, errorNotificationRepository, usersRepository,
+                mailService, clientRegistry);
+        ReflectionTestUtils.setField(oauth2Service, "clientId", "portal");
+        ReflectionTestUtils.setField(oauth2Service, "clientSecret", "secret");
+        ReflectionTestUtils.setField(oauth2Service, "tokenEndpoint", homeserver.baseUri() + "/oauth2/token");
+        lenient().when(tokenRepository.findFirstByOrderByCreatedAtDesc()).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        homeserver.stop();
+    }
+
+    private ApiClient botClient() {
+        return oauth2Service.getMatrixApiClient(homeserver.baseUri(), null, true, BOT_TOKEN,
+                "@alfred:chat.neohoods.com", null).orElseThrow();
+    }
+
+    /** Before: a new ApiClient, so a new HttpClient, for every call */
+    private ApiClient freshBotClient() {
+        ApiClient apiClient = new ApiClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1),
+                ApiClient.createDefaultObjectMapper(), homeserver.baseUri());
+        apiClient.setRequestInterceptor(builder -> builder.header("Authorization", "Bearer " + BOT_TOKEN));
+        return apiClient;
+    }
+
+    @Test
+    @DisplayName("bot calls should share one client and keep their connection alive")
+    void testConnectionReuse() throws Exception {
+        assertSame(botClient(), botClient());
+        // Warm both paths up before measuring
+        for (int i = 0; i < CALLS / 4; i++) {
+            new SessionManagementApi(botClient()).getTokenOwner();
+            new SessionManagementApi(freshBotClient()).getTokenOwner();
+        }
+
+        homeserver.connections.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            assertEquals("@alfred:chat.neohoods.com", new SessionManagementApi(botClient()).getTokenOwner().getUserId());
+        }
+        long pooledNanos = System.nanoTime() - start;
+        int pooledConnections = homeserver.connections.size();
+
+        homeserver.connections.clear();
+        start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            new SessionManagementApi(freshBotClient()).getTokenOwner();
+        }
+        long freshNanos = System.nanoTime() - start;
+        int freshConnections = homeserver.connections.size();
+
+        log.info("{} calls: pooled {} connections, {} us/call; fresh client {} connections, {} us/call", CALLS,
+                pooledConnections, pooledNanos / CALLS / 1000, freshConnections, freshNanos / CALLS / 1000);
+        assertTrue(pooledConnections <= 1, "pooled client opened " + pooledConnections + " connections");
+        assertEquals(CALLS, freshConnections);
+        assertEquals(Set.of("Bearer " + BOT_TOKEN), homeserver.authorizations);
+    }
+
+    @Test
+    @DisplayName("concurrent callers should trigger a single token exchange")
+    void testSingleFlightTokenExchange() throws Exception {
+        homeserver.tokenLatencyMillis = 200;
+
+        List<com.neohoods.portal.platform.mas.ApiClient> clients = concurrently(20,
+                () -> oauth2Service.getMASApiClient("http://127.0.0.1:" + homeserver.port()).orElseThrow());
+
+        assertEquals(1, homeserver.tokenExchanges.get());
+        clients.forEach(client -> assertSame(clients.get(0), client));
+        assertEquals(1.0, meterRegistry.get(MatrixApiClientRegistry.TOKEN_RENEWALS)
+                .tag("identity", MatrixApiClientRegistry.MAS_ADMIN).functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("a token about to expire should be renewed once, while callers keep the valid one")
+    void testProactiveRenewal() throws Exception {
+        // Renewed after 80% of its lifetime, 1.6 s
+        homeserver.expiresIn = 2;
+        homeserver.tokenLatencyMillis = 200;
+        assertEquals(Optional.of("mas-token-1"), oauth2Service.getAdminAccessToken());
+
+        Thread.sleep(1700);
+        long start = System.nanoTime();
+        List<String> tokens = concurrently(20, () -> oauth2Service.getAdminAccessToken().orElseThrow());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, homeserver.tokenExchanges.get());
+        // Only the caller renewing the token waits for the exchange
+        assertTrue(tokens.contains("mas-token-1"), "tokens: " + tokens);
+        assertTrue(tokens.stream().allMatch(token -> token.startsWith("mas-token-")));
+        assertEquals(Optional.of("mas-token-2"), oauth2Service.getAdminAccessToken());
+        log.info("Renewal with 20 concurrent callers took {} ms", elapsedMillis);
+    }
+
+    @Test
+    @DisplayName("an unavailable token endpoint should not be called by every waiting caller")
+    void testFailedExchange() throws Exception {
+        homeserver.tokenStatus = 503;
+        homeserver.tokenLatencyMillis = 100;
+
+        List<Optional<String>> tokens = concurrently(10, () -> oauth2Service.getAdminAccessToken());
+
+        assertTrue(tokens.stream().allMatch(Optional::isEmpty));
+        assertEquals(1, homeserver.tokenExchanges.get());
+    }
+
+    private static <T> List<T> concurrently(int callers, Callable<T> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    return call.call();
+                }));
+            }
+            ready.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Local homeserver answering whoami, and the token endpoint.
+     *
+     * A raw HTTP/1.1 server rather than the JDK one: it writes each response
+     * at once with TCP_NODELAY, so kept-alive connections are not delayed by
+     * Nagle's algorithm and the latencies are comparable.
+     */
+    private static class HomeserverStub {
+
+        private final ServerSocket serverSocket;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        // Client ports, one per connection used by whoami
+        private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+        private final Set<String> authorizations = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private final AtomicInteger tokenExchanges = new AtomicInteger();
+        private volatile long tokenLatencyMillis;
+        private volatile int tokenStatus = 200;
+        private volatile long expiresIn = 300;
+
+        HomeserverStub() throws IOException {
+            serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+            executor.execute(this::accept);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        String baseUri() {
+            return "http://127.0.0.1:" + port();
+        }
+
+        void stop() {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+            executor.shutdownNow();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    socket.setTcpNoDelay(true);
+                    executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket) {
+                BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    String requestLine = readLine(in);
+                    if (requestLine == null || requestLine.isEmpty()) {
+                        return;
+                    }
+                    Map<String, String> headers = new HashMap<>();
+                    for (String line = readLine(in); line != null && !line.isEmpty(); line = readLine(in)) {
+                        int colon = line.indexOf(':');
+                        headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                                line.substring(colon + 1).trim());
+                    }
+                    in.readNBytes(Integer.parseInt(headers.getOrDefault("content-length", "0")));
+
+                    String path = requestLine.split(" ")[1];
+                    boolean close;
+                    String response;
+                    if (path.startsWith("/oauth2/token")) {
+                        close = true;
+                        response = token();
+                    } else {
+                        close = "close".equalsIgnoreCase(headers.get("connection"));
+                        connections.add(socket.getPort());
+                        authorizations.add(headers.get("authorization"));
+                        response = response(200, "{\"user_id\":\"@alfred:chat.neohoods.com\",\"is_guest\":false}",
+                                close);
+                    }
+                    out.write(response.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    if (close) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // Connection closed by the client
+            }
+        }
+
+        private String token() {
+            int exchangeNumber = tokenExchanges.incrementAndGet();
+            try {
+                Thread.sleep(tokenLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (tokenStatus != 200) {
+                return response(tokenStatus, "{\"error\":\"temporarily_unavailable\"}", true);
+            }
+            return response(200, "{\"access_token\":\"mas-token-" + exchangeNumber
+                    + "\",\"token_type\":\"Bearer\",\"expires_in\":" + expiresIn + "}", true);
+        }
+
+        private static String response(int status, String body, boolean close) {
+            return "HTTP/1.1 " + status + (status == 200 ? " OK" : " Error") + "\r\n"
+                    + "Content-Type: application/json\r\n"
+                    + "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n"
+                    + (close ? "Connection: close\r\n" : "")
+                    + "\r\n" + body;
+        }
+
+        private static String readLine(BufferedInputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') {
+                    int length = line.length();
+                    return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1)
+                            : line.toString();
+                }
+                line.append((char) c);
+            }
+            return line.length() > 0 ? line.toString() : null;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAIService;
+import com.neohoods.portal.platform.assistant.services.MistralGateway;
 import com.neohoods.portal.platform.assistant.services.MatrixAssistantAdminCommandService;
 import com.neohoods.portal.platform.assistant.model.MatrixAssistantAuthContext;
 import com.neohoods.portal.platform.assistant.mcp.MatrixAssistantMCPAdapter;
@@ -58,6 +59,9 @@ class MatrixAssistantAIServiceTest {
     @Mock
     private MatrixAssistantAdminCommandService adminCommandService;
 
+    @Mock
+    private MistralGateway mistralGateway;
+
     @InjectMocks
     private MatrixAssistantAIService aiService;
 
@@ -0,0 +1,165 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantMetricsService;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatrixAssistantMetricsService Unit Tests")
+class MatrixAssistantMetricsServiceTest {
+
+    @Mock
+    private ObjectProvider<Tracer> tracerProvider;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MatrixAssistantMetricsService metricsService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        metricsService = new MatrixAssistantMetricsService(observationRegistry, meterRegistry, tracerProvider);
+    }
+
+    @Test
+    @DisplayName("observe should time a reactive stage with its result tags")
+    void testObserve_ReactiveStageTagged() {
+        Mono<String> classification = metricsService.observe(MatrixAssistantMetricsService.ROUTER_CLASSIFY,
+                Map.of(MatrixAssistantMetricsService.TAG_WORKFLOW, "none"),
+                workflow -> Map.of(MatrixAssistantMetricsService.TAG_WORKFLOW, workflow),
+                Mono.just("SPACE"));
+
+        StepVerifier.create(classification).expectNext("SPACE").verifyComplete();
+
+        assertEquals(1, meterRegistry.get(MatrixAssistantMetricsService.ROUTER_CLASSIFY)
+                .tag(MatrixAssistantMetricsService.TAG_WORKFLOW, "SPACE")
+                .tag(MatrixAssistantMetricsService.TAG_OUTCOME, MatrixAssistantMetricsService.OUTCOME_SUCCESS)
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("observe should tag failed reactive stages as errors")
+    void testObserve_ReactiveStageError() {
+        Mono<String> failing = metricsService.observe(MatrixAssistantMetricsService.LLM_CALL,
+                Map.of(MatrixAssistantMetricsService.TAG_CALL, "standard"),
+                Mono.error(new IllegalStateException("Mistral unavailable")));
+
+        StepVerifier.create(failing).verifyError(IllegalStateException.class);
+
+        assertEquals(1, meterRegistry.get(MatrixAssistantMetricsService.LLM_CALL)
+                .tag(MatrixAssistantMetricsService.TAG_OUTCOME, MatrixAssistantMetricsService.OUTCOME_ERROR)
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("observe should let a blocking stage flag a functional error")
+    void testObserve_BlockingStageOutcome() {
+        boolean sent = metricsService.observe(MatrixAssistantMetricsService.MATRIX_SEND, Map.of(),
+                result -> Map.of(MatrixAssistantMetricsService.TAG_OUTCOME,
+                        result ? MatrixAssistantMetricsService.OUTCOME_SUCCESS
+                                : MatrixAssistantMetricsService.OUTCOME_ERROR),
+                () -> false);
+
+        assertFalse(sent);
+        assertEquals(1, meterRegistry.get(MatrixAssistantMetricsService.MATRIX_SEND)
+                .tag(MatrixAssistantMetricsService.TAG_OUTCOME, MatrixAssistantMetricsService.OUTCOME_ERROR)
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("observe should record and rethrow exceptions from a blocking stage")
+    void testObserve_BlockingStageException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> metricsService.observe(MatrixAssistantMetricsService.MCP_TOOL,
+                        Map.of(MatrixAssistantMetricsService.TAG_TOOL, "list_spaces"), result -> Map.of(),
+                        () -> {
+                            throw new IllegalArgumentException("boom");
+                        }));
+
+        assertEquals(1, meterRegistry.get(MatrixAssistantMetricsService.MCP_TOOL)
+                .tag(MatrixAssistantMetricsService.TAG_TOOL, "list_spaces")
+                .tag(MatrixAssistantMetricsService.TAG_OUTCOME, MatrixAssistantMetricsService.OUTCOME_ERROR)
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("recordTokenUsage should record prompt and completion tokens from Mistral usage")
+    void testRecordTokenUsage() {
+        metricsService.recordTokenUsage(
+                Map.of("usage", Map.of("prompt_tokens", 1200, "completion_tokens", 80, "total_tokens", 1280)),
+                "MatrixAssistantSpaceAgent", "SPACE");
+
+        assertEquals(1200, meterRegistry.get(MatrixAssistantMetricsService.LLM_TOKENS)
+                .tag("type", "prompt").tag(MatrixAssistantMetricsService.TAG_WORKFLOW, "SPACE")
+                .summary().totalAmount());
+        assertEquals(80, meterRegistry.get(MatrixAssistantMetricsService.LLM_TOKENS)
+                .tag("type", "completion").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("shouldLogPayload should follow the sampled flag of the current trace")
+    void testShouldLogPayload_Traced() {
+        Map<String, String> mdc = Map.of("conversationTraceId", "b7c1f1d2-5b7e-4a35-9d55-1e1f0c0b9a01");
+        Tracer tracer = mock(Tracer.class);
+        Span span = mock(Span.class);
+        TraceContext context = mock(TraceContext.class);
+        when(tracer.currentSpan()).thenReturn(span);
+        when(span.context()).thenReturn(context);
+        when(tracerProvider.getIfAvailable()).thenReturn(tracer);
+        // Even with every untraced conversation logged
+        ReflectionTestUtils.setField(metricsService, "payloadLogRate", 1.0);
+
+        when(context.sampled()).thenReturn(false);
+        assertFalse(metricsService.shouldLogPayload(mdc));
+        when(context.sampled()).thenReturn(null);
+        assertFalse(metricsService.shouldLogPayload(mdc));
+
+        ReflectionTestUtils.setField(metricsService, "payloadLogRate", 0.0);
+        when(context.sampled()).thenReturn(true);
+        assertTrue(metricsService.shouldLogPayload(mdc));
+    }
+
+    @Test
+    @DisplayName("shouldLogPayload should log no untraced conversation by default and be stable per conversation")
+    void testShouldLogPayload_Untraced() {
+        Map<String, String> mdc = Map.of("conversationTraceId", "b7c1f1d2-5b7e-4a35-9d55-1e1f0c0b9a01");
+
+        assertFalse(metricsService.shouldLogPayload(mdc));
+
+        ReflectionTestUtils.setField(metricsService, "payloadLogRate", 1.0);
+        assertTrue(metricsService.shouldLogPayload(mdc));
+
+        ReflectionTestUtils.setField(metricsService, "payloadLogRate", 0.5);
+        boolean first = metricsService.shouldLogPayload(mdc);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(first, metricsService.shouldLogPayload(mdc));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPTool;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantPromptAssemblyService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantPromptAssemblyService.AssembledPrompt;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantPromptAssemblyService.PromptBlock;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantPromptAssemblyService.ToolBlock;
+
+@DisplayName("MatrixAssistantPromptAssemblyService Unit Tests")
+class MatrixAssistantPromptAssemblyServiceTest {
+
+    private MatrixAssistantPromptAssemblyService promptAssemblyService;
+
+    @BeforeEach
+    void setUp() {
+        promptAssemblyService = new MatrixAssistantPromptAssemblyService();
+    }
+
+    @Test
+    @DisplayName("toolBlock should serialise tools once in a stable order")
+    void testToolBlock_StableAndCached() {
+        MCPTool listSpaces = tool("list_spaces");
+        MCPTool emergency = tool("get_emergency_numbers");
+
+        ToolBlock first = promptAssemblyService.toolBlock(List.of(listSpaces, emergency));
+        ToolBlock second = promptAssemblyService.toolBlock(List.of(emergency, listSpaces));
+
+        assertSame(first, second);
+        assertEquals(List.of("get_emergency_numbers", "list_spaces"), first.tools().stream()
+                .map(tool -> ((Map<?, ?>) tool.get("function")).get("name"))
+                .toList());
+        assertEquals(List.of("type", "function"), new ArrayList<>(first.tools().get(0).keySet()));
+        assertTrue(first.tokens() > 0);
+    }
+
+    @Test
+    @DisplayName("assemble should keep the system prompt first and put RAG context with the user message")
+    void testAssemble_StablePrefix() {
+        PromptBlock system = promptAssemblyService.systemBlock("Tu es Alfred.");
+        assertSame(system, promptAssemblyService.systemBlock("Tu es Alfred."));
+
+        AssembledPrompt prompt = promptAssemblyService.assemble(system, List.of(),
+                List.of(message("user", "Bonjour"), message("assistant", "Bonjour !")),
+                "Documentation context:\nParking au sous-sol\n\n", "Où est le parking ?");
+
+        List<Map<String, Object>> messages = prompt.messages();
+        assertEquals(4, messages.size());
+        assertEquals("Tu es Alfred.", messages.get(0).get("content"));
+        assertEquals("Documentation context:\nParking au sous-sol\n\nOù est le parking ?",
+                messages.get(3).get("content"));
+        assertEquals(0, prompt.droppedMessages());
+    }
+
+    @Test
+    @DisplayName("assemble should trim the oldest history and orphan tool results to the budget")
+    void testAssemble_TrimsHistory() {
+        ReflectionTestUtils.setField(promptAssemblyService, "historyBudgetTokens", 30);
+        List<Map<String, Object>> history = List.of(
+                message("user", "Ancienne question ".repeat(20)),
+                message("assistant", "Ancienne réponse ".repeat(20)),
+                Map.of("role", "tool", "tool_call_id", "call_1", "content", "Parking 12"),
+                message("user", "Et le 13 ?"),
+                message("assistant", "Le 13 est libre."));
+
+        AssembledPrompt prompt = promptAssemblyService.assemble(promptAssemblyService.systemBlock("Système"),
+                List.of(), history, "", "Merci");
+
+        List<Map<String, Object>> messages = prompt.messages();
+        assertEquals(List.of("system", "user", "assistant", "user"),
+                messages.stream().map(message -> message.get("role")).toList());
+        assertEquals("Et le 13 ?", messages.get(1).get("content"));
+        assertEquals(3, prompt.droppedMessages());
+    }
+
+    @Test
+    @DisplayName("estimateTokens should count words, numbers and symbols")
+    void testEstimateTokens() {
+        assertEquals(0, MatrixAssistantPromptAssemblyService.estimateTokens(""));
+        // "Parking" (2) + "12" (1) + "!" (1)
+        assertEquals(4, MatrixAssistantPromptAssemblyService.estimateTokens("Parking 12 !"));
+    }
+
+    private static MCPTool tool(String name) {
+        return MCPTool.builder()
+                .name(name)
+                .description("Outil " + name)
+                .inputSchema(Map.of("type", "object"))
+                .build();
+    }
+
+    private static Map<String, Object> message(String role, String content) {
+        return Map.of("role", role, "content", content);
+    }
+}
@@ -0,0 +1,149 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantStreamingService;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantStreamingService.CompletionAccumulator;
+import com.neohoods.portal.platform.assistant.services.MatrixAssistantStreamingService.ProgressiveReply;
+import com.neohoods.portal.platform.services.matrix.space.MatrixMessageService;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatrixAssistantStreamingService Unit Tests")
+class MatrixAssistantStreamingServiceTest {
+
+    private static final String ROOM_ID = "!room:chat.neohoods.com";
+
+    @Mock
+    private MatrixMessageService matrixMessageService;
+
+    private MatrixAssistantStreamingService streamingService;
+
+    @BeforeEach
+    void setUp() {
+        streamingService = new MatrixAssistantStreamingService(new ObjectMapper());
+        ReflectionTestUtils.setField(streamingService, "matrixMessageService", matrixMessageService);
+        ReflectionTestUtils.setField(streamingService, "enabled", true);
+        ReflectionTestUtils.setField(streamingService, "editIntervalMs", 0L);
+        ReflectionTestUtils.setField(streamingService, "minFirstChars", 5);
+    }
+
+    @Test
+    @DisplayName("accumulator should concatenate content and merge tool call fragments")
+    @SuppressWarnings("unchecked")
+    void testAccumulator_AssemblesToolCalls() {
+        CompletionAccumulator accumulator = new CompletionAccumulator();
+
+        assertEquals("Je ", accumulator.accept(chunk(Map.of("content", "Je "))));
+        assertEquals("regarde", accumulator.accept(chunk(Map.of("content", "regarde"))));
+        accumulator.accept(chunk(Map.of("tool_calls", List.of(Map.of("index", 0, "id", "call_1",
+                "function", Map.of("name", "list_spaces", "arguments", "{\"type\":"))))));
+        accumulator.accept(chunk(Map.of("tool_calls", List.of(Map.of("index", 0,
+                "function", Map.of("arguments", "\"PARKING\"}"))))));
+        accumulator.accept(Map.of("usage", Map.of("prompt_tokens", 10, "completion_tokens", 4)));
+
+        Map<String, Object> response = accumulator.toResponse();
+        Map<String, Object> message = (Map<String, Object>) ((List<Map<String, Object>>) response.get("choices"))
+                .get(0).get("message");
+        assertEquals("Je regarde", message.get("content"));
+        List<Map<String, Object>> toolCalls = (List<Map<String, Object>>) message.get("tool_calls");
+        assertEquals(1, toolCalls.size());
+        assertEquals("call_1", toolCalls.get(0).get("id"));
+        Map<String, Object> function = (Map<String, Object>) toolCalls.get(0).get("function");
+        assertEquals("list_spaces", function.get("name"));
+        assertEquals("{\"type\":\"PARKING\"}", function.get("arguments"));
+        assertNotNull(response.get("usage"));
+    }
+
+    @Test
+    @DisplayName("accumulator should keep complete tool calls streamed with the same index apart")
+    @SuppressWarnings("unchecked")
+    void testAccumulator_CompleteCallsSameIndex() {
+        CompletionAccumulator accumulator = new CompletionAccumulator();
+
+        accumulator.accept(chunk(Map.of("tool_calls", List.of(Map.of("index", 0, "id", "a",
+                "function", Map.of("name", "list_spaces", "arguments", "{}"))))));
+        accumulator.accept(chunk(Map.of("tool_calls", List.of(Map.of("index", 0, "id", "b",
+                "function", Map.of("name", "get_emergency_numbers", "arguments", "{}"))))));
+
+        Map<String, Object> message = (Map<String, Object>) ((List<Map<String, Object>>) accumulator.toResponse()
+                .get("choices")).get(0).get("message");
+        List<Map<String, Object>> toolCalls = (List<Map<String, Object>>) message.get("tool_calls");
+        assertEquals(List.of("a", "b"), toolCalls.stream().map(call -> call.get("id")).toList());
+    }
+
+    @Test
+    @DisplayName("streamCompletion should push deltas to the reply and return the assembled response")
+    @SuppressWarnings("unchecked")
+    void testStreamCompletion_PostsThenEdits() {
+        when(matrixMessageService.sendMessageForEventId(anyString(), anyString())).thenReturn(Optional.of("$evt"));
+        when(matrixMessageService.editMessage(anyString(), anyString(), anyString())).thenReturn(true);
+        String body = "data: {\"choices\":[{\"delta\":{\"content\":\"Bonjour, \"}}]}\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"le parking 12 est libre.\"},\"finish_reason\":\"stop\"}]}\n\n"
+                + "data: [DONE]\n\n";
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .body(body)
+                        .build()))
+                .build();
+
+        ProgressiveReply reply = streamingService.open(ROOM_ID);
+        StepVerifier.create(streamingService.streamCompletion(webClient, Map.of("model", "m"), reply))
+                .assertNext(response -> {
+                    Map<String, Object> message = (Map<String, Object>) ((List<Map<String, Object>>) response
+                            .get("choices")).get(0).get("message");
+                    assertEquals("Bonjour, le parking 12 est libre.", message.get("content"));
+                })
+                .verifyComplete();
+
+        // First tokens are posted once, later ones are edits of that message
+        verify(matrixMessageService, timeout(2000)).sendMessageForEventId(eq(ROOM_ID), startsWith("Bonjour,"));
+        assertTrue(reply.complete("Bonjour, le parking 12 est libre !"));
+        verify(matrixMessageService).editMessage(ROOM_ID, "$evt", "Bonjour, le parking 12 est libre !");
+    }
+
+    @Test
+    @DisplayName("complete should let the caller send normally when nothing was posted")
+    void testComplete_NothingPosted() {
+        ProgressiveReply reply = streamingService.open(ROOM_ID);
+        reply.append("Oui");
+
+        assertFalse(reply.complete("Oui."));
+        verify(matrixMessageService, never()).sendMessageForEventId(anyString(), anyString());
+    }
+
+    private static Map<String, Object> chunk(Map<String, Object> delta) {
+        return Map.of("choices", List.of(Map.of("index", 0, "delta", delta)));
+    }
+}
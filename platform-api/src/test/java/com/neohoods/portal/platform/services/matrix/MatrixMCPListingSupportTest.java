@@ -0,0 +1,136 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPListingSupport;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPListingSupport.Cursor;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPListingSupport.Table;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPContent;
+import com.neohoods.portal.platform.assistant.mcp.MatrixMCPModels.MCPToolResult;
+
+@DisplayName("MatrixMCPListingSupport Unit Tests")
+class MatrixMCPListingSupportTest {
+
+    private MatrixMCPListingSupport listingSupport;
+
+    @BeforeEach
+    void setUp() {
+        listingSupport = new MatrixMCPListingSupport();
+    }
+
+    @Test
+    @DisplayName("cursor should round-trip and reject garbage")
+    void testCursor() {
+        Cursor cursor = new Cursor("Dupont | A701", UUID.randomUUID());
+
+        assertEquals(cursor, Cursor.decode(cursor.encode()));
+        assertSame(Cursor.FIRST, Cursor.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    @DisplayName("table should stop at the page size and give the cursor of the last row")
+    void testTable_PageSize() {
+        ReflectionTestUtils.setField(listingSupport, "pageSize", 2);
+        List<Integer> items = List.of(1, 2, 3);
+
+        Table table = listingSupport.table("Units", "name", "members");
+        boolean more = table.fill(items, i -> new Cursor("A70" + i, new UUID(0L, i)),
+                i -> List.of("A70" + i, i));
+
+        assertTrue(more);
+        assertEquals(2, table.rows());
+        assertEquals(new Cursor("A702", new UUID(0L, 2)), Cursor.decode(table.nextCursor()));
+        MCPToolResult result = table.toResult("more");
+        assertEquals("Units\nname | members\nA701 | 1\nA702 | 2\nmore", text(result));
+        assertEquals(table.nextCursor(), result.getStructuredContent().get("nextCursor"));
+    }
+
+    @Test
+    @DisplayName("table should stop at the token budget but always keep one row")
+    void testTable_TokenBudget() {
+        ReflectionTestUtils.setField(listingSupport, "maxResultTokens", 60);
+        List<Integer> items = IntStream.range(0, 50).boxed().toList();
+
+        Table table = listingSupport.table("Users", "first_name", "last_name", "email");
+        boolean more = table.fill(items, i -> new Cursor("Nom" + i, new UUID(0L, i)),
+                i -> List.of("Prénom" + i, "Nom" + i, "user" + i + "@example.com"));
+
+        assertTrue(more);
+        assertTrue(table.rows() > 0 && table.rows() < 10);
+
+        ReflectionTestUtils.setField(listingSupport, "maxResultTokens", 1);
+        Table starved = listingSupport.table("Users", "email");
+        starved.fill(items, i -> Cursor.FIRST, i -> List.of("x"));
+        assertEquals(1, starved.rows());
+    }
+
+    @Test
+    @DisplayName("table cells should not break the row layout")
+    void testTable_EscapesCells() {
+        Table table = listingSupport.table("Spaces", "name", "description");
+
+        assertFalse(table.fill(List.of(1), i -> Cursor.FIRST, i -> Arrays.asList("a|b\nc", null)));
+        MCPToolResult result = table.toResult(null);
+        assertEquals("Spaces\nname | description\na/b c | ", text(result));
+        assertFalse(result.getStructuredContent().containsKey("nextCursor"));
+    }
+
+    @Test
+    @DisplayName("cached should reuse results per tool, locale and arguments but not errors")
+    void testCached() {
+        AtomicInteger loads = new AtomicInteger();
+        MCPToolResult ok = MCPToolResult.builder().isError(false).build();
+        MCPToolResult error = MCPToolResult.builder().isError(true).build();
+
+        listingSupport.cached("admin_get_units", Locale.FRENCH, Map.of("type", "FLAT", "namePrefix", "A"),
+                () -> {
+                    loads.incrementAndGet();
+                    return ok;
+                });
+        MCPToolResult again = listingSupport.cached("admin_get_units", Locale.FRENCH,
+                Map.of("namePrefix", "A", "type", "FLAT"), () -> {
+                    loads.incrementAndGet();
+                    return ok;
+                });
+        listingSupport.cached("admin_get_units", Locale.ENGLISH, Map.of("type", "FLAT", "namePrefix", "A"),
+                () -> {
+                    loads.incrementAndGet();
+                    return ok;
+                });
+        assertSame(ok, again);
+        assertEquals(2, loads.get());
+
+        listingSupport.cached("get_users", Locale.FRENCH, Map.of(), () -> {
+            loads.incrementAndGet();
+            return error;
+        });
+        listingSupport.cached("get_users", Locale.FRENCH, Map.of(), () -> {
+            loads.incrementAndGet();
+            return error;
+        });
+        assertEquals(4, loads.get());
+    }
+
+    private static String text(MCPToolResult result) {
+        List<MCPContent> content = result.getContent();
+        return content.get(0).getText();
+    }
+}
@@ -14,11 +14,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
 import com.neohoods.portal.platform.matrix.ApiClient;
+import com.neohoods.portal.platform.services.matrix.oauth2.MatrixApiClientRegistry;
 import com.neohoods.portal.platform.services.matrix.oauth2.MatrixOAuth2Service;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +42,9 @@ class MatrixOAuth2ServiceTest {
     @Mock
     private com.neohoods.portal.platform.services.MailService mailService;
 
+    @Spy
+    private MatrixApiClientRegistry clientRegistry = new MatrixApiClientRegistry();
+
     @InjectMocks
     private MatrixOAuth2Service oauth2Service;
 
@@ -0,0 +1,381 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.entities.MatrixRoomIndexEntity;
+import com.neohoods.portal.platform.entities.MatrixSpaceIndexSeedEntity;
+import com.neohoods.portal.platform.matrix.ApiClient;
+import com.neohoods.portal.platform.repositories.MatrixRoomIndexRepository;
+import com.neohoods.portal.platform.repositories.MatrixSpaceIndexSeedRepository;
+import com.neohoods.portal.platform.services.matrix.oauth2.MatrixOAuth2Service;
+import com.neohoods.portal.platform.services.matrix.space.MatrixMembershipService;
+import com.neohoods.portal.platform.services.matrix.space.MatrixRoomService;
+import com.neohoods.portal.platform.services.matrix.space.MatrixSpaceIndex;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatrixRoomService Unit Tests")
+class MatrixRoomServiceTest {
+
+    private static final String SPACE_ID = "!space:chat.neohoods.com";
+    private static final String ASSISTANT_USER_ID = "@alfred:chat.neohoods.com";
+    private static final int ROOM_COUNT = 200;
+
+    @Mock
+    private MatrixOAuth2Service oauth2Service;
+
+    @Mock
+    private MatrixMembershipService membershipService;
+
+    @Mock
+    private MatrixRoomIndexRepository roomIndexRepository;
+
+    @Mock
+    private MatrixSpaceIndexSeedRepository seedRepository;
+
+    private final Map<String, MatrixRoomIndexEntity> indexRows = new ConcurrentHashMap<>();
+    private final Map<String, MatrixSpaceIndexSeedEntity> seedRows = new ConcurrentHashMap<>();
+    private HomeserverStub homeserver;
+    private MatrixSpaceIndex spaceIndex;
+    private MatrixRoomService roomService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        homeserver = new HomeserverStub();
+        for (int i = 0; i < ROOM_COUNT; i++) {
+            homeserver.rooms.put(roomId(i), "Room " + i);
+        }
+        // The stub only speaks HTTP/1.1 (no h2c upgrade)
+        ApiClient matrixClient = new ApiClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1),
+                ApiClient.createDefaultObjectMapper(), "http://127.0.0.1:" + homeserver.port());
+        lenient().when(oauth2Service.getMatrixApiClient(anyString(), isNull(), anyBoolean(), any(), any(), isNull()))
+                .thenReturn(Optional.of(matrixClient));
+
+        // In-memory matrix_room_index
+        lenient().when(roomIndexRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(indexRows.values()));
+        lenient().when(roomIndexRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<MatrixRoomIndexEntity> entities = invocation.getArgument(0);
+            entities.forEach(entity -> indexRows.put(entity.getRoomId(), entity));
+            return entities;
+        });
+        lenient().when(seedRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(seedRows.values()));
+        lenient().when(seedRepository.save(any())).thenAnswer(invocation -> {
+            MatrixSpaceIndexSeedEntity seed = invocation.getArgument(0);
+            seedRows.put(seed.getSpaceId(), seed);
+            return seed;
+        });
+
+        restart();
+    }
+
+    @AfterEach
+    void tearDown() {
+        homeserver.stop();
+    }
+
+    /** New service instances, as after a restart, on the same database */
+    private void restart() {
+        spaceIndex = new MatrixSpaceIndex(roomIndexRepository, seedRepository);
+        roomService = new MatrixRoomService(oauth2Service, membershipService, spaceIndex);
+        ReflectionTestUtils.setField(roomService, "homeserverUrl", "http://127.0.0.1:" + homeserver.port());
+        ReflectionTestUtils.setField(roomService, "serverName", "chat.neohoods.com");
+        ReflectionTestUtils.setField(roomService, "localAssistantEnabled", true);
+        ReflectionTestUtils.setField(roomService, "localAssistantUserId", ASSISTANT_USER_ID);
+    }
+
+    @Test
+    @DisplayName("a space with 200 rooms should be read once from the hierarchy, then served from the index")
+    void testLookupsInLargeSpace() {
+        for (int i = 0; i < ROOM_COUNT; i++) {
+            assertEquals(Optional.of(roomId(i)), roomService.getRoomIdByName("room " + i, SPACE_ID));
+            assertTrue(roomService.roomBelongsToSpace(roomId(i), SPACE_ID));
+        }
+        Map<String, String> rooms = roomService.getExistingRoomsInSpace(SPACE_ID);
+        assertEquals(ROOM_COUNT, rooms.size());
+        assertEquals(roomId(42), rooms.get("Room 42"));
+        assertEquals(Optional.empty(), roomService.getRoomIdByName("Unknown", SPACE_ID));
+
+        // Two hierarchy pages and the joined rooms, nothing else
+        assertEquals(3, homeserver.requestCount());
+        assertEquals(2, homeserver.requestCount("GET /_matrix/client/v1/rooms/" + SPACE_ID + "/hierarchy"));
+        assertEquals(1, homeserver.requestCount("GET /_matrix/client/v3/joined_rooms"));
+        assertEquals(ROOM_COUNT, indexRows.size());
+        assertEquals(Set.of(SPACE_ID), seedRows.keySet());
+    }
+
+    @Test
+    @DisplayName("a restart should reload the persisted index instead of reading the hierarchy again")
+    void testRestartReusesPersistedIndex() {
+        roomService.getExistingRoomsInSpace(SPACE_ID);
+        int seedRequests = homeserver.requestCount();
+
+        restart();
+        for (int i = 0; i < ROOM_COUNT; i++) {
+            assertEquals(Optional.of(roomId(i)), roomService.getRoomIdByName("Room " + i, SPACE_ID));
+        }
+        assertEquals(ROOM_COUNT, roomService.getExistingRoomsInSpace(SPACE_ID).size());
+
+        assertEquals(seedRequests, homeserver.requestCount());
+    }
+
+    @Test
+    @DisplayName("an upgraded space whose rooms only have m.space.parent should be seeded from their parent links")
+    void testUpgradeSeedsParentLinkedRooms() {
+        // Rooms created before m.space.child was set: missing from the hierarchy
+        homeserver.rooms.clear();
+        for (int i = 0; i < 3; i++) {
+            homeserver.parentOnlyRooms.put(roomId(i), "Room " + i);
+            homeserver.joinedRooms.add(roomId(i));
+        }
+        homeserver.joinedRooms.add("!elsewhere:chat.neohoods.com");
+        // One of them stored from sync by the previous version, which had no seed marker
+        indexRows.put(roomId(0), MatrixRoomIndexEntity.builder()
+                .roomId(roomId(0)).spaceId(SPACE_ID).name("Room 0").build());
+        restart();
+
+        assertEquals(Optional.of(roomId(1)), roomService.getRoomIdByName("room 1", SPACE_ID));
+        assertEquals(Map.of("Room 0", roomId(0), "Room 1", roomId(1), "Room 2", roomId(2)),
+                roomService.getExistingRoomsInSpace(SPACE_ID));
+        assertFalse(roomService.roomBelongsToSpace("!elsewhere:chat.neohoods.com", SPACE_ID));
+
+        // Unknown rooms have their state read once, and all get the missing m.space.child
+        assertEquals(3, homeserver.requestCount(request -> request.startsWith("GET ") && request.endsWith("/state")));
+        assertEquals(3, homeserver.requestCount("PUT /_matrix/client/v3/rooms/" + SPACE_ID + "/state/m.space.child/"));
+        assertEquals(3, homeserver.rooms.size());
+
+        // Seeded: a restart reads nothing
+        int requests = homeserver.requestCount();
+        restart();
+        assertEquals(Optional.of(roomId(2)), roomService.getRoomIdByName("Room 2", SPACE_ID));
+        assertEquals(requests, homeserver.requestCount());
+        assertEquals(Set.of(SPACE_ID), seedRows.keySet());
+    }
+
+    @Test
+    @DisplayName("rooms seen by sync or checked once should not be requested again")
+    void testSyncAndUnknownRooms() {
+        roomService.getExistingRoomsInSpace(SPACE_ID);
+        int seedRequests = homeserver.requestCount();
+
+        // Linked to the space after the seed, and renamed
+        spaceIndex.applyStateEvents("!late:chat.neohoods.com", List.of(
+                Map.of("type", "m.space.parent", "state_key", SPACE_ID, "content", Map.of("via", List.of("x"))),
+                Map.of("type", "m.room.name", "state_key", "", "content", Map.of("name", "Late room"))));
+        spaceIndex.applyStateEvents(roomId(0), List.of(
+                Map.of("type", "m.room.name", "state_key", "", "content", Map.of("name", "Renamed"))));
+
+        assertEquals(Optional.of("!late:chat.neohoods.com"), roomService.getRoomIdByName("late room", SPACE_ID));
+        assertTrue(roomService.roomBelongsToSpace("!late:chat.neohoods.com", SPACE_ID));
+        assertEquals(Optional.of(roomId(0)), roomService.getRoomIdByName("Renamed", SPACE_ID));
+        assertEquals(Optional.empty(), roomService.getRoomIdByName("Room 0", SPACE_ID));
+        assertEquals(seedRequests, homeserver.requestCount());
+
+        // A room outside the space is checked once
+        assertFalse(roomService.roomBelongsToSpace("!elsewhere:chat.neohoods.com", SPACE_ID));
+        assertFalse(roomService.roomBelongsToSpace("!elsewhere:chat.neohoods.com", SPACE_ID));
+        assertEquals(seedRequests + 1, homeserver.requestCount());
+    }
+
+    @Test
+    @DisplayName("a DM room should be found by scanning joined rooms once, then from the index")
+    void testDmRoomLookup() {
+        String dmRoomId = "!dm:chat.neohoods.com";
+        String userId = "@resident:chat.neohoods.com";
+        homeserver.joinedRooms.addAll(List.of(roomId(0), roomId(1), dmRoomId));
+        lenient().when(membershipService.getRoomMembers(anyString())).thenReturn(Map.of());
+        lenient().when(membershipService.getRoomMembers(dmRoomId))
+                .thenReturn(Map.of(ASSISTANT_USER_ID, "join", userId, "join"));
+
+        assertEquals(Optional.of(dmRoomId), roomService.findOrCreateDMRoom(userId));
+        assertEquals(1, homeserver.requestCount("GET /_matrix/client/v3/joined_rooms"));
+
+        assertEquals(Optional.of(dmRoomId), roomService.findOrCreateDMRoom(userId));
+        restart();
+        assertEquals(Optional.of(dmRoomId), roomService.findOrCreateDMRoom(userId));
+        assertEquals(1, homeserver.requestCount());
+
+        // The user left: the next lookup scans again
+        spaceIndex.applyStateEvents(dmRoomId, List.of(
+                Map.of("type", "m.room.member", "state_key", userId, "content", Map.of("membership", "leave"))));
+        roomService.findOrCreateDMRoom(userId);
+        assertEquals(2, homeserver.requestCount("GET /_matrix/client/v3/joined_rooms"));
+    }
+
+    private static String roomId(int i) {
+        return "!room" + i + ":chat.neohoods.com";
+    }
+
+    /**
+     * Local homeserver answering the few client-server endpoints used here,
+     * and counting requests
+     */
+    private static class HomeserverStub {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final HttpServer server;
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        // Insertion order, as the hierarchy pages them
+        private final Map<String, String> rooms = Collections.synchronizedMap(new LinkedHashMap<>());
+        // Linked to the space by m.space.parent only, until their m.space.child is set
+        private final Map<String, String> parentOnlyRooms = new ConcurrentHashMap<>();
+        private final List<String> joinedRooms = Collections.synchronizedList(new ArrayList<>());
+
+        HomeserverStub() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/_matrix/client/", this::handle);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        int requestCount() {
+            return requests.size();
+        }
+
+        int requestCount(String prefix) {
+            return requestCount(request -> request.startsWith(prefix));
+        }
+
+        int requestCount(Predicate<String> filter) {
+            synchronized (requests) {
+                return (int) requests.stream().filter(filter).count();
+            }
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            requests.add(method + " " + path);
+
+            Object response = null;
+            if (method.equals("GET") && path.equals("/_matrix/client/v1/rooms/" + SPACE_ID + "/hierarchy")) {
+                response = hierarchy(query(exchange.getRequestURI().getQuery()));
+            } else if (method.equals("GET") && path.equals("/_matrix/client/v3/joined_rooms")) {
+                response = Map.of("joined_rooms", new ArrayList<>(joinedRooms));
+            } else if (method.equals("GET") && path.endsWith("/state/m.space.parent/" + SPACE_ID)) {
+                String roomId = roomIdOf(path);
+                response = rooms.containsKey(roomId) || parentOnlyRooms.containsKey(roomId)
+                        ? Map.of("via", List.of("chat.neohoods.com"))
+                        : null;
+            } else if (method.equals("GET") && path.endsWith("/state")) {
+                response = roomState(roomIdOf(path));
+            } else if (method.equals("PUT") && path.startsWith("/_matrix/client/v3/rooms/" + SPACE_ID
+                    + "/state/m.space.child/")) {
+                String roomId = path.substring(path.lastIndexOf('/') + 1);
+                String name = parentOnlyRooms.remove(roomId);
+                rooms.put(roomId, name);
+                response = Map.of("event_id", "$child-" + roomId);
+            }
+
+            byte[] bytes = objectMapper.writeValueAsBytes(
+                    response == null ? Map.of("errcode", "M_NOT_FOUND", "error", "Not found") : response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            // No keep-alive: the JDK server may close a connection the client is about to reuse
+            exchange.getResponseHeaders().set("Connection", "close");
+            exchange.sendResponseHeaders(response == null ? 404 : 200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+
+        private static String roomIdOf(String path) {
+            return path.substring("/_matrix/client/v3/rooms/".length(), path.lastIndexOf("/state"));
+        }
+
+        private List<Map<String, Object>> roomState(String roomId) {
+            String name = rooms.getOrDefault(roomId, parentOnlyRooms.get(roomId));
+            List<Map<String, Object>> state = new ArrayList<>();
+            if (name != null) {
+                state.add(stateEvent(roomId, "m.space.parent", SPACE_ID, Map.of("via", List.of("chat.neohoods.com"))));
+                state.add(stateEvent(roomId, "m.room.name", "", Map.of("name", name)));
+            }
+            state.add(stateEvent(roomId, "m.room.member", ASSISTANT_USER_ID, Map.of("membership", "join")));
+            return state;
+        }
+
+        private static Map<String, Object> stateEvent(String roomId, String type, String stateKey,
+                Map<String, Object> content) {
+            return Map.of("room_id", roomId, "type", type, "state_key", stateKey, "content", content,
+                    "event_id", "$" + type + "-" + roomId, "origin_server_ts", 0, "sender", ASSISTANT_USER_ID);
+        }
+
+        private Map<String, Object> hierarchy(Map<String, String> query) {
+            int from = Integer.parseInt(query.getOrDefault("from", "0"));
+            int limit = Integer.parseInt(query.getOrDefault("limit", "50"));
+            List<Map<String, Object>> page = new ArrayList<>();
+            if (from == 0) {
+                // The space itself comes first
+                page.add(room(SPACE_ID, "Space"));
+            }
+            List<Map.Entry<String, String>> entries;
+            synchronized (rooms) {
+                entries = new ArrayList<>(rooms.entrySet());
+            }
+            int end = Math.min(entries.size(), from + limit);
+            for (Map.Entry<String, String> entry : entries.subList(from, end)) {
+                page.add(room(entry.getKey(), entry.getValue()));
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("rooms", page);
+            if (end < entries.size()) {
+                response.put("next_batch", String.valueOf(end));
+            }
+            return response;
+        }
+
+        private static Map<String, Object> room(String roomId, String name) {
+            return Map.of("room_id", roomId, "name", name, "num_joined_members", 2, "world_readable", false,
+                    "guest_can_join", false, "children_state", List.of());
+        }
+
+        private static Map<String, String> query(String query) {
+            Map<String, String> params = new HashMap<>();
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    int separator = param.indexOf('=');
+                    if (separator > 0) {
+                        params.put(param.substring(0, separator), param.substring(separator + 1));
+                    }
+                }
+            }
+            return params;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.entities.MatrixUserLinkEntity;
+import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.mas.ApiClient;
+import com.neohoods.portal.platform.repositories.MatrixUserLinkRepository;
+import com.neohoods.portal.platform.services.Auth0Service;
+import com.neohoods.portal.platform.services.matrix.oauth2.MatrixOAuth2Service;
+import com.neohoods.portal.platform.services.matrix.space.MatrixUserLinkService;
+import com.neohoods.portal.platform.services.matrix.space.MatrixUserService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatrixUserService Unit Tests")
+class MatrixUserServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MatrixUserServiceTest.class);
+    private static final String MAS_URL = "http://mas.test";
+
+    @Mock
+    private MatrixOAuth2Service oauth2Service;
+
+    @Mock
+    private Auth0Service auth0Service;
+
+    @Mock
+    private MatrixUserLinkRepository linkRepository;
+
+    private final Map<String, MatrixUserLinkEntity> links = new ConcurrentHashMap<>();
+    private MasStub mas;
+    private MatrixUserLinkService linkService;
+    private MatrixUserService userService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mas = new MasStub();
+        // The stub only speaks HTTP/1.1 (no h2c upgrade)
+        ApiClient masClient = new ApiClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1),
+                ApiClient.createDefaultObjectMapper(), "http://127.0.0.1:" + mas.port());
+        lenient().when(oauth2Service.getMASApiClient(MAS_URL)).thenReturn(Optional.of(masClient));
+        lenient().when(auth0Service.getUserDetails(anyString()))
+                .thenAnswer(invocation -> Mono.just(Map.<String, Object>of("user_id", subject(invocation.getArgument(0)))));
+
+        // In-memory matrix_user_links
+        lenient().when(linkRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(links.get(invocation.<String>getArgument(0))));
+        lenient().when(linkRepository.findFirstByUserId(any())).thenAnswer(invocation -> links.values().stream()
+                .filter(link -> invocation.getArgument(0).equals(link.getUserId())).findFirst());
+        lenient().when(linkRepository.findLastMasLinkId()).thenAnswer(invocation -> links.values().stream()
+                .map(MatrixUserLinkEntity::getMasLinkId).filter(id -> id != null).max(String::compareTo));
+        lenient().when(linkRepository.save(any())).thenAnswer(invocation -> {
+            MatrixUserLinkEntity link = invocation.getArgument(0);
+            links.put(link.getAuth0Subject(), link);
+            return link;
+        });
+
+        linkService = new MatrixUserLinkService(linkRepository, oauth2Service);
+        ReflectionTestUtils.setField(linkService, "masUrl", MAS_URL);
+        ReflectionTestUtils.setField(linkService, "auth0ProviderId", "01JAUTH0PR0VIDER000000000A");
+
+        userService = new MatrixUserService(oauth2Service, new RestTemplate(), auth0Service, linkService);
+        ReflectionTestUtils.setField(userService, "serverName", "chat.neohoods.com");
+        ReflectionTestUtils.setField(userService, "masUrl", MAS_URL);
+        ReflectionTestUtils.setField(userService, "auth0ProviderId", "01JAUTH0PR0VIDER000000000A");
+    }
+
+    @AfterEach
+    void tearDown() {
+        mas.stop();
+    }
+
+    @Test
+    @DisplayName("provisioning 1,000 users should ask Auth0 once each, never list MAS users, then look them up by index")
+    void testProvisionThousandUsers() {
+        List<UserEntity> users = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            users.add(user(i));
+        }
+
+        long start = System.nanoTime();
+        for (UserEntity user : users) {
+            assertEquals(Optional.of("@" + user.getUsername() + ":chat.neohoods.com"),
+                    userService.createMatrixUser(user));
+        }
+        long provisioned = System.nanoTime();
+        int provisioningRequests = mas.requestCount();
+
+        for (UserEntity user : users) {
+            assertEquals(Optional.of("@" + user.getUsername() + ":chat.neohoods.com"),
+                    userService.findUserInMatrix(user));
+        }
+        long lookedUp = System.nanoTime();
+        log.info("Provisioned 1000 users in {} ms ({} MAS requests), looked them up again in {} ms",
+                (provisioned - start) / 1_000_000, provisioningRequests, (lookedUp - provisioned) / 1_000_000);
+
+        verify(auth0Service, times(1000)).getUserDetails(anyString());
+        // No rescan of every MAS user
+        assertEquals(0, mas.requestCount("GET /api/admin/v1/users?"));
+        assertEquals(1000, mas.requestCount("POST /api/admin/v1/upstream-oauth-links"));
+        assertEquals(1000, links.size());
+        // Lookups of provisioned users only query the index
+        assertEquals(provisioningRequests, mas.requestCount());
+    }
+
+    @Test
+    @DisplayName("reconciliation should only list the links created since the last run")
+    void testReconcile_Delta() {
+        for (int i = 0; i < 250; i++) {
+            mas.linkExternalUser(i);
+        }
+
+        assertEquals(250, linkService.reconcile());
+        assertEquals(3, mas.requestCount("GET /api/admin/v1/upstream-oauth-links"));
+
+        for (int i = 250; i < 255; i++) {
+            mas.linkExternalUser(i);
+        }
+        assertEquals(5, linkService.reconcile());
+        assertEquals(4, mas.requestCount("GET /api/admin/v1/upstream-oauth-links"));
+        assertEquals(255, links.size());
+    }
+
+    @Test
+    @DisplayName("a user linked outside the portal should be found by subject, then by index")
+    void testFindUserLinkedByReconciliation() {
+        mas.linkExternalUser(7);
+        linkService.reconcile();
+        UserEntity user = user(7);
+
+        assertEquals(Optional.of("@external_7:chat.neohoods.com"), userService.findUserInMatrix(user));
+        assertEquals(1, mas.requestCount("GET /api/admin/v1/users/"));
+        MatrixUserLinkEntity link = links.get(subject(user.getEmail()));
+        assertEquals("external_7", link.getMatrixUsername());
+        assertEquals(user.getId(), link.getUserId());
+
+        int requests = mas.requestCount();
+        assertEquals(Optional.of("@external_7:chat.neohoods.com"), userService.findUserInMatrix(user));
+        assertEquals(requests, mas.requestCount());
+        verify(auth0Service, times(1)).getUserDetails(anyString());
+    }
+
+    private static UserEntity user(int i) {
+        return UserEntity.builder()
+                .id(new UUID(0L, i))
+                .username("resident_" + i)
+                .email("resident" + i + "@neohoods.com")
+                .firstName("Resident")
+                .lastName(String.valueOf(i))
+                .build();
+    }
+
+    private static String subject(String email) {
+        return "auth0|" + email.substring(0, email.indexOf('@'));
+    }
+
+    /**
+     * Minimal MAS admin API: users, user emails and upstream OAuth links
+     */
+    private static class MasStub {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final HttpServer server;
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, String> userIdsByUsername = new ConcurrentHashMap<>();
+        private final Map<String, String> usernamesById = new ConcurrentHashMap<>();
+        // Sorted by id, as MAS pages them
+        private final TreeMap<String, Map<String, String>> upstreamLinks = new TreeMap<>();
+        private int sequence;
+
+        MasStub() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/api/admin/v1/", this::handle);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        int requestCount() {
+            return requests.size();
+        }
+
+        int requestCount(String prefix) {
+            synchronized (requests) {
+                return (int) requests.stream().filter(request -> request.startsWith(prefix)).count();
+            }
+        }
+
+        /** A MAS user that signed in with Auth0 before being provisioned */
+        synchronized void linkExternalUser(int i) {
+            String userId = createUser("external_" + i);
+            addLink(userId, "auth0|resident" + i);
+        }
+
+        private synchronized String createUser(String username) {
+            String id = String.format("U%025d", ++sequence);
+            userIdsByUsername.put(username, id);
+            usernamesById.put(id, username);
+            return id;
+        }
+
+        private synchronized String addLink(String userId, String subject) {
+            String id = String.format("L%025d", ++sequence);
+            upstreamLinks.put(id, Map.of("user_id", userId, "subject", subject));
+            return id;
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath().substring("/api/admin/v1/".length());
+            Map<String, String> query = query(exchange.getRequestURI().getQuery());
+            requests.add(method + " " + exchange.getRequestURI());
+            JsonNode body = method.equals("POST") ? objectMapper.readTree(exchange.getRequestBody()) : null;
+
+            Object response;
+            if (method.equals("POST") && path.equals("users")) {
+                String username = body.get("username").asText();
+                response = single(user(createUser(username)));
+            } else if (method.equals("GET") && path.startsWith("users/by-username/")) {
+                String id = userIdsByUsername.get(path.substring("users/by-username/".length()));
+                response = id == null ? null : single(user(id));
+            } else if (method.equals("GET") && path.startsWith("users/")) {
+                String id = path.substring("users/".length());
+                response = usernamesById.containsKey(id) ? single(user(id)) : null;
+            } else if (method.equals("GET") && path.equals("user-emails")) {
+                response = Map.of("data", List.of());
+            } else if (method.equals("POST") && path.equals("user-emails")) {
+                response = single(Map.of("type", "user-email", "id", "E" + body.get("user_id").asText()));
+            } else if (method.equals("GET") && path.equals("upstream-oauth-links")) {
+                response = Map.of("data", links(query));
+            } else if (method.equals("POST") && path.equals("upstream-oauth-links")) {
+                String id = addLink(body.get("user_id").asText(), body.get("subject").asText());
+                response = single(Map.of("type", "upstream-oauth-link", "id", id));
+            } else {
+                response = null;
+            }
+
+            byte[] bytes = objectMapper.writeValueAsBytes(
+                    response == null ? Map.of("errors", List.of(Map.of("title", "Not found"))) : response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            // No keep-alive: the JDK server may close a connection the client is about to reuse
+            exchange.getResponseHeaders().set("Connection", "close");
+            exchange.sendResponseHeaders(response == null ? 404 : 200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+
+        private synchronized List<Map<String, Object>> links(Map<String, String> query) {
+            String after = query.get("page[after]");
+            int first = Integer.parseInt(query.getOrDefault("page[first]", "10"));
+            List<Map<String, Object>> page = new ArrayList<>();
+            for (Map.Entry<String, Map<String, String>> link : (after == null ? upstreamLinks
+                    : upstreamLinks.tailMap(after, false)).entrySet()) {
+                if (page.size() == first) {
+                    break;
+                }
+                if (query.containsKey("filter[user]") && !query.get("filter[user]").equals(link.getValue().get("user_id"))
+                        || query.containsKey("filter[subject]")
+                                && !query.get("filter[subject]").equals(link.getValue().get("subject"))) {
+                    continue;
+                }
+                page.add(Map.of("type", "upstream-oauth-link", "id", link.getKey(), "attributes", link.getValue()));
+            }
+            return page;
+        }
+
+        private Map<String, Object> user(String id) {
+            return Map.of("type", "user", "id", id, "attributes",
+                    Map.of("username", usernamesById.get(id), "admin", false, "legacy_guest", false));
+        }
+
+        private static Map<String, Object> single(Map<String, Object> resource) {
+            return Map.of("data", resource);
+        }
+
+        private static Map<String, String> query(String query) {
+            Map<String, String> params = new HashMap<>();
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    int separator = param.indexOf('=');
+                    if (separator > 0) {
+                        params.put(param.substring(0, separator), param.substring(separator + 1));
+                    }
+                }
+            }
+            return params;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neohoods.portal.platform.assistant.services.MistralDocumentLibraryService;
+import com.neohoods.portal.platform.assistant.startup.AssistantStartupStateService;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MistralDocumentLibraryService Unit Tests")
+class MistralDocumentLibraryServiceTest {
+
+    @Mock
+    private WebClient.Builder webClientBuilder;
+
+    @Mock
+    private ResourceLoader resourceLoader;
+
+    @Mock
+    private AssistantStartupStateService startupStateService;
+
+    private MistralDocumentLibraryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MistralDocumentLibraryService(webClientBuilder, new ObjectMapper(), resourceLoader,
+                startupStateService);
+        ReflectionTestUtils.setField(service, "ragEnabled", true);
+        ReflectionTestUtils.setField(service, "customDocumentationFile", "");
+    }
+
+    @Test
+    @DisplayName("unchanged documents should reuse the library without calling Mistral")
+    void testUnchangedDocuments_ReuseLibrary() {
+        when(resourceLoader.getResource("classpath:matrix-rag-documentation.yaml"))
+                .thenReturn(new ByteArrayResource("title: Spaces\nBook the guest room".getBytes(StandardCharsets.UTF_8)));
+        String contentHash = AssistantStartupStateService.hash(
+                Map.of("matrix-rag-documentation.yaml", "title: Spaces\nBook the guest room"));
+        when(startupStateService.findUnchanged(anyString(), eq(contentHash))).thenReturn(Optional.of("lib-1"));
+
+        assertEquals("lib-1", service.initializeLibrary().block());
+
+        assertEquals("lib-1", service.getLibraryId());
+        verifyNoInteractions(webClientBuilder);
+    }
+
+    @Test
+    @DisplayName("the content hash should not depend on key order")
+    void testHash_KeyOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", 2);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", 2);
+        second.put("a", 1);
+
+        assertEquals(AssistantStartupStateService.hash("agent", first),
+                AssistantStartupStateService.hash("agent", second));
+    }
+}
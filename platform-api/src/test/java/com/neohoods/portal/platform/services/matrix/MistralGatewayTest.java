@@ -0,0 +1,255 @@
+package com.neohoods.portal.platform.services.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.neohoods.portal.platform.assistant.services.MistralGateway;
+import com.neohoods.portal.platform.assistant.services.MistralGateway.Priority;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@DisplayName("MistralGateway Unit Tests")
+class MistralGatewayTest {
+
+    private MistralStub mistral;
+    private WebClient webClient;
+    private SimpleMeterRegistry meterRegistry;
+    private MistralGateway gateway;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mistral = new MistralStub();
+        webClient = WebClient.create("http://127.0.0.1:" + mistral.port());
+        meterRegistry = new SimpleMeterRegistry();
+        gateway = new MistralGateway();
+        gateway.setMeterRegistry(meterRegistry);
+        ReflectionTestUtils.setField(gateway, "backoffMillis", 20L);
+        ReflectionTestUtils.setField(gateway, "maxBackoffMillis", 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mistral.stop();
+    }
+
+    private Mono<String> completion(String id) {
+        return webClient.post()
+                .uri("/chat/completions")
+                .header("X-Call", id)
+                .bodyValue("{}")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
+    @Test
+    @DisplayName("a 429 should pause every call until Retry-After, then be retried")
+    void testRetryAfter() {
+        mistral.statuses.add(429);
+
+        long start = System.nanoTime();
+        String response = gateway.call("chat", Priority.INTERACTIVE, true, completion("first")).block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("{\"id\":\"first\"}", response);
+        assertEquals(2, mistral.requests.get());
+        // Retry-After: 1
+        assertTrue(elapsedMillis >= 950, "retried after " + elapsedMillis + " ms");
+        assertEquals(1.0, meterRegistry.get(MistralGateway.RETRIES).tag(MistralGateway.TAG_REASON, "rate-limited")
+                .counter().count());
+        assertTrue(meterRegistry.get(MistralGateway.RATE).gauge().value() < 5, "rate should have been lowered");
+    }
+
+    @Test
+    @DisplayName("a burst with injected 429s and latency should succeed within the concurrency limit")
+    void testBurstWithRateLimits() {
+        ReflectionTestUtils.setField(gateway, "maxRate", 50.0);
+        ReflectionTestUtils.setField(gateway, "burst", 20);
+        ReflectionTestUtils.setField(gateway, "maxConcurrency", 4);
+        // A call may get all the 429s
+        ReflectionTestUtils.setField(gateway, "maxRetries", 5);
+        mistral.latencyMillis = 30;
+        mistral.retryAfter = "0.2";
+        for (int i = 0; i < 5; i++) {
+            mistral.statuses.add(429);
+        }
+
+        List<String> responses = Flux.range(0, 40)
+                .flatMap(i -> gateway.call("chat", Priority.INTERACTIVE, true, completion("call-" + i)))
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(40, responses.size());
+        assertEquals(45, mistral.requests.get());
+        assertTrue(mistral.maxConcurrent.get() <= 4, "concurrency reached " + mistral.maxConcurrent.get());
+        assertEquals(40.0, meterRegistry.get(MistralGateway.REQUESTS)
+                .tag(MistralGateway.TAG_OUTCOME, MistralGateway.OUTCOME_SUCCESS).counter().count());
+    }
+
+    @Test
+    @DisplayName("interactive calls should be served before waiting background calls")
+    void testPriorityLanes() {
+        ReflectionTestUtils.setField(gateway, "maxRate", 20.0);
+        ReflectionTestUtils.setField(gateway, "burst", 1);
+        ReflectionTestUtils.setField(gateway, "maxConcurrency", 1);
+        mistral.latencyMillis = 20;
+
+        List<Mono<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            calls.add(gateway.call("judge", Priority.BACKGROUND, true, completion("background-" + i)));
+        }
+        for (int i = 0; i < 5; i++) {
+            calls.add(gateway.call("chat", Priority.INTERACTIVE, true, completion("interactive-" + i)));
+        }
+        // Subscribed in order: background calls are queued first
+        Flux.mergeSequential(calls).collectList().block(Duration.ofSeconds(30));
+
+        List<String> order = new ArrayList<>(mistral.order);
+        assertEquals(10, order.size());
+        // At most the background call already started goes first
+        int lastInteractive = order.lastIndexOf("interactive-4");
+        long backgroundBefore = order.subList(0, lastInteractive).stream()
+                .filter(id -> id.startsWith("background")).count();
+        assertTrue(backgroundBefore <= 1, "order: " + order);
+    }
+
+    @Test
+    @DisplayName("the circuit should open after repeated failures, reject at once, then close after a successful trial")
+    void testCircuitBreaker() throws InterruptedException {
+        ReflectionTestUtils.setField(gateway, "maxRetries", 1);
+        ReflectionTestUtils.setField(gateway, "failureThreshold", 2);
+        ReflectionTestUtils.setField(gateway, "openMillis", 300L);
+        mistral.defaultStatus = 503;
+
+        for (int i = 0; i < 2; i++) {
+            Mono<String> call = gateway.call("chat", Priority.INTERACTIVE, true, completion("failing-" + i));
+            Exception e = assertThrows(Exception.class, call::block);
+            assertInstanceOf(WebClientResponseException.class, e);
+        }
+        // One retry each
+        assertEquals(4, mistral.requests.get());
+
+        long start = System.nanoTime();
+        Exception rejected = assertThrows(Exception.class,
+                () -> gateway.call("chat", Priority.INTERACTIVE, true, completion("rejected")).block());
+        assertTrue(MistralGateway.isUnavailable(rejected));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 100, "should fail fast");
+        assertEquals(4, mistral.requests.get());
+        assertEquals(1.0, meterRegistry.get(MistralGateway.CIRCUIT_OPEN).gauge().value());
+
+        Thread.sleep(350);
+        mistral.defaultStatus = 200;
+        assertEquals("{\"id\":\"trial\"}",
+                gateway.call("chat", Priority.INTERACTIVE, true, completion("trial")).block());
+        assertEquals(0.0, meterRegistry.get(MistralGateway.CIRCUIT_OPEN).gauge().value());
+    }
+
+    @Test
+    @DisplayName("non-idempotent calls should only be retried after a 429")
+    void testNonIdempotentCalls() {
+        mistral.retryAfter = "0";
+        mistral.statuses.add(503);
+        assertThrows(Exception.class,
+                () -> gateway.call("conversation-append", Priority.INTERACTIVE, false, completion("append")).block());
+        assertEquals(1, mistral.requests.get());
+
+        mistral.statuses.add(429);
+        assertEquals("{\"id\":\"append-again\"}", gateway.call("conversation-append", Priority.INTERACTIVE, false,
+                completion("append-again")).block());
+        assertEquals(3, mistral.requests.get());
+    }
+
+    /**
+     * Local Mistral API answering with scripted statuses and latency
+     */
+    private static class MistralStub {
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        // Statuses of the next responses, then defaultStatus
+        private final Deque<Integer> statuses = new ConcurrentLinkedDeque<>();
+        private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private volatile int defaultStatus = 200;
+        private volatile long latencyMillis;
+        private volatile String retryAfter = "1";
+
+        MistralStub() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(executor);
+            server.createContext("/chat/completions", this::handle);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                Integer scripted = statuses.poll();
+                int status = scripted != null ? scripted : defaultStatus;
+                String id = exchange.getRequestHeaders().getFirst("X-Call");
+                String body;
+                if (status == 429) {
+                    exchange.getResponseHeaders().set("Retry-After", retryAfter);
+                    body = "{\"message\":\"Requests rate limit exceeded\"}";
+                } else if (status >= 400) {
+                    body = "{\"message\":\"Service unavailable\"}";
+                } else {
+                    order.add(id);
+                    body = "{\"id\":\"" + id + "\"}";
+                }
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("Connection", "close");
+                exchange.sendResponseHeaders(status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+}
@@ -2,10 +2,12 @@ package com.neohoods.portal.platform.spaces.api.publicapi;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -18,8 +20,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 
 import com.nimbusds.jose.JOSEException;
+import com.neohoods.portal.platform.spaces.services.CalendarFeed;
 import com.neohoods.portal.platform.spaces.services.CalendarService;
 import com.neohoods.portal.platform.spaces.services.CalendarTokenService;
 
@@ -35,6 +40,7 @@ import reactor.test.StepVerifier;
  * - Calendar endpoint with expired token
  * - Calendar endpoint with non-existent space
  * - Calendar endpoint with mismatched space ID
+ * - Conditional GET (304 Not Modified)
  */
 @ExtendWith(MockitoExtension.class)
 public class PublicSpacesCalendarControllerTest {
@@ -51,12 +57,14 @@ public class PublicSpacesCalendarControllerTest {
     private UUID spaceId;
     private String validToken;
     private String calendarContent;
+    private CalendarFeed feed;
 
     @BeforeEach
     public void setUp() {
         spaceId = UUID.randomUUID();
         validToken = "valid-token";
         calendarContent = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nEND:VCALENDAR\r\n";
+        feed = new CalendarFeed(calendarContent, "\"v1\"", Instant.parse("2025-06-01T08:00:00Z"));
     }
 
     @Test
@@ -66,7 +74,7 @@ public class PublicSpacesCalendarControllerTest {
             CalendarTokenService.TokenVerificationResult tokenResult =
                 new CalendarTokenService.TokenVerificationResult(spaceId, null, "cleaning");
         when(tokenService.verifyTokenWithClaims(validToken)).thenReturn(tokenResult);
-        when(calendarService.generateCalendarIcs(spaceId)).thenReturn(calendarContent);
+        when(calendarService.getCleaningCalendarFeed(spaceId)).thenReturn(feed);
 
         // Act
         Mono<ResponseEntity<String>> result = delegate.getSpaceCleaningCalendar(spaceId, validToken, "cleaning", null);
@@ -129,7 +137,7 @@ public class PublicSpacesCalendarControllerTest {
             CalendarTokenService.TokenVerificationResult tokenResult =
                 new CalendarTokenService.TokenVerificationResult(spaceId, null, "cleaning");
         when(tokenService.verifyTokenWithClaims(validToken)).thenReturn(tokenResult);
-        when(calendarService.generateCalendarIcs(spaceId))
+        when(calendarService.getCleaningCalendarFeed(spaceId))
                 .thenThrow(new IllegalArgumentException("Space not found: " + spaceId));
 
         // Act
@@ -150,7 +158,7 @@ public class PublicSpacesCalendarControllerTest {
             CalendarTokenService.TokenVerificationResult tokenResult =
                 new CalendarTokenService.TokenVerificationResult(spaceId, null, "cleaning");
         when(tokenService.verifyTokenWithClaims(validToken)).thenReturn(tokenResult);
-        when(calendarService.generateCalendarIcs(spaceId))
+        when(calendarService.getCleaningCalendarFeed(spaceId))
                 .thenThrow(new IllegalStateException("Cleaning calendar is not enabled for this space"));
 
         // Act
@@ -171,7 +179,7 @@ public class PublicSpacesCalendarControllerTest {
             CalendarTokenService.TokenVerificationResult tokenResult =
                 new CalendarTokenService.TokenVerificationResult(spaceId, null, "cleaning");
         when(tokenService.verifyTokenWithClaims(validToken)).thenReturn(tokenResult);
-        when(calendarService.generateCalendarIcs(spaceId))
+        when(calendarService.getCleaningCalendarFeed(spaceId))
                 .thenThrow(new RuntimeException("Unexpected error"));
 
         // Act
@@ -192,7 +200,7 @@ public class PublicSpacesCalendarControllerTest {
             CalendarTokenService.TokenVerificationResult tokenResult =
                 new CalendarTokenService.TokenVerificationResult(spaceId, null, "cleaning");
         when(tokenService.verifyTokenWithClaims(validToken)).thenReturn(tokenResult);
-        when(calendarService.generateCalendarIcs(spaceId)).thenReturn(calendarContent);
+        when(calendarService.getCleaningCalendarFeed(spaceId)).thenReturn(feed);
 
         // Act
         Mono<ResponseEntity<String>> result = delegate.getSpaceCleaningCalendar(spaceId, validToken, "cleaning", null);
@@ -206,6 +214,45 @@ public class PublicSpacesCalendarControllerTest {
                     assertEquals("form-data", response.getHeaders().getContentDisposition().getType());
                     assertEquals("cleaning-calendar.ics",
                             response.getHeaders().getContentDisposition().getFilename());
+                    assertEquals("\"v1\"", response.getHeaders().getETag());
+                    assertEquals(feed.lastModified().toEpochMilli(), response.getHeaders().getLastModified());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Return 304 when the client copy is current")
+    public void testGetSpaceCleaningCalendar_NotModified() throws JOSEException {
+        // Arrange
+            CalendarTokenService.TokenVerificationResult tokenResult =
+                new CalendarTokenService.TokenVerificationResult(spaceId, null, "cleaning");
+        when(tokenService.verifyTokenWithClaims(validToken)).thenReturn(tokenResult);
+        when(calendarService.getCleaningCalendarFeed(spaceId)).thenReturn(feed);
+        MockServerWebExchange byEtag = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/public/spaces/" + spaceId + "/calendar.ics")
+                .ifNoneMatch("\"v1\""));
+        MockServerWebExchange bySince = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/public/spaces/" + spaceId + "/calendar.ics")
+                .ifModifiedSince(feed.lastModified().toEpochMilli()));
+        MockServerWebExchange stale = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/public/spaces/" + spaceId + "/calendar.ics")
+                .ifNoneMatch("\"v0\""));
+
+        // Act & Assert
+        StepVerifier.create(delegate.getSpaceCleaningCalendar(spaceId, validToken, "cleaning", byEtag))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+                    assertNull(response.getBody());
+                    assertEquals("\"v1\"", response.getHeaders().getETag());
+                })
+                .verifyComplete();
+        StepVerifier.create(delegate.getSpaceCleaningCalendar(spaceId, validToken, "cleaning", bySince))
+                .assertNext(response -> assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode()))
+                .verifyComplete();
+        StepVerifier.create(delegate.getSpaceCleaningCalendar(spaceId, validToken, "cleaning", stale))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    assertEquals(calendarContent, response.getBody());
                 })
                 .verifyComplete();
     }
@@ -0,0 +1,159 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.exceptions.CodedErrorException;
+import com.neohoods.portal.platform.spaces.entities.AccessCodeEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.repositories.AccessCodeRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AccessCodeAllocator Unit Tests")
+class AccessCodeAllocatorTest {
+
+    @Mock
+    private AccessCodeRepository accessCodeRepository;
+
+    private AccessCodeAllocator allocator;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Unique constraint on access_codes.code
+    private final Map<String, UUID> codes = new ConcurrentHashMap<>();
+    private final Map<UUID, String> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger inserts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        allocator = new AccessCodeAllocator();
+        ReflectionTestUtils.setField(allocator, "accessCodeRepository", accessCodeRepository);
+        allocator.setMeterRegistry(meterRegistry);
+
+        lenient().when(accessCodeRepository.insertIfCodeFree(any(), any(), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    inserts.incrementAndGet();
+                    UUID id = invocation.getArgument(0);
+                    String code = invocation.getArgument(2);
+                    if (codes.putIfAbsent(code, id) != null) {
+                        return 0;
+                    }
+                    rows.put(id, code);
+                    return 1;
+                });
+        lenient().when(accessCodeRepository.findById(any())).thenAnswer(invocation -> {
+            UUID id = invocation.getArgument(0);
+            AccessCodeEntity accessCode = new AccessCodeEntity(null, rows.get(id), LocalDateTime.now());
+            accessCode.setId(id);
+            return Optional.of(accessCode);
+        });
+    }
+
+    private ReservationEntity reservation(SpaceEntity space) {
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setId(UUID.randomUUID());
+        reservation.setSpace(space);
+        return reservation;
+    }
+
+    private SpaceEntity space(String alphabet, Integer length) {
+        SpaceEntity space = new SpaceEntity();
+        space.setId(UUID.randomUUID());
+        space.setAccessCodeAlphabet(alphabet);
+        space.setAccessCodeLength(length);
+        return space;
+    }
+
+    @Test
+    @DisplayName("10,000 parallel allocations should get distinct codes without existence checks")
+    void testParallelAllocations() throws Exception {
+        // 100,000 possible codes, so draws collide as the space fills up
+        SpaceEntity space = space("0123456789", 5);
+        int allocations = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<String>> futures = new ArrayList<>(allocations);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < allocations; i++) {
+            futures.add(executor.submit(
+                    () -> allocator.allocate(reservation(space), LocalDateTime.now().plusDays(1)).getCode()));
+        }
+        Set<String> allocated = new HashSet<>();
+        for (Future<String> future : futures) {
+            allocated.add(future.get());
+        }
+        executor.shutdown();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        double collisions = meterRegistry.get(AccessCodeAllocator.METRIC_COLLISIONS).counter().count();
+        log.info("Allocated {} codes in {} ms: {} inserts, {} collisions", allocated.size(), elapsedMillis,
+                inserts.get(), (long) collisions);
+
+        assertEquals(allocations, allocated.size());
+        assertEquals(allocations, codes.size());
+        assertTrue(allocated.stream().allMatch(code -> code.matches("[0-9]{5}")));
+        // Every extra insert is a collision, and nothing else hits the database
+        assertEquals(inserts.get() - allocations, (long) collisions);
+        verify(accessCodeRepository, never()).existsByCode(anyString());
+    }
+
+    @Test
+    @DisplayName("codes should follow the format of the space, or the default one when invalid")
+    void testPerSpaceFormat() {
+        String letters = allocator.allocate(reservation(space("ABCD", 8)), LocalDateTime.now()).getCode();
+        String defaults = allocator.allocate(reservation(space(null, null)), LocalDateTime.now()).getCode();
+        String invalid = allocator.allocate(reservation(space("0123456789", 12)), LocalDateTime.now()).getCode();
+        String lengthOnly = allocator.allocate(reservation(space(null, 4)), LocalDateTime.now()).getCode();
+
+        assertTrue(letters.matches("[ABCD]{8}"), letters);
+        assertTrue(defaults.matches("[0-9]{6}"), defaults);
+        assertTrue(invalid.matches("[0-9]{6}"), invalid);
+        assertTrue(lengthOnly.matches("[0-9]{4}"), lengthOnly);
+    }
+
+    @Test
+    @DisplayName("an exhausted format should fail after the maximum number of draws")
+    void testExhaustedFormat() {
+        ReflectionTestUtils.setField(allocator, "maxAttempts", 5);
+        SpaceEntity space = space("01", 4);
+        for (int i = 0; i < 16; i++) {
+            String code = String.format("%4s", Integer.toBinaryString(i)).replace(' ', '0');
+            codes.put(code, UUID.randomUUID());
+        }
+
+        assertThrows(CodedErrorException.class,
+                () -> allocator.allocate(reservation(space), LocalDateTime.now()));
+        assertEquals(5, inserts.get());
+    }
+}
@@ -1,14 +1,22 @@
 package com.neohoods.portal.platform.spaces.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +40,7 @@ import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationChangeVersion;
 import com.neohoods.portal.platform.spaces.repositories.ReservationRepository;
 import com.neohoods.portal.platform.spaces.repositories.SpaceRepository;
 
@@ -129,7 +138,7 @@ public class CalendarServiceTest {
                 LocalDate.now().plusDays(3));
 
         when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
-        when(reservationRepository.findBySpace(space)).thenReturn(List.of(reservation));
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(), any(), any())).thenReturn(List.of(reservation));
 
         // Act
         String calendar = calendarService.generateCalendarIcs(spaceId);
@@ -167,7 +176,7 @@ public class CalendarServiceTest {
                 LocalDate.now().minusDays(3));
 
         when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
-        when(reservationRepository.findBySpace(space))
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(), any(), any()))
                 .thenReturn(List.of(reservation1, reservation2, reservation3));
 
         // Act
@@ -193,7 +202,7 @@ public class CalendarServiceTest {
                 checkoutDate);
 
         when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
-        when(reservationRepository.findBySpace(space)).thenReturn(List.of(reservation));
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(), any(), any())).thenReturn(List.of(reservation));
 
         // Act
         String calendar = calendarService.generateCalendarIcs(spaceId);
@@ -217,7 +226,7 @@ public class CalendarServiceTest {
                 LocalDate.now().plusDays(3));
 
         when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
-        when(reservationRepository.findBySpace(space)).thenReturn(List.of(reservation));
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(), any(), any())).thenReturn(List.of(reservation));
 
         // Act
         String calendar = calendarService.generateCalendarIcs(spaceId);
@@ -250,8 +259,12 @@ public class CalendarServiceTest {
                 LocalDate.now().plusDays(12));
 
         when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
-        when(reservationRepository.findBySpace(space))
-                .thenReturn(List.of(confirmed, pending, cancelled));
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(),
+                argThat(statuses -> statuses.contains(ReservationStatusForEntity.CONFIRMED)
+                        && !statuses.contains(ReservationStatusForEntity.PENDING_PAYMENT)
+                        && !statuses.contains(ReservationStatusForEntity.CANCELLED)),
+                any()))
+                .thenReturn(List.of(confirmed));
 
         // Act
         String calendar = calendarService.generateCalendarIcs(spaceId);
@@ -261,6 +274,48 @@ public class CalendarServiceTest {
         // Only CONFIRMED should be included
         long eventCount = calendar.split("BEGIN:VEVENT").length - 1;
         assertEquals(1, eventCount);
+        assertTrue(calendar.contains(confirmed.getId().toString()));
+        assertTrue(!calendar.contains(pending.getId().toString()));
+        assertTrue(!calendar.contains(cancelled.getId().toString()));
+    }
+
+    @Test
+    @DisplayName("Reuse the rendered feed while the reservation version is unchanged")
+    public void testGenerateCalendar_ReusesUnchangedFeed() {
+        // Arrange
+        ReservationEntity reservation = createReservation(
+                UUID.randomUUID(),
+                ReservationStatusForEntity.CONFIRMED,
+                LocalDate.now().plusDays(1),
+                LocalDate.now().plusDays(3));
+        ReservationEntity added = createReservation(
+                UUID.randomUUID(),
+                ReservationStatusForEntity.CONFIRMED,
+                LocalDate.now().plusDays(5),
+                LocalDate.now().plusDays(6));
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 6, 1, 8, 0);
+
+        when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
+        when(reservationRepository.findChangeVersionBySpaceId(spaceId))
+                .thenReturn(new ReservationChangeVersion(1, updatedAt))
+                .thenReturn(new ReservationChangeVersion(1, updatedAt))
+                .thenReturn(new ReservationChangeVersion(2, updatedAt.plusMinutes(5)));
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(), any(), any()))
+                .thenReturn(List.of(reservation))
+                .thenReturn(List.of(reservation, added));
+
+        // Act
+        CalendarFeed first = calendarService.getCleaningCalendarFeed(spaceId);
+        CalendarFeed polled = calendarService.getCleaningCalendarFeed(spaceId);
+        CalendarFeed changed = calendarService.getCleaningCalendarFeed(spaceId);
+
+        // Assert
+        assertSame(first, polled);
+        assertNotEquals(first.etag(), changed.etag());
+        assertTrue(changed.lastModified().isAfter(first.lastModified()));
+        assertEquals(2, changed.content().split("BEGIN:VEVENT").length - 1);
+        verify(reservationRepository, times(2)).findCalendarReservationsBySpace(eq(spaceId), isNull(), any(),
+                any());
     }
 
     @Test
@@ -268,7 +323,7 @@ public class CalendarServiceTest {
     public void testGenerateCalendar_EmptyReservations() {
         // Arrange
         when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
-        when(reservationRepository.findBySpace(space)).thenReturn(new ArrayList<>());
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(), any(), any())).thenReturn(new ArrayList<>());
 
         // Act
         String calendar = calendarService.generateCalendarIcs(spaceId);
@@ -335,7 +390,7 @@ public class CalendarServiceTest {
                 LocalDate.now().plusDays(3));
 
         when(spaceRepository.findById(spaceId)).thenReturn(Optional.of(space));
-        when(reservationRepository.findBySpace(space)).thenReturn(List.of(reservation));
+        when(reservationRepository.findCalendarReservationsBySpace(eq(spaceId), isNull(), any(), any())).thenReturn(List.of(reservation));
 
         // Act
         String calendar = calendarService.generateCalendarIcs(spaceId);
@@ -10,8 +10,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import com.neohoods.portal.platform.security.VerifiedTokenCache;
 import com.nimbusds.jose.JOSEException;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Unit tests for CalendarTokenService.
  * 
@@ -130,6 +133,31 @@ public class CalendarTokenServiceTest {
         // Assert
         assertEquals(spaceId, verifiedSpaceId);
     }
-}
 
+    @Test
+    @DisplayName("Repeated verification of a token is served from the cache")
+    public void testVerifyToken_Cached() throws JOSEException {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        tokenService.setMeterRegistry(registry);
+        UUID spaceId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        String token = tokenService.generateToken(spaceId, "reservation", userId);
+
+        // Act
+        tokenService.verifyTokenWithClaims(token);
+        CalendarTokenService.TokenVerificationResult again = tokenService.verifyTokenWithClaims(token);
 
+        // Assert
+        assertEquals(spaceId, again.getSpaceId());
+        assertEquals(userId, again.getUserId());
+        assertEquals("reservation", again.getType());
+        assertEquals(1.0, registry.get(VerifiedTokenCache.METRIC_REQUESTS)
+                .tag("cache", "calendar").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get(VerifiedTokenCache.METRIC_REQUESTS)
+                .tag("cache", "calendar").tag("result", "miss").functionCounter().count());
+        // A token signed with another secret is still rejected
+        assertThrows(JOSEException.class,
+                () -> tokenService.verifyToken(tokenServiceWithDifferentSecret.generateToken(spaceId)));
+    }
+}
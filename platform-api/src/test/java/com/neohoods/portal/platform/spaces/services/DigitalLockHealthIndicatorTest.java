@@ -0,0 +1,91 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.spaces.entities.DigitalLockEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockTypeForEntity;
+import com.neohoods.portal.platform.spaces.entities.NukiConfigEntity;
+import com.neohoods.portal.platform.spaces.entities.TtlockConfigEntity;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DigitalLockHealthIndicator Unit Tests")
+class DigitalLockHealthIndicatorTest {
+
+    @Mock
+    private DigitalLockService digitalLockService;
+
+    @InjectMocks
+    private DigitalLockHealthIndicator healthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(healthIndicator, "batteryThreshold", 20);
+        ReflectionTestUtils.setField(healthIndicator, "signalThreshold", 50);
+    }
+
+    private DigitalLockEntity ttlock(String name, int batteryLevel, int signalStrength) {
+        DigitalLockEntity lock = new DigitalLockEntity(name, DigitalLockTypeForEntity.TTLOCK);
+        lock.setId(UUID.randomUUID());
+        TtlockConfigEntity config = new TtlockConfigEntity();
+        config.setBatteryLevel(batteryLevel);
+        config.setSignalStrength(signalStrength);
+        lock.setTtlockConfig(config);
+        return lock;
+    }
+
+    private DigitalLockEntity nuki(String name, int batteryLevel) {
+        DigitalLockEntity lock = new DigitalLockEntity(name, DigitalLockTypeForEntity.NUKI);
+        lock.setId(UUID.randomUUID());
+        NukiConfigEntity config = new NukiConfigEntity();
+        config.setBatteryLevel(batteryLevel);
+        lock.setNukiConfig(config);
+        return lock;
+    }
+
+    @Test
+    @DisplayName("Locks below the thresholds should be reported in the details, with the indicator UP")
+    void testHealth_ReportsLocks() {
+        DigitalLockEntity bureau = ttlock("Bureau", 15, 60);
+        DigitalLockEntity cave = nuki("Cave", 10);
+        DigitalLockEntity parking = ttlock("Parking", 45, 30);
+        when(digitalLockService.getDigitalLocksWithLowBattery(20)).thenReturn(List.of(bureau, cave));
+        when(digitalLockService.getDigitalLocksWithWeakSignal(50)).thenReturn(List.of(parking));
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        List<?> lowBattery = (List<?>) health.getDetails().get("lowBattery");
+        assertEquals(2, lowBattery.size());
+        assertEquals("Bureau", ((Map<?, ?>) lowBattery.get(0)).get("name"));
+        assertEquals(15, ((Map<?, ?>) lowBattery.get(0)).get("level"));
+        assertEquals(10, ((Map<?, ?>) lowBattery.get(1)).get("level"));
+        List<?> weakSignal = (List<?>) health.getDetails().get("weakSignal");
+        assertEquals(1, weakSignal.size());
+        assertEquals(parking.getId(), ((Map<?, ?>) weakSignal.get(0)).get("id"));
+        assertEquals(30, ((Map<?, ?>) weakSignal.get(0)).get("level"));
+    }
+
+    @Test
+    @DisplayName("A failing lookup should report the indicator DOWN")
+    void testHealth_LookupFails() {
+        when(digitalLockService.getDigitalLocksWithLowBattery(20)).thenThrow(new IllegalStateException("db down"));
+
+        assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+    }
+}
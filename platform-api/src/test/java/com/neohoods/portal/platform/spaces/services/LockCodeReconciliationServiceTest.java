@@ -0,0 +1,340 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.spaces.entities.AccessCodeEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockEntity;
+import com.neohoods.portal.platform.spaces.entities.DigitalLockTypeForEntity;
+import com.neohoods.portal.platform.spaces.entities.NukiConfigEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.repositories.AccessCodeRepository;
+import com.neohoods.portal.platform.spaces.repositories.DigitalLockRepository;
+import com.neohoods.portal.platform.spaces.services.DigitalLockVendor.DesiredCode;
+import com.neohoods.portal.platform.spaces.services.DigitalLockVendor.DeviceCode;
+import com.neohoods.portal.platform.spaces.services.LockCodeReconciliationService.Result;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LockCodeReconciliationService Unit Tests")
+class LockCodeReconciliationServiceTest {
+
+    @Mock
+    private AccessCodeRepository accessCodeRepository;
+
+    @Mock
+    private DigitalLockRepository digitalLockRepository;
+
+    private final SimulatedVendor vendor = new SimulatedVendor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Access codes table
+    private final List<AccessCodeEntity> accessCodes = new CopyOnWriteArrayList<>();
+    private final UUID lockId = UUID.randomUUID();
+    private LockCodeReconciliationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new LockCodeReconciliationService();
+        ReflectionTestUtils.setField(service, "accessCodeRepository", accessCodeRepository);
+        ReflectionTestUtils.setField(service, "digitalLockRepository", digitalLockRepository);
+        ReflectionTestUtils.setField(service, "retryBackoffMillis", 10L);
+        service.setVendors(List.of(vendor));
+        service.setMeterRegistry(meterRegistry);
+
+        lenient().when(digitalLockRepository.findByIdWithConfig(any())).thenAnswer(invocation -> {
+            UUID id = invocation.getArgument(0);
+            DigitalLockEntity lock = new DigitalLockEntity("Lock " + id, DigitalLockTypeForEntity.NUKI);
+            lock.setId(id);
+            lock.setNukiConfig(new NukiConfigEntity(lock, "smartlock-" + id, "token"));
+            return Optional.of(lock);
+        });
+        lenient().when(accessCodeRepository.findDesiredLockCodes(any(), any(), any(), anyCollection()))
+                .thenAnswer(invocation -> {
+                    UUID id = invocation.getArgument(0);
+                    LocalDateTime now = invocation.getArgument(1);
+                    LocalDate horizon = invocation.getArgument(2);
+                    Collection<ReservationStatusForEntity> statuses = invocation.getArgument(3);
+                    return accessCodes.stream()
+                            .filter(code -> id.equals(code.getReservation().getSpace().getDigitalLockId()))
+                            .filter(code -> code.getIsActive() && code.getExpiresAt().isAfter(now))
+                            .filter(code -> statuses.contains(code.getReservation().getStatus()))
+                            .filter(code -> !code.getReservation().getStartDate().isAfter(horizon))
+                            .toList();
+                });
+        lenient().when(accessCodeRepository.findDigitalLockCodeIds(any())).thenAnswer(invocation -> {
+            UUID id = invocation.getArgument(0);
+            return accessCodes.stream()
+                    .filter(code -> id.equals(code.getDigitalLockId()) && code.getDigitalLockCodeId() != null)
+                    .map(AccessCodeEntity::getDigitalLockCodeId)
+                    .toList();
+        });
+        lenient().when(accessCodeRepository.recordDigitalLockCode(any(), any(), anyString()))
+                .thenAnswer(invocation -> {
+                    UUID id = invocation.getArgument(0);
+                    accessCodes.stream().filter(code -> code.getId().equals(id)).forEach(code -> {
+                        code.setDigitalLockId(invocation.getArgument(1));
+                        code.setDigitalLockCodeId(invocation.getArgument(2));
+                    });
+                    return 1;
+                });
+        lenient().when(accessCodeRepository.clearDigitalLockCodes(any(), anyCollection())).thenAnswer(invocation -> {
+            Collection<String> codeIds = invocation.getArgument(1);
+            accessCodes.stream().filter(code -> codeIds.contains(code.getDigitalLockCodeId()))
+                    .forEach(code -> code.setDigitalLockCodeId(null));
+            return codeIds.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private AccessCodeEntity addAccessCode(UUID digitalLockId, String code, int startInDays) {
+        SpaceEntity space = new SpaceEntity();
+        space.setName("Guest room");
+        space.setDigitalLockId(digitalLockId);
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setId(UUID.randomUUID());
+        reservation.setSpace(space);
+        reservation.setStatus(ReservationStatusForEntity.CONFIRMED);
+        reservation.setStartDate(LocalDate.now().plusDays(startInDays));
+        reservation.setEndDate(LocalDate.now().plusDays(startInDays + 2));
+        AccessCodeEntity accessCode = new AccessCodeEntity(reservation,
+                code, reservation.getEndDate().atTime(23, 59, 59));
+        accessCode.setId(UUID.randomUUID());
+        accessCode.setIsActive(true);
+        accessCodes.add(accessCode);
+        return accessCode;
+    }
+
+    private String smartlock(UUID digitalLockId) {
+        return "smartlock-" + digitalLockId;
+    }
+
+    @Test
+    @DisplayName("a first pass should create the codes, a second one should only list the device")
+    void testInitialPassThenNoop() {
+        for (int i = 0; i < 5; i++) {
+            addAccessCode(lockId, "10000" + i, i);
+        }
+        // Beyond the lead time
+        addAccessCode(lockId, "200000", 30);
+
+        Result first = service.reconcile(lockId);
+
+        assertEquals(new Result(5, 0, 0, 0), first);
+        assertEquals(5, vendor.codes(smartlock(lockId)).size());
+        assertTrue(accessCodes.subList(0, 5).stream().allMatch(code -> code.getDigitalLockCodeId() != null));
+
+        Result second = service.reconcile(lockId);
+
+        assertEquals(new Result(0, 0, 0, 0), second);
+        assertEquals(2, vendor.lists.get());
+        assertEquals(5, vendor.writes.get());
+    }
+
+    @Test
+    @DisplayName("only the delta should be pushed, leaving codes not pushed by us alone")
+    void testDeltaOnly() {
+        List<AccessCodeEntity> codes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            codes.add(addAccessCode(lockId, "30000" + i, i));
+        }
+        service.reconcile(lockId);
+        vendor.put(smartlock(lockId), new DeviceCode("owner", "999999", "Owner", null, null));
+        vendor.writes.set(0);
+
+        // Extended stay, cancelled stay, new stay
+        codes.get(0).setExpiresAt(codes.get(0).getExpiresAt().plusDays(1));
+        codes.get(1).setIsActive(false);
+        AccessCodeEntity added = addAccessCode(lockId, "400000", 2);
+
+        Result result = service.reconcile(lockId);
+
+        assertEquals(new Result(1, 1, 1, 0), result);
+        assertEquals(3, vendor.writes.get());
+        Map<String, DeviceCode> held = vendor.codes(smartlock(lockId));
+        assertTrue(held.containsKey("owner"));
+        assertEquals(codes.get(0).getExpiresAt().truncatedTo(ChronoUnit.SECONDS),
+                held.get(codes.get(0).getDigitalLockCodeId()).validUntil());
+        assertEquals(null, codes.get(1).getDigitalLockCodeId());
+        assertNotNull(held.get(added.getDigitalLockCodeId()));
+        // 4 - 1 + 1, and the owner's
+        assertEquals(5, held.size());
+    }
+
+    @Test
+    @DisplayName("a code pushed before its id was recorded should be adopted, not created twice")
+    void testAdoption() {
+        AccessCodeEntity accessCode = addAccessCode(lockId, "500000", 1);
+        vendor.put(smartlock(lockId), new DeviceCode("pushed-before-crash", "500000", "Guest - Guest room",
+                accessCode.getReservation().getStartDate().atStartOfDay(), accessCode.getExpiresAt()));
+
+        Result result = service.reconcile(lockId);
+
+        assertEquals(new Result(0, 0, 0, 0), result);
+        assertEquals("pushed-before-crash", accessCode.getDigitalLockCodeId());
+        assertEquals(0, vendor.writes.get());
+    }
+
+    @Test
+    @DisplayName("transient vendor failures should be retried with backoff")
+    void testRetries() {
+        for (int i = 0; i < 3; i++) {
+            addAccessCode(lockId, "60000" + i, i);
+        }
+        // The listing fails 3 times out of 4 attempts
+        vendor.failuresLeft.set(3);
+
+        Result result = service.reconcile(lockId);
+
+        assertEquals(new Result(3, 0, 0, 0), result);
+        assertEquals(3, vendor.codes(smartlock(lockId)).size());
+        assertEquals(3.0, meterRegistry.get(LockCodeReconciliationService.METRIC_OPERATIONS)
+                .tag("outcome", "retry").counters().stream().mapToDouble(counter -> counter.count()).sum());
+    }
+
+    @Test
+    @DisplayName("bookings should not wait on the vendor, and requests should be coalesced on a bounded pool")
+    void testAsyncBoundedAndCoalesced() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "workers", 2);
+        vendor.latencyMillis = 50;
+        List<UUID> locks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            UUID id = UUID.randomUUID();
+            locks.add(id);
+            addAccessCode(id, "70000" + i, 1);
+        }
+
+        long start = System.nanoTime();
+        for (int round = 0; round < 5; round++) {
+            for (UUID id : locks) {
+                service.requestReconcile(id);
+            }
+        }
+        long requestMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!locks.stream().allMatch(id -> vendor.codes(smartlock(id)).size() == 1)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        log.info("30 requests for 6 locks took {} ms, {} device listings, max {} concurrent vendor calls",
+                requestMillis, vendor.lists.get(), vendor.maxConcurrent.get());
+
+        assertTrue(requestMillis < 50, "requests took " + requestMillis + " ms");
+        assertTrue(locks.stream().allMatch(id -> vendor.codes(smartlock(id)).size() == 1));
+        assertTrue(vendor.maxConcurrent.get() <= 2, "concurrency reached " + vendor.maxConcurrent.get());
+        // Each lock listed once, twice when requested again while running
+        assertTrue(vendor.lists.get() <= 12, vendor.lists.get() + " listings");
+        assertEquals(6, vendor.writes.get());
+    }
+
+    /**
+     * Lock vendor keeping codes in memory, with latency and failure injection
+     */
+    private static class SimulatedVendor implements DigitalLockVendor {
+
+        private final Map<String, Map<String, DeviceCode>> devices = new ConcurrentHashMap<>();
+        private final AtomicInteger ids = new AtomicInteger();
+        private final AtomicInteger lists = new AtomicInteger();
+        private final AtomicInteger writes = new AtomicInteger();
+        // Failures of the next calls
+        private final AtomicInteger failuresLeft = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private volatile long latencyMillis;
+
+        Map<String, DeviceCode> codes(String deviceId) {
+            return devices.computeIfAbsent(deviceId, id -> new ConcurrentHashMap<>());
+        }
+
+        void put(String deviceId, DeviceCode code) {
+            codes(deviceId).put(code.id(), code);
+        }
+
+        @Override
+        public DigitalLockTypeForEntity getType() {
+            return DigitalLockTypeForEntity.NUKI;
+        }
+
+        @Override
+        public List<DeviceCode> listCodes(String deviceId) {
+            call();
+            lists.incrementAndGet();
+            return List.copyOf(codes(deviceId).values());
+        }
+
+        @Override
+        public String createCode(String deviceId, DesiredCode code) {
+            call();
+            writes.incrementAndGet();
+            String id = "auth-" + ids.incrementAndGet();
+            put(deviceId, new DeviceCode(id, code.code(), code.name(), code.validFrom(), code.validUntil()));
+            return id;
+        }
+
+        @Override
+        public void updateCode(String deviceId, String codeId, DesiredCode code) {
+            call();
+            writes.incrementAndGet();
+            put(deviceId, new DeviceCode(codeId, code.code(), code.name(), code.validFrom(), code.validUntil()));
+        }
+
+        @Override
+        public void deleteCode(String deviceId, String codeId) {
+            call();
+            writes.incrementAndGet();
+            codes(deviceId).remove(codeId);
+        }
+
+        private void call() {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                    throw new IllegalStateException("Simulated vendor failure");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+    }
+}
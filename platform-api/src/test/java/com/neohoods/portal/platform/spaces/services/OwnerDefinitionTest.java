@@ -24,6 +24,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import com.neohoods.portal.platform.entities.UserEntity;
 import com.neohoods.portal.platform.entities.UserType;
 import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.services.HubEventsService;
 import com.neohoods.portal.platform.services.UnitsService;
 import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
 import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
@@ -70,6 +71,9 @@ public class OwnerDefinitionTest {
     @Mock
     private UsersRepository usersRepository;
 
+    @Mock
+    private HubEventsService hubEventsService;
+
     @InjectMocks
     private ReservationsService reservationsService;
 
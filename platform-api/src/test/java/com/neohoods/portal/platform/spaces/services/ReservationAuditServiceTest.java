@@ -0,0 +1,72 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neohoods.portal.platform.spaces.entities.ReservationAuditLogEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationAuditLogRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReservationAuditService Unit Tests")
+class ReservationAuditServiceTest {
+
+    @Mock
+    private ReservationAuditLogRepository auditLogRepository;
+
+    private ReservationAuditService auditService;
+
+    private final UUID reservationId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        auditService = new ReservationAuditService(auditLogRepository);
+        ReflectionTestUtils.setField(auditService, "asyncEventTypes",
+                Set.of(ReservationAuditLogEntity.ENTRY_LOGGED));
+        ReflectionTestUtils.setField(auditService, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("regular events should be persisted with the caller's transaction")
+    void testLogEvent_Persisted() {
+        auditService.logConfirmation(reservationId, "system");
+
+        verify(auditLogRepository).save(any(ReservationAuditLogEntity.class));
+    }
+
+    @Test
+    @DisplayName("async events should be queued and written in batches")
+    void testLogEvent_Async() {
+        List<Integer> batches = new ArrayList<>();
+        when(auditLogRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            batches.add(invocation.<List<?>>getArgument(0).size());
+            return invocation.getArgument(0);
+        });
+
+        for (int i = 0; i < 3; i++) {
+            auditService.logEvent(reservationId, ReservationAuditLogEntity.ENTRY_LOGGED, null, null, "Entry",
+                    "lock");
+        }
+        verify(auditLogRepository, never()).save(any());
+
+        auditService.flushAsyncEvents();
+
+        assertEquals(List.of(2, 1), batches);
+    }
+}
@@ -0,0 +1,160 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.neohoods.portal.platform.exceptions.CodedError;
+import com.neohoods.portal.platform.exceptions.CodedErrorException;
+import com.neohoods.portal.platform.services.HubEventsService;
+import com.neohoods.portal.platform.spaces.entities.ReservationAuditLogEntity;
+import com.neohoods.portal.platform.spaces.entities.ReservationEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReservationLifecycleService Unit Tests")
+class ReservationLifecycleServiceTest {
+
+    private static final int RESERVATIONS = 20_000;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private AccessCodeService accessCodeService;
+
+    @Mock
+    private LockCodeReconciliationService lockCodeReconciliationService;
+
+    @Mock
+    private HubEventsService hubEventsService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ReservationLifecycleService lifecycleService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    @DisplayName("20,000 activations should take one statement and load only the reservations without code")
+    void testActivateDueReservations() {
+        List<Object[]> rows = new ArrayList<>();
+        List<UUID> withoutCode = new ArrayList<>();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            UUID reservationId = UUID.randomUUID();
+            boolean missingCode = i % 1000 == 0;
+            if (missingCode) {
+                withoutCode.add(reservationId);
+            }
+            rows.add(new Object[] { reservationId, UUID.randomUUID(), "SUCCEEDED", missingCode });
+        }
+        when(reservationRepository.activateDueReservations(eq(today), any(), eq(ReservationAuditLogEntity.STATUS_CHANGE),
+                eq("Reservation status changed from CONFIRMED to ACTIVE"))).thenReturn(rows);
+        List<ReservationEntity> loaded = withoutCode.stream().map(id -> {
+            ReservationEntity reservation = new ReservationEntity();
+            reservation.setId(id);
+            return reservation;
+        }).toList();
+        when(reservationRepository.findAllById(withoutCode)).thenReturn(loaded);
+
+        assertEquals(RESERVATIONS, lifecycleService.activateDueReservations(today));
+
+        verify(reservationRepository).activateDueReservations(any(), any(), any(), any());
+        verify(reservationRepository).findAllById(anyList());
+        verifyNoMoreInteractions(reservationRepository);
+        verify(accessCodeService, times(withoutCode.size())).generateAccessCode(any());
+        verify(hubEventsService, times(RESERVATIONS)).publish(any(), eq(HubEventsService.RESERVATION_STATUS), any());
+    }
+
+    @Test
+    @DisplayName("a failing access code should be rolled back alone, the other codes and the activation committed")
+    void testActivateDueReservations_CodeFails() {
+        List<Object[]> rows = new ArrayList<>();
+        List<ReservationEntity> withoutCode = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ReservationEntity reservation = new ReservationEntity();
+            reservation.setId(UUID.randomUUID());
+            withoutCode.add(reservation);
+            rows.add(new Object[] { reservation.getId(), UUID.randomUUID(), "SUCCEEDED", true });
+        }
+        when(reservationRepository.activateDueReservations(eq(today), any(), any(), any())).thenReturn(rows);
+        when(reservationRepository.findAllById(anyList())).thenReturn(withoutCode);
+        lenient().doThrow(new CodedErrorException(CodedError.ACCESS_CODE_CREATION_FAILED, Map.of()))
+                .when(accessCodeService).generateAccessCode(withoutCode.get(1));
+
+        assertEquals(3, lifecycleService.activateDueReservations(today));
+
+        withoutCode.forEach(reservation -> verify(accessCodeService).generateAccessCode(reservation));
+        // One new transaction per code: two committed, the failing one rolled back
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(3)).getTransaction(definitions.capture());
+        definitions.getAllValues().forEach(definition -> assertEquals(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getPropagationBehavior()));
+        verify(transactionManager, times(2)).commit(any(TransactionStatus.class));
+        verify(transactionManager).rollback(any(TransactionStatus.class));
+        verify(hubEventsService, times(3)).publish(any(), eq(HubEventsService.RESERVATION_STATUS), any());
+    }
+
+    @Test
+    @DisplayName("20,000 completions should take one statement and reconcile each lock once")
+    void testCompleteDueReservations() {
+        UUID lockId = UUID.randomUUID();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            UUID reservationId = UUID.randomUUID();
+            UUID userId = UUID.randomUUID();
+            // Codes pushed to the lock, codes never pushed, no code
+            rows.add(switch (i % 3) {
+                case 0 -> new Object[] { reservationId, userId, "SUCCEEDED", lockId, "code-" + i };
+                case 1 -> new Object[] { reservationId, userId, "SUCCEEDED", lockId, null };
+                default -> new Object[] { reservationId, userId, null, null, null };
+            });
+        }
+        // A reservation with two deactivated codes
+        Object[] first = rows.get(0);
+        rows.add(new Object[] { first[0], first[1], first[2], lockId, "other-code" });
+        when(reservationRepository.completeDueReservations(eq(today), any(), eq(ReservationAuditLogEntity.STATUS_CHANGE),
+                eq("Reservation status changed from ACTIVE to COMPLETED"))).thenReturn(rows);
+
+        assertEquals(RESERVATIONS, lifecycleService.completeDueReservations(today));
+
+        verify(reservationRepository).completeDueReservations(any(), any(), any(), any());
+        verifyNoMoreInteractions(reservationRepository);
+        verify(lockCodeReconciliationService).requestReconcileAfterCommit(lockId);
+        verify(accessCodeService, never()).deactivateAccessCode(any());
+        verify(hubEventsService, times(RESERVATIONS)).publish(any(), eq(HubEventsService.RESERVATION_STATUS), any());
+    }
+}
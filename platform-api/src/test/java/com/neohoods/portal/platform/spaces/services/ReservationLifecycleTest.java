@@ -0,0 +1,155 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.neohoods.portal.platform.BaseIntegrationTest;
+import com.neohoods.portal.platform.entities.UserEntity;
+import com.neohoods.portal.platform.entities.UserStatus;
+import com.neohoods.portal.platform.entities.UserType;
+import com.neohoods.portal.platform.repositories.UsersRepository;
+import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.repositories.SpaceRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Statements issued by the date-driven reservation transitions, on a large
+ * number of due reservations.
+ */
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("Reservation lifecycle integration tests")
+public class ReservationLifecycleTest extends BaseIntegrationTest {
+
+    private static final int RESERVATIONS = 20_000;
+
+    @Autowired
+    private ReservationsService reservationsService;
+
+    @Autowired
+    private SpaceRepository spaceRepository;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private SpaceEntity space;
+    private UserEntity user;
+    private final String batch = UUID.randomUUID().toString().substring(0, 4);
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        space = spaceRepository.findAll().get(0);
+
+        // Own user, so only the reservations of the test are counted
+        user = new UserEntity();
+        user.setEmail("lifecycle-" + batch + "@neohoods.com");
+        user.setUsername("lifecycle-" + batch);
+        user.setType(UserType.TENANT);
+        user.setStatus(UserStatus.ACTIVE);
+        user = usersRepository.save(user);
+
+        // Transitions the reservations of the test data already due
+        reservationsService.processReservationsToActivate();
+        reservationsService.processReservationsToComplete();
+    }
+
+    /**
+     * Inserts due reservations with their access codes, in one statement each
+     */
+    private void insertReservations(String status, LocalDate startDate, LocalDate endDate) {
+        entityManager.createNativeQuery("INSERT INTO reservations (space_id, user_id, start_date, end_date, status, " +
+                "payment_status, total_price) " +
+                "SELECT :spaceId, :userId, :startDate, :endDate, :status, 'SUCCEEDED', 10 " +
+                "FROM generate_series(1, :count)")
+                .setParameter("spaceId", space.getId())
+                .setParameter("userId", user.getId())
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .setParameter("status", status)
+                .setParameter("count", RESERVATIONS)
+                .executeUpdate();
+        // Codes unique within the batch: its prefix and a counter
+        entityManager.createNativeQuery("INSERT INTO access_codes (reservation_id, code, expires_at, is_active) " +
+                "SELECT r.id, CAST(:batch AS text) || LPAD(CAST(ROW_NUMBER() OVER (ORDER BY r.id) AS text), 6, '0'), " +
+                "CAST(r.end_date AS timestamp) + INTERVAL '1 day', true " +
+                "FROM reservations r WHERE r.user_id = :userId AND r.status = :status " +
+                "AND r.start_date = :startDate AND r.end_date = :endDate " +
+                "AND NOT EXISTS (SELECT 1 FROM access_codes ac WHERE ac.reservation_id = r.id)")
+                .setParameter("batch", batch)
+                .setParameter("userId", user.getId())
+                .setParameter("status", status)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .executeUpdate();
+    }
+
+    private long count(String sql) {
+        return ((Number) entityManager.createNativeQuery(sql)
+                .setParameter("userId", user.getId())
+                .getSingleResult()).longValue();
+    }
+
+    @Test
+    @DisplayName("20,000 due reservations should be activated and audited in one statement")
+    void testActivateReservations() {
+        LocalDate today = LocalDate.now();
+        insertReservations("CONFIRMED", today, today.plusDays(2));
+        statistics.clear();
+
+        reservationsService.processReservationsToActivate();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, count("SELECT COUNT(*) FROM reservations WHERE user_id = :userId " +
+                "AND status = 'CONFIRMED'"));
+        assertEquals(RESERVATIONS, count("SELECT COUNT(*) FROM reservation_audit_log l " +
+                "JOIN reservations r ON r.id = l.reservation_id WHERE r.user_id = :userId " +
+                "AND l.event_type = 'STATUS_CHANGE' AND l.new_value = 'ACTIVE' " +
+                "AND l.performed_by = (SELECT u.username FROM users u WHERE u.id = :userId)"));
+
+        // Nothing left to activate
+        statistics.clear();
+        reservationsService.processReservationsToActivate();
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("20,000 ended reservations should be completed with their access codes in one statement")
+    void testCompleteReservations() {
+        LocalDate today = LocalDate.now();
+        insertReservations("ACTIVE", today.minusDays(3), today.minusDays(1));
+        statistics.clear();
+
+        reservationsService.processReservationsToComplete();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, count("SELECT COUNT(*) FROM reservations WHERE user_id = :userId " +
+                "AND status = 'ACTIVE'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM access_codes ac JOIN reservations r ON r.id = ac.reservation_id " +
+                "WHERE r.user_id = :userId AND r.status = 'COMPLETED' AND ac.is_active"));
+        assertEquals(RESERVATIONS, count("SELECT COUNT(*) FROM reservation_audit_log l " +
+                "JOIN reservations r ON r.id = l.reservation_id WHERE r.user_id = :userId " +
+                "AND l.event_type = 'STATUS_CHANGE' AND l.new_value = 'COMPLETED'"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import com.neohoods.portal.platform.exceptions.CodedErrorException;
+import com.neohoods.portal.platform.spaces.entities.ReservationStatusForEntity;
+import com.neohoods.portal.platform.spaces.repositories.ReservationListItem;
+import com.neohoods.portal.platform.spaces.repositories.ReservationRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Reservation listing Unit Tests")
+class ReservationListingTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @InjectMocks
+    private ReservationsService reservationsService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    @DisplayName("cursor should round-trip and reject garbage")
+    void testCursor() {
+        ReservationListingPage.Cursor cursor = new ReservationListingPage.Cursor(LocalDate.of(2025, 7, 14),
+                UUID.randomUUID());
+
+        assertEquals(cursor, ReservationListingPage.Cursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> ReservationListingPage.Cursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    @DisplayName("first page should read by keyset, count, and give the cursor of its last row")
+    void testFirstPage() {
+        List<ReservationListItem> rows = items(3);
+        when(reservationRepository.findListingPageAfter(isNull(), eq(userId), isNull(), isNull(), isNull(),
+                isNull(), eq(ReservationListingPage.Cursor.FIRST.startDate()),
+                eq(ReservationListingPage.Cursor.FIRST.id()), eq(PageRequest.of(0, 3)))).thenReturn(rows);
+        when(reservationRepository.countListing(null, userId, null, null, null, null)).thenReturn(42L);
+
+        ReservationListingPage page = reservationsService.getReservationListing(null, userId, null, null, null,
+                null, null, null, 2, null);
+
+        assertEquals(2, page.items().size());
+        assertEquals(42L, page.total());
+        assertEquals(ReservationListingPage.Cursor.after(rows.get(1)),
+                ReservationListingPage.Cursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    @DisplayName("next pages should resume after the cursor without counting unless asked")
+    void testNextPage() {
+        List<ReservationListItem> rows = items(1);
+        ReservationListingPage.Cursor cursor = new ReservationListingPage.Cursor(LocalDate.of(2025, 1, 1),
+                UUID.randomUUID());
+        when(reservationRepository.findListingPageAfter(any(), any(), any(), any(), any(), any(),
+                eq(cursor.startDate()), eq(cursor.id()), any())).thenReturn(rows);
+
+        ReservationListingPage page = reservationsService.getReservationListing(null, userId, null, null, null,
+                null, cursor.encode(), null, 2, null);
+
+        assertEquals(1, page.items().size());
+        assertEquals(ReservationListingPage.TOTAL_NOT_COUNTED, page.total());
+        assertNull(page.nextCursor());
+        verify(reservationRepository, never()).countListing(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("an invalid cursor should be rejected as invalid input")
+    void testInvalidCursor() {
+        assertThrows(CodedErrorException.class, () -> reservationsService.getReservationListing(null, userId,
+                null, null, null, null, "garbage", null, 20, false));
+    }
+
+    @Test
+    @DisplayName("a numbered page should still be served by offset")
+    void testOffsetPage() {
+        when(reservationRepository.findListingPage(null, null, ReservationStatusForEntity.CONFIRMED, null, null,
+                null, PageRequest.of(3, 2))).thenReturn(items(2));
+
+        ReservationListingPage page = reservationsService.getReservationListing(null, null,
+                ReservationStatusForEntity.CONFIRMED, null, null, null, null, 3, 2, false);
+
+        assertEquals(2, page.items().size());
+        assertEquals(ReservationListingPage.TOTAL_NOT_COUNTED, page.total());
+        assertEquals(ReservationListingPage.Cursor.after(page.items().get(1)),
+                ReservationListingPage.Cursor.decode(page.nextCursor()));
+    }
+
+    private List<ReservationListItem> items(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new ReservationListItem(UUID.randomUUID(), LocalDate.of(2025, 7, 1 + i),
+                        LocalDate.of(2025, 7, 2 + i), ReservationStatusForEntity.CONFIRMED, new BigDecimal("75.00"),
+                        null, null, null, null, null, LocalDateTime.now(), LocalDateTime.now(), UUID.randomUUID(),
+                        "Chambre d'hôtes", null, null, null, null, true, "EUR", BigDecimal.TEN, null, null, null,
+                        userId, "Alice", "Martin", "alice@example.com", true, null, "alice", false, null, null,
+                        null, null, null))
+                .toList();
+    }
+}
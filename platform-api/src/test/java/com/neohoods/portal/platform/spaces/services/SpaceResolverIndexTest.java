@@ -0,0 +1,111 @@
+package com.neohoods.portal.platform.spaces.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.neohoods.portal.platform.spaces.entities.SpaceEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceStatusForEntity;
+import com.neohoods.portal.platform.spaces.entities.SpaceTypeForEntity;
+import com.neohoods.portal.platform.spaces.repositories.SpaceRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SpaceResolverIndex Unit Tests")
+class SpaceResolverIndexTest {
+
+    @Mock
+    private SpaceRepository spaceRepository;
+
+    @InjectMocks
+    private SpaceResolverIndex spaceResolverIndex;
+
+    private SpaceEntity parking7;
+    private SpaceEntity parking23;
+    private SpaceEntity guestRoom;
+
+    @BeforeEach
+    void setUp() {
+        parking7 = space("Place de parking N°7", SpaceTypeForEntity.PARKING);
+        parking23 = space("Place de parking N°23", SpaceTypeForEntity.PARKING);
+        guestRoom = space("Chambre d'amis 7", SpaceTypeForEntity.GUEST_ROOM);
+        when(spaceRepository.findAll()).thenReturn(List.of(guestRoom, parking23, parking7));
+    }
+
+    @Test
+    @DisplayName("resolve should match ids, numbers, names and aliases")
+    void testResolve() {
+        assertEquals(parking23.getId(), spaceResolverIndex.resolve(parking23.getId().toString()).orElseThrow().id());
+        assertEquals(parking23.getId(), spaceResolverIndex.resolve("23").orElseThrow().id());
+        assertEquals(parking23.getId(), spaceResolverIndex.resolve("place de parking n°23").orElseThrow().id());
+        assertEquals(parking7.getId(), spaceResolverIndex.resolve("P7").orElseThrow().id());
+        assertEquals(parking7.getId(), spaceResolverIndex.resolve("parking 07").orElseThrow().id());
+        assertEquals(guestRoom.getId(), spaceResolverIndex.resolve("chambre d'amis").orElseThrow().id());
+        assertTrue(spaceResolverIndex.resolve("piscine").isEmpty());
+    }
+
+    @Test
+    @DisplayName("numbers should prefer parking spaces and be listed in order")
+    void testNumberToId() {
+        assertEquals(parking7.getId(), spaceResolverIndex.findByNumber("7").orElseThrow().id());
+        assertEquals(Map.of("7", parking7.getId().toString(), "23", parking23.getId().toString()),
+                spaceResolverIndex.getNumberToId(SpaceTypeForEntity.PARKING));
+        assertEquals(List.of("7", "23"),
+                List.copyOf(spaceResolverIndex.getNumberToId(SpaceTypeForEntity.PARKING).keySet()));
+    }
+
+    @Test
+    @DisplayName("active lookups should skip inactive spaces matching by name or number")
+    void testActiveOnly() {
+        SpaceEntity inactiveParking = space("Place de parking N°42", SpaceTypeForEntity.PARKING);
+        inactiveParking.setStatus(SpaceStatusForEntity.INACTIVE);
+        SpaceEntity closedGym = space("Salle de sport", SpaceTypeForEntity.COMMON_ROOM);
+        closedGym.setStatus(SpaceStatusForEntity.MAINTENANCE);
+        when(spaceRepository.findAll()).thenReturn(List.of(guestRoom, parking23, parking7, inactiveParking, closedGym));
+
+        assertTrue(spaceResolverIndex.resolveActive("place de parking n°42").isEmpty());
+        assertTrue(spaceResolverIndex.findActiveByNumber("42").isEmpty());
+        assertTrue(spaceResolverIndex.resolveActive("salle de sport").isEmpty());
+        assertTrue(spaceResolverIndex.resolveActive(closedGym.getId().toString()).isEmpty());
+        assertEquals(parking7.getId(), spaceResolverIndex.resolveActive("p7").orElseThrow().id());
+        assertEquals(Map.of("7", parking7.getId().toString(), "23", parking23.getId().toString()),
+                spaceResolverIndex.getNumberToId(SpaceTypeForEntity.PARKING));
+
+        // Still listed and resolvable outside the booking flow
+        assertEquals(inactiveParking.getId(), spaceResolverIndex.resolve("parking 42").orElseThrow().id());
+        assertEquals(5, spaceResolverIndex.getAll().size());
+    }
+
+    @Test
+    @DisplayName("the snapshot should be reused until invalidated")
+    void testInvalidate() {
+        spaceResolverIndex.getAll();
+        spaceResolverIndex.resolve("23");
+        verify(spaceRepository, times(1)).findAll();
+
+        spaceResolverIndex.invalidate();
+        spaceResolverIndex.getAll();
+        verify(spaceRepository, times(2)).findAll();
+    }
+
+    private static SpaceEntity space(String name, SpaceTypeForEntity type) {
+        SpaceEntity space = new SpaceEntity();
+        space.setId(UUID.randomUUID());
+        space.setName(name);
+        space.setType(type);
+        return space;
+    }
+}